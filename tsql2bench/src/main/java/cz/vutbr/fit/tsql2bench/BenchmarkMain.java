@@ -0,0 +1,57 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runner of benchmarks accepting the same options as JMH. GC profiler is
+ * added and results are written as JSON unless the options select other
+ * profilers or result format, so allocation rate and GC counts of every run
+ * are kept for comparison with the next one. Other listing and help options
+ * are available through org.openjdk.jmh.Main.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Run benchmarks.
+     *
+     * @param args JMH command line options, e.g. regular expression selecting
+     * benchmarks
+     * @throws RunnerException
+     * @throws CommandLineOptionException
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldList()) {
+            new Runner(options).list();
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (options.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(builder.build()).run();
+    }
+}
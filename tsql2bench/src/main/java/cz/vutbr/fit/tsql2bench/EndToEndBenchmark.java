@@ -0,0 +1,375 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
+import cz.vutbr.fit.tsql2lib.Utils;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementContext;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementListener;
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * End-to-end benchmarks of TSQL2 workloads on embedded in-memory HSQLDB.
+ * Each benchmark parses, translates and executes TSQL2 statement against
+ * {@link HistoryTable} loaded with history of given depth, so that scaling
+ * of generated statements with history can be tracked between releases.
+ *
+ * Throughput and latency percentiles are reported by JMH modes, numbers of
+ * generated SQL statements and of returned or updated rows by auxiliary
+ * counters. Modifying workloads are rolled back, so history keeps its
+ * depth during measurement. History of 10^7 rows needs several GB of heap,
+ * increase -Xmx of fork when needed.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class EndToEndBenchmark {
+
+    /**
+     * Tables used by benchmarks by name of benchmark method
+     */
+    private static final Map<String, HistoryTable> TABLES = new HashMap<>();
+
+    static {
+        TABLES.put("pointCurrent", HistoryTable.BITEMPORAL);
+        TABLES.put("timeSlice", HistoryTable.STATE);
+        TABLES.put("eventHistory", HistoryTable.EVENT);
+        TABLES.put("coalesced", HistoryTable.STATE);
+        TABLES.put("bitemporalUpdate", HistoryTable.BITEMPORAL);
+        TABLES.put("delete", HistoryTable.BITEMPORAL);
+    }
+
+    /**
+     * Embedded database with history of table used by benchmark
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        /**
+         * Number of rows of history
+         */
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int history;
+
+        /**
+         * Number of keys, each key has history / keys versions
+         */
+        @Param({"1000"})
+        public int keys;
+
+        /**
+         * URL of in-memory database
+         */
+        String url;
+
+        /**
+         * Connection keeping in-memory database open
+         */
+        private Connection _connection;
+
+        /**
+         * Create database and load history of table used by benchmark
+         *
+         * @param params Parameters of running benchmark
+         * @throws SQLException
+         */
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkParams params) throws SQLException {
+            String benchmark = params.getBenchmark();
+            HistoryTable table = TABLES.get(benchmark.substring(benchmark.lastIndexOf('.') + 1));
+
+            // catalog does not change during benchmark, as with deployed schema
+            TSQL2DatabaseMetaData.allowCaching = true;
+            url = "jdbc:hsqldb:mem:tsql2e2e" + System.nanoTime();
+            _connection = DriverManager.getConnection(url, "SA", "");
+            try (TSQL2Adapter con = new TSQL2Adapter(DriverManager.getConnection(url, "SA", ""));
+                    Statement stmt = con.createStatement()) {
+                table.create(stmt);
+            }
+            table.load(_connection, history, keys);
+        }
+
+        /**
+         * Drop in-memory database
+         *
+         * @throws SQLException
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            try (Statement stmt = _connection.createStatement()) {
+                stmt.execute("SHUTDOWN");
+            }
+            _connection.close();
+        }
+    }
+
+    /**
+     * Counters reported with results of each iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        /**
+         * Number of SQL statements generated by translation
+         */
+        public long generated;
+
+        /**
+         * Number of returned or updated rows
+         */
+        public long rows;
+
+        /**
+         * Reset counters before iteration
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            generated = 0;
+            rows = 0;
+        }
+    }
+
+    /**
+     * TSQL2 connection of benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        /**
+         * TSQL2 connection
+         */
+        TSQL2Adapter con;
+
+        /**
+         * Statement of TSQL2 connection
+         */
+        Statement stmt;
+
+        /**
+         * Generator of keys and times of statements, seeded so that
+         * statements are same in each run
+         */
+        Random random;
+
+        /**
+         * Number of keys
+         */
+        int keys;
+
+        /**
+         * Open TSQL2 connection to database
+         *
+         * @param db Database with history
+         * @param counters Counters of benchmark thread
+         * @throws SQLException
+         */
+        @Setup(Level.Trial)
+        public void setUp(Database db, final Counters counters) throws SQLException {
+            con = new TSQL2Adapter(DriverManager.getConnection(db.url, "SA", ""));
+            con.setStatementListener(new StatementListener() {
+                @Override
+                public void afterTranslate(StatementContext context, StatementType type, String[] statements) {
+                    counters.generated += statements.length;
+                }
+            });
+            stmt = con.createStatement();
+            random = new Random(42);
+            keys = db.keys;
+        }
+
+        /**
+         * Close TSQL2 connection
+         *
+         * @throws SQLException
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            stmt.close();
+            con.close();
+        }
+
+        /**
+         * Get random key
+         *
+         * @return Key
+         */
+        int key() {
+            return random.nextInt(keys);
+        }
+
+        /**
+         * Get random time within history
+         *
+         * @return Time as TSQL2 literal
+         */
+        String time() {
+            long span = HistoryTable.HISTORY_END - HistoryTable.HISTORY_START;
+            return Utils.timeToString(HistoryTable.HISTORY_START + (long) (random.nextDouble() * span),
+                    DateTimeScale.SECOND);
+        }
+
+        /**
+         * Execute query and count its rows
+         *
+         * @param sql TSQL2 query
+         * @param counters Counters of benchmark thread
+         * @return Number of rows
+         * @throws SQLException
+         */
+        int query(String sql, Counters counters) throws SQLException {
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    count++;
+                }
+            }
+            counters.rows += count;
+            return count;
+        }
+
+        /**
+         * Execute modifying statement and roll it back
+         *
+         * @param sql TSQL2 statement
+         * @param counters Counters of benchmark thread
+         * @return Number of updated rows
+         * @throws SQLException
+         */
+        int update(String sql, Counters counters) throws SQLException {
+            con.setAutoCommit(false);
+            try {
+                int count = stmt.executeUpdate(sql);
+                counters.rows += count;
+                return count;
+            } finally {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Current version of one key in bitemporal table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int pointCurrent(Session session, Counters counters) throws SQLException {
+        return session.query("SELECT * FROM e2e_bitemporal a WHERE a.id = " + session.key()
+                + " AND VALID(a) CONTAINS DATE '2030-01-01'", counters);
+    }
+
+    /**
+     * Versions of all keys valid at one time in state table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int timeSlice(Session session, Counters counters) throws SQLException {
+        return session.query("SELECT * FROM e2e_state a WHERE VALID(a) CONTAINS DATE '" + session.time() + "'",
+                counters);
+    }
+
+    /**
+     * Events of one key preceding one time in event table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int eventHistory(Session session, Counters counters) throws SQLException {
+        return session.query("SELECT * FROM e2e_event a WHERE a.id = " + session.key()
+                + " AND VALID(a) PRECEDES DATE '" + session.time() + "'", counters);
+    }
+
+    /**
+     * History of one key coalesced on key in state table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int coalesced(Session session, Counters counters) throws SQLException {
+        return session.query("SELECT * FROM e2e_state(id) a WHERE a.id = " + session.key(), counters);
+    }
+
+    /**
+     * Update of one key from one time until FOREVER in bitemporal table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of updated rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int bitemporalUpdate(Session session, Counters counters) throws SQLException {
+        return session.update("UPDATE e2e_bitemporal SET val = -1 VALID PERIOD [" + session.time()
+                + " - FOREVER] WHERE id = " + session.key(), counters);
+    }
+
+    /**
+     * Delete of one key in period starting at one time in bitemporal table
+     *
+     * @param session TSQL2 connection
+     * @param counters Counters of benchmark thread
+     * @return Number of updated rows
+     * @throws SQLException
+     */
+    @Benchmark
+    public int delete(Session session, Counters counters) throws SQLException {
+        return session.update("DELETE FROM e2e_bitemporal WHERE id = " + session.key() + " VALID PERIOD ["
+                + session.time() + " - FOREVER]", counters);
+    }
+}
@@ -0,0 +1,532 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Seeded generator of synthetic histories of {@link HistoryTable} and of
+ * replayable workloads on them.
+ *
+ * History of each key is a sequence of adjacent versions, their number
+ * (update churn) and valid-time lengths are drawn from configured
+ * distributions. Last version of key is valid until FOREVER with configured
+ * probability. Transaction time of version starts with its valid time,
+ * backdated versions are recorded later by delay drawn from exponential
+ * distribution, but not after fixed reference time which stands for the time
+ * of loading. Versions are streamed by batches of plain inserts into
+ * underlying database without keeping them in memory, so histories of
+ * hundreds of millions of versions are limited by database only.
+ *
+ * Workload is a mix of TSQL2 queries and modifications written as script of
+ * statements separated by semicolons, which can be replayed by console or
+ * IndexAdvisorReport. Same seed and settings always give same history and
+ * same workload.
+ *
+ * Usage: HistoryGenerator url user password table keys versions script
+ * statements [seed]
+ */
+public class HistoryGenerator {
+
+    /**
+     * Distribution of random values with given mean
+     */
+    public enum Distribution {
+
+        /**
+         * Always the mean
+         */
+        FIXED,
+        /**
+         * Uniform between 1 and twice the mean
+         */
+        UNIFORM,
+        /**
+         * Exponential, at least 1
+         */
+        EXPONENTIAL;
+
+        /**
+         * Draw value
+         *
+         * @param random Generator of random numbers
+         * @param mean Mean of values
+         * @return Value, at least 1
+         */
+        long sample(SplittableRandom random, long mean) {
+            switch (this) {
+                case UNIFORM:
+                    return (mean <= 1) ? 1 : random.nextLong(1, 2 * mean);
+                case EXPONENTIAL:
+                    return Math.max(1, Math.round(-mean * Math.log(1 - random.nextDouble())));
+                default:
+                    return mean;
+            }
+        }
+    }
+
+    /**
+     * Operations of generated workload
+     */
+    public enum Operation {
+
+        /**
+         * Current version of one key
+         */
+        POINT_CURRENT,
+        /**
+         * Versions of all keys valid at one time, events preceding one time
+         * on event tables
+         */
+        TIME_SLICE,
+        /**
+         * History of one key coalesced on key, time slice on event tables
+         */
+        COALESCED,
+        /**
+         * Insert of new key
+         */
+        INSERT,
+        /**
+         * Update of one key from one time until FOREVER
+         */
+        UPDATE,
+        /**
+         * Delete of one key in one period
+         */
+        DELETE
+    }
+
+    /**
+     * Number of rows inserted by one batch
+     */
+    private static final int BATCH_SIZE = 10000;
+
+    /**
+     * Seed of random numbers
+     */
+    private long _seed = 1;
+    /**
+     * Number of keys
+     */
+    private int _keys = 1000;
+    /**
+     * Mean number of versions of key
+     */
+    private int _versions = 10;
+    /**
+     * Distribution of number of versions of key
+     */
+    private Distribution _churn = Distribution.FIXED;
+    /**
+     * Start of history
+     */
+    private long _start = HistoryTable.HISTORY_START;
+    /**
+     * Maximal delay of first version of key after start of history
+     */
+    private long _stagger = 0;
+    /**
+     * Mean valid-time length of version in seconds
+     */
+    private long _period = 30 * DateTimeScale.DAY.getChronons();
+    /**
+     * Distribution of valid-time length of version
+     */
+    private Distribution _periodDistribution = Distribution.FIXED;
+    /**
+     * Probability that last version of key is valid until FOREVER
+     */
+    private double _openRatio = 1;
+    /**
+     * Table has SURROGATE column sid
+     */
+    private boolean _surrogate = false;
+    /**
+     * Probability that version is recorded later than it became valid
+     */
+    private double _backdatedRatio = 0;
+    /**
+     * Mean delay of recording of backdated version in seconds
+     */
+    private long _backdating = 7 * DateTimeScale.DAY.getChronons();
+    /**
+     * Reference time of loading, no version is recorded later
+     */
+    private long _recordedUntil = HistoryTable.HISTORY_END;
+    /**
+     * Weights of workload operations by ordinal
+     */
+    private final int[] _weights = {40, 20, 5, 10, 20, 5};
+
+    /**
+     * Set seed of random numbers
+     *
+     * @param seed Seed
+     */
+    public void setSeed(long seed) {
+        _seed = seed;
+    }
+
+    /**
+     * Set number of keys
+     *
+     * @param keys Number of keys
+     */
+    public void setKeys(int keys) {
+        _keys = keys;
+    }
+
+    /**
+     * Set mean number of versions of key
+     *
+     * @param versions Mean number of versions
+     */
+    public void setVersions(int versions) {
+        _versions = versions;
+    }
+
+    /**
+     * Set distribution of number of versions of key
+     *
+     * @param churn Distribution
+     */
+    public void setChurn(Distribution churn) {
+        _churn = churn;
+    }
+
+    /**
+     * Set start of history
+     *
+     * @param start Time in seconds in Unix timestamp
+     */
+    public void setStart(long start) {
+        _start = start;
+    }
+
+    /**
+     * Set maximal delay of first version of key after start of history,
+     * delays are uniformly distributed
+     *
+     * @param stagger Delay in seconds
+     */
+    public void setStagger(long stagger) {
+        _stagger = stagger;
+    }
+
+    /**
+     * Set mean valid-time length of version
+     *
+     * @param period Length in seconds
+     */
+    public void setPeriod(long period) {
+        _period = period;
+    }
+
+    /**
+     * Set distribution of valid-time length of version
+     *
+     * @param distribution Distribution
+     */
+    public void setPeriodDistribution(Distribution distribution) {
+        _periodDistribution = distribution;
+    }
+
+    /**
+     * Set probability that last version of key is valid until FOREVER
+     *
+     * @param ratio Probability from 0 to 1
+     */
+    public void setOpenRatio(double ratio) {
+        _openRatio = ratio;
+    }
+
+    /**
+     * Set if table has SURROGATE column sid with one value for each key
+     *
+     * @param surrogate Table has SURROGATE column
+     */
+    public void setSurrogate(boolean surrogate) {
+        _surrogate = surrogate;
+    }
+
+    /**
+     * Set probability that version is recorded later than it became valid
+     *
+     * @param ratio Probability from 0 to 1
+     */
+    public void setBackdatedRatio(double ratio) {
+        _backdatedRatio = ratio;
+    }
+
+    /**
+     * Set mean delay of recording of backdated version
+     *
+     * @param backdating Delay in seconds
+     */
+    public void setBackdating(long backdating) {
+        _backdating = backdating;
+    }
+
+    /**
+     * Set reference time of loading. Transaction time of versions never
+     * starts later, so it must not be in future of database time. It is fixed
+     * rather than current time, so same seed gives same history whenever it
+     * is loaded.
+     *
+     * @param recordedUntil Time in seconds in Unix timestamp
+     */
+    public void setRecordedUntil(long recordedUntil) {
+        _recordedUntil = recordedUntil;
+    }
+
+    /**
+     * Set weight of operation in workload
+     *
+     * @param operation Operation
+     * @param weight Weight, 0 to leave operation out
+     */
+    public void setWeight(Operation operation, int weight) {
+        _weights[operation.ordinal()] = weight;
+    }
+
+    /**
+     * Get expected end of history
+     *
+     * @return Time in seconds in Unix timestamp
+     */
+    public long getEnd() {
+        return _start + _stagger / 2 + (long) _versions * _period;
+    }
+
+    /**
+     * Create table through TSQL2 connection and load generated history into
+     * it. Counter of SURROGATE column continues after generated values.
+     *
+     * @param con TSQL2 connection
+     * @param table Table to create
+     * @return Number of generated versions
+     * @throws SQLException
+     */
+    public long populate(TSQL2Adapter con, HistoryTable table) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            table.create(stmt, _surrogate);
+        }
+        Connection underlying = con.getUnderlyingConnection();
+        long rows = load(underlying, table);
+        if (_surrogate) {
+            try (PreparedStatement update = underlying.prepareStatement("UPDATE " + Settings.SurrogateTableName
+                    + " SET next_value = ? WHERE table_name = ? AND column_name = ?")) {
+                update.setLong(1, _keys + 1L);
+                update.setString(2, table.getName().toUpperCase());
+                update.setString(3, "SID");
+                update.executeUpdate();
+            }
+            if (!underlying.getAutoCommit()) {
+                underlying.commit();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Load generated history into existing empty table through underlying
+     * connection, transaction is committed after each batch.
+     *
+     * @param con Underlying database connection
+     * @param table Table created with same surrogate setting
+     * @return Number of generated versions
+     * @throws SQLException
+     */
+    public long load(Connection con, HistoryTable table) throws SQLException {
+        final SplittableRandom random = new SplittableRandom(_seed);
+        long rows = 0;
+
+        boolean autoCommit = con.getAutoCommit();
+        con.setAutoCommit(false);
+        try (PreparedStatement insert = con.prepareStatement(table.getInsert(_surrogate))) {
+            int batch = 0;
+            for (int key = 0; key < _keys; key++) {
+                int versions = (int) _churn.sample(random, _versions);
+                long start = _start + ((_stagger > 0) ? random.nextLong(_stagger) : 0);
+                boolean open = random.nextDouble() < _openRatio;
+                for (int version = 0; version < versions; version++) {
+                    long end = start + _periodDistribution.sample(random, _period);
+                    if (open && version == versions - 1) {
+                        end = Constants.FOREVER;
+                    }
+                    int i = 1;
+                    insert.setInt(i++, key);
+                    if (_surrogate) {
+                        insert.setLong(i++, key + 1L);
+                    }
+                    insert.setInt(i++, version);
+                    insert.setLong(i++, start);
+                    if (table.isState()) {
+                        insert.setLong(i++, end);
+                    }
+                    if (table.hasTransactionTime()) {
+                        long recorded = start;
+                        if (_backdatedRatio > 0 && random.nextDouble() < _backdatedRatio) {
+                            recorded += Distribution.EXPONENTIAL.sample(random, _backdating);
+                        }
+                        insert.setLong(i++, Math.min(recorded, _recordedUntil));
+                        insert.setLong(i++, Constants.FOREVER);
+                    }
+                    insert.addBatch();
+                    rows++;
+                    if (++batch == BATCH_SIZE) {
+                        insert.executeBatch();
+                        con.commit();
+                        batch = 0;
+                    }
+                    start = end;
+                }
+            }
+            if (batch > 0) {
+                insert.executeBatch();
+            }
+            con.commit();
+        } finally {
+            con.setAutoCommit(autoCommit);
+        }
+        return rows;
+    }
+
+    /**
+     * Write workload on table generated with same settings. Statements are
+     * separated by semicolons, one statement per line.
+     *
+     * @param out Output of script
+     * @param table Table of workload
+     * @param count Number of statements
+     * @throws IOException
+     */
+    public void writeWorkload(Writer out, HistoryTable table, int count) throws IOException {
+        final SplittableRandom random = new SplittableRandom(_seed + 1);
+        final String name = table.getName();
+        final boolean event = !table.isState();
+        final long end = getEnd();
+        int total = 0;
+        for (int weight : _weights) {
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("No operation of workload has positive weight.");
+        }
+
+        out.write("-- workload of " + count + " statements on " + name + ", seed " + _seed + "\n");
+        int inserted = 0;
+        for (int n = 0; n < count; n++) {
+            int choice = random.nextInt(total);
+            Operation operation = null;
+            for (Operation o : Operation.values()) {
+                choice -= _weights[o.ordinal()];
+                if (choice < 0) {
+                    operation = o;
+                    break;
+                }
+            }
+            if (event && operation == Operation.COALESCED) {
+                operation = Operation.TIME_SLICE;
+            }
+            int key = random.nextInt(_keys + inserted);
+            long at = _start + random.nextLong(end - _start);
+            String time = Utils.timeToString(at, DateTimeScale.SECOND);
+
+            String sql;
+            switch (operation) {
+                case POINT_CURRENT:
+                    sql = "SELECT * FROM " + name + " a WHERE a.id = " + key
+                            + (event ? " AND VALID(a) PRECEDES DATE NOW" : " AND VALID(a) CONTAINS DATE NOW");
+                    break;
+                case COALESCED:
+                    sql = "SELECT * FROM " + name + "(id) a WHERE a.id = " + key;
+                    break;
+                case TIME_SLICE:
+                    sql = "SELECT * FROM " + name + " a WHERE VALID(a)"
+                            + (event ? " PRECEDES" : " CONTAINS") + " DATE '" + time + "'";
+                    break;
+                case INSERT:
+                    sql = "INSERT INTO " + name + " VALUES (" + (_keys + inserted++) + (_surrogate ? ", NEW, " : ", ")
+                            + random.nextInt(1000) + ")"
+                            + (event ? " VALID DATE '" + time + "'" : " VALID PERIOD [" + time + " - FOREVER]");
+                    break;
+                case UPDATE:
+                    sql = "UPDATE " + name + " SET val = " + random.nextInt(1000)
+                            + (event ? "" : " VALID PERIOD [" + time + " - FOREVER]") + " WHERE id = " + key;
+                    break;
+                default:
+                    sql = "DELETE FROM " + name + " WHERE id = " + key + " VALID PERIOD [" + time + " - "
+                            + Utils.timeToString(at + _period, DateTimeScale.SECOND) + "]";
+                    break;
+            }
+            out.write(sql);
+            out.write(";\n");
+        }
+    }
+
+    /**
+     * Generate history of table and workload script.
+     *
+     * @param args JDBC URL, user, password, table STATE, EVENT or BITEMPORAL,
+     * number of keys, mean number of versions of key, file of workload script,
+     * number of workload statements and optional seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 8) {
+            System.err.println("Usage: HistoryGenerator url user password table keys versions script statements [seed]");
+            System.exit(2);
+        }
+        HistoryTable table = HistoryTable.valueOf(args[3].toUpperCase());
+        HistoryGenerator generator = new HistoryGenerator();
+        generator.setKeys(Integer.parseInt(args[4]));
+        generator.setVersions(Integer.parseInt(args[5]));
+        if (args.length > 8) {
+            generator.setSeed(Long.parseLong(args[8]));
+        }
+
+        try (TSQL2Adapter con = new TSQL2Adapter(DriverManager.getConnection(args[0], args[1], args[2]))) {
+            long started = System.nanoTime();
+            long rows = generator.populate(con, table);
+            System.out.println("Generated " + rows + " versions of " + table.getName() + " in "
+                    + (System.nanoTime() - started) / 1000000 + " ms");
+
+            try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[6]), StandardCharsets.UTF_8)) {
+                generator.writeWorkload(out, table, Integer.parseInt(args[7]));
+            }
+        }
+        catch (IOException | SQLException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import cz.vutbr.fit.tsql2lib.Settings;
+
+/**
+ * Temporal tables of end-to-end benchmarks. Table is created by TSQL2 so it
+ * carries the same temporal columns and keys as in applications, but its
+ * history is bulk loaded by {@link HistoryGenerator} through plain inserts
+ * into underlying database, because loading millions of versions by TSQL2
+ * statements would take longer than benchmark itself.
+ *
+ * History of {@link #load} is a sequence of versions of each key, which
+ * evenly divide {@link #HISTORY_START} to {@link #HISTORY_END}. Last version
+ * of each key is valid until FOREVER, bitemporal versions are all current in
+ * transaction time.
+ */
+enum HistoryTable {
+
+    /**
+     * Valid-time state table
+     */
+    STATE("e2e_state", "AS VALID STATE", true, false),
+    /**
+     * Valid-time event table
+     */
+    EVENT("e2e_event", "AS VALID EVENT", false, false),
+    /**
+     * Bitemporal state table
+     */
+    BITEMPORAL("e2e_bitemporal", "AS VALID STATE AND TRANSACTION", true, true);
+
+    /**
+     * Start of loaded history - 2000-01-01 00:00:00 UTC
+     */
+    public static final long HISTORY_START = 946684800L;
+    /**
+     * End of loaded history - 2020-01-01 00:00:00 UTC
+     */
+    public static final long HISTORY_END = 1577836800L;
+    /**
+     * Name of table
+     */
+    private final String _name;
+    /**
+     * Temporal specification of table in CREATE TABLE
+     */
+    private final String _temporal;
+    /**
+     * Table has valid-time end column
+     */
+    private final boolean _state;
+    /**
+     * Table has transaction-time columns
+     */
+    private final boolean _transaction;
+
+    /**
+     * Create temporal table
+     *
+     * @param name Name of table
+     * @param temporal Temporal specification of table in CREATE TABLE
+     * @param state Table has valid-time end column
+     * @param transaction Table has transaction-time columns
+     */
+    private HistoryTable(String name, String temporal, boolean state, boolean transaction) {
+        _name = name;
+        _temporal = temporal;
+        _state = state;
+        _transaction = transaction;
+    }
+
+    /**
+     * Get name of table
+     *
+     * @return Name of table
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Check if table has valid-time end column
+     *
+     * @return True for state tables
+     */
+    public boolean isState() {
+        return _state;
+    }
+
+    /**
+     * Check if table has transaction-time columns
+     *
+     * @return True for bitemporal tables
+     */
+    public boolean hasTransactionTime() {
+        return _transaction;
+    }
+
+    /**
+     * Create table by TSQL2 statement.
+     *
+     * @param stmt Statement of TSQL2 connection
+     * @throws SQLException
+     */
+    public void create(Statement stmt) throws SQLException {
+        create(stmt, false);
+    }
+
+    /**
+     * Create table by TSQL2 statement, optionally with SURROGATE column sid
+     * identifying key across its versions.
+     *
+     * @param stmt Statement of TSQL2 connection
+     * @param surrogate Add SURROGATE column
+     * @throws SQLException
+     */
+    public void create(Statement stmt, boolean surrogate) throws SQLException {
+        stmt.execute("CREATE TABLE " + _name + " (id INT NOT NULL PRIMARY KEY, "
+                + (surrogate ? "sid SURROGATE, " : "") + "val INT) " + _temporal);
+    }
+
+    /**
+     * Get plain insert of one version into underlying database. Parameters
+     * are id, sid if surrogate, val and temporal columns of table.
+     *
+     * @param surrogate Table has SURROGATE column
+     * @return SQL insert
+     */
+    public String getInsert(boolean surrogate) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(_name).append(" (id, ")
+                .append(surrogate ? "sid, " : "").append("val, ").append(Settings.ValidTimeStartColumnName);
+        String values = surrogate ? "?, ?, ?, ?" : "?, ?, ?";
+        if (_state) {
+            sql.append(", ").append(Settings.ValidTimeEndColumnName);
+            values += ", ?";
+        }
+        if (_transaction) {
+            sql.append(", ").append(Settings.TransactionTimeStartColumnName)
+                    .append(", ").append(Settings.TransactionTimeEndColumnName);
+            values += ", ?, ?";
+        }
+        return sql.append(") VALUES (").append(values).append(")").toString();
+    }
+
+    /**
+     * Get number of versions of each key in history of given depth
+     *
+     * @param history Number of rows of history
+     * @param keys Number of keys
+     * @return Number of versions of each key
+     */
+    public static int getVersions(int history, int keys) {
+        return Math.max(1, history / keys);
+    }
+
+    /**
+     * Get time between two versions of one key in history of given depth
+     *
+     * @param history Number of rows of history
+     * @param keys Number of keys
+     * @return Time between versions in seconds
+     */
+    public static long getStep(int history, int keys) {
+        return Math.max(1, (HISTORY_END - HISTORY_START) / getVersions(history, keys));
+    }
+
+    /**
+     * Load evenly divided history into table through underlying connection.
+     * Table must be empty.
+     *
+     * @param con Underlying database connection
+     * @param history Number of rows of history
+     * @param keys Number of keys
+     * @throws SQLException
+     */
+    public void load(Connection con, int history, int keys) throws SQLException {
+        HistoryGenerator generator = new HistoryGenerator();
+        generator.setKeys(keys);
+        generator.setVersions(getVersions(history, keys));
+        generator.setPeriod(getStep(history, keys));
+        generator.setStart(HISTORY_START);
+        generator.load(con, this);
+    }
+}
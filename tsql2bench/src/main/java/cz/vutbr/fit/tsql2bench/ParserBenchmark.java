@@ -0,0 +1,214 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
+import cz.vutbr.fit.tsql2lib.parser.TSQL2ParserAdapter;
+
+/**
+ * Benchmarks of TSQL2 parser on statements of tests.sql of tsql2console and
+ * on synthetic wide SELECT statements and long OR chains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    /**
+     * Statements of tests.sql which the parser accepts.
+     */
+    @State(Scope.Benchmark)
+    public static class Corpus {
+
+        /**
+         * Parsed statements
+         */
+        List<String> statements;
+
+        /**
+         * Load statements of tests.sql, comment lines are removed and
+         * statements the parser rejects are skipped.
+         *
+         * @throws IOException
+         */
+        @Setup
+        public void setUp() throws IOException {
+            statements = new ArrayList<>();
+            TSQL2ParserAdapter parser = new TSQL2ParserAdapter();
+            for (String statement : loadScript("tests.sql")) {
+                try {
+                    parser.parse(statement);
+                    statements.add(statement);
+                } catch (TSQL2Exception e) {
+                    // not valid TSQL2, e.g. separators of examples
+                }
+            }
+            if (statements.isEmpty()) {
+                throw new IllegalStateException("No statement of tests.sql was parsed.");
+            }
+        }
+    }
+
+    /**
+     * Synthetic statements of selected size.
+     */
+    @State(Scope.Benchmark)
+    public static class Synthetic {
+
+        /**
+         * Number of selected columns or OR terms
+         */
+        @Param({"10", "100", "1000"})
+        public int size;
+
+        /**
+         * SELECT with size columns
+         */
+        String wideSelect;
+        /**
+         * SELECT with size OR terms in WHERE clause
+         */
+        String orChain;
+
+        /**
+         * Generate statements.
+         */
+        @Setup
+        public void setUp() {
+            StringBuilder sb = new StringBuilder("SELECT ");
+            for (int i = 0; i < size; i++) {
+                sb.append((i > 0) ? ", " : "").append("e.name AS c").append(i);
+            }
+            wideSelect = sb.append(" FROM employee e WHERE e.id = 1").toString();
+
+            sb.setLength(0);
+            sb.append("SELECT * FROM employee WHERE ");
+            for (int i = 0; i < size; i++) {
+                sb.append((i > 0) ? " OR " : "").append("id = ").append(i);
+            }
+            orChain = sb.toString();
+        }
+    }
+
+    /**
+     * Parser used by one thread.
+     */
+    @State(Scope.Thread)
+    public static class Parser {
+
+        /**
+         * Parser
+         */
+        final TSQL2ParserAdapter parser = new TSQL2ParserAdapter();
+    }
+
+    /**
+     * Read resource of this package as statements separated by semicolons.
+     * Lines starting with -- are comments.
+     *
+     * @param name Name of resource
+     * @return Statements
+     * @throws IOException
+     */
+    static List<String> loadScript(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = ParserBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Resource " + name + " not found.");
+            }
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0;) {
+                bytes.write(buffer, 0, n);
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\r?\n")) {
+            if (!line.trim().startsWith("--")) {
+                text.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String statement : text.toString().split(";")) {
+            if (!statement.trim().isEmpty()) {
+                statements.add(statement.trim());
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Parse all statements of tests.sql.
+     *
+     * @param corpus Statements
+     * @param parser Parser
+     * @param bh Consumer of parse trees
+     * @throws TSQL2Exception
+     */
+    @Benchmark
+    public void corpus(Corpus corpus, Parser parser, Blackhole bh) throws TSQL2Exception {
+        for (String statement : corpus.statements) {
+            bh.consume(parser.parser.parse(statement));
+        }
+    }
+
+    /**
+     * Parse SELECT with many columns.
+     *
+     * @param synthetic Statements
+     * @param parser Parser
+     * @return Parse tree
+     * @throws TSQL2Exception
+     */
+    @Benchmark
+    public SimpleNode wideSelect(Synthetic synthetic, Parser parser) throws TSQL2Exception {
+        return parser.parser.parse(synthetic.wideSelect);
+    }
+
+    /**
+     * Parse SELECT with long OR chain.
+     *
+     * @param synthetic Statements
+     * @param parser Parser
+     * @return Parse tree
+     * @throws TSQL2Exception
+     */
+    @Benchmark
+    public SimpleNode orChain(Synthetic synthetic, Parser parser) throws TSQL2Exception {
+        return parser.parser.parse(synthetic.orChain);
+    }
+}
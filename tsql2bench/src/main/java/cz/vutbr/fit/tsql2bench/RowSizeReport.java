@@ -0,0 +1,130 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
+
+/**
+ * Report of size of rows returned by database for temporal queries on
+ * embedded in-memory HSQLDB. Rows are read from underlying result set, so
+ * columns hidden from user, e.g. period ends, are counted too. Numbers are
+ * sized by their SQL type and other values as UTF-8 strings with 4 byte
+ * length, which is close to size of rows sent by database and kept by
+ * materialized results. Report of library built before other change of
+ * result columns can be compared with the current one.
+ */
+public class RowSizeReport {
+
+    /**
+     * Measured queries
+     */
+    private static final String[] QUERIES = {
+        "SELECT * FROM e2e_state a",
+        "SELECT * FROM e2e_event a",
+        "SELECT * FROM e2e_bitemporal a",
+        "SELECT SNAPSHOT a.id, VALID(a) FROM e2e_state a",
+        "SELECT SNAPSHOT a.id, TRANSACTION(a) FROM e2e_bitemporal a",
+        "SELECT SNAPSHOT a.id, INTERSECT(VALID(a), VALID(b)) FROM e2e_state a, e2e_bitemporal b WHERE a.id = b.id"
+    };
+
+    /**
+     * Get size of current row of result set.
+     *
+     * @param res Underlying result set
+     * @param md Metadata of result set
+     * @return Size of row in bytes
+     * @throws SQLException
+     */
+    static long getRowSize(ResultSet res, ResultSetMetaData md) throws SQLException {
+        long size = 0;
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            switch (md.getColumnType(i)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.REAL:
+                    size += 4;
+                    break;
+                case Types.BIGINT:
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                    size += 8;
+                    break;
+                default:
+                    String value = res.getString(i);
+                    size += 4 + ((value == null) ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Load history of all tables and print number of columns and mean size
+     * of rows of measured queries.
+     *
+     * @param args Optional number of rows of history of each table, 10000 by
+     * default, and number of keys, 100 by default
+     */
+    public static void main(String[] args) {
+        int history = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int keys = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+
+        TSQL2DatabaseMetaData.allowCaching = true;
+        String url = "jdbc:hsqldb:mem:tsql2rows";
+        try (Connection base = DriverManager.getConnection(url, "SA", "");
+                TSQL2Adapter con = new TSQL2Adapter(DriverManager.getConnection(url, "SA", ""));
+                Statement stmt = con.createStatement()) {
+            for (HistoryTable table : HistoryTable.values()) {
+                table.create(stmt);
+                table.load(base, history, keys);
+            }
+
+            System.out.println(String.format("%8s %10s %10s  %s", "columns", "rows", "bytes/row", "query"));
+            for (String query : QUERIES) {
+                long rows = 0;
+                long bytes = 0;
+                int columns;
+                try (ResultSet res = stmt.executeQuery(query)) {
+                    ResultSet original = res.unwrap(ResultSet.class);
+                    ResultSetMetaData md = original.getMetaData();
+                    columns = md.getColumnCount();
+                    while (original.next()) {
+                        rows++;
+                        bytes += getRowSize(original, md);
+                    }
+                }
+                System.out.println(String.format("%8d %10d %10.1f  %s", columns, rows,
+                        (rows == 0) ? 0.0 : (double) bytes / rows, query));
+            }
+
+            try (Statement shutdown = base.createStatement()) {
+                shutdown.execute("SHUTDOWN");
+            }
+        }
+        catch (SQLException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
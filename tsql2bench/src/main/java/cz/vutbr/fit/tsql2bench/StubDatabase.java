@@ -0,0 +1,331 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cz.vutbr.fit.tsql2lib.CachedResultSetMetaData;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DatabaseType;
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Context;
+import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.TableInfo;
+
+/**
+ * In-memory stub of HSQL database with fixed temporal catalog, so
+ * translators can be measured without database round trips.
+ *
+ * Catalog contains bitemporal table EMPLOYEE (id, name, salary, dept_id)
+ * and valid-time table DEPARTMENT (id, name, budget), both with primary key
+ * id. Queries return no rows, "SELECT * FROM table" queries return columns of
+ * the table, and updates affect no rows.
+ */
+final class StubDatabase {
+
+    /**
+     * Query for columns of table used by translators
+     */
+    private static final Pattern SELECT_ALL = Pattern.compile("(?i)\\s*SELECT \\* FROM (\\w+)\\s*");
+
+    /**
+     * Columns of stubbed tables by uppercase table name
+     */
+    private static final Map<String, String[]> COLUMNS = new HashMap<>();
+    /**
+     * Temporal support of stubbed tables by uppercase table name, valid time
+     * and transaction time
+     */
+    private static final Map<String, String[]> SUPPORT = new HashMap<>();
+
+    static {
+        COLUMNS.put("EMPLOYEE", new String[]{"ID", "NAME", "SALARY", "DEPT_ID",
+            Settings.ValidTimeStartColumnNameRaw, Settings.ValidTimeEndColumnNameRaw,
+            Settings.TransactionTimeStartColumnNameRaw, Settings.TransactionTimeEndColumnNameRaw});
+        SUPPORT.put("EMPLOYEE", new String[]{Constants.STATE, Constants.STATE});
+        COLUMNS.put("DEPARTMENT", new String[]{"ID", "NAME", "BUDGET",
+            Settings.ValidTimeStartColumnNameRaw, Settings.ValidTimeEndColumnNameRaw});
+        SUPPORT.put("DEPARTMENT", new String[]{Constants.STATE, Constants.NONE});
+    }
+
+    /**
+     * Context initializing environment for HSQL without querying database.
+     */
+    private static final class StubContext extends TSQL2Context {
+
+        @Override
+        public void init(Connection con) throws TSQL2Exception {
+            if (Settings.DatabaseType != DatabaseType.HSQL) {
+                Settings.init(DatabaseType.HSQL);
+            }
+        }
+
+        @Override
+        public TSQL2DatabaseMetaData createMetaData(Connection con) {
+            return new StubMetaData(con);
+        }
+    }
+
+    /**
+     * Temporal metadata answering from fixed catalog.
+     */
+    private static final class StubMetaData extends TSQL2DatabaseMetaData {
+
+        /**
+         * Connection of tables
+         */
+        private final Connection _con;
+
+        /**
+         * Create metadata of stubbed tables.
+         *
+         * @param con Connection of tables
+         */
+        private StubMetaData(Connection con) {
+            super(con, Collections.<String, TableInfo>emptyMap());
+            _con = con;
+        }
+
+        @Override
+        public boolean isCached(String tableName) {
+            return true;
+        }
+
+        @Override
+        public TableInfo getMetaData(String tableName) throws TSQL2Exception {
+            String[] support = SUPPORT.get(tableName.toUpperCase(Locale.ROOT));
+            if (support == null) {
+                throw new TSQL2Exception("Table '" + tableName + "' is not temporal table.");
+            }
+            TableInfo ti = new TableInfo(_con);
+            ti.setTableName(tableName.toUpperCase(Locale.ROOT));
+            ti.setValidTimeSupport(support[0]);
+            ti.setValidTimeScale(DateTimeScale.SECOND);
+            ti.setTransactionTimeSupport(support[1]);
+            return ti;
+        }
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private StubDatabase() {
+    }
+
+    /**
+     * Create TSQL2 connection to stubbed database.
+     *
+     * @return TSQL2 connection
+     * @throws TSQL2Exception
+     */
+    static TSQL2Adapter connect() throws TSQL2Exception {
+        return new TSQL2Adapter(connection(), new StubContext());
+    }
+
+    /**
+     * Create stub of JDBC connection.
+     *
+     * @return Connection
+     */
+    private static Connection connection() {
+        Connection[] con = new Connection[1];
+        DatabaseMetaData meta = proxy(DatabaseMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getDatabaseProductName":
+                    return "HSQL Database Engine";
+                case "getURL":
+                    return "jdbc:tsql2bench:stub";
+                case "getConnection":
+                    return con[0];
+                case "getPrimaryKeys":
+                    List<String[]> keys = new ArrayList<>();
+                    if (COLUMNS.containsKey(String.valueOf(args[2]).toUpperCase(Locale.ROOT))) {
+                        keys.add(new String[]{"ID"});
+                    }
+                    return resultSet(new String[]{"COLUMN_NAME"}, keys);
+                default:
+                    return (method.getReturnType() == ResultSet.class)
+                            ? resultSet(new String[0], Collections.<String[]>emptyList())
+                            : defaultValue(method.getReturnType());
+            }
+        });
+        con[0] = proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return meta;
+                case "createStatement":
+                    return statement(con[0], Statement.class);
+                case "prepareStatement":
+                    return statement(con[0], PreparedStatement.class);
+                case "getAutoCommit":
+                case "isValid":
+                    return true;
+                case "getCatalog":
+                    return "";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+        return con[0];
+    }
+
+    /**
+     * Create stub of statement.
+     *
+     * @param con Connection of statement
+     * @param type Interface of statement
+     * @return Statement
+     */
+    private static <T extends Statement> T statement(Connection con, Class<T> type) {
+        return proxy(type, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    return query((args != null && args.length > 0) ? (String) args[0] : "");
+                case "getResultSet":
+                    return query("");
+                case "getConnection":
+                    return con;
+                case "executeBatch":
+                    return new int[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Get empty results of query, "SELECT * FROM table" returns columns of
+     * the table.
+     *
+     * @param sql Query
+     * @return Empty results
+     */
+    private static ResultSet query(String sql) {
+        Matcher m = SELECT_ALL.matcher(sql);
+        String[] columns = m.matches() ? COLUMNS.get(m.group(1).toUpperCase(Locale.ROOT)) : null;
+        return resultSet((columns != null) ? columns : new String[0], Collections.<String[]>emptyList());
+    }
+
+    /**
+     * Create stub of result set.
+     *
+     * @param labels Labels of VARCHAR columns
+     * @param rows Values of rows
+     * @return Result set
+     */
+    private static ResultSet resultSet(String[] labels, List<String[]> rows) {
+        CachedResultSetMetaData metaData = new CachedResultSetMetaData(labels);
+        int[] row = {0};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++row[0] <= rows.size();
+                case "getMetaData":
+                    return metaData;
+                case "getString":
+                case "getObject":
+                    int column = (args[0] instanceof String) ? indexOf(labels, (String) args[0]) : (Integer) args[0] - 1;
+                    return rows.get(row[0] - 1)[column];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * Find column by label.
+     *
+     * @param labels Labels of columns
+     * @param label Label to find
+     * @return Zero based index of column
+     */
+    private static int indexOf(String[] labels, String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column " + label);
+    }
+
+    /**
+     * Create dynamic proxy of JDBC interface. Object methods are answered by
+     * identity of proxy.
+     *
+     * @param type Interface
+     * @param handler Handler of interface methods
+     * @return Proxy
+     */
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StubDatabase.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                return "Stub" + type.getSimpleName();
+                        }
+                    }
+                    return handler.invoke(proxy, method, args);
+                }));
+    }
+
+    /**
+     * Get default result of method which is not stubbed.
+     *
+     * @param type Return type of method
+     * @return Zero, false, empty string or null
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == String.class) {
+            return "";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
+import cz.vutbr.fit.tsql2lib.parser.TSQL2ParserAdapter;
+import cz.vutbr.fit.tsql2lib.translators.StatementTranslator;
+
+/**
+ * Benchmarks of translators on parsed statements. Translators run against
+ * StubDatabase, so only CPU and allocation of translation are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslatorBenchmark {
+
+    /**
+     * Translated statements by name
+     */
+    private static final Map<String, String> STATEMENTS = new HashMap<>();
+
+    static {
+        STATEMENTS.put("SELECT", "SELECT * FROM employee WHERE id = 1 OR id = 3 ORDER BY id");
+        STATEMENTS.put("SELECT_JOIN", "SELECT SNAPSHOT e.name, d.name AS dept FROM employee e, department d"
+                + " WHERE e.dept_id = d.id AND d.budget > 10000");
+        STATEMENTS.put("SELECT_VALID", "SELECT *, VALID(e) AS valid FROM employee e"
+                + " WHERE VALID(e) CONTAINS PERIOD [1997-01-01 - 1999-03-05 12:00:00]");
+        STATEMENTS.put("INSERT", "INSERT INTO employee VALUES (1, 'Bob', 10000, 3)"
+                + " VALID PERIOD [1985-02-16 - 2000-01-01]");
+        STATEMENTS.put("INSERT_SELECT", "INSERT INTO department SELECT id, name, 0 FROM department WHERE id = 1"
+                + " VALID PERIOD [2000-01-06 - FOREVER]");
+        STATEMENTS.put("UPDATE", "UPDATE employee SET salary = 22000 VALID PERIOD [2001-01-01 - 2002-01-01]"
+                + " WHERE id = 1");
+        STATEMENTS.put("DELETE", "DELETE FROM employee WHERE id < 3 VALID PERIOD [1990-01-01 - 1995-05-15]");
+        STATEMENTS.put("CREATE_TABLE", "CREATE TABLE project (id INT PRIMARY KEY, name VARCHAR(32) NOT NULL)"
+                + " AS VALID STATE AND TRANSACTION");
+    }
+
+    /**
+     * Name of translated statement
+     */
+    @Param({"SELECT", "SELECT_JOIN", "SELECT_VALID", "INSERT", "INSERT_SELECT", "UPDATE", "DELETE",
+        "CREATE_TABLE"})
+    public String statement;
+
+    /**
+     * Connection to stubbed database
+     */
+    private TSQL2Adapter _con;
+    /**
+     * Parse tree of statement
+     */
+    private SimpleNode _tree;
+
+    /**
+     * Connect to stubbed database and parse statement.
+     *
+     * @throws SQLException
+     */
+    @Setup
+    public void setUp() throws SQLException {
+        _con = StubDatabase.connect();
+        _tree = new TSQL2ParserAdapter().parse(STATEMENTS.get(statement));
+        // fail fast if translator doesn't accept the statement
+        translate();
+    }
+
+    /**
+     * Close connection.
+     *
+     * @throws SQLException
+     */
+    @TearDown
+    public void tearDown() throws SQLException {
+        _con.close();
+    }
+
+    /**
+     * Translate statement and release temporary data of translator.
+     *
+     * @return Generated SQL statements
+     * @throws SQLException
+     */
+    @Benchmark
+    public String[] translate() throws SQLException {
+        StatementTranslator translator = new StatementTranslator(_con);
+        String[] statements = translator.translate(_tree);
+        translator.clear();
+        return statements;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2bench;
+
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Benchmarks of date and time conversions in Utils. Calendar based methods
+ * are the former implementation kept as baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    /**
+     * Number of prepared values, power of two
+     */
+    private static final int SIZE = 1024;
+
+    /**
+     * Time zone used for conversions
+     */
+    @Param({"UTC", "Europe/Prague"})
+    public String zone;
+    /**
+     * Scale of formatted times
+     */
+    @Param({"SECOND", "DAY"})
+    public DateTimeScale scale;
+
+    /**
+     * Unix timestamps to format
+     */
+    private final long[] _times = new long[SIZE];
+    /**
+     * Literals to parse
+     */
+    private final String[] _literals = new String[SIZE];
+    /**
+     * Reused builder
+     */
+    private final StringBuilder _sb = new StringBuilder(64);
+    /**
+     * Index of next value
+     */
+    private int _index = 0;
+
+    /**
+     * Prepare times and literals in selected time zone and scale.
+     */
+    @Setup
+    public void setUp() {
+        Settings.TimeZone = ZoneId.of(zone);
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            // 1950-2050
+            _times[i] = -631152000L + (long) (random.nextDouble() * 3155760000L);
+            _literals[i] = Utils.timeToString(_times[i], scale);
+        }
+    }
+
+    /**
+     * Format time to new string.
+     */
+    @Benchmark
+    public String timeToString() {
+        return Utils.timeToString(_times[_index++ & (SIZE - 1)], scale);
+    }
+
+    /**
+     * Format time to reused builder.
+     */
+    @Benchmark
+    public int appendTime() {
+        _sb.setLength(0);
+        return Utils.appendTime(_sb, _times[_index++ & (SIZE - 1)], scale).length();
+    }
+
+    /**
+     * Parse literal.
+     */
+    @Benchmark
+    public long dateToTimestamp() {
+        return Utils.dateToTimestamp(_literals[_index++ & (SIZE - 1)]);
+    }
+
+    /**
+     * Format time by former Calendar implementation in second scale.
+     */
+    @Benchmark
+    public String calendarTimeToString() {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(_times[_index++ & (SIZE - 1)] * 1000);
+        return String.format("%04d-%02d-%02d %02d:%02d:%02d",
+                c.get(Calendar.YEAR),
+                c.get(Calendar.MONTH) + 1,
+                c.get(Calendar.DAY_OF_MONTH),
+                c.get(Calendar.HOUR_OF_DAY),
+                c.get(Calendar.MINUTE),
+                c.get(Calendar.SECOND));
+    }
+
+    /**
+     * Parse literal by former Calendar implementation.
+     */
+    @Benchmark
+    public long calendarDateToTimestamp() {
+        String[] dtFields = _literals[_index++ & (SIZE - 1)].split(" ");
+        String[] dateFields = dtFields[0].split("-");
+        Calendar cal = Calendar.getInstance();
+        cal.set(1970, 1, 1, 0, 0, 0);
+        cal.set(Calendar.YEAR, Integer.parseInt(dateFields[0]));
+        cal.set(Calendar.MONTH, Integer.parseInt(dateFields[1]) - 1);
+        cal.set(Calendar.DAY_OF_MONTH, Integer.parseInt(dateFields[2]));
+        if (dtFields.length == 2) {
+            String[] timeFields = dtFields[1].split(":");
+            cal.set(Calendar.HOUR_OF_DAY, Integer.parseInt(timeFields[0]));
+            cal.set(Calendar.MINUTE, Integer.parseInt(timeFields[1]));
+            cal.set(Calendar.SECOND, Integer.parseInt(timeFields[2]));
+        }
+        return cal.getTimeInMillis() / 1000;
+    }
+}
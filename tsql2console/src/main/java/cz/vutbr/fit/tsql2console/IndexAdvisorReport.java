@@ -0,0 +1,144 @@
+/**
+ * Index advisor report for {@link TSQL2Adapter}
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled with this
+ * package in the file LICENSE. It is also available through the world-wide-web
+ * at this URL: http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2console;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.monitoring.AccessPattern;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexAdvisor;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexRecommendation;
+
+/**
+ * Command line report of index advisor. Script of TSQL2 statements is
+ * executed with index advisor registered on connection, then collected
+ * access patterns of tables and recommended indexes are printed and
+ * optionally created. Script is executed in one transaction which is rolled
+ * back, so its modifications are not kept, except of those committed
+ * implicitly by DDL statements in databases like MySQL or Oracle.
+ *
+ * Usage: IndexAdvisorReport url user password script [--create]
+ */
+public class IndexAdvisorReport {
+
+    /**
+     * Run script and print report.
+     *
+     * @param args JDBC URL, user, password, file with TSQL2 statements
+     * separated by semicolons and optional --create flag
+     */
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Usage: IndexAdvisorReport url user password script [--create]");
+            System.exit(2);
+        }
+        boolean create = (args.length > 4) && args[4].equals("--create");
+
+        try (TSQL2Adapter con = new TSQL2Adapter(DriverManager.getConnection(args[0], args[1], args[2]))) {
+            IndexAdvisor advisor = new IndexAdvisor();
+            con.setIndexAdvisor(advisor);
+            runScript(con, new String(Files.readAllBytes(Paths.get(args[3])), StandardCharsets.UTF_8));
+
+            printReport(System.out, advisor.getAccessPatterns(), con.getIndexRecommendations());
+            if (create) {
+                List<IndexRecommendation> created = con.createRecommendedIndexes();
+                System.out.println();
+                System.out.println("Created " + created.size() + " indexes");
+            }
+        }
+        catch (IOException | SQLException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Execute statements of script in transaction which is rolled back,
+     * failed statements are reported and skipped. Failed statement rolls back
+     * modifications of statements before it, but they stay recorded by
+     * advisor.
+     *
+     * @param con Connection
+     * @param script TSQL2 statements separated by semicolons, lines starting
+     * with -- are comments
+     * @throws SQLException
+     */
+    private static void runScript(TSQL2Adapter con, String script) throws SQLException {
+        StringBuilder text = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            if (!line.trim().startsWith("--")) {
+                text.append(line).append('\n');
+            }
+        }
+
+        System.err.println("Warning: script is rolled back, but DDL statements may be committed implicitly"
+                + " by database.");
+        con.setAutoCommit(false);
+        Statement stmt = con.createStatement();
+        try {
+            for (String q : text.toString().split(";")) {
+                if (q.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    if (stmt.execute(q)) {
+                        // advisor recorded the statement when it was executed, results are read as by client
+                        ResultSet results = stmt.getResultSet();
+                        while (results.next()) {
+                        }
+                        results.close();
+                    }
+                }
+                catch (SQLException e) {
+                    System.err.println(e.getMessage() + ": " + q.trim());
+                }
+            }
+        }
+        finally {
+            stmt.close();
+            con.rollback();
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Print access patterns and recommended indexes.
+     *
+     * @param out Output stream
+     * @param patterns Access patterns collected by advisor
+     * @param recommendations Recommended indexes
+     */
+    private static void printReport(PrintStream out, List<AccessPattern> patterns,
+            List<IndexRecommendation> recommendations) {
+        out.println("Access patterns (" + patterns.size() + "):");
+        for (AccessPattern pattern : patterns) {
+            out.println("  " + pattern);
+        }
+        out.println();
+        out.println("Recommended indexes (" + recommendations.size() + "):");
+        for (IndexRecommendation recommendation : recommendations) {
+            out.println("  " + recommendation.getCreateStatement() + ";");
+            out.println(String.format("    -- %d statements, %.3f ms total", recommendation.getCalls(),
+                    recommendation.getTotalNanos() / 1e6));
+        }
+    }
+}
@@ -25,6 +25,9 @@ import cz.vutbr.fit.tsql2lib.tests.UpdateTest;
 import cz.vutbr.fit.tsql2lib.tests.DeleteTest;
 import cz.vutbr.fit.tsql2lib.tests.SelectTest;
 import cz.vutbr.fit.tsql2lib.tests.ExtendedSelectTest;
+import cz.vutbr.fit.tsql2lib.tests.ExportTest;
+import cz.vutbr.fit.tsql2lib.tests.RowMapperTest;
+import cz.vutbr.fit.tsql2lib.tests.MonitoringTest;
 import java.sql.SQLException;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -49,6 +52,9 @@ public class AllTestsMySQL {
             suite.addTest(DeleteTest.suite());
             suite.addTest(SelectTest.suite());
             suite.addTest(ExtendedSelectTest.suite());
+            suite.addTest(ExportTest.suite());
+            suite.addTest(RowMapperTest.suite());
+            suite.addTest(MonitoringTest.suite());
             //$JUnit-END$
         }
         catch (ClassNotFoundException | SQLException e) {
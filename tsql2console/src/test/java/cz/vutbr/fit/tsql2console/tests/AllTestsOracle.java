@@ -26,6 +26,9 @@ import cz.vutbr.fit.tsql2lib.tests.UpdateTest;
 import cz.vutbr.fit.tsql2lib.tests.DeleteTest;
 import cz.vutbr.fit.tsql2lib.tests.SelectTest;
 import cz.vutbr.fit.tsql2lib.tests.ExtendedSelectTest;
+import cz.vutbr.fit.tsql2lib.tests.ExportTest;
+import cz.vutbr.fit.tsql2lib.tests.RowMapperTest;
+import cz.vutbr.fit.tsql2lib.tests.MonitoringTest;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -50,6 +53,9 @@ public class AllTestsOracle {
             suite.addTest(DeleteTest.suite());
             suite.addTest(SelectTest.suite());
             suite.addTest(ExtendedSelectTest.suite());
+            suite.addTest(ExportTest.suite());
+            suite.addTest(RowMapperTest.suite());
+            suite.addTest(MonitoringTest.suite());
             //$JUnit-END$
         }
         catch (SQLException e) {
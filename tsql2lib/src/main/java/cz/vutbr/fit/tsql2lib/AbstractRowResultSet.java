@@ -0,0 +1,1537 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.rowset.serial.SerialArray;
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import javax.sql.rowset.serial.SerialException;
+import javax.sql.rowset.serial.SerialStruct;
+
+/**
+ * Read-only result set over rows already read from relational result set.
+ * Values are kept decoded by kind of column: integer columns including
+ * temporal bounds as long, floating point columns as double and all other
+ * columns as objects. Subclasses store rows and implement navigation, this
+ * class implements value access and conversions.
+ */
+public abstract class AbstractRowResultSet implements ResultSet {
+
+    /**
+     * Column stored as long
+     */
+    protected static final int LONG_VALUE = 0;
+    /**
+     * Column stored as double
+     */
+    protected static final int DOUBLE_VALUE = 1;
+    /**
+     * Column stored as object
+     */
+    protected static final int OBJECT_VALUE = 2;
+
+    /**
+     * Copy of metadata of relational result set
+     */
+    protected final CachedResultSetMetaData _metaData;
+    /**
+     * Kinds of columns (zero based)
+     */
+    protected final int[] _kinds;
+    /**
+     * SQL types of columns (zero based)
+     */
+    protected final int[] _types;
+    /**
+     * Indexes of columns by uppercase label, first column wins
+     */
+    private final HashMap<String, Integer> _labels = new HashMap<>();
+    /**
+     * Statement which produced relational result set
+     */
+    private final Statement _statement;
+    /**
+     * Flag if last read value was null
+     */
+    private boolean _wasNull = false;
+    /**
+     * Flag if result set is closed
+     */
+    private boolean _closed = false;
+    /**
+     * Fetch direction hint
+     */
+    private int _fetchDirection = FETCH_FORWARD;
+    /**
+     * Fetch size hint
+     */
+    private int _fetchSize = 0;
+
+    /**
+     * Prepare result set for rows of relational result set.
+     *
+     * @param originalResults Relational result set
+     * @throws SQLException
+     */
+    protected AbstractRowResultSet(ResultSet originalResults) throws SQLException {
+        this(new CachedResultSetMetaData(originalResults.getMetaData()), originalResults.getStatement());
+    }
+
+    /**
+     * Prepare result set for rows described by metadata.
+     *
+     * @param metaData Metadata of columns
+     * @param statement Statement which produced results or null
+     * @throws SQLException
+     */
+    protected AbstractRowResultSet(CachedResultSetMetaData metaData, Statement statement) throws SQLException {
+        _statement = statement;
+        _metaData = metaData;
+        int columnCount = _metaData.getColumnCount();
+        _kinds = new int[columnCount];
+        _types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            _types[i] = _metaData.getColumnType(i + 1);
+            if ((_types[i] == Types.REF) || (_types[i] == Types.REF_CURSOR)) {
+                // references are valid only while relational result set is open
+                throw new TSQL2Exception("Column " + (i + 1) + " of type " + _metaData.getColumnTypeName(i + 1)
+                        + " can't be read into " + getClass().getSimpleName() + ".");
+            }
+            _kinds[i] = kindOf(_types[i], _metaData.getPrecision(i + 1), _metaData.getScale(i + 1));
+            String label = _metaData.getColumnLabel(i + 1).toUpperCase();
+            if (!_labels.containsKey(label)) {
+                _labels.put(label, i + 1);
+            }
+        }
+    }
+
+    /**
+     * Get kind of column storage for SQL type. Exact numbers without fraction
+     * are stored as long only up to 18 digits, which always fit into long.
+     * Wider ones, e.g. NUMBER(20) used for BIGINT columns in Oracle, are
+     * stored as BigDecimal objects.
+     *
+     * @param type SQL type
+     * @param precision Precision of column
+     * @param scale Scale of column
+     * @return LONG_VALUE, DOUBLE_VALUE or OBJECT_VALUE
+     */
+    protected static int kindOf(int type, int precision, int scale) {
+        switch (type) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return LONG_VALUE;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return ((scale == 0) && (precision > 0) && (precision <= 18)) ? LONG_VALUE : OBJECT_VALUE;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return DOUBLE_VALUE;
+            default:
+                return OBJECT_VALUE;
+        }
+    }
+
+    /**
+     * Read object value from relational result set. Large objects are read
+     * into memory, so the value is valid after relational result set is
+     * closed. Arrays and structures are copied into their serializable
+     * implementations, XML is read as string and vendor classes of date and
+     * time values, e.g. oracle.sql.TIMESTAMP, are replaced by java.sql ones.
+     * Other values are returned as read by the driver.
+     *
+     * @param results Relational result set
+     * @param column Column index
+     * @param type SQL type of column
+     * @return Value or null
+     * @throws SQLException
+     */
+    protected static Object readObject(ResultSet results, int column, int type) throws SQLException {
+        Object value = results.getObject(column);
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            value = blob.getBytes(1, (int) blob.length());
+            blob.free();
+        } else if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            value = clob.getSubString(1, (int) clob.length());
+            clob.free();
+        } else if (value instanceof Array) {
+            Array array = (Array) value;
+            value = new SerialArray(array, Collections.<String, Class<?>>emptyMap());
+            array.free();
+        } else if (value instanceof Struct) {
+            value = new SerialStruct((Struct) value, Collections.<String, Class<?>>emptyMap());
+        } else if (value instanceof SQLXML) {
+            SQLXML xml = (SQLXML) value;
+            value = xml.getString();
+            xml.free();
+        } else if ((value != null) && !(value instanceof Serializable)) {
+            switch (type) {
+                case Types.DATE:
+                    value = results.getDate(column);
+                    break;
+                case Types.TIME:
+                    value = results.getTime(column);
+                    break;
+                case Types.TIMESTAMP:
+                    value = results.getTimestamp(column);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Estimate memory used by object value. Elements of arrays and attributes
+     * of structures are counted too.
+     *
+     * @param value Value
+     * @return Estimated number of bytes
+     */
+    protected static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal) {
+            return 40 + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+        }
+        try {
+            if (value instanceof SerialArray) {
+                value = ((SerialArray) value).getArray();
+            } else if (value instanceof SerialStruct) {
+                value = ((SerialStruct) value).getAttributes();
+            }
+        } catch (SerialException e) {
+            return 32;
+        }
+        if (value instanceof Object[]) {
+            Object[] elements = (Object[]) value;
+            long size = 16 + 8L * elements.length;
+            for (Object element : elements) {
+                size += estimateSize(element);
+            }
+            return size;
+        }
+        return 32;
+    }
+
+    /**
+     * Check if column of current row is null.
+     *
+     * @param column Zero based column index
+     * @return True if value is null
+     * @throws SQLException Result set is not on row
+     */
+    protected abstract boolean isNullValue(int column) throws SQLException;
+
+    /**
+     * Get value of LONG_VALUE column of current row.
+     *
+     * @param column Zero based column index
+     * @return Value
+     * @throws SQLException Result set is not on row
+     */
+    protected abstract long longValue(int column) throws SQLException;
+
+    /**
+     * Get value of DOUBLE_VALUE column of current row.
+     *
+     * @param column Zero based column index
+     * @return Value
+     * @throws SQLException Result set is not on row
+     */
+    protected abstract double doubleValue(int column) throws SQLException;
+
+    /**
+     * Get value of OBJECT_VALUE column of current row.
+     *
+     * @param column Zero based column index
+     * @return Value
+     * @throws SQLException Result set is not on row
+     */
+    protected abstract Object objectValue(int column) throws SQLException;
+
+    /**
+     * Check if result set is open.
+     *
+     * @throws TSQL2Exception Result set is closed
+     */
+    protected void checkOpen() throws TSQL2Exception {
+        if (_closed) {
+            throw new TSQL2Exception("Result set is closed.");
+        }
+    }
+
+    /**
+     * Check column index and read null flag of its value.
+     *
+     * @param columnIndex Column index, first column is 1
+     * @return Zero based column index or -1 if value is null
+     * @throws SQLException
+     */
+    private int column(int columnIndex) throws SQLException {
+        checkOpen();
+        if ((columnIndex < 1) || (columnIndex > _kinds.length)) {
+            throw new TSQL2Exception("Column index " + columnIndex + " is out of range.");
+        }
+        _wasNull = isNullValue(columnIndex - 1);
+        return _wasNull ? -1 : columnIndex - 1;
+    }
+
+    /**
+     * Create exception for value which can't be converted.
+     *
+     * @param columnIndex Column index
+     * @param type Name of requested type
+     * @return Exception to throw
+     */
+    private static TSQL2Exception conversionError(int columnIndex, String type) {
+        return new TSQL2Exception("Value of column " + columnIndex + " can't be converted to " + type + ".");
+    }
+
+    /**
+     * Create exception for update of read only result set.
+     *
+     * @return Exception to throw
+     */
+    private static TSQL2Exception readOnly() {
+        return new TSQL2Exception("Result set is read only.");
+    }
+
+    /**
+     * Get value of object column as requested type.
+     *
+     * @param columnIndex Column index
+     * @param type Requested type
+     * @return Value or null
+     * @throws SQLException Value is not of requested type
+     */
+    private <T> T objectAs(int columnIndex, Class<T> type) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return null;
+        }
+        Object value = (_kinds[col] == OBJECT_VALUE) ? objectValue(col) : null;
+        if (!type.isInstance(value)) {
+            throw conversionError(columnIndex, type.getSimpleName());
+        }
+        return type.cast(value);
+    }
+
+    /**
+     * Get value of column as string without conversion of null values.
+     *
+     * @param col Zero based column index
+     * @return Value
+     * @throws SQLException
+     */
+    private String stringValue(int col) throws SQLException {
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                return Long.toString(longValue(col));
+            case DOUBLE_VALUE:
+                return (_types[col] == Types.REAL)
+                        ? Float.toString((float) doubleValue(col))
+                        : Double.toString(doubleValue(col));
+            default:
+                Object value = objectValue(col);
+                if (value instanceof byte[]) {
+                    StringBuilder sb = new StringBuilder();
+                    for (byte b : (byte[]) value) {
+                        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                    }
+                    return sb.toString();
+                }
+                if (value instanceof BigDecimal) {
+                    return ((BigDecimal) value).toPlainString();
+                }
+                return value.toString();
+        }
+    }
+
+    /**
+     * Get value of column as java.util.Date milliseconds shifted to calendar
+     * time zone.
+     *
+     * @param columnIndex Column index
+     * @param cal Calendar with time zone of value or null for default
+     * @param type Name of requested type
+     * @return Value or null
+     * @throws SQLException
+     */
+    private java.util.Date dateValue(int columnIndex, Calendar cal, String type) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return null;
+        }
+        if (_kinds[col] != OBJECT_VALUE) {
+            throw conversionError(columnIndex, type);
+        }
+        Object value = objectValue(col);
+        java.util.Date date;
+        if (value instanceof java.util.Date) {
+            date = (java.util.Date) value;
+        } else if (value instanceof String) {
+            String str = ((String) value).trim();
+            try {
+                if (type.equals("Date")) {
+                    date = Date.valueOf(str);
+                } else if (type.equals("Time")) {
+                    date = Time.valueOf(str);
+                } else {
+                    date = Timestamp.valueOf(str);
+                }
+            } catch (IllegalArgumentException e) {
+                throw conversionError(columnIndex, type);
+            }
+        } else {
+            throw conversionError(columnIndex, type);
+        }
+        if (cal == null) {
+            return date;
+        }
+
+        // interpret local time of value in time zone of calendar
+        Calendar local = Calendar.getInstance();
+        local.setTime(date);
+        Calendar target = (Calendar) cal.clone();
+        target.clear();
+        target.set(Calendar.ERA, local.get(Calendar.ERA));
+        target.set(local.get(Calendar.YEAR), local.get(Calendar.MONTH), local.get(Calendar.DAY_OF_MONTH),
+                local.get(Calendar.HOUR_OF_DAY), local.get(Calendar.MINUTE), local.get(Calendar.SECOND));
+        target.set(Calendar.MILLISECOND, local.get(Calendar.MILLISECOND));
+        if (date instanceof Timestamp) {
+            Timestamp ts = new Timestamp(target.getTimeInMillis());
+            ts.setNanos(((Timestamp) date).getNanos());
+            return ts;
+        }
+        return new java.util.Date(target.getTimeInMillis());
+    }
+
+    @Override
+    public int findColumn(String columnLabel) throws SQLException {
+        checkOpen();
+        Integer index = _labels.get(columnLabel.toUpperCase());
+        if (index == null) {
+            throw new TSQL2Exception("Column '" + columnLabel + "' not found.");
+        }
+        return index;
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        checkOpen();
+        return _metaData;
+    }
+
+    @Override
+    public boolean wasNull() throws SQLException {
+        return _wasNull;
+    }
+
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        return (col < 0) ? null : stringValue(col);
+    }
+
+    @Override
+    public String getString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public String getNString(int columnIndex) throws SQLException {
+        return getString(columnIndex);
+    }
+
+    @Override
+    public String getNString(String columnLabel) throws SQLException {
+        return getString(findColumn(columnLabel));
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return 0;
+        }
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                return longValue(col);
+            case DOUBLE_VALUE:
+                return (long) doubleValue(col);
+            default:
+                Object value = objectValue(col);
+                if (value instanceof Number) {
+                    return ((Number) value).longValue();
+                }
+                if (value instanceof Boolean) {
+                    return ((Boolean) value) ? 1 : 0;
+                }
+                if (value instanceof String) {
+                    try {
+                        return new BigDecimal(((String) value).trim()).longValue();
+                    } catch (NumberFormatException e) {
+                        throw conversionError(columnIndex, "long");
+                    }
+                }
+                throw conversionError(columnIndex, "long");
+        }
+    }
+
+    @Override
+    public long getLong(String columnLabel) throws SQLException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        return (int) getLong(columnIndex);
+    }
+
+    @Override
+    public int getInt(String columnLabel) throws SQLException {
+        return (int) getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public short getShort(int columnIndex) throws SQLException {
+        return (short) getLong(columnIndex);
+    }
+
+    @Override
+    public short getShort(String columnLabel) throws SQLException {
+        return (short) getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public byte getByte(int columnIndex) throws SQLException {
+        return (byte) getLong(columnIndex);
+    }
+
+    @Override
+    public byte getByte(String columnLabel) throws SQLException {
+        return (byte) getLong(findColumn(columnLabel));
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return 0;
+        }
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                return longValue(col);
+            case DOUBLE_VALUE:
+                return doubleValue(col);
+            default:
+                Object value = objectValue(col);
+                if (value instanceof Number) {
+                    return ((Number) value).doubleValue();
+                }
+                if (value instanceof Boolean) {
+                    return ((Boolean) value) ? 1 : 0;
+                }
+                if (value instanceof String) {
+                    try {
+                        return Double.parseDouble(((String) value).trim());
+                    } catch (NumberFormatException e) {
+                        throw conversionError(columnIndex, "double");
+                    }
+                }
+                throw conversionError(columnIndex, "double");
+        }
+    }
+
+    @Override
+    public double getDouble(String columnLabel) throws SQLException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public float getFloat(int columnIndex) throws SQLException {
+        return (float) getDouble(columnIndex);
+    }
+
+    @Override
+    public float getFloat(String columnLabel) throws SQLException {
+        return (float) getDouble(findColumn(columnLabel));
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return false;
+        }
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                return longValue(col) != 0;
+            case DOUBLE_VALUE:
+                return doubleValue(col) != 0;
+            default:
+                Object value = objectValue(col);
+                if (value instanceof Boolean) {
+                    return (Boolean) value;
+                }
+                if (value instanceof Number) {
+                    return ((Number) value).doubleValue() != 0;
+                }
+                if (value instanceof String) {
+                    String str = ((String) value).trim();
+                    return str.equalsIgnoreCase("true") || str.equals("1");
+                }
+                throw conversionError(columnIndex, "boolean");
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String columnLabel) throws SQLException {
+        return getBoolean(findColumn(columnLabel));
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return null;
+        }
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                return BigDecimal.valueOf(longValue(col));
+            case DOUBLE_VALUE:
+                return BigDecimal.valueOf(doubleValue(col));
+            default:
+                Object value = objectValue(col);
+                if (value instanceof BigDecimal) {
+                    return (BigDecimal) value;
+                }
+                if (value instanceof BigInteger) {
+                    return new BigDecimal((BigInteger) value);
+                }
+                if ((value instanceof Number) || (value instanceof String)) {
+                    try {
+                        return new BigDecimal(value.toString().trim());
+                    } catch (NumberFormatException e) {
+                        throw conversionError(columnIndex, "BigDecimal");
+                    }
+                }
+                throw conversionError(columnIndex, "BigDecimal");
+        }
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+        return getBigDecimal(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
+        BigDecimal value = getBigDecimal(columnIndex);
+        return (value == null) ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    @Deprecated
+    public BigDecimal getBigDecimal(String columnLabel, int scale) throws SQLException {
+        BigDecimal value = getBigDecimal(findColumn(columnLabel));
+        return (value == null) ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public byte[] getBytes(int columnIndex) throws SQLException {
+        byte[] value = objectAs(columnIndex, byte[].class);
+        return (value == null) ? null : value.clone();
+    }
+
+    @Override
+    public byte[] getBytes(String columnLabel) throws SQLException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    @Override
+    public Date getDate(int columnIndex) throws SQLException {
+        return getDate(columnIndex, null);
+    }
+
+    @Override
+    public Date getDate(String columnLabel) throws SQLException {
+        return getDate(findColumn(columnLabel), null);
+    }
+
+    @Override
+    public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+        java.util.Date value = dateValue(columnIndex, cal, "Date");
+        return ((value == null) || (value instanceof Date)) ? (Date) value : new Date(value.getTime());
+    }
+
+    @Override
+    public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+        return getDate(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Time getTime(int columnIndex) throws SQLException {
+        return getTime(columnIndex, null);
+    }
+
+    @Override
+    public Time getTime(String columnLabel) throws SQLException {
+        return getTime(findColumn(columnLabel), null);
+    }
+
+    @Override
+    public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+        java.util.Date value = dateValue(columnIndex, cal, "Time");
+        return ((value == null) || (value instanceof Time)) ? (Time) value : new Time(value.getTime());
+    }
+
+    @Override
+    public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+        return getTime(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex) throws SQLException {
+        return getTimestamp(columnIndex, null);
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel) throws SQLException {
+        return getTimestamp(findColumn(columnLabel), null);
+    }
+
+    @Override
+    public Timestamp getTimestamp(int columnIndex, Calendar cal) throws SQLException {
+        java.util.Date value = dateValue(columnIndex, cal, "Timestamp");
+        return ((value == null) || (value instanceof Timestamp)) ? (Timestamp) value : new Timestamp(value.getTime());
+    }
+
+    @Override
+    public Timestamp getTimestamp(String columnLabel, Calendar cal) throws SQLException {
+        return getTimestamp(findColumn(columnLabel), cal);
+    }
+
+    @Override
+    public Object getObject(int columnIndex) throws SQLException {
+        int col = column(columnIndex);
+        if (col < 0) {
+            return null;
+        }
+        switch (_kinds[col]) {
+            case LONG_VALUE:
+                switch (_types[col]) {
+                    case Types.BIGINT:
+                        return longValue(col);
+                    case Types.NUMERIC:
+                    case Types.DECIMAL:
+                        return BigDecimal.valueOf(longValue(col));
+                    default:
+                        return (int) longValue(col);
+                }
+            case DOUBLE_VALUE:
+                return (_types[col] == Types.REAL) ? (Object) (float) doubleValue(col) : (Object) doubleValue(col);
+            default:
+                Object value = objectValue(col);
+                return (value instanceof byte[]) ? ((byte[]) value).clone() : value;
+        }
+    }
+
+    @Override
+    public Object getObject(String columnLabel) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public Object getObject(int columnIndex, Map<String, Class<?>> map) throws SQLException {
+        return getObject(columnIndex);
+    }
+
+    @Override
+    public Object getObject(String columnLabel, Map<String, Class<?>> map) throws SQLException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    @Override
+    public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+        Object value = getObject(columnIndex);
+        if (value == null) {
+            return null;
+        }
+        if (type == String.class) {
+            return type.cast(getString(columnIndex));
+        } else if (type == Long.class) {
+            return type.cast(getLong(columnIndex));
+        } else if (type == Integer.class) {
+            return type.cast(getInt(columnIndex));
+        } else if (type == Short.class) {
+            return type.cast(getShort(columnIndex));
+        } else if (type == Byte.class) {
+            return type.cast(getByte(columnIndex));
+        } else if (type == Double.class) {
+            return type.cast(getDouble(columnIndex));
+        } else if (type == Float.class) {
+            return type.cast(getFloat(columnIndex));
+        } else if (type == Boolean.class) {
+            return type.cast(getBoolean(columnIndex));
+        } else if (type == BigDecimal.class) {
+            return type.cast(getBigDecimal(columnIndex));
+        } else if (type == Date.class) {
+            return type.cast(getDate(columnIndex));
+        } else if (type == Time.class) {
+            return type.cast(getTime(columnIndex));
+        } else if (type == Timestamp.class) {
+            return type.cast(getTimestamp(columnIndex));
+        } else if (type == LocalDate.class) {
+            return type.cast(getDate(columnIndex).toLocalDate());
+        } else if (type == LocalTime.class) {
+            return type.cast(getTime(columnIndex).toLocalTime());
+        } else if (type == LocalDateTime.class) {
+            return type.cast(getTimestamp(columnIndex).toLocalDateTime());
+        } else if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        throw conversionError(columnIndex, type.getSimpleName());
+    }
+
+    @Override
+    public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+        return getObject(findColumn(columnLabel), type);
+    }
+
+    @Override
+    public InputStream getAsciiStream(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return (value == null) ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public InputStream getAsciiStream(String columnLabel) throws SQLException {
+        return getAsciiStream(findColumn(columnLabel));
+    }
+
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return (value == null) ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_16BE));
+    }
+
+    @Override
+    @Deprecated
+    public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+        String value = getString(findColumn(columnLabel));
+        return (value == null) ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_16BE));
+    }
+
+    @Override
+    public InputStream getBinaryStream(int columnIndex) throws SQLException {
+        byte[] value = objectAs(columnIndex, byte[].class);
+        return (value == null) ? null : new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public InputStream getBinaryStream(String columnLabel) throws SQLException {
+        return getBinaryStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public Reader getCharacterStream(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return (value == null) ? null : new StringReader(value);
+    }
+
+    @Override
+    public Reader getCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public Reader getNCharacterStream(int columnIndex) throws SQLException {
+        return getCharacterStream(columnIndex);
+    }
+
+    @Override
+    public Reader getNCharacterStream(String columnLabel) throws SQLException {
+        return getCharacterStream(findColumn(columnLabel));
+    }
+
+    @Override
+    public Blob getBlob(int columnIndex) throws SQLException {
+        byte[] value = objectAs(columnIndex, byte[].class);
+        return (value == null) ? null : new SerialBlob(value);
+    }
+
+    @Override
+    public Blob getBlob(String columnLabel) throws SQLException {
+        return getBlob(findColumn(columnLabel));
+    }
+
+    @Override
+    public Clob getClob(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        return (value == null) ? null : new SerialClob(value.toCharArray());
+    }
+
+    @Override
+    public Clob getClob(String columnLabel) throws SQLException {
+        return getClob(findColumn(columnLabel));
+    }
+
+    @Override
+    public NClob getNClob(int columnIndex) throws SQLException {
+        throw new TSQL2Exception("NClob is not supported by " + getClass().getSimpleName() + ".");
+    }
+
+    @Override
+    public NClob getNClob(String columnLabel) throws SQLException {
+        return getNClob(findColumn(columnLabel));
+    }
+
+    @Override
+    public Array getArray(int columnIndex) throws SQLException {
+        return objectAs(columnIndex, Array.class);
+    }
+
+    @Override
+    public Array getArray(String columnLabel) throws SQLException {
+        return getArray(findColumn(columnLabel));
+    }
+
+    @Override
+    public Ref getRef(int columnIndex) throws SQLException {
+        return objectAs(columnIndex, Ref.class);
+    }
+
+    @Override
+    public Ref getRef(String columnLabel) throws SQLException {
+        return getRef(findColumn(columnLabel));
+    }
+
+    @Override
+    public RowId getRowId(int columnIndex) throws SQLException {
+        return objectAs(columnIndex, RowId.class);
+    }
+
+    @Override
+    public RowId getRowId(String columnLabel) throws SQLException {
+        return getRowId(findColumn(columnLabel));
+    }
+
+    @Override
+    public SQLXML getSQLXML(int columnIndex) throws SQLException {
+        return objectAs(columnIndex, SQLXML.class);
+    }
+
+    @Override
+    public SQLXML getSQLXML(String columnLabel) throws SQLException {
+        return getSQLXML(findColumn(columnLabel));
+    }
+
+    @Override
+    public URL getURL(int columnIndex) throws SQLException {
+        String value = getString(columnIndex);
+        try {
+            return (value == null) ? null : new URL(value);
+        } catch (MalformedURLException e) {
+            throw conversionError(columnIndex, "URL");
+        }
+    }
+
+    @Override
+    public URL getURL(String columnLabel) throws SQLException {
+        return getURL(findColumn(columnLabel));
+    }
+
+    @Override
+    public Statement getStatement() throws SQLException {
+        return _statement;
+    }
+
+    @Override
+    public int getConcurrency() throws SQLException {
+        return CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return HOLD_CURSORS_OVER_COMMIT;
+    }
+
+    @Override
+    public String getCursorName() throws SQLException {
+        throw new TSQL2Exception("Named cursors are not supported by " + getClass().getSimpleName() + ".");
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return _fetchDirection;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        _fetchDirection = direction;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return _fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        _fetchSize = rows;
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return _closed;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        _closed = true;
+    }
+
+    @Override
+    public boolean rowDeleted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowInserted() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public boolean rowUpdated() throws SQLException {
+        return false;
+    }
+
+    @Override
+    public void refreshRow() throws SQLException {
+    }
+
+    @Override
+    public void moveToCurrentRow() throws SQLException {
+    }
+
+    @Override
+    public void moveToInsertRow() throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void insertRow() throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteRow() throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateRow() throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void cancelRowUpdates() throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateArray(int columnIndex, Array x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateArray(String columnLabel, Array x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateAsciiStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBigDecimal(int columnIndex, BigDecimal x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBigDecimal(String columnLabel, BigDecimal x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(int columnIndex, InputStream x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBinaryStream(String columnLabel, InputStream x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, Blob x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, Blob x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(int columnIndex, InputStream inputStream, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBlob(String columnLabel, InputStream inputStream, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateByte(int columnIndex, byte x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateByte(String columnLabel, byte x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, int length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Clob x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Clob x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateDate(int columnIndex, Date x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateDate(String columnLabel, Date x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateDouble(int columnIndex, double x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateDouble(String columnLabel, double x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateFloat(int columnIndex, float x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateFloat(String columnLabel, float x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateInt(int columnIndex, int x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateInt(String columnLabel, int x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateLong(int columnIndex, long x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateLong(String columnLabel, long x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNCharacterStream(int columnIndex, Reader x, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNCharacterStream(String columnLabel, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, NClob clob) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, NClob clob) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(int columnIndex, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNClob(String columnLabel, Reader reader, long length) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNString(int columnIndex, String string) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNString(String columnLabel, String string) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNull(int columnIndex) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateNull(String columnLabel) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateObject(int columnIndex, Object x, int scaleOrLength) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateObject(String columnLabel, Object x, int scaleOrLength) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateRef(int columnIndex, Ref x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateRef(String columnLabel, Ref x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateRowId(int columnIndex, RowId x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateRowId(String columnLabel, RowId x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateSQLXML(int columnIndex, SQLXML xmlObject) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateSQLXML(String columnLabel, SQLXML xmlObject) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateShort(int columnIndex, short x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateShort(String columnLabel, short x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateString(int columnIndex, String x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateString(String columnLabel, String x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTime(int columnIndex, Time x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTime(String columnLabel, Time x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTimestamp(int columnIndex, Timestamp x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateTimestamp(String columnLabel, Timestamp x) throws SQLException {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new TSQL2Exception("Result set is not wrapper for " + iface.getName() + ".");
+    }
+}
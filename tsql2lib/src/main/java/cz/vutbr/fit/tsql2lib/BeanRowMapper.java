@@ -0,0 +1,613 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Mapper of rows of temporal results to objects of class with properties
+ * named like columns. Column matches property when their names are equal
+ * ignoring case and underscores. PERIOD column is mapped to TimePeriod
+ * property with the same name or to long properties with the name followed
+ * by "Start" and "End", EVENT column is mapped to long property. Columns
+ * without property are skipped.
+ *
+ * Class can be JavaBean with public no-argument constructor and setters or
+ * fields, or record (on Java 16 and newer), which is created by its canonical
+ * constructor. Accessors of class are built once by MethodHandles and
+ * LambdaMetafactory when mapper is created, columns are bound to properties
+ * once per metadata of results, so mapping of row reads columns by original
+ * indexes without reflection and without lookup of labels. Mapper can be
+ * shared by threads.
+ *
+ * @param <T> Type of mapped objects
+ */
+public class BeanRowMapper<T> implements RowMapper<T> {
+
+    /**
+     * Reader of column value from relational result set.
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+
+        /**
+         * Read value of column from current row.
+         *
+         * @param results Relational result set
+         * @return Value, boxed default for primitive property if value is
+         * NULL
+         * @throws SQLException
+         */
+        Object read(ResultSet results) throws SQLException;
+    }
+
+    /**
+     * Property of mapped class.
+     */
+    private static final class Property {
+
+        /**
+         * Normalized name of property
+         */
+        private final String _name;
+        /**
+         * Type of property
+         */
+        private final Class<?> _type;
+        /**
+         * Setter of property or null for record component
+         */
+        private final BiConsumer<Object, Object> _setter;
+
+        /**
+         * Create property description.
+         *
+         * @param name Name of property
+         * @param type Type of property
+         * @param setter Setter of property or null for record component
+         */
+        private Property(String name, Class<?> type, BiConsumer<Object, Object> setter) {
+            _name = normalize(name);
+            _type = type;
+            _setter = setter;
+        }
+    }
+
+    /**
+     * Columns bound to properties for one metadata of results.
+     */
+    private static final class Binding {
+
+        /**
+         * Metadata the binding was resolved for
+         */
+        private final ResultSetMetaData _metaData;
+        /**
+         * Readers of bound columns
+         */
+        private final ColumnReader[] _readers;
+        /**
+         * Indexes of properties of bound columns
+         */
+        private final int[] _properties;
+
+        /**
+         * Create binding.
+         *
+         * @param metaData Metadata the binding was resolved for
+         * @param readers Readers of bound columns
+         * @param properties Indexes of properties of bound columns
+         */
+        private Binding(ResultSetMetaData metaData, ColumnReader[] readers, int[] properties) {
+            _metaData = metaData;
+            _readers = readers;
+            _properties = properties;
+        }
+    }
+
+    /**
+     * Mapped class
+     */
+    private final Class<T> _type;
+    /**
+     * Properties of mapped class
+     */
+    private final Property[] _properties;
+    /**
+     * Factory of beans or null for record
+     */
+    private final Supplier<Object> _factory;
+    /**
+     * Canonical constructor of record taking Object[] or null for bean
+     */
+    private final MethodHandle _constructor;
+    /**
+     * Default arguments of canonical constructor of record
+     */
+    private final Object[] _defaults;
+    /**
+     * Binding for metadata of last mapped results
+     */
+    private volatile Binding _binding = null;
+
+    /**
+     * Create mapper for class.
+     *
+     * @param type Mapped class
+     * @throws TSQL2Exception Class can't be instantiated by mapper
+     */
+    public BeanRowMapper(Class<T> type) throws TSQL2Exception {
+        _type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Object[] components = recordComponents(type);
+            if (components != null) {
+                Class<?>[] types = new Class<?>[components.length];
+                _properties = new Property[components.length];
+                _defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    Class<?> componentClass = components[i].getClass();
+                    String name = (String) componentClass.getMethod("getName").invoke(components[i]);
+                    types[i] = (Class<?>) componentClass.getMethod("getType").invoke(components[i]);
+                    _properties[i] = new Property(name, types[i], null);
+                    _defaults[i] = defaultValue(types[i]);
+                }
+                Constructor<T> constructor = type.getDeclaredConstructor(types);
+                constructor.setAccessible(true);
+                _constructor = lookup.unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                _factory = null;
+            } else {
+                Constructor<T> constructor = type.getDeclaredConstructor();
+                _factory = factory(lookup, constructor);
+                _properties = beanProperties(lookup, type);
+                _constructor = null;
+                _defaults = null;
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            TSQL2Exception ex = new TSQL2Exception("Class " + type.getName() + " can't be mapped: " + e.getMessage());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    /**
+     * Normalize name of column or property for matching.
+     *
+     * @param name Name
+     * @return Upper case name without underscores
+     */
+    private static String normalize(String name) {
+        return name.replace("_", "").toUpperCase();
+    }
+
+    /**
+     * Get components of record class.
+     *
+     * @param type Class
+     * @return Record components or null if class isn't record or records are
+     * not supported by runtime
+     * @throws ReflectiveOperationException
+     */
+    private static Object[] recordComponents(Class<?> type) throws ReflectiveOperationException {
+        Method isRecord;
+        try {
+            isRecord = Class.class.getMethod("isRecord");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (!((Boolean) isRecord.invoke(type))) {
+            return null;
+        }
+        return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+    }
+
+    /**
+     * Get default value of type.
+     *
+     * @param type Type
+     * @return Boxed zero for primitive type, null otherwise
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        }
+        return null;
+    }
+
+    /**
+     * Get wrapper class of type.
+     *
+     * @param type Type
+     * @return Wrapper of primitive type or the type itself
+     */
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * Check if generated lambda may call member directly.
+     *
+     * @param type Class declaring member
+     * @param modifiers Modifiers of member
+     * @return True if class and member are public
+     */
+    private static boolean isLinkable(Class<?> type, int modifiers) {
+        return Modifier.isPublic(type.getModifiers()) && Modifier.isPublic(modifiers);
+    }
+
+    /**
+     * Create factory of beans.
+     *
+     * @param lookup Lookup of this class
+     * @param constructor No-argument constructor of bean
+     * @return Factory
+     * @throws ReflectiveOperationException
+     */
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> factory(MethodHandles.Lookup lookup, Constructor<?> constructor)
+            throws ReflectiveOperationException {
+        Class<?> type = constructor.getDeclaringClass();
+        if (isLinkable(type, constructor.getModifiers())) {
+            try {
+                MethodHandle handle = lookup.unreflectConstructor(constructor);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                        handle, MethodType.methodType(type));
+                return (Supplier<Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+            } // use method handle
+        }
+        constructor.setAccessible(true);
+        MethodHandle handle = lookup.unreflectConstructor(constructor)
+                .asType(MethodType.methodType(Object.class));
+        return () -> {
+            try {
+                return handle.invokeExact();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Create setter of property.
+     *
+     * @param lookup Lookup of this class
+     * @param method Setter method
+     * @return Setter taking bean and boxed value
+     * @throws ReflectiveOperationException
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Method method)
+            throws ReflectiveOperationException {
+        Class<?> type = method.getDeclaringClass();
+        if (isLinkable(type, method.getModifiers())) {
+            try {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), handle,
+                        MethodType.methodType(void.class, type, wrap(method.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable e) {
+            } // use method handle
+        }
+        method.setAccessible(true);
+        return setter(lookup.unreflect(method).asType(
+                MethodType.methodType(void.class, Object.class, Object.class)));
+    }
+
+    /**
+     * Create setter calling method handle.
+     *
+     * @param handle Handle of type (Object, Object)void
+     * @return Setter taking bean and boxed value
+     */
+    private static BiConsumer<Object, Object> setter(MethodHandle handle) {
+        return (bean, value) -> {
+            try {
+                handle.invokeExact(bean, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Find properties of bean. Setters take precedence over fields.
+     *
+     * @param lookup Lookup of this class
+     * @param type Bean class
+     * @return Properties
+     * @throws ReflectiveOperationException
+     */
+    private static Property[] beanProperties(MethodHandles.Lookup lookup, Class<?> type)
+            throws ReflectiveOperationException {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if ((name.length() > 3) && name.startsWith("set") && (method.getParameterCount() == 1)
+                    && !Modifier.isStatic(method.getModifiers())) {
+                Property property = new Property(name.substring(3), method.getParameterTypes()[0],
+                        setter(lookup, method));
+                properties.putIfAbsent(property._name, property);
+            }
+        }
+        for (Class<?> c = type; (c != null) && (c != Object.class); c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                String name = normalize(field.getName());
+                if (!properties.containsKey(name)) {
+                    field.setAccessible(true);
+                    properties.put(name, new Property(field.getName(), field.getType(),
+                            setter(lookup.unreflectSetter(field).asType(
+                                    MethodType.methodType(void.class, Object.class, Object.class)))));
+                }
+            }
+        }
+        return properties.values().toArray(new Property[properties.size()]);
+    }
+
+    /**
+     * Find property by name.
+     *
+     * @param name Normalized name
+     * @return Index of property or -1
+     */
+    private int findProperty(String name) {
+        for (int i = 0; i < _properties.length; i++) {
+            if (_properties[i]._name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Create exception for column which can't be mapped to property.
+     *
+     * @param label Label of column
+     * @param property Property
+     * @return Exception to throw
+     */
+    private TSQL2Exception incompatible(String label, Property property) {
+        return new TSQL2Exception("Column " + label + " can't be mapped to property " + property._name
+                + " of type " + property._type.getName() + " in " + _type.getName() + ".");
+    }
+
+    /**
+     * Create reader of time stored in temporal column.
+     *
+     * @param index Original index of column
+     * @param type Type of property
+     * @return Reader or null if property isn't long
+     */
+    private static ColumnReader timeReader(int index, Class<?> type) {
+        if (type == long.class) {
+            return r -> r.getLong(index);
+        } else if (type == Long.class) {
+            return r -> {
+                long value = r.getLong(index);
+                return r.wasNull() ? null : value;
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Create reader of non-temporal column.
+     *
+     * @param index Original index of column
+     * @param type Type of property
+     * @return Reader
+     */
+    private static ColumnReader sqlReader(int index, Class<?> type) {
+        if (type == int.class) {
+            return r -> r.getInt(index);
+        } else if (type == long.class) {
+            return r -> r.getLong(index);
+        } else if (type == double.class) {
+            return r -> r.getDouble(index);
+        } else if (type == boolean.class) {
+            return r -> r.getBoolean(index);
+        } else if (type == short.class) {
+            return r -> r.getShort(index);
+        } else if (type == byte.class) {
+            return r -> r.getByte(index);
+        } else if (type == float.class) {
+            return r -> r.getFloat(index);
+        } else if (type == String.class) {
+            return r -> r.getString(index);
+        } else if (type == BigDecimal.class) {
+            return r -> r.getBigDecimal(index);
+        } else if (type == byte[].class) {
+            return r -> r.getBytes(index);
+        } else if (type == Integer.class) {
+            return r -> {
+                int value = r.getInt(index);
+                return r.wasNull() ? null : value;
+            };
+        } else if (type == Long.class) {
+            return r -> {
+                long value = r.getLong(index);
+                return r.wasNull() ? null : value;
+            };
+        } else if (type == Double.class) {
+            return r -> {
+                double value = r.getDouble(index);
+                return r.wasNull() ? null : value;
+            };
+        } else if (type == Boolean.class) {
+            return r -> {
+                boolean value = r.getBoolean(index);
+                return r.wasNull() ? null : value;
+            };
+        } else if (type == Object.class) {
+            return r -> r.getObject(index);
+        } else if (type.isPrimitive()) {
+            Object zero = defaultValue(type);
+            Class<?> wrapper = wrap(type);
+            return r -> {
+                Object value = r.getObject(index, wrapper);
+                return (value == null) ? zero : value;
+            };
+        }
+        return r -> r.getObject(index, type);
+    }
+
+    /**
+     * Bind columns of results to properties.
+     *
+     * @param metaData Metadata of results
+     * @return Binding
+     * @throws SQLException Column can't be mapped to its property
+     */
+    private Binding bind(TSQL2ResultSetMetaData metaData) throws SQLException {
+        List<ColumnReader> readers = new ArrayList<>();
+        List<Integer> properties = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            String name = normalize(label);
+            int index = metaData.getOriginalIndex(i);
+            TSQL2Types tsqlType = metaData.getColumnTSQLType(i);
+
+            if (tsqlType == TSQL2Types.PERIOD) {
+                int endIndex = metaData.getOriginalEndIndex(i);
+                int p = findProperty(name);
+                if (p >= 0) {
+                    if (_properties[p]._type != TimePeriod.class) {
+                        throw incompatible(label, _properties[p]);
+                    }
+                    DateTimeScale scale = metaData.getColumnScale(i);
+                    readers.add(r -> {
+                        long start = r.getLong(index);
+                        return r.wasNull() ? null : new TimePeriod(start, r.getLong(endIndex), scale);
+                    });
+                    properties.add(p);
+                }
+                int[] bounds = {index, endIndex};
+                String[] suffixes = {"START", "END"};
+                for (int b = 0; b < bounds.length; b++) {
+                    p = findProperty(name + suffixes[b]);
+                    if (p >= 0) {
+                        ColumnReader reader = timeReader(bounds[b], _properties[p]._type);
+                        if (reader == null) {
+                            throw incompatible(label, _properties[p]);
+                        }
+                        readers.add(reader);
+                        properties.add(p);
+                    }
+                }
+            } else {
+                int p = findProperty(name);
+                if (p < 0) {
+                    continue;
+                }
+                ColumnReader reader = (tsqlType == TSQL2Types.EVENT)
+                        ? timeReader(index, _properties[p]._type)
+                        : sqlReader(index, _properties[p]._type);
+                if (reader == null) {
+                    throw incompatible(label, _properties[p]);
+                }
+                readers.add(reader);
+                properties.add(p);
+            }
+        }
+        int[] targets = new int[properties.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = properties.get(i);
+        }
+        return new Binding(metaData, readers.toArray(new ColumnReader[readers.size()]), targets);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T map(TSQL2ResultSet results) throws SQLException {
+        ResultSetMetaData metaData = results.getMetaData();
+        Binding binding = _binding;
+        if ((binding == null) || (binding._metaData != metaData)) {
+            binding = bind((TSQL2ResultSetMetaData) metaData);
+            _binding = binding;
+        }
+        ResultSet original = results.getOriginalResults();
+        ColumnReader[] readers = binding._readers;
+        int[] targets = binding._properties;
+
+        if (_constructor == null) {
+            Object bean = _factory.get();
+            for (int i = 0; i < readers.length; i++) {
+                _properties[targets[i]]._setter.accept(bean, readers[i].read(original));
+            }
+            return (T) bean;
+        }
+
+        Object[] arguments = _defaults.clone();
+        for (int i = 0; i < readers.length; i++) {
+            arguments[targets[i]] = readers[i].read(original);
+        }
+        try {
+            return (T) _constructor.invokeExact(arguments);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            TSQL2Exception ex = new TSQL2Exception("Creation of " + _type.getName() + " failed: " + e.getMessage());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Copy of relational result set metadata. Some drivers can't provide metadata
+ * after their result set is closed, so result sets reading rows ahead of user
+ * keep this copy instead.
+ */
+public class CachedResultSetMetaData implements ResultSetMetaData {
+
+    /**
+     * Number of columns
+     */
+    private final int _columnCount;
+    /**
+     * Catalog names of columns
+     */
+    private final String[] _catalogNames;
+    /**
+     * Class names of columns
+     */
+    private final String[] _classNames;
+    /**
+     * Display sizes of columns
+     */
+    private final int[] _displaySizes;
+    /**
+     * Labels of columns
+     */
+    private final String[] _labels;
+    /**
+     * Names of columns
+     */
+    private final String[] _names;
+    /**
+     * SQL types of columns
+     */
+    private final int[] _types;
+    /**
+     * Database specific type names of columns
+     */
+    private final String[] _typeNames;
+    /**
+     * Precisions of columns
+     */
+    private final int[] _precisions;
+    /**
+     * Scales of columns
+     */
+    private final int[] _scales;
+    /**
+     * Schema names of columns
+     */
+    private final String[] _schemaNames;
+    /**
+     * Table names of columns
+     */
+    private final String[] _tableNames;
+    /**
+     * Nullability of columns
+     */
+    private final int[] _nullable;
+    /**
+     * Flags of columns, bits are defined by FLAG_ constants
+     */
+    private final int[] _flags;
+
+    /**
+     * Column is automatically numbered
+     */
+    private static final int FLAG_AUTO_INCREMENT = 1;
+    /**
+     * Case of column matters
+     */
+    private static final int FLAG_CASE_SENSITIVE = 2;
+    /**
+     * Column is cash value
+     */
+    private static final int FLAG_CURRENCY = 4;
+    /**
+     * Column can be used in WHERE clause
+     */
+    private static final int FLAG_SEARCHABLE = 8;
+    /**
+     * Column is signed number
+     */
+    private static final int FLAG_SIGNED = 16;
+
+    /**
+     * Copy metadata.
+     *
+     * @param metaData Metadata to copy
+     * @throws SQLException
+     */
+    public CachedResultSetMetaData(ResultSetMetaData metaData) throws SQLException {
+        _columnCount = metaData.getColumnCount();
+        _catalogNames = new String[_columnCount];
+        _classNames = new String[_columnCount];
+        _displaySizes = new int[_columnCount];
+        _labels = new String[_columnCount];
+        _names = new String[_columnCount];
+        _types = new int[_columnCount];
+        _typeNames = new String[_columnCount];
+        _precisions = new int[_columnCount];
+        _scales = new int[_columnCount];
+        _schemaNames = new String[_columnCount];
+        _tableNames = new String[_columnCount];
+        _nullable = new int[_columnCount];
+        _flags = new int[_columnCount];
+
+        for (int i = 0; i < _columnCount; i++) {
+            int column = i + 1;
+            _catalogNames[i] = metaData.getCatalogName(column);
+            _classNames[i] = metaData.getColumnClassName(column);
+            _displaySizes[i] = metaData.getColumnDisplaySize(column);
+            _labels[i] = metaData.getColumnLabel(column);
+            _names[i] = metaData.getColumnName(column);
+            _types[i] = metaData.getColumnType(column);
+            _typeNames[i] = metaData.getColumnTypeName(column);
+            _precisions[i] = metaData.getPrecision(column);
+            _scales[i] = metaData.getScale(column);
+            _schemaNames[i] = metaData.getSchemaName(column);
+            _tableNames[i] = metaData.getTableName(column);
+            _nullable[i] = metaData.isNullable(column);
+            _flags[i] = (metaData.isAutoIncrement(column) ? FLAG_AUTO_INCREMENT : 0)
+                    | (metaData.isCaseSensitive(column) ? FLAG_CASE_SENSITIVE : 0)
+                    | (metaData.isCurrency(column) ? FLAG_CURRENCY : 0)
+                    | (metaData.isSearchable(column) ? FLAG_SEARCHABLE : 0)
+                    | (metaData.isSigned(column) ? FLAG_SIGNED : 0);
+        }
+    }
+
+    /**
+     * Create metadata of nullable VARCHAR columns which are not bound to any
+     * table.
+     *
+     * @param labels Labels of columns, they are used as names as well
+     */
+    public CachedResultSetMetaData(String... labels) {
+        _columnCount = labels.length;
+        _catalogNames = new String[_columnCount];
+        _classNames = new String[_columnCount];
+        _displaySizes = new int[_columnCount];
+        _labels = labels.clone();
+        _names = labels.clone();
+        _types = new int[_columnCount];
+        _typeNames = new String[_columnCount];
+        _precisions = new int[_columnCount];
+        _scales = new int[_columnCount];
+        _schemaNames = new String[_columnCount];
+        _tableNames = new String[_columnCount];
+        _nullable = new int[_columnCount];
+        _flags = new int[_columnCount];
+
+        for (int i = 0; i < _columnCount; i++) {
+            _catalogNames[i] = "";
+            _classNames[i] = String.class.getName();
+            _displaySizes[i] = Integer.MAX_VALUE;
+            _types[i] = Types.VARCHAR;
+            _typeNames[i] = "VARCHAR";
+            _precisions[i] = Integer.MAX_VALUE;
+            _schemaNames[i] = "";
+            _tableNames[i] = "";
+            _nullable[i] = columnNullable;
+            _flags[i] = FLAG_CASE_SENSITIVE;
+        }
+    }
+
+    /**
+     * Check column index and convert it to zero based index.
+     *
+     * @param column Column index, first column is 1
+     * @return Zero based column index
+     * @throws TSQL2Exception Column index is out of range
+     */
+    private int index(int column) throws TSQL2Exception {
+        if ((column < 1) || (column > _columnCount)) {
+            throw new TSQL2Exception("Column index " + column + " is out of range.");
+        }
+        return column - 1;
+    }
+
+    @Override
+    public int getColumnCount() throws SQLException {
+        return _columnCount;
+    }
+
+    @Override
+    public String getCatalogName(int column) throws SQLException {
+        return _catalogNames[index(column)];
+    }
+
+    @Override
+    public String getColumnClassName(int column) throws SQLException {
+        return _classNames[index(column)];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) throws SQLException {
+        return _displaySizes[index(column)];
+    }
+
+    @Override
+    public String getColumnLabel(int column) throws SQLException {
+        return _labels[index(column)];
+    }
+
+    @Override
+    public String getColumnName(int column) throws SQLException {
+        return _names[index(column)];
+    }
+
+    @Override
+    public int getColumnType(int column) throws SQLException {
+        return _types[index(column)];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) throws SQLException {
+        return _typeNames[index(column)];
+    }
+
+    @Override
+    public int getPrecision(int column) throws SQLException {
+        return _precisions[index(column)];
+    }
+
+    @Override
+    public int getScale(int column) throws SQLException {
+        return _scales[index(column)];
+    }
+
+    @Override
+    public String getSchemaName(int column) throws SQLException {
+        return _schemaNames[index(column)];
+    }
+
+    @Override
+    public String getTableName(int column) throws SQLException {
+        return _tableNames[index(column)];
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) throws SQLException {
+        return (_flags[index(column)] & FLAG_AUTO_INCREMENT) != 0;
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) throws SQLException {
+        return (_flags[index(column)] & FLAG_CASE_SENSITIVE) != 0;
+    }
+
+    @Override
+    public boolean isCurrency(int column) throws SQLException {
+        return (_flags[index(column)] & FLAG_CURRENCY) != 0;
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public int isNullable(int column) throws SQLException {
+        return _nullable[index(column)];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) throws SQLException {
+        index(column);
+        return true;
+    }
+
+    @Override
+    public boolean isSearchable(int column) throws SQLException {
+        return (_flags[index(column)] & FLAG_SEARCHABLE) != 0;
+    }
+
+    @Override
+    public boolean isSigned(int column) throws SQLException {
+        return (_flags[index(column)] & FLAG_SIGNED) != 0;
+    }
+
+    @Override
+    public boolean isWritable(int column) throws SQLException {
+        index(column);
+        return false;
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new TSQL2Exception("Metadata is not wrapper for " + iface.getName() + ".");
+    }
+}
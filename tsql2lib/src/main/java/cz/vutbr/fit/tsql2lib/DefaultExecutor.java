@@ -0,0 +1,75 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Default executor of asynchronous TSQL2 statements. On JDKs with virtual
+ * threads every statement runs in its own virtual thread, otherwise cached
+ * pool of daemon platform threads is used.
+ */
+public final class DefaultExecutor {
+
+    /**
+     * Lazily created default executor
+     */
+    private static volatile Executor _executor = null;
+
+    /**
+     * This class has only static methods.
+     */
+    private DefaultExecutor() {
+    }
+
+    /**
+     * Get default executor.
+     *
+     * @return Executor of asynchronous statements
+     */
+    public static Executor get() {
+        Executor executor = _executor;
+        if (executor == null) {
+            synchronized (DefaultExecutor.class) {
+                executor = _executor;
+                if (executor == null) {
+                    executor = create();
+                    _executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Create executor using virtual threads if available.
+     *
+     * @return New executor
+     */
+    private static Executor create() {
+        try {
+            // library is compiled for older JDKs, so look the factory up at runtime
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // virtual threads not available
+        }
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "tsql2-async");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
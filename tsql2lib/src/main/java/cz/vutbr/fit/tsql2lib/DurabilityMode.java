@@ -0,0 +1,38 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+/**
+ * Durability guarantee given by TSQL2Statement when the connection is in
+ * auto commit mode.
+ */
+public enum DurabilityMode {
+    /**
+     * Every TSQL2 statement is committed in its own transaction before
+     * execution returns. This is the default behaviour.
+     */
+    SYNC,
+    /**
+     * Statements join a commit group which is committed when it is full or
+     * when the group delay elapses. Execution returns after the group
+     * containing the statement has been committed.
+     */
+    GROUP,
+    /**
+     * Statements join a commit group like in GROUP mode, but execution returns
+     * immediately. Durability can be awaited through
+     * TSQL2Statement.getCommitFuture().
+     */
+    ASYNC
+}
@@ -0,0 +1,35 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+/**
+ * Output format of ResultExporter. Temporal columns are written as unix
+ * timestamps in all formats.
+ */
+public enum ExportFormat {
+    /**
+     * Comma separated values with header line, PERIOD column is written as
+     * two columns with beginning and end of period.
+     */
+    CSV,
+    /**
+     * One JSON object per line, PERIOD column is written as array with
+     * beginning and end of period.
+     */
+    JSON_LINES,
+    /**
+     * Compact binary format storing blocks of rows by columns.
+     */
+    BINARY
+}
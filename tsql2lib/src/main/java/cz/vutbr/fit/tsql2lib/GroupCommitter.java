@@ -0,0 +1,295 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit of TSQL2 statements executed in auto commit mode.
+ *
+ * Translated statements of several TSQL2 statements are executed in one
+ * transaction of the underlying connection which is committed when it holds
+ * the configured number of TSQL2 statements or when the configured delay
+ * elapses, whichever comes first. Statements are executed one after another
+ * while holding the lock of committer, so the underlying connection can be
+ * shared by concurrent callers. The lock is ReentrantLock rather than monitor,
+ * so virtual threads of asynchronous statements waiting for database are not
+ * pinned to their carrier threads.
+ *
+ * If any statement of a group fails, the whole group is rolled back and
+ * commit futures of all statements in the group complete exceptionally.
+ */
+public class GroupCommitter {
+
+    /**
+     * Timer shared by all group committers to flush groups after delay
+     */
+    private static final ScheduledThreadPoolExecutor _timer;
+
+    static {
+        _timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "tsql2-group-commit");
+            t.setDaemon(true);
+            return t;
+        });
+        _timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Underlying connection which is committed
+     */
+    private final Connection _con;
+    /**
+     * Durability guarantee of statements in group
+     */
+    private final DurabilityMode _mode;
+    /**
+     * Maximal number of TSQL2 statements in one group
+     */
+    private final int _maxStatements;
+    /**
+     * Maximal time in milliseconds group stays uncommitted
+     */
+    private final long _maxDelay;
+    /**
+     * Commit future of currently open group or null if no group is open
+     */
+    private CompletableFuture<Void> _group = null;
+    /**
+     * Number of TSQL2 statements in currently open group
+     */
+    private int _groupSize = 0;
+    /**
+     * Scheduled flush of currently open group
+     */
+    private ScheduledFuture<?> _flush = null;
+    /**
+     * Lock held while statements of group are executed and while group is
+     * committed
+     */
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    /**
+     * Create new group committer for specified connection. Auto commit of
+     * connection is disabled until committer is closed.
+     *
+     * @param con Underlying connection
+     * @param mode Durability guarantee, GROUP or ASYNC
+     * @param maxStatements Maximal number of TSQL2 statements in one group
+     * @param maxDelay Maximal time in milliseconds group stays uncommitted
+     * @throws SQLException
+     */
+    public GroupCommitter(Connection con, DurabilityMode mode, int maxStatements, long maxDelay) throws SQLException {
+        if (mode == DurabilityMode.SYNC) {
+            throw new TSQL2Exception("Group commit requires GROUP or ASYNC durability mode.");
+        }
+        if (maxStatements < 1 || maxDelay < 0) {
+            throw new TSQL2Exception("Invalid group commit limits.");
+        }
+        _con = con;
+        _mode = mode;
+        _maxStatements = maxStatements;
+        _maxDelay = maxDelay;
+        _con.setAutoCommit(false);
+    }
+
+    /**
+     * Get durability guarantee of statements in group.
+     *
+     * @return Durability mode
+     */
+    public DurabilityMode getMode() {
+        return _mode;
+    }
+
+    /**
+     * Get lock which must be held while statements of group are executed.
+     *
+     * @return Lock of committer
+     */
+    public ReentrantLock getLock() {
+        return _lock;
+    }
+
+    /**
+     * Add executed TSQL2 statement to open group. Caller must hold lock of
+     * committer while executing statement and joining the group. Failed
+     * commit is reported only through returned future.
+     *
+     * @return Future completed when group containing statement is committed
+     */
+    public CompletableFuture<Void> join() {
+        _lock.lock();
+        try {
+            if (_group == null) {
+                _group = new CompletableFuture<>();
+                _groupSize = 0;
+                if (_maxDelay > 0) {
+                    final CompletableFuture<Void> group = _group;
+                    _flush = _timer.schedule(() -> flush(group), _maxDelay, TimeUnit.MILLISECONDS);
+                }
+            }
+            CompletableFuture<Void> result = _group;
+            _groupSize++;
+            if (_groupSize >= _maxStatements || _maxDelay == 0) {
+                commitGroup();
+            }
+            return result;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Roll back open group after one of its statements failed.
+     *
+     * @param cause Failure of statement
+     */
+    public void abort(SQLException cause) {
+        _lock.lock();
+        try {
+            CompletableFuture<Void> group = closeGroup();
+            try {
+                _con.rollback();
+            } catch (SQLException e) {
+                // ignore, original failure is reported
+            }
+            if (group != null) {
+                group.completeExceptionally(cause);
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Commit open group immediately.
+     *
+     * @throws SQLException
+     */
+    public void flush() throws SQLException {
+        CompletableFuture<Void> group;
+        _lock.lock();
+        try {
+            group = _group;
+            if (group != null) {
+                commitGroup();
+            }
+        } finally {
+            _lock.unlock();
+        }
+        await(group);
+    }
+
+    /**
+     * Commit open group and restore auto commit of underlying connection.
+     *
+     * @throws SQLException
+     */
+    public void close() throws SQLException {
+        CompletableFuture<Void> group;
+        _lock.lock();
+        try {
+            group = _group;
+            if (group != null) {
+                commitGroup();
+            }
+            _con.setAutoCommit(true);
+        } finally {
+            _lock.unlock();
+        }
+        await(group);
+    }
+
+    /**
+     * Wait until commit future is completed.
+     *
+     * @param future Commit future, may be null
+     * @throws SQLException If commit failed or waiting was interrupted
+     */
+    public static void await(CompletableFuture<Void> future) throws SQLException {
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TSQL2Exception("Interrupted while waiting for group commit.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Group commit failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Commit group after delay elapsed, unless it was committed already.
+     *
+     * @param group Group to commit
+     */
+    private void flush(CompletableFuture<Void> group) {
+        _lock.lock();
+        try {
+            if (_group == group) {
+                commitGroup();
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Commit open group and complete its future, lock is held.
+     */
+    private void commitGroup() {
+        CompletableFuture<Void> group = closeGroup();
+        try {
+            _con.commit();
+            group.complete(null);
+        } catch (SQLException e) {
+            try {
+                _con.rollback();
+            } catch (SQLException e2) {
+                // ignore, commit failure is reported
+            }
+            group.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Detach open group from committer and cancel its scheduled flush, lock
+     * is held.
+     *
+     * @return Detached group or null if no group was open
+     */
+    private CompletableFuture<Void> closeGroup() {
+        CompletableFuture<Void> group = _group;
+        _group = null;
+        _groupSize = 0;
+        if (_flush != null) {
+            _flush.cancel(false);
+            _flush = null;
+        }
+        return group;
+    }
+}
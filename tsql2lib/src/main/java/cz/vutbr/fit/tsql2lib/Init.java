@@ -16,9 +16,9 @@ package cz.vutbr.fit.tsql2lib;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Initialization class for tsql2lib. This class is used for environment
@@ -31,10 +31,23 @@ import java.sql.Statement;
  */
 public class Init {
 
+    /**
+     * Database types of already initialized databases by JDBC URL and catalog.
+     */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, DatabaseType>> _initialized = new ConcurrentHashMap<>();
+
     /**
      * Initialize library. This method initializes all required environment
      * values before first use of tsql2lib classes.
      *
+     * Result of initialization is cached per JDBC URL and catalog, so database
+     * type is detected and temporal schema is checked or created only by the
+     * first connection to each database. Connections borrowed from pool, even
+     * if pool wraps each borrow into new object, are then initialized by
+     * reading URL and catalog only. If temporal schema is dropped or database
+     * is created again under the same URL, e.g. in-memory database, cached
+     * result must be forgotten by reset().
+     *
      * @param con Connection object for initialization. This can't be
      * TSQL2Adapter instance.
      * @throws TSQL2Exception
@@ -44,75 +57,166 @@ public class Init {
             throw new TSQL2Exception("Connection for initialization can't be TSQL2Adapter. Use base JDBC connection.");
         }
 
-        // set connection object for database metadata access class
-        TSQL2DatabaseMetaData.connection = con;
-
-        /*
-		 * Get database type to set environment for it correctly.
-		 * Initialize Settings class for correct database.
-         */
         try {
             DatabaseMetaData meta = con.getMetaData();
-            String dbName = meta.getDatabaseProductName();
-
-            if (dbName.equalsIgnoreCase("Oracle")) {
-                Settings.init(DatabaseType.ORACLE);
-            } else if (dbName.equalsIgnoreCase("MySQL")) {
-                Settings.init(DatabaseType.MYSQL);
-            } else if (dbName.equalsIgnoreCase("HSQL Database Engine")) {
-                // @author  	Marek Rychly <marek.rychly@gmail.com>
-                Settings.init(DatabaseType.HSQL);
-            } else {
-                throw new TSQL2Exception("Unknown database type set.");
+            String url = getUrl(meta);
+            String catalog = getCatalog(con);
+
+            ConcurrentHashMap<String, DatabaseType> catalogs = _initialized.get(url);
+            DatabaseType type = (catalogs == null) ? null : catalogs.get(catalog);
+            if (type == null) {
+                // double-checked, so concurrent first connections don't race on schema creation
+                synchronized (Init.class) {
+                    catalogs = _initialized.computeIfAbsent(url, u -> new ConcurrentHashMap<>());
+                    type = catalogs.get(catalog);
+                    if (type == null) {
+                        type = detectDatabaseType(meta);
+                        Settings.init(type);
+                        checkDatabaseSchema(con);
+                        catalogs.put(catalog, type);
+                    }
+                }
+            }
+
+            if (Settings.DatabaseType != type) {
+                Settings.init(type);
             }
+        } catch (TSQL2Exception e) {
+            throw e;
         } catch (SQLException e) {
             throw new TSQL2Exception(e.getMessage());
         }
+    }
 
-        /*
-		 * Check if this database contains required meta tables for temporal support.
-		 * If not, create them.
-         */
-        Statement stmt = null;
-        ResultSet res = null;
-
+    /**
+     * Check if database of connection was already initialized.
+     *
+     * @param con Connection to check
+     * @return True if next initialization of connection will be answered from
+     * cache
+     * @throws TSQL2Exception
+     */
+    public static boolean isInitialized(Connection con) throws TSQL2Exception {
         try {
-            stmt = con.createStatement();
+            ConcurrentHashMap<String, DatabaseType> catalogs = _initialized.get(getUrl(con.getMetaData()));
+            return catalogs != null && catalogs.containsKey(getCatalog(con));
+        } catch (SQLException e) {
+            throw new TSQL2Exception(e.getMessage());
+        }
+    }
+
+    /**
+     * Forget cached initialization results. Call this after temporal schema
+     * was dropped by other application.
+     */
+    public static void reset() {
+        _initialized.clear();
+    }
 
-            // check if metadata table exists - use different queries for different databases
-            switch (Settings.DatabaseType) {
-                case ORACLE:
-                    res = stmt.executeQuery("SELECT table_name FROM user_tables WHERE table_name = '" + Settings.TemporalSpecTableNameRaw + "'");
-                    break;
-                case MYSQL:
-                    res = stmt.executeQuery("SHOW TABLES FROM " + con.getCatalog() + " LIKE '" + Settings.TemporalSpecTableNameRaw + "'");
-                    break;
-                case HSQL:
-                    res = con.getMetaData().getTables(null, null, Settings.TemporalSpecTableNameRaw, null);
-                    break;
-                default:
-                    break;
+    /**
+     * Forget cached initialization result of database of connection. Call
+     * this after temporal schema of the database was dropped or the database
+     * was created again under the same URL.
+     *
+     * @param con Connection to database
+     * @throws TSQL2Exception
+     */
+    public static void reset(Connection con) throws TSQL2Exception {
+        try {
+            ConcurrentHashMap<String, DatabaseType> catalogs = _initialized.get(getUrl(con.getMetaData()));
+            if (catalogs != null) {
+                catalogs.remove(getCatalog(con));
             }
+        } catch (SQLException e) {
+            throw new TSQL2Exception(e.getMessage());
+        }
+    }
+
+    /**
+     * Get JDBC URL of database as key of initialization cache.
+     *
+     * @param meta Metadata of database
+     * @return URL or empty string if driver doesn't know it
+     * @throws SQLException
+     */
+    private static String getUrl(DatabaseMetaData meta) throws SQLException {
+        String url = meta.getURL();
+        return (url == null) ? "" : url;
+    }
+
+    /**
+     * Get catalog of connection as key of initialization cache.
+     *
+     * @param con Connection to database
+     * @return Catalog or empty string if database has no catalogs
+     * @throws SQLException
+     */
+    private static String getCatalog(Connection con) throws SQLException {
+        String catalog = con.getCatalog();
+        return (catalog == null) ? "" : catalog;
+    }
+
+    /**
+     * Get database type to set environment for it correctly.
+     *
+     * @param meta Metadata of database
+     * @return Type of database
+     * @throws SQLException
+     */
+    private static DatabaseType detectDatabaseType(DatabaseMetaData meta) throws SQLException {
+        String dbName = meta.getDatabaseProductName();
+
+        if (dbName.equalsIgnoreCase("Oracle")) {
+            return DatabaseType.ORACLE;
+        } else if (dbName.equalsIgnoreCase("MySQL")) {
+            return DatabaseType.MYSQL;
+        } else if (dbName.equalsIgnoreCase("HSQL Database Engine")) {
+            // @author  	Marek Rychly <marek.rychly@gmail.com>
+            return DatabaseType.HSQL;
+        } else {
+            throw new TSQL2Exception("Unknown database type set.");
+        }
+    }
 
-            if ((res == null) || !res.next()) {
-                // metadata table not present, do database init
-                Init.initDatabaseSchema(con);
+    /**
+     * Check if this database contains required meta tables for temporal
+     * support. If not, create them.
+     *
+     * @param con Connection to database
+     * @throws TSQL2Exception
+     */
+    private static void checkDatabaseSchema(Connection con) throws TSQL2Exception {
+        if (temporalSchemaExists(con)) {
+            return;
+        }
+        try {
+            // metadata table not present, do database init
+            Init.initDatabaseSchema(con);
+        } catch (TSQL2Exception e) {
+            // other application may have created schema in the meantime
+            if (!temporalSchemaExists(con)) {
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Check if temporal specification table exists.
+     *
+     * @param con Connection to database
+     * @return True if table exists
+     * @throws TSQL2Exception
+     */
+    private static boolean temporalSchemaExists(Connection con) throws TSQL2Exception {
+        TemporalCatalog catalog = new TemporalCatalog(con);
+        try {
+            return catalog.temporalSchemaExists();
+        } catch (TSQL2Exception e) {
+            throw e;
         } catch (SQLException e) {
             throw new TSQL2Exception(e.getMessage());
         } finally {
-            if (res != null) {
-                try {
-                    res.close();
-                } catch (SQLException sqlEx) {
-                } // ignore
-            }
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException sqlEx) {
-                } // ignore
-            }
+            catalog.close();
         }
     }
 
@@ -0,0 +1,819 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Scrollable result set holding all rows of relational result set in memory.
+ * Rows are read when the result set is created and the relational result set
+ * is closed, so navigation and repeated reads never touch the database.
+ *
+ * Rows are stored by columns in chunks of CHUNK_ROWS rows. Integer columns,
+ * including all temporal bounds, are stored in long vectors, floating point
+ * columns in double vectors and other columns in object vectors, every column
+ * has its own null bitmap. Primitive vectors can be allocated in direct
+ * buffers outside of Java heap. Chunks exceeding memory limit are written to
+ * temporary file row by row and read back on access into one chunk reused by
+ * all spilled chunks. Object values are serialized there, so values of
+ * driver specific classes which can't be converted to serializable ones are
+ * rejected when rows are read.
+ *
+ * @see Settings#MaterializedResultMemoryLimit
+ * @see Settings#MaterializedResultOffHeap
+ * @see Settings#MaterializedResultSpillDirectory
+ */
+public class MaterializedResultSet extends AbstractRowResultSet {
+
+    /**
+     * Binary logarithm of number of rows in chunk
+     */
+    private static final int CHUNK_SHIFT = 12;
+    /**
+     * Number of rows in chunk
+     */
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    /**
+     * Size of buffer of stream writing to spill file
+     */
+    private static final int SPILL_BUFFER = 64 * 1024;
+
+    /**
+     * Rows of one chunk stored by columns.
+     */
+    private static final class Chunk {
+
+        /**
+         * Number of rows in chunk
+         */
+        private int _rows = 0;
+        /**
+         * Long vectors of LONG_VALUE columns stored on heap
+         */
+        private final long[][] _longs;
+        /**
+         * Double vectors of DOUBLE_VALUE columns stored on heap
+         */
+        private final double[][] _doubles;
+        /**
+         * Vectors of LONG_VALUE and DOUBLE_VALUE columns stored off heap
+         */
+        private final ByteBuffer[] _buffers;
+        /**
+         * Vectors of OBJECT_VALUE columns
+         */
+        private final Object[][] _objects;
+        /**
+         * Null bitmaps of columns
+         */
+        private final long[][] _nulls;
+        /**
+         * Estimated memory used by vectors and bitmaps of empty chunk
+         */
+        private final long _emptyBytes;
+        /**
+         * Estimated memory used by chunk
+         */
+        private long _bytes;
+
+        /**
+         * Allocate empty chunk.
+         *
+         * @param kinds Kinds of columns
+         * @param offHeap Allocate primitive vectors off heap
+         */
+        private Chunk(int[] kinds, boolean offHeap) {
+            int columnCount = kinds.length;
+            _longs = new long[columnCount][];
+            _doubles = new double[columnCount][];
+            _buffers = new ByteBuffer[columnCount];
+            _objects = new Object[columnCount][];
+            _nulls = new long[columnCount][CHUNK_ROWS / 64];
+            long bytes = columnCount * (CHUNK_ROWS / 8L);
+            for (int i = 0; i < columnCount; i++) {
+                if (kinds[i] == OBJECT_VALUE) {
+                    _objects[i] = new Object[CHUNK_ROWS];
+                    bytes += 8L * CHUNK_ROWS;
+                } else {
+                    if (offHeap) {
+                        _buffers[i] = ByteBuffer.allocateDirect(8 * CHUNK_ROWS);
+                    } else if (kinds[i] == LONG_VALUE) {
+                        _longs[i] = new long[CHUNK_ROWS];
+                    } else {
+                        _doubles[i] = new double[CHUNK_ROWS];
+                    }
+                    bytes += 8L * CHUNK_ROWS;
+                }
+            }
+            _emptyBytes = bytes;
+            _bytes = bytes;
+        }
+
+        /**
+         * Remove all rows, vectors are kept for next rows.
+         */
+        private void clear() {
+            for (int i = 0; i < _nulls.length; i++) {
+                Arrays.fill(_nulls[i], 0L);
+                if (_objects[i] != null) {
+                    Arrays.fill(_objects[i], 0, _rows, null);
+                }
+            }
+            _rows = 0;
+            _bytes = _emptyBytes;
+        }
+
+        /**
+         * Set value of LONG_VALUE column.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @param value Value
+         */
+        private void putLong(int column, int row, long value) {
+            if (_buffers[column] != null) {
+                _buffers[column].putLong(row << 3, value);
+            } else {
+                _longs[column][row] = value;
+            }
+        }
+
+        /**
+         * Set value of DOUBLE_VALUE column.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @param value Value
+         */
+        private void putDouble(int column, int row, double value) {
+            if (_buffers[column] != null) {
+                _buffers[column].putDouble(row << 3, value);
+            } else {
+                _doubles[column][row] = value;
+            }
+        }
+
+        /**
+         * Set value of OBJECT_VALUE column.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @param value Value
+         */
+        private void putObject(int column, int row, Object value) {
+            _objects[column][row] = value;
+            _bytes += estimateSize(value);
+        }
+
+        /**
+         * Mark value as null.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         */
+        private void setNull(int column, int row) {
+            _nulls[column][row >>> 6] |= 1L << row;
+        }
+
+        /**
+         * Append current row of relational result set.
+         *
+         * @param results Relational result set
+         * @param kinds Kinds of columns
+         * @param types SQL types of columns
+         * @throws SQLException
+         */
+        private void read(ResultSet results, int[] kinds, int[] types) throws SQLException {
+            int row = _rows++;
+            for (int i = 0; i < kinds.length; i++) {
+                boolean isNull;
+                switch (kinds[i]) {
+                    case LONG_VALUE:
+                        putLong(i, row, results.getLong(i + 1));
+                        isNull = results.wasNull();
+                        break;
+                    case DOUBLE_VALUE:
+                        putDouble(i, row, results.getDouble(i + 1));
+                        isNull = results.wasNull();
+                        break;
+                    default:
+                        Object value = readSerializable(results, i + 1, types[i]);
+                        isNull = (value == null);
+                        putObject(i, row, value);
+                        break;
+                }
+                if (isNull) {
+                    setNull(i, row);
+                }
+            }
+        }
+
+        /**
+         * Check if value is null.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @return True if value is null
+         */
+        private boolean isNull(int column, int row) {
+            return (_nulls[column][row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * Get value of LONG_VALUE column.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @return Value
+         */
+        private long getLong(int column, int row) {
+            return (_buffers[column] != null) ? _buffers[column].getLong(row << 3) : _longs[column][row];
+        }
+
+        /**
+         * Get value of DOUBLE_VALUE column.
+         *
+         * @param column Zero based column index
+         * @param row Row in chunk
+         * @return Value
+         */
+        private double getDouble(int column, int row) {
+            return (_buffers[column] != null) ? _buffers[column].getDouble(row << 3) : _doubles[column][row];
+        }
+
+        /**
+         * Write all rows of chunk to stream. Rows are written in the same
+         * format as by copyRow(), so spilled chunks don't depend on storage
+         * of vectors.
+         *
+         * @param out Stream to write to
+         * @param kinds Kinds of columns
+         * @throws IOException
+         */
+        private void writeTo(ObjectOutputStream out, int[] kinds) throws IOException {
+            for (int row = 0; row < _rows; row++) {
+                for (int i = 0; i < kinds.length; i++) {
+                    boolean isNull = isNull(i, row);
+                    out.writeBoolean(isNull);
+                    if (isNull) {
+                        continue;
+                    }
+                    switch (kinds[i]) {
+                        case LONG_VALUE:
+                            out.writeLong(getLong(i, row));
+                            break;
+                        case DOUBLE_VALUE:
+                            out.writeDouble(getDouble(i, row));
+                            break;
+                        default:
+                            out.writeUnshared(_objects[i][row]);
+                            break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Write current row of relational result set to stream without
+         * storing it in chunk. Objects are written unshared, so the stream
+         * doesn't keep references to them.
+         *
+         * @param results Relational result set
+         * @param out Stream to write to
+         * @param kinds Kinds of columns
+         * @param types SQL types of columns
+         * @throws SQLException
+         * @throws IOException
+         */
+        private static void copyRow(ResultSet results, ObjectOutputStream out, int[] kinds, int[] types)
+                throws SQLException, IOException {
+            for (int i = 0; i < kinds.length; i++) {
+                switch (kinds[i]) {
+                    case LONG_VALUE:
+                        long l = results.getLong(i + 1);
+                        out.writeBoolean(results.wasNull());
+                        if (!results.wasNull()) {
+                            out.writeLong(l);
+                        }
+                        break;
+                    case DOUBLE_VALUE:
+                        double d = results.getDouble(i + 1);
+                        out.writeBoolean(results.wasNull());
+                        if (!results.wasNull()) {
+                            out.writeDouble(d);
+                        }
+                        break;
+                    default:
+                        Object value = readSerializable(results, i + 1, types[i]);
+                        out.writeBoolean(value == null);
+                        if (value != null) {
+                            out.writeUnshared(value);
+                        }
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Replace rows of chunk by rows written by writeTo() and copyRow().
+         *
+         * @param in Stream to read from
+         * @param kinds Kinds of columns
+         * @param rows Number of rows to read
+         * @throws IOException
+         * @throws ClassNotFoundException
+         */
+        private void readFrom(ObjectInputStream in, int[] kinds, int rows)
+                throws IOException, ClassNotFoundException {
+            clear();
+            for (int row = 0; row < rows; row++) {
+                for (int i = 0; i < kinds.length; i++) {
+                    if (in.readBoolean()) {
+                        setNull(i, row);
+                        continue;
+                    }
+                    switch (kinds[i]) {
+                        case LONG_VALUE:
+                            putLong(i, row, in.readLong());
+                            break;
+                        case DOUBLE_VALUE:
+                            putDouble(i, row, in.readDouble());
+                            break;
+                        default:
+                            putObject(i, row, in.readUnshared());
+                            break;
+                    }
+                }
+            }
+            _rows = rows;
+        }
+    }
+
+    /**
+     * Chunks of rows, spilled chunks are null
+     */
+    private final ArrayList<Chunk> _chunks = new ArrayList<>();
+    /**
+     * Position and length of chunks in spill file, null for chunks in memory
+     */
+    private final ArrayList<long[]> _spillPositions = new ArrayList<>();
+    /**
+     * Maximal memory used by chunks kept in memory, 0 or less for no limit
+     */
+    private final long _memoryLimit;
+    /**
+     * Allocate primitive vectors off heap
+     */
+    private final boolean _offHeap;
+    /**
+     * Estimated memory used by chunks kept in memory
+     */
+    private long _residentBytes = 0;
+    /**
+     * Spill file or null if no chunk was spilled
+     */
+    private Path _spillFile = null;
+    /**
+     * Channel of spill file
+     */
+    private FileChannel _spill = null;
+    /**
+     * Stream of chunk being spilled or null
+     */
+    private ObjectOutputStream _spillOut = null;
+    /**
+     * Position of chunk being spilled in spill file
+     */
+    private long _spillStart = 0;
+    /**
+     * Chunk holding spilled chunk read back from spill file. It is allocated
+     * once and reused by all spilled chunks.
+     */
+    private Chunk _loaded = null;
+    /**
+     * Index of chunk held by _loaded or -1
+     */
+    private int _loadedChunk = -1;
+    /**
+     * Buffer for spilled chunk read from spill file
+     */
+    private byte[] _loadBuffer = new byte[0];
+    /**
+     * Number of rows
+     */
+    private int _rowCount = 0;
+    /**
+     * Current row, 0 before first row and _rowCount + 1 after last row
+     */
+    private int _row = 0;
+    /**
+     * Chunk of current row
+     */
+    private Chunk _current = null;
+    /**
+     * Index of chunk of current row
+     */
+    private int _currentChunk = -1;
+    /**
+     * Position of current row in its chunk
+     */
+    private int _position = 0;
+
+    /**
+     * Read all rows of relational result set using memory settings from
+     * Settings. Relational result set is closed.
+     *
+     * @param originalResults Relational result set
+     * @throws SQLException
+     */
+    public MaterializedResultSet(ResultSet originalResults) throws SQLException {
+        this(originalResults, Settings.MaterializedResultMemoryLimit, Settings.MaterializedResultOffHeap);
+    }
+
+    /**
+     * Read all rows of relational result set. Relational result set is
+     * closed. Memory limit is checked after every row, rows of chunk which
+     * would exceed it are written to spill file and the rest of the chunk is
+     * written there directly, so besides chunks kept in memory only one chunk
+     * being read and one chunk read back from spill file are allocated.
+     *
+     * @param originalResults Relational result set
+     * @param memoryLimit Maximal memory in bytes used by rows kept in memory,
+     * 0 or less for no limit
+     * @param offHeap Allocate primitive vectors off heap
+     * @throws SQLException
+     */
+    public MaterializedResultSet(ResultSet originalResults, long memoryLimit, boolean offHeap) throws SQLException {
+        super(originalResults);
+        _memoryLimit = memoryLimit;
+        _offHeap = offHeap;
+        try {
+            Chunk chunk = null;
+            while (originalResults.next()) {
+                if (_rowCount == Integer.MAX_VALUE) {
+                    throw new TSQL2Exception("Result set is too large to be materialized.");
+                }
+                if (_spillOut != null) {
+                    Chunk.copyRow(originalResults, _spillOut, _kinds, _types);
+                } else {
+                    if (chunk == null) {
+                        chunk = new Chunk(_kinds, _offHeap);
+                    }
+                    chunk.read(originalResults, _kinds, _types);
+                    if ((_memoryLimit > 0) && (_residentBytes + chunk._bytes > _memoryLimit)) {
+                        beginSpill(chunk);
+                    }
+                }
+                _rowCount++;
+                if ((_rowCount & (CHUNK_ROWS - 1)) == 0) {
+                    chunk = endChunk(chunk);
+                }
+            }
+            if ((_rowCount & (CHUNK_ROWS - 1)) != 0) {
+                chunk = endChunk(chunk);
+            }
+            if (chunk != null) {
+                // chunk emptied by spilling is reused for reading spilled chunks back
+                _loaded = chunk;
+            }
+        } catch (IOException e) {
+            closeSpill();
+            throw spillError(e);
+        } catch (SQLException e) {
+            closeSpill();
+            throw e;
+        } finally {
+            originalResults.close();
+        }
+    }
+
+    /**
+     * Finish chunk of rows read so far.
+     *
+     * @param chunk Chunk being read, it is empty if it is being spilled
+     * @return Chunk which can be reused for next rows or null
+     * @throws IOException
+     */
+    private Chunk endChunk(Chunk chunk) throws IOException {
+        if (_spillOut != null) {
+            _spillOut.flush();
+            _spillPositions.add(new long[]{_spillStart, _spill.position() - _spillStart});
+            _chunks.add(null);
+            _spillOut = null;
+            return chunk;
+        }
+        _residentBytes += chunk._bytes;
+        _spillPositions.add(null);
+        _chunks.add(chunk);
+        return null;
+    }
+
+    /**
+     * Start writing chunk which would exceed memory limit to the end of spill
+     * file. Rows read so far are written and removed from chunk, next rows of
+     * chunk are written directly.
+     *
+     * @param chunk Chunk to write
+     * @throws SQLException
+     */
+    private void beginSpill(Chunk chunk) throws SQLException {
+        try {
+            if (_spill == null) {
+                String directory = Settings.MaterializedResultSpillDirectory;
+                _spillFile = Files.createTempFile((directory == null)
+                        ? Paths.get(System.getProperty("java.io.tmpdir")) : Paths.get(directory),
+                        "tsql2", ".spill");
+                _spill = FileChannel.open(_spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            _spillStart = _spill.size();
+            _spill.position(_spillStart);
+            // stream is only flushed at the end of chunk, closing it would close the channel
+            _spillOut = new ObjectOutputStream(new BufferedOutputStream(Channels.newOutputStream(_spill), SPILL_BUFFER));
+            chunk.writeTo(_spillOut, _kinds);
+            chunk.clear();
+        } catch (IOException e) {
+            throw spillError(e);
+        }
+    }
+
+    /**
+     * Read spilled chunk into chunk reused by all spilled chunks.
+     *
+     * @param index Index of chunk
+     * @return Chunk
+     * @throws SQLException
+     */
+    private Chunk load(int index) throws SQLException {
+        if (index == _loadedChunk) {
+            return _loaded;
+        }
+        long[] position = _spillPositions.get(index);
+        if (_loadBuffer.length < position[1]) {
+            _loadBuffer = new byte[(int) position[1]];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(_loadBuffer, 0, (int) position[1]);
+        try {
+            for (long p = position[0]; buffer.hasRemaining();) {
+                int read = _spill.read(buffer, p);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of spill file.");
+                }
+                p += read;
+            }
+            if (_loaded == null) {
+                _loaded = new Chunk(_kinds, _offHeap);
+            }
+            _loadedChunk = -1;
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(_loadBuffer, 0, (int) position[1]))) {
+                _loaded.readFrom(in, _kinds, Math.min(CHUNK_ROWS, _rowCount - (index << CHUNK_SHIFT)));
+            }
+            _loadedChunk = index;
+            return _loaded;
+        } catch (IOException | ClassNotFoundException e) {
+            throw spillError(e);
+        }
+    }
+
+    /**
+     * Read object value which can be written to spill file. Values of all
+     * rows are checked, not only of spilled ones, so materialization doesn't
+     * fail or succeed depending on memory limit.
+     *
+     * @param results Relational result set
+     * @param column Column index
+     * @param type SQL type of column
+     * @return Value or null
+     * @throws SQLException If value of driver specific class is not serializable
+     */
+    private static Object readSerializable(ResultSet results, int column, int type) throws SQLException {
+        Object value = readObject(results, column, type);
+        if ((value != null) && !(value instanceof Serializable)) {
+            throw new TSQL2Exception("Value of column " + column + " of class " + value.getClass().getName()
+                    + " can't be materialized.");
+        }
+        return value;
+    }
+
+    /**
+     * Create exception for spill file failure.
+     *
+     * @param cause Cause of failure
+     * @return Exception to throw
+     */
+    private static TSQL2Exception spillError(Exception cause) {
+        TSQL2Exception e = new TSQL2Exception("Materialized result set can't use spill file: " + cause.getMessage());
+        e.initCause(cause);
+        return e;
+    }
+
+    /**
+     * Close and delete spill file.
+     */
+    private void closeSpill() {
+        _spillOut = null;
+        if (_spill != null) {
+            try {
+                _spill.close();
+            } catch (IOException e) {
+            } // ignore
+            _spill = null;
+        }
+    }
+
+    /**
+     * Get number of rows.
+     *
+     * @return Number of rows
+     */
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    /**
+     * Get number of rows written to spill file.
+     *
+     * @return Number of spilled rows
+     */
+    public int getSpilledRowCount() {
+        int rows = 0;
+        for (int i = 0; i < _chunks.size(); i++) {
+            if (_chunks.get(i) == null) {
+                rows += Math.min(CHUNK_ROWS, _rowCount - (i << CHUNK_SHIFT));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Move to row.
+     *
+     * @param row Row number, 0 before first row and _rowCount + 1 after last
+     * row
+     * @return True if result set is on row
+     * @throws SQLException
+     */
+    private boolean moveTo(int row) throws SQLException {
+        checkOpen();
+        _row = Math.max(0, Math.min(row, _rowCount + 1));
+        return (_row >= 1) && (_row <= _rowCount);
+    }
+
+    /**
+     * Get chunk of current row and set position of row in it.
+     *
+     * @return Chunk of current row
+     * @throws SQLException Result set is not on row
+     */
+    private Chunk current() throws SQLException {
+        if ((_row < 1) || (_row > _rowCount)) {
+            throw new TSQL2Exception("Result set is not positioned on a row.");
+        }
+        int index = (_row - 1) >>> CHUNK_SHIFT;
+        if (index != _currentChunk) {
+            Chunk chunk = _chunks.get(index);
+            _current = (chunk != null) ? chunk : load(index);
+            _currentChunk = index;
+        }
+        _position = (_row - 1) & (CHUNK_ROWS - 1);
+        return _current;
+    }
+
+    @Override
+    protected boolean isNullValue(int column) throws SQLException {
+        return current().isNull(column, _position);
+    }
+
+    @Override
+    protected long longValue(int column) throws SQLException {
+        return current().getLong(column, _position);
+    }
+
+    @Override
+    protected double doubleValue(int column) throws SQLException {
+        return current().getDouble(column, _position);
+    }
+
+    @Override
+    protected Object objectValue(int column) throws SQLException {
+        return current()._objects[column][_position];
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        return moveTo(_row + 1);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return moveTo(_row - 1);
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return moveTo(1);
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return moveTo(_rowCount);
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        moveTo(0);
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        moveTo(_rowCount + 1);
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        if (row >= 0) {
+            return moveTo(row);
+        }
+        // negative rows are counted from the end, -1 is the last row
+        return moveTo(Math.max(0, _rowCount + 1 + row));
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        return moveTo((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) _row + rows)));
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkOpen();
+        return ((_row >= 1) && (_row <= _rowCount)) ? _row : 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        return (_row == 0) && (_rowCount > 0);
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return (_row > _rowCount) && (_rowCount > 0);
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkOpen();
+        return (_row == 1) && (_rowCount > 0);
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkOpen();
+        return (_row == _rowCount) && (_rowCount > 0);
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return TYPE_SCROLL_INSENSITIVE;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        super.close();
+        closeSpill();
+        _chunks.clear();
+        _spillPositions.clear();
+        _current = null;
+        _currentChunk = -1;
+        _loaded = null;
+        _loadedChunk = -1;
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Forward only result set reading rows of relational result set ahead in
+ * background task. Rows are decoded into bounded ring buffer of reused row
+ * slots, integer columns including temporal bounds as long values, so
+ * fetching from database overlaps with processing of rows by user.
+ *
+ * Relational result set is used only by background task. It is closed when
+ * all rows are read or when this result set is closed. Closing waits until
+ * background task finishes its current fetch. Connection of relational result
+ * set must not be used by other statements until then, because background
+ * task fetches rows concurrently with them. Work which needs the connection
+ * after the query, e.g. dropping of temporary tables, is delayed by
+ * setFinishAction().
+ */
+public class PrefetchingResultSet extends AbstractRowResultSet {
+
+    /**
+     * Decoded row.
+     */
+    private static final class Row {
+
+        /**
+         * Values of LONG_VALUE columns
+         */
+        private final long[] _longs;
+        /**
+         * Values of DOUBLE_VALUE columns
+         */
+        private final double[] _doubles;
+        /**
+         * Values of OBJECT_VALUE columns
+         */
+        private final Object[] _objects;
+        /**
+         * Null flags of columns
+         */
+        private final boolean[] _nulls;
+
+        /**
+         * Allocate row slot.
+         *
+         * @param columnCount Number of columns
+         */
+        private Row(int columnCount) {
+            _longs = new long[columnCount];
+            _doubles = new double[columnCount];
+            _objects = new Object[columnCount];
+            _nulls = new boolean[columnCount];
+        }
+
+        /**
+         * Read current row of relational result set.
+         *
+         * @param results Relational result set
+         * @param kinds Kinds of columns
+         * @param types SQL types of columns
+         * @throws SQLException
+         */
+        private void read(ResultSet results, int[] kinds, int[] types) throws SQLException {
+            for (int i = 0; i < kinds.length; i++) {
+                switch (kinds[i]) {
+                    case LONG_VALUE:
+                        _longs[i] = results.getLong(i + 1);
+                        _nulls[i] = results.wasNull();
+                        break;
+                    case DOUBLE_VALUE:
+                        _doubles[i] = results.getDouble(i + 1);
+                        _nulls[i] = results.wasNull();
+                        break;
+                    default:
+                        _objects[i] = readObject(results, i + 1, types[i]);
+                        _nulls[i] = (_objects[i] == null);
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Relational result set, used only by background task
+     */
+    private final ResultSet _originalResults;
+    /**
+     * Ring buffer of row slots
+     */
+    private final Row[] _slots;
+    /**
+     * Index of slot of current row
+     */
+    private int _head = 0;
+    /**
+     * Index of slot to be filled by background task
+     */
+    private int _tail = 0;
+    /**
+     * Number of filled slots including current row
+     */
+    private int _available = 0;
+    /**
+     * Current row or null if result set is not on row
+     */
+    private Row _current = null;
+    /**
+     * Number of current row, 0 before first row
+     */
+    private int _row = 0;
+    /**
+     * Flag if background task started
+     */
+    private boolean _started = false;
+    /**
+     * Flag if background task finished
+     */
+    private boolean _finished = false;
+    /**
+     * Flag if user closed result set
+     */
+    private boolean _stopped = false;
+    /**
+     * Failure of background task or null
+     */
+    private Throwable _error = null;
+    /**
+     * Action run when background task finished or null
+     */
+    private Runnable _finishAction = null;
+
+    /**
+     * Start reading rows of relational result set in background.
+     *
+     * @param originalResults Relational result set
+     * @param executor Executor of background task
+     * @param bufferRows Maximal number of rows read ahead
+     * @throws SQLException
+     */
+    public PrefetchingResultSet(ResultSet originalResults, Executor executor, int bufferRows) throws SQLException {
+        super(originalResults);
+        if (bufferRows < 1) {
+            originalResults.close();
+            throw new TSQL2Exception("Prefetch buffer must have at least one row.");
+        }
+        _originalResults = originalResults;
+        // one more slot for current row which can't be overwritten
+        _slots = new Row[bufferRows + 1];
+        for (int i = 0; i < _slots.length; i++) {
+            _slots[i] = new Row(_kinds.length);
+        }
+        try {
+            executor.execute(this::prefetch);
+        } catch (RejectedExecutionException e) {
+            originalResults.close();
+            throw new TSQL2Exception("Executor rejected prefetching of results.");
+        }
+    }
+
+    /**
+     * Read rows into buffer until all rows are read or result set is closed.
+     * This is run by background task.
+     */
+    private void prefetch() {
+        synchronized (this) {
+            if (_stopped) {
+                return;
+            }
+            _started = true;
+        }
+        try {
+            while (true) {
+                Row slot;
+                synchronized (this) {
+                    while ((_available == _slots.length) && !_stopped) {
+                        wait();
+                    }
+                    if (_stopped) {
+                        break;
+                    }
+                    slot = _slots[_tail];
+                }
+                // slot isn't visible to user until it is published below
+                if (!_originalResults.next()) {
+                    break;
+                }
+                slot.read(_originalResults, _kinds, _types);
+                synchronized (this) {
+                    _tail = (_tail + 1) % _slots.length;
+                    _available++;
+                    notifyAll();
+                }
+            }
+        } catch (SQLException | RuntimeException | InterruptedException e) {
+            synchronized (this) {
+                _error = e;
+            }
+        } finally {
+            try {
+                _originalResults.close();
+            } catch (SQLException e) {
+            } // ignore
+            synchronized (this) {
+                _finished = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Set action run when background task no longer uses connection of
+     * relational result set, i.e. when all rows were read into buffer or
+     * this result set was closed. Action is run by thread reading or
+     * closing this result set, immediately if background task already
+     * finished.
+     *
+     * @param action Action to run once
+     */
+    public synchronized void setFinishAction(Runnable action) {
+        _finishAction = action;
+        if (_finished) {
+            runFinishAction();
+        }
+    }
+
+    /**
+     * Run finish action if it was not run yet.
+     */
+    private void runFinishAction() {
+        Runnable action = _finishAction;
+        _finishAction = null;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    /**
+     * Wait until background task reads more rows than specified number or
+     * finishes.
+     *
+     * @param rows Number of available rows to exceed
+     * @throws SQLException Waiting was interrupted
+     */
+    private void awaitRows(int rows) throws SQLException {
+        try {
+            while ((_available <= rows) && !_finished) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TSQL2Exception("Interrupted while waiting for prefetched row.");
+        }
+    }
+
+    /**
+     * Create exception for failure of background task.
+     *
+     * @return Exception to throw
+     */
+    private TSQL2Exception prefetchError() {
+        TSQL2Exception e = new TSQL2Exception("Prefetching of results failed: " + _error.getMessage());
+        e.initCause(_error);
+        return e;
+    }
+
+    /**
+     * Create exception for unsupported scrolling.
+     *
+     * @return Exception to throw
+     */
+    private static TSQL2Exception forwardOnly() {
+        return new TSQL2Exception("Result set is forward only.");
+    }
+
+    /**
+     * Get current row.
+     *
+     * @return Current row
+     * @throws SQLException Result set is not on row
+     */
+    private Row current() throws SQLException {
+        if (_current == null) {
+            throw new TSQL2Exception("Result set is not positioned on a row.");
+        }
+        return _current;
+    }
+
+    @Override
+    protected boolean isNullValue(int column) throws SQLException {
+        return current()._nulls[column];
+    }
+
+    @Override
+    protected long longValue(int column) throws SQLException {
+        return current()._longs[column];
+    }
+
+    @Override
+    protected double doubleValue(int column) throws SQLException {
+        return current()._doubles[column];
+    }
+
+    @Override
+    protected Object objectValue(int column) throws SQLException {
+        return current()._objects[column];
+    }
+
+    @Override
+    public synchronized boolean next() throws SQLException {
+        checkOpen();
+        if (_current != null) {
+            // release slot of current row
+            _current = null;
+            _head = (_head + 1) % _slots.length;
+            _available--;
+            notifyAll();
+        } else if (_row > 0) {
+            // already after last row
+            return false;
+        }
+        awaitRows(0);
+        if (_finished) {
+            runFinishAction();
+        }
+        if (_available > 0) {
+            _current = _slots[_head];
+            _row++;
+            return true;
+        }
+        if (_error != null) {
+            throw prefetchError();
+        }
+        _row++;
+        return false;
+    }
+
+    @Override
+    public synchronized int getRow() throws SQLException {
+        checkOpen();
+        return (_current != null) ? _row : 0;
+    }
+
+    @Override
+    public synchronized boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        if (_row > 0) {
+            return false;
+        }
+        awaitRows(0);
+        return _available > 0;
+    }
+
+    @Override
+    public synchronized boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return (_current == null) && (_row > 1);
+    }
+
+    @Override
+    public synchronized boolean isFirst() throws SQLException {
+        checkOpen();
+        return (_current != null) && (_row == 1);
+    }
+
+    @Override
+    public synchronized boolean isLast() throws SQLException {
+        checkOpen();
+        if (_current == null) {
+            return false;
+        }
+        awaitRows(1);
+        return (_available == 1) && (_error == null);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        if (isClosed()) {
+            return;
+        }
+        super.close();
+        _stopped = true;
+        _current = null;
+        notifyAll();
+        if (!_started) {
+            // background task didn't start yet and won't touch results
+            _originalResults.close();
+            runFinishAction();
+            return;
+        }
+        boolean interrupted = false;
+        while (!_finished) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        runFinishAction();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Description of temporal columns of translated SELECT statement. Select
+ * translator registers every column carrying start of valid time, transaction
+ * time or intersection under its generated label, so results can be processed
+ * without querying temporal metadata of source tables.
+ */
+public class ResultDescriptor {
+
+    /**
+     * Temporal column of results.
+     */
+    public static class Column {
+
+        /**
+         * Label of column visible to user
+         */
+        private String _label;
+        /**
+         * Name of source table or empty string if there is none
+         */
+        private String _tableName;
+        /**
+         * Scale of column
+         */
+        private DateTimeScale _scale;
+
+        /**
+         * Create temporal column description.
+         *
+         * @param label Label of column visible to user
+         * @param tableName Name of source table or empty string
+         * @param scale Scale of column
+         */
+        public Column(String label, String tableName, DateTimeScale scale) {
+            _label = label;
+            _tableName = tableName;
+            _scale = scale;
+        }
+
+        /**
+         * Get label of column visible to user.
+         *
+         * @return Column label
+         */
+        public String getLabel() {
+            return _label;
+        }
+
+        /**
+         * Set label of column visible to user.
+         *
+         * @param label Column label
+         */
+        public void setLabel(String label) {
+            _label = label;
+        }
+
+        /**
+         * Get name of source table.
+         *
+         * @return Table name or empty string if there is none
+         */
+        public String getTableName() {
+            return _tableName;
+        }
+
+        /**
+         * Set name of source table.
+         *
+         * @param tableName Table name
+         */
+        public void setTableName(String tableName) {
+            _tableName = tableName;
+        }
+
+        /**
+         * Get scale of column.
+         *
+         * @return Date and time scale
+         */
+        public DateTimeScale getScale() {
+            return _scale;
+        }
+
+        /**
+         * Set scale of column.
+         *
+         * @param scale Date and time scale
+         */
+        public void setScale(DateTimeScale scale) {
+            _scale = scale;
+        }
+    }
+
+    /**
+     * Columns by uppercase generated label. Several columns can share one
+     * label, e.g. VALID(a) selected twice with different aliases, they are
+     * stored in select list order.
+     */
+    private final HashMap<String, ArrayList<Column>> _columns = new HashMap<>();
+
+    /**
+     * Register temporal column.
+     *
+     * @param generatedLabel Generated label of column in translated statement,
+     * unquoted
+     * @param column Column description
+     * @return Registered column
+     */
+    public Column add(String generatedLabel, Column column) {
+        String key = generatedLabel.toUpperCase();
+        ArrayList<Column> columns = _columns.get(key);
+        if (columns == null) {
+            columns = new ArrayList<>(1);
+            _columns.put(key, columns);
+        }
+        columns.add(column);
+        return column;
+    }
+
+    /**
+     * Register all columns of other descriptor, e.g. of subquery in FROM
+     * clause whose columns are selected by outer query.
+     *
+     * @param other Other descriptor
+     */
+    public void addAll(ResultDescriptor other) {
+        for (HashMap.Entry<String, ArrayList<Column>> entry : other._columns.entrySet()) {
+            for (Column column : entry.getValue()) {
+                add(entry.getKey(), column);
+            }
+        }
+    }
+
+    /**
+     * Get temporal column by generated label.
+     *
+     * @param generatedLabel Generated label of column in results
+     * @param occurrence Zero based number of previous columns with the same
+     * label in results
+     * @return Column description or null if column is not registered
+     */
+    public Column get(String generatedLabel, int occurrence) {
+        ArrayList<Column> columns = _columns.get(generatedLabel.toUpperCase());
+        if (columns == null || columns.isEmpty()) {
+            return null;
+        }
+        return columns.get(Math.min(occurrence, columns.size() - 1));
+    }
+}
@@ -0,0 +1,972 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Exporter writing temporal results to stream in CSV, JSON Lines or binary
+ * format. Temporal columns are read as unix timestamps without converting
+ * them to strings, PERIOD column is written as pair of beginning and end.
+ * Output is encoded into one direct buffer of fixed size, so memory used by
+ * export doesn't depend on number of rows.
+ *
+ * Binary format uses big endian numbers. It starts with int BINARY_MAGIC,
+ * byte BINARY_VERSION, int number of columns and for every column byte kind
+ * (one of _COLUMN constants) and label as short length and UTF-8 bytes.
+ * Blocks of rows follow, every block starts with int number of rows and
+ * contains columns one after another. Column consists of null bitmap with
+ * one bit per row, lowest bit first, and values of rows which are not null:
+ * long for LONG_COLUMN and EVENT_COLUMN, double for DOUBLE_COLUMN, two longs
+ * for PERIOD_COLUMN and int length with UTF-8 bytes for TEXT_COLUMN. Block
+ * with 0 rows ends the output.
+ */
+public class ResultExporter {
+
+    /**
+     * Magic number at the beginning of binary output
+     */
+    public static final int BINARY_MAGIC = 0x54535132;
+    /**
+     * Version of binary format
+     */
+    public static final byte BINARY_VERSION = 1;
+    /**
+     * Integer or boolean column in binary format
+     */
+    public static final byte LONG_COLUMN = 0;
+    /**
+     * Floating point column in binary format
+     */
+    public static final byte DOUBLE_COLUMN = 1;
+    /**
+     * Text column in binary format, used also for decimal numbers
+     */
+    public static final byte TEXT_COLUMN = 2;
+    /**
+     * PERIOD column in binary format
+     */
+    public static final byte PERIOD_COLUMN = 3;
+    /**
+     * EVENT column in binary format
+     */
+    public static final byte EVENT_COLUMN = 4;
+
+    /**
+     * Kind of column for integer values
+     */
+    private static final int LONG_VALUE = 0;
+    /**
+     * Kind of column for floating point values
+     */
+    private static final int DOUBLE_VALUE = 1;
+    /**
+     * Kind of column for boolean values
+     */
+    private static final int BOOLEAN_VALUE = 2;
+    /**
+     * Kind of column for decimal values
+     */
+    private static final int DECIMAL_VALUE = 3;
+    /**
+     * Kind of column for text values
+     */
+    private static final int TEXT_VALUE = 4;
+    /**
+     * Kind of column for periods
+     */
+    private static final int PERIOD_VALUE = 5;
+    /**
+     * Kind of column for events
+     */
+    private static final int EVENT_VALUE = 6;
+
+    /**
+     * Column of exported results.
+     */
+    private static final class Column {
+
+        /**
+         * Index of column in results
+         */
+        private final int _index;
+        /**
+         * Label of column
+         */
+        private final String _label;
+        /**
+         * Kind of column, one of _VALUE constants
+         */
+        private final int _kind;
+        /**
+         * Null flags of rows in block
+         */
+        private boolean[] _nulls;
+        /**
+         * Long values or beginnings of periods of rows in block
+         */
+        private long[] _longs;
+        /**
+         * Ends of periods of rows in block
+         */
+        private long[] _ends;
+        /**
+         * Double values of rows in block
+         */
+        private double[] _doubles;
+        /**
+         * Text values of rows in block
+         */
+        private String[] _texts;
+
+        /**
+         * Create column description.
+         *
+         * @param index Index of column in results
+         * @param label Label of column
+         * @param kind Kind of column
+         */
+        private Column(int index, String label, int kind) {
+            _index = index;
+            _label = label;
+            _kind = kind;
+        }
+
+        /**
+         * Get kind of column in binary format.
+         *
+         * @return One of _COLUMN constants
+         */
+        private byte binaryKind() {
+            switch (_kind) {
+                case LONG_VALUE:
+                case BOOLEAN_VALUE:
+                    return LONG_COLUMN;
+                case DOUBLE_VALUE:
+                    return DOUBLE_COLUMN;
+                case PERIOD_VALUE:
+                    return PERIOD_COLUMN;
+                case EVENT_VALUE:
+                    return EVENT_COLUMN;
+                default:
+                    return TEXT_COLUMN;
+            }
+        }
+    }
+
+    /**
+     * Buffered output to channel.
+     */
+    private static final class Output {
+
+        /**
+         * Channel to write to
+         */
+        private final WritableByteChannel _channel;
+        /**
+         * Output buffer
+         */
+        private final ByteBuffer _buffer;
+        /**
+         * Digits of number being written
+         */
+        private final byte[] _digits = new byte[20];
+
+        /**
+         * Create output.
+         *
+         * @param channel Channel to write to
+         * @param bufferSize Size of buffer in bytes
+         */
+        private Output(WritableByteChannel channel, int bufferSize) {
+            _channel = channel;
+            _buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        /**
+         * Make sure buffer has space for specified number of bytes.
+         *
+         * @param bytes Number of bytes
+         * @throws IOException
+         */
+        private void ensure(int bytes) throws IOException {
+            if (_buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * Write buffered bytes to channel.
+         *
+         * @throws IOException
+         */
+        private void flush() throws IOException {
+            _buffer.flip();
+            while (_buffer.hasRemaining()) {
+                _channel.write(_buffer);
+            }
+            _buffer.clear();
+        }
+
+        /**
+         * Write byte.
+         *
+         * @param b Byte to write
+         * @throws IOException
+         */
+        private void putByte(int b) throws IOException {
+            ensure(1);
+            _buffer.put((byte) b);
+        }
+
+        /**
+         * Write binary short.
+         *
+         * @param value Value to write
+         * @throws IOException
+         */
+        private void putShort(int value) throws IOException {
+            ensure(2);
+            _buffer.putShort((short) value);
+        }
+
+        /**
+         * Write binary int.
+         *
+         * @param value Value to write
+         * @throws IOException
+         */
+        private void putInt(int value) throws IOException {
+            ensure(4);
+            _buffer.putInt(value);
+        }
+
+        /**
+         * Write binary long.
+         *
+         * @param value Value to write
+         * @throws IOException
+         */
+        private void putLong(long value) throws IOException {
+            ensure(8);
+            _buffer.putLong(value);
+        }
+
+        /**
+         * Write binary double.
+         *
+         * @param value Value to write
+         * @throws IOException
+         */
+        private void putDouble(double value) throws IOException {
+            ensure(8);
+            _buffer.putDouble(value);
+        }
+
+        /**
+         * Write ASCII string.
+         *
+         * @param str String containing only ASCII characters
+         * @throws IOException
+         */
+        private void putAscii(String str) throws IOException {
+            for (int i = 0; i < str.length(); i++) {
+                putByte(str.charAt(i));
+            }
+        }
+
+        /**
+         * Write decimal digits of number.
+         *
+         * @param value Number to write
+         * @throws IOException
+         */
+        private void putNumber(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                putAscii(Long.toString(value));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                _buffer.put((byte) '-');
+                value = -value;
+            }
+            int length = 0;
+            do {
+                _digits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+            while (length > 0) {
+                _buffer.put(_digits[--length]);
+            }
+        }
+
+        /**
+         * Write string in UTF-8, escaping characters for CSV or JSON.
+         *
+         * @param str String to write
+         * @param json Escape for JSON string if true, for quoted CSV field
+         * otherwise
+         * @throws IOException
+         */
+        private void putText(String str, boolean json) throws IOException {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c == '"') {
+                    putByte(json ? '\\' : '"');
+                    putByte('"');
+                } else if (json && (c == '\\')) {
+                    putByte('\\');
+                    putByte('\\');
+                } else if (json && (c < 0x20)) {
+                    putByte('\\');
+                    switch (c) {
+                        case '\n':
+                            putByte('n');
+                            break;
+                        case '\r':
+                            putByte('r');
+                            break;
+                        case '\t':
+                            putByte('t');
+                            break;
+                        default:
+                            putAscii(String.format("u%04x", (int) c));
+                            break;
+                    }
+                } else {
+                    i = putChar(str, i);
+                }
+            }
+        }
+
+        /**
+         * Write string in UTF-8 without escaping.
+         *
+         * @param str String to write
+         * @throws IOException
+         */
+        private void putUtf8(String str) throws IOException {
+            for (int i = 0; i < str.length(); i++) {
+                i = putChar(str, i);
+            }
+        }
+
+        /**
+         * Write character of string in UTF-8.
+         *
+         * @param str String
+         * @param i Index of character
+         * @return Index of last used character, it differs for surrogate
+         * pairs
+         * @throws IOException
+         */
+        private int putChar(String str, int i) throws IOException {
+            char c = str.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                _buffer.put((byte) c);
+            } else if (c < 0x800) {
+                _buffer.put((byte) (0xC0 | (c >> 6)));
+                _buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && (i + 1 < str.length())
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                _buffer.put((byte) (0xF0 | (cp >> 18)));
+                _buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                _buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                _buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate can't be encoded
+                _buffer.put((byte) '?');
+            } else {
+                _buffer.put((byte) (0xE0 | (c >> 12)));
+                _buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                _buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Output format
+     */
+    private final ExportFormat _format;
+    /**
+     * Fetch size set to results, 0 to keep fetch size of results
+     */
+    private int _fetchSize = 0;
+    /**
+     * Size of output buffer in bytes
+     */
+    private int _bufferSize = 64 * 1024;
+    /**
+     * Number of rows in block of binary format
+     */
+    private int _blockRows = 1024;
+
+    /**
+     * Create exporter.
+     *
+     * @param format Output format
+     */
+    public ResultExporter(ExportFormat format) {
+        _format = format;
+    }
+
+    /**
+     * Get output format.
+     *
+     * @return Output format
+     */
+    public ExportFormat getFormat() {
+        return _format;
+    }
+
+    /**
+     * Set fetch size hint given to results before export.
+     *
+     * @param fetchSize Number of rows fetched from database at once, 0 to
+     * keep fetch size of results
+     */
+    public void setFetchSize(int fetchSize) {
+        _fetchSize = fetchSize;
+    }
+
+    /**
+     * Get fetch size hint given to results before export.
+     *
+     * @return Number of rows fetched from database at once, 0 if fetch size
+     * of results is kept
+     */
+    public int getFetchSize() {
+        return _fetchSize;
+    }
+
+    /**
+     * Set size of output buffer.
+     *
+     * @param bufferSize Size of buffer in bytes, at least 64
+     */
+    public void setBufferSize(int bufferSize) {
+        _bufferSize = Math.max(64, bufferSize);
+    }
+
+    /**
+     * Get size of output buffer.
+     *
+     * @return Size of buffer in bytes
+     */
+    public int getBufferSize() {
+        return _bufferSize;
+    }
+
+    /**
+     * Set number of rows in block of binary format.
+     *
+     * @param blockRows Number of rows in block
+     */
+    public void setBlockRows(int blockRows) {
+        _blockRows = Math.max(1, blockRows);
+    }
+
+    /**
+     * Get number of rows in block of binary format.
+     *
+     * @return Number of rows in block
+     */
+    public int getBlockRows() {
+        return _blockRows;
+    }
+
+    /**
+     * Export all remaining rows of results to stream. Stream is flushed but
+     * not closed.
+     *
+     * @param results Results to export
+     * @param out Stream to write to
+     * @return Number of exported rows
+     * @throws SQLException
+     * @throws IOException
+     */
+    public long export(TSQL2ResultSet results, OutputStream out) throws SQLException, IOException {
+        long rows = export(results, Channels.newChannel(out));
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Export all remaining rows of results to channel. Channel is not closed.
+     *
+     * @param results Results to export
+     * @param channel Channel to write to
+     * @return Number of exported rows
+     * @throws SQLException
+     * @throws IOException
+     */
+    public long export(TSQL2ResultSet results, WritableByteChannel channel) throws SQLException, IOException {
+        if (_fetchSize > 0) {
+            results.setFetchSize(_fetchSize);
+        }
+        Column[] columns = describe(results);
+        Output out = new Output(channel, _bufferSize);
+        long rows;
+        switch (_format) {
+            case CSV:
+                rows = exportCsv(results, columns, out);
+                break;
+            case JSON_LINES:
+                rows = exportJson(results, columns, out);
+                break;
+            default:
+                rows = exportBinary(results, columns, out);
+                break;
+        }
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Describe columns of results.
+     *
+     * @param results Results to export
+     * @return Columns
+     * @throws SQLException
+     */
+    private static Column[] describe(TSQL2ResultSet results) throws SQLException {
+        TSQL2ResultSetMetaData metaData = (TSQL2ResultSetMetaData) results.getMetaData();
+        Column[] columns = new Column[metaData.getColumnCount()];
+        for (int i = 1; i <= columns.length; i++) {
+            int kind;
+            switch (metaData.getColumnTSQLType(i)) {
+                case PERIOD:
+                    kind = PERIOD_VALUE;
+                    break;
+                case EVENT:
+                    kind = EVENT_VALUE;
+                    break;
+                default:
+                    switch (metaData.getColumnType(i)) {
+                        case Types.BIGINT:
+                        case Types.INTEGER:
+                        case Types.SMALLINT:
+                        case Types.TINYINT:
+                            kind = LONG_VALUE;
+                            break;
+                        case Types.DOUBLE:
+                        case Types.FLOAT:
+                        case Types.REAL:
+                            kind = DOUBLE_VALUE;
+                            break;
+                        case Types.BOOLEAN:
+                        case Types.BIT:
+                            kind = BOOLEAN_VALUE;
+                            break;
+                        case Types.NUMERIC:
+                        case Types.DECIMAL:
+                            kind = DECIMAL_VALUE;
+                            break;
+                        default:
+                            kind = TEXT_VALUE;
+                            break;
+                    }
+                    break;
+            }
+            columns[i - 1] = new Column(i, metaData.getColumnLabel(i), kind);
+        }
+        return columns;
+    }
+
+    /**
+     * Get decimal value as string.
+     *
+     * @param results Results positioned on row
+     * @param index Index of column
+     * @return Value or null
+     * @throws SQLException
+     */
+    private static String decimal(TSQL2ResultSet results, int index) throws SQLException {
+        BigDecimal value = results.getBigDecimal(index);
+        return (value == null) ? null : value.toPlainString();
+    }
+
+    /**
+     * Write CSV field.
+     *
+     * @param out Output
+     * @param str Field value or null
+     * @throws IOException
+     */
+    private static void putCsvField(Output out, String str) throws IOException {
+        if (str == null) {
+            return;
+        }
+        boolean quote = str.isEmpty();
+        for (int i = 0; !quote && (i < str.length()); i++) {
+            char c = str.charAt(i);
+            quote = (c == ',') || (c == '"') || (c == '\n') || (c == '\r');
+        }
+        if (quote) {
+            out.putByte('"');
+            out.putText(str, false);
+            out.putByte('"');
+        } else {
+            out.putUtf8(str);
+        }
+    }
+
+    /**
+     * Export results as CSV.
+     *
+     * @param results Results to export
+     * @param columns Columns of results
+     * @param out Output
+     * @return Number of exported rows
+     * @throws SQLException
+     * @throws IOException
+     */
+    private static long exportCsv(TSQL2ResultSet results, Column[] columns, Output out)
+            throws SQLException, IOException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                out.putByte(',');
+            }
+            if (columns[i]._kind == PERIOD_VALUE) {
+                putCsvField(out, columns[i]._label + "_start");
+                out.putByte(',');
+                putCsvField(out, columns[i]._label + "_end");
+            } else {
+                putCsvField(out, columns[i]._label);
+            }
+        }
+        out.putByte('\r');
+        out.putByte('\n');
+
+        long rows = 0;
+        while (results.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                if (i > 0) {
+                    out.putByte(',');
+                }
+                switch (column._kind) {
+                    case LONG_VALUE:
+                        long l = results.getLong(column._index);
+                        if (!results.wasNull()) {
+                            out.putNumber(l);
+                        }
+                        break;
+                    case DOUBLE_VALUE:
+                        double d = results.getDouble(column._index);
+                        if (!results.wasNull()) {
+                            out.putAscii(Double.toString(d));
+                        }
+                        break;
+                    case BOOLEAN_VALUE:
+                        boolean b = results.getBoolean(column._index);
+                        if (!results.wasNull()) {
+                            out.putAscii(b ? "true" : "false");
+                        }
+                        break;
+                    case DECIMAL_VALUE:
+                        putCsvField(out, decimal(results, column._index));
+                        break;
+                    case PERIOD_VALUE:
+                        long start = results.getPeriodStart(column._index);
+                        boolean isNull = results.wasNull();
+                        long end = results.getPeriodEnd(column._index);
+                        if (!isNull) {
+                            out.putNumber(start);
+                        }
+                        out.putByte(',');
+                        if (!isNull) {
+                            out.putNumber(end);
+                        }
+                        break;
+                    case EVENT_VALUE:
+                        long time = results.getPeriodStart(column._index);
+                        if (!results.wasNull()) {
+                            out.putNumber(time);
+                        }
+                        break;
+                    default:
+                        putCsvField(out, results.getString(column._index));
+                        break;
+                }
+            }
+            out.putByte('\r');
+            out.putByte('\n');
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Export results as JSON Lines.
+     *
+     * @param results Results to export
+     * @param columns Columns of results
+     * @param out Output
+     * @return Number of exported rows
+     * @throws SQLException
+     * @throws IOException
+     */
+    private static long exportJson(TSQL2ResultSet results, Column[] columns, Output out)
+            throws SQLException, IOException {
+        long rows = 0;
+        while (results.next()) {
+            out.putByte('{');
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                if (i > 0) {
+                    out.putByte(',');
+                }
+                out.putByte('"');
+                out.putText(column._label, true);
+                out.putByte('"');
+                out.putByte(':');
+                switch (column._kind) {
+                    case LONG_VALUE:
+                        long l = results.getLong(column._index);
+                        if (results.wasNull()) {
+                            out.putAscii("null");
+                        } else {
+                            out.putNumber(l);
+                        }
+                        break;
+                    case DOUBLE_VALUE:
+                        double d = results.getDouble(column._index);
+                        if (results.wasNull() || Double.isNaN(d) || Double.isInfinite(d)) {
+                            out.putAscii("null");
+                        } else {
+                            out.putAscii(Double.toString(d));
+                        }
+                        break;
+                    case BOOLEAN_VALUE:
+                        boolean b = results.getBoolean(column._index);
+                        out.putAscii(results.wasNull() ? "null" : (b ? "true" : "false"));
+                        break;
+                    case DECIMAL_VALUE:
+                        String decimal = decimal(results, column._index);
+                        out.putAscii((decimal == null) ? "null" : decimal);
+                        break;
+                    case PERIOD_VALUE:
+                        long start = results.getPeriodStart(column._index);
+                        if (results.wasNull()) {
+                            out.putAscii("null");
+                        } else {
+                            out.putByte('[');
+                            out.putNumber(start);
+                            out.putByte(',');
+                            out.putNumber(results.getPeriodEnd(column._index));
+                            out.putByte(']');
+                        }
+                        break;
+                    case EVENT_VALUE:
+                        long time = results.getPeriodStart(column._index);
+                        if (results.wasNull()) {
+                            out.putAscii("null");
+                        } else {
+                            out.putNumber(time);
+                        }
+                        break;
+                    default:
+                        String str = results.getString(column._index);
+                        if (str == null) {
+                            out.putAscii("null");
+                        } else {
+                            out.putByte('"');
+                            out.putText(str, true);
+                            out.putByte('"');
+                        }
+                        break;
+                }
+            }
+            out.putByte('}');
+            out.putByte('\n');
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Get length of string in UTF-8 as written by Output.
+     *
+     * @param str String
+     * @return Number of bytes
+     */
+    private static int utf8Length(String str) {
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && (i + 1 < str.length())
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Export results in binary format.
+     *
+     * @param results Results to export
+     * @param columns Columns of results
+     * @param out Output
+     * @return Number of exported rows
+     * @throws SQLException
+     * @throws IOException
+     */
+    private long exportBinary(TSQL2ResultSet results, Column[] columns, Output out)
+            throws SQLException, IOException {
+        out.putInt(BINARY_MAGIC);
+        out.putByte(BINARY_VERSION);
+        out.putInt(columns.length);
+        for (Column column : columns) {
+            out.putByte(column.binaryKind());
+            out.putShort(utf8Length(column._label));
+            out.putUtf8(column._label);
+
+            column._nulls = new boolean[_blockRows];
+            switch (column.binaryKind()) {
+                case PERIOD_COLUMN:
+                    column._ends = new long[_blockRows];
+                    column._longs = new long[_blockRows];
+                    break;
+                case LONG_COLUMN:
+                case EVENT_COLUMN:
+                    column._longs = new long[_blockRows];
+                    break;
+                case DOUBLE_COLUMN:
+                    column._doubles = new double[_blockRows];
+                    break;
+                default:
+                    column._texts = new String[_blockRows];
+                    break;
+            }
+        }
+
+        long rows = 0;
+        int blockRows = 0;
+        while (true) {
+            boolean hasRow = results.next();
+            if (hasRow) {
+                for (Column column : columns) {
+                    int index = column._index;
+                    switch (column._kind) {
+                        case LONG_VALUE:
+                            column._longs[blockRows] = results.getLong(index);
+                            break;
+                        case DOUBLE_VALUE:
+                            column._doubles[blockRows] = results.getDouble(index);
+                            break;
+                        case BOOLEAN_VALUE:
+                            column._longs[blockRows] = results.getBoolean(index) ? 1 : 0;
+                            break;
+                        case DECIMAL_VALUE:
+                            column._texts[blockRows] = decimal(results, index);
+                            break;
+                        case PERIOD_VALUE:
+                            column._longs[blockRows] = results.getPeriodStart(index);
+                            column._nulls[blockRows] = results.wasNull();
+                            column._ends[blockRows] = results.getPeriodEnd(index);
+                            continue;
+                        case EVENT_VALUE:
+                            column._longs[blockRows] = results.getPeriodStart(index);
+                            break;
+                        default:
+                            column._texts[blockRows] = results.getString(index);
+                            break;
+                    }
+                    column._nulls[blockRows] = results.wasNull();
+                }
+                blockRows++;
+                rows++;
+            }
+            if ((blockRows == _blockRows) || (!hasRow && (blockRows > 0))) {
+                writeBlock(columns, blockRows, out);
+                blockRows = 0;
+            }
+            if (!hasRow) {
+                break;
+            }
+        }
+        out.putInt(0);
+        return rows;
+    }
+
+    /**
+     * Write block of rows in binary format.
+     *
+     * @param columns Columns with values of rows
+     * @param blockRows Number of rows in block
+     * @param out Output
+     * @throws IOException
+     */
+    private static void writeBlock(Column[] columns, int blockRows, Output out) throws IOException {
+        out.putInt(blockRows);
+        for (Column column : columns) {
+            for (int row = 0; row < blockRows; row += 8) {
+                int bits = 0;
+                for (int bit = 0; (bit < 8) && (row + bit < blockRows); bit++) {
+                    if (column._nulls[row + bit]) {
+                        bits |= 1 << bit;
+                    }
+                }
+                out.putByte(bits);
+            }
+            byte kind = column.binaryKind();
+            for (int row = 0; row < blockRows; row++) {
+                if (column._nulls[row]) {
+                    continue;
+                }
+                switch (kind) {
+                    case LONG_COLUMN:
+                    case EVENT_COLUMN:
+                        out.putLong(column._longs[row]);
+                        break;
+                    case PERIOD_COLUMN:
+                        out.putLong(column._longs[row]);
+                        out.putLong(column._ends[row]);
+                        break;
+                    case DOUBLE_COLUMN:
+                        out.putDouble(column._doubles[row]);
+                        break;
+                    default:
+                        String str = column._texts[row];
+                        out.putInt(utf8Length(str));
+                        out.putUtf8(str);
+                        column._texts[row] = null;
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator mapping rows of temporal results to objects. Rows are read
+ * sequentially from results, splitting maps batch of following rows into
+ * array, so mapped rows can be processed in parallel. Batches grow by
+ * BATCH_UNIT rows with every split. Results are closed when all rows are
+ * read.
+ *
+ * SQLException thrown by results or mapper is rethrown as
+ * UncheckedSQLException.
+ *
+ * @param <T> Type of mapped objects
+ */
+public class ResultSetSpliterator<T> implements Spliterator<T> {
+
+    /**
+     * Growth of batch size with every split
+     */
+    private static final int BATCH_UNIT = 1 << 10;
+    /**
+     * Maximal batch size
+     */
+    private static final int MAX_BATCH = 1 << 25;
+
+    /**
+     * Results to read rows from
+     */
+    private final TSQL2ResultSet _results;
+    /**
+     * Mapper of rows
+     */
+    private final RowMapper<? extends T> _mapper;
+    /**
+     * Size of next batch
+     */
+    private int _batch = 0;
+    /**
+     * Flag if all rows were read
+     */
+    private boolean _finished = false;
+
+    /**
+     * Create spliterator over rows of results.
+     *
+     * @param results Results positioned before first row
+     * @param mapper Mapper of rows
+     */
+    public ResultSetSpliterator(TSQL2ResultSet results, RowMapper<? extends T> mapper) {
+        _results = results;
+        _mapper = mapper;
+    }
+
+    /**
+     * Move to next row and close results after the last one.
+     *
+     * @return True if results are on row
+     * @throws SQLException
+     */
+    private boolean next() throws SQLException {
+        if (_finished) {
+            return false;
+        }
+        if (_results.next()) {
+            return true;
+        }
+        _finished = true;
+        _results.close();
+        return false;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (!next()) {
+                return false;
+            }
+            action.accept(_mapper.map(_results));
+            return true;
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        try {
+            while (next()) {
+                action.accept(_mapper.map(_results));
+            }
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int size = Math.min(_batch + BATCH_UNIT, MAX_BATCH);
+        Object[] rows = new Object[size];
+        int count = 0;
+        try {
+            while ((count < size) && next()) {
+                rows[count++] = _mapper.map(_results);
+            }
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+        if (count == 0) {
+            return null;
+        }
+        _batch = count;
+        return Spliterators.spliterator(rows, 0, count, ORDERED);
+    }
+
+    @Override
+    public long estimateSize() {
+        return _finished ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
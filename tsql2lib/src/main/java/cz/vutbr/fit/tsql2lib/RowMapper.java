@@ -0,0 +1,36 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.SQLException;
+
+/**
+ * Mapper of rows of temporal results to objects. Periods can be read as
+ * primitive values using TSQL2ResultSet.getPeriodStart() and
+ * TSQL2ResultSet.getPeriodEnd().
+ *
+ * @param <T> Type of objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map current row of results. Mapper must not move cursor of results.
+     *
+     * @param results Results positioned on row to map
+     * @return Object for row
+     * @throws SQLException
+     */
+    T map(TSQL2ResultSet results) throws SQLException;
+}
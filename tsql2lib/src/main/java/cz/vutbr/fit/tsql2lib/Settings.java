@@ -14,6 +14,8 @@
  */
 package cz.vutbr.fit.tsql2lib;
 
+import java.time.ZoneId;
+
 /**
  * Class containing settings for TSQL2 library. This class contains various
  * values that can be changed to modify library default settings. These values
@@ -111,6 +113,28 @@ public class Settings {
      * Alias for a column with empty string constant value
      */
     public static String EmptyColumnAlias = "-";
+    /**
+     * Time zone of date and time literals and of times in results. Unix
+     * timestamps stored in database are converted using this zone. Default is
+     * time zone of JVM when library is loaded.
+     */
+    public static ZoneId TimeZone = ZoneId.systemDefault();
+    /**
+     * Maximal memory in bytes used by rows of one materialized result set.
+     * Rows over this limit are written to spill file. Value 0 or less means
+     * no limit.
+     */
+    public static long MaterializedResultMemoryLimit = 64L * 1024 * 1024;
+    /**
+     * If this is set to true, primitive columns of materialized result sets
+     * are stored in direct buffers outside of Java heap.
+     */
+    public static boolean MaterializedResultOffHeap = false;
+    /**
+     * Directory for spill files of materialized result sets. Default
+     * temporary directory is used if this is null.
+     */
+    public static String MaterializedResultSpillDirectory = null;
 
     /**
      * Initialize settings for specified database type
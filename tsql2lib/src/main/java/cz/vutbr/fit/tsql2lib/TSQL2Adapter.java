@@ -29,10 +29,19 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 
+import cz.vutbr.fit.tsql2lib.monitoring.IndexAdvisor;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexRecommendation;
+import cz.vutbr.fit.tsql2lib.monitoring.MetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.SlowStatementLog;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementListener;
+import cz.vutbr.fit.tsql2lib.monitoring.WorkloadStatistics;
 
 /**
  * This class implements JDBC Connection interface and serves as adapter for any
@@ -54,6 +63,50 @@ public class TSQL2Adapter implements Connection {
      * this is false, underlying connection remains opened.
      */
     public static boolean closeUnderlyingConnection = true;
+    /**
+     * Group committer used in auto commit mode or null if every statement is
+     * committed separately.
+     */
+    private volatile GroupCommitter _groupCommitter = null;
+    /**
+     * Temporal metadata accessor bound to wrapped connection.
+     */
+    private final TSQL2DatabaseMetaData _metaData;
+    /**
+     * Executor of asynchronous statements or null for default executor.
+     */
+    private volatile Executor _executor = null;
+    /**
+     * Log of slow statements or null if logging is disabled.
+     */
+    private volatile SlowStatementLog _slowStatementLog = null;
+    /**
+     * Listener of statement lifecycle or null if there is none.
+     */
+    private volatile StatementListener _statementListener = null;
+    /**
+     * Statistics of statements aggregated by fingerprint or null if they
+     * aren't collected.
+     */
+    private volatile WorkloadStatistics _workloadStatistics = null;
+    /**
+     * Advisor collecting access patterns of temporal tables or null if they
+     * aren't collected.
+     */
+    private volatile IndexAdvisor _indexAdvisor = null;
+    /**
+     * Lock serializing TSQL2 statements of all threads on wrapped connection,
+     * so that one statement can't commit or roll back work of another one.
+     * Virtual threads blocked on database while holding it are not pinned to
+     * their carrier threads as they would be inside synchronized block.
+     */
+    private final ReentrantLock _transactionLock = new ReentrantLock();
+    /**
+     * Flag if the driver reports update counts of batched statements. Oracle
+     * drivers report SUCCESS_NO_INFO, other drivers are assumed to report
+     * them until they don't. It is set after initialization detects database.
+     */
+    private volatile boolean _batchUpdateCounted = true;
 
     /**
      * Get underlying connection object. This method is for development purposes
@@ -75,6 +128,299 @@ public class TSQL2Adapter implements Connection {
         con = connection;
         // init environment
         Init.doInit(con);
+        _metaData = TSQL2DatabaseMetaData.forConnection(con);
+        _batchUpdateCounted = Settings.DatabaseType != DatabaseType.ORACLE;
+    }
+
+    /**
+     * Create new TSQL2Adapter from specified connection sharing initialization
+     * and metadata cache with other adapters of the same context.
+     *
+     * @param connection Connection to wrap into adapter
+     * @param context Shared context, e.g. of data source
+     * @throws TSQL2Exception
+     */
+    public TSQL2Adapter(Connection connection, TSQL2Context context) throws TSQL2Exception {
+        con = connection;
+        context.init(con);
+        _metaData = context.createMetaData(con);
+        _batchUpdateCounted = Settings.DatabaseType != DatabaseType.ORACLE;
+    }
+
+    /**
+     * Get accessor of temporal metadata bound to wrapped connection.
+     *
+     * @return Temporal metadata accessor
+     */
+    public TSQL2DatabaseMetaData getTemporalMetaData() {
+        return _metaData;
+    }
+
+    /**
+     * Set durability guarantee of TSQL2 statements executed in auto commit
+     * mode. In GROUP and ASYNC modes, statements of all TSQL2Statements
+     * created by this adapter are committed in groups of at most
+     * maxStatements statements, and no group stays uncommitted longer than
+     * maxDelay milliseconds. Open group is committed before the mode changes.
+     * Results of queries are read into memory before their group is committed,
+     * see TSQL2Statement.setMaterializeResults(). Rollback is not possible
+     * in these modes, statements of group are rolled back only if one of them
+     * fails.
+     *
+     * @param mode Durability guarantee
+     * @param maxStatements Maximal number of TSQL2 statements in one group
+     * @param maxDelay Maximal time in milliseconds group stays uncommitted
+     * @throws SQLException
+     */
+    public void setDurabilityMode(DurabilityMode mode, int maxStatements, long maxDelay) throws SQLException {
+        _transactionLock.lock();
+        try {
+            if (_groupCommitter != null) {
+                GroupCommitter old = _groupCommitter;
+                _groupCommitter = null;
+                old.close();
+            }
+            if (mode != DurabilityMode.SYNC) {
+                if (!con.getAutoCommit()) {
+                    throw new TSQL2Exception("Group commit can be used only in auto commit mode.");
+                }
+                _groupCommitter = new GroupCommitter(con, mode, maxStatements, maxDelay);
+            }
+        } finally {
+            _transactionLock.unlock();
+        }
+    }
+
+    /**
+     * Get durability guarantee of TSQL2 statements executed in auto commit
+     * mode.
+     *
+     * @return Durability mode
+     */
+    public DurabilityMode getDurabilityMode() {
+        GroupCommitter group = _groupCommitter;
+        return (group == null) ? DurabilityMode.SYNC : group.getMode();
+    }
+
+    /**
+     * Set executor of asynchronous statements created by this adapter.
+     *
+     * @param executor Executor or null to use DefaultExecutor
+     */
+    public void setExecutor(Executor executor) {
+        _executor = executor;
+    }
+
+    /**
+     * Get executor of asynchronous statements created by this adapter.
+     *
+     * @return Executor of asynchronous statements
+     */
+    public Executor getExecutor() {
+        Executor executor = _executor;
+        return (executor == null) ? DefaultExecutor.get() : executor;
+    }
+
+    /**
+     * Set registry of metrics of statements created by this adapter and of
+     * catalog access of this connection.
+     *
+     * @param metrics Metrics registry, NoopMetricsRegistry.INSTANCE to
+     * disable metrics
+     */
+    public void setMetricsRegistry(MetricsRegistry metrics) {
+        _metaData.setMetricsRegistry(metrics);
+    }
+
+    /**
+     * Get registry of metrics of statements created by this adapter.
+     *
+     * @return Metrics registry
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return _metaData.getMetricsRegistry();
+    }
+
+    /**
+     * Set log of slow statements created by this adapter. Log can be shared
+     * by several adapters and it is not closed with the adapter.
+     *
+     * @param log Slow statement log or null to disable logging
+     */
+    public void setSlowStatementLog(SlowStatementLog log) {
+        _slowStatementLog = log;
+    }
+
+    /**
+     * Get log of slow statements created by this adapter.
+     *
+     * @return Slow statement log or null if logging is disabled
+     */
+    public SlowStatementLog getSlowStatementLog() {
+        return _slowStatementLog;
+    }
+
+    /**
+     * Set listener of lifecycle of statements created by this adapter.
+     * Statements already running keep their previous listener.
+     *
+     * @param listener Statement listener or null to remove listener
+     */
+    public void setStatementListener(StatementListener listener) {
+        _statementListener = listener;
+    }
+
+    /**
+     * Get listener of lifecycle of statements created by this adapter.
+     *
+     * @return Statement listener or null if there is none
+     */
+    public StatementListener getStatementListener() {
+        return _statementListener;
+    }
+
+    /**
+     * Set table collecting statistics of statements created by this adapter
+     * aggregated by statement fingerprint. One table can be shared by several
+     * adapters.
+     *
+     * @param statistics Statistics table or null to stop collecting
+     */
+    public void setWorkloadStatistics(WorkloadStatistics statistics) {
+        _workloadStatistics = statistics;
+    }
+
+    /**
+     * Get table collecting statistics of statements created by this adapter.
+     *
+     * @return Statistics table or null if statistics aren't collected
+     */
+    public WorkloadStatistics getWorkloadStatistics() {
+        return _workloadStatistics;
+    }
+
+    /**
+     * Set advisor collecting access patterns of tables in statements created
+     * by this adapter. One advisor can be shared by several adapters.
+     *
+     * @param advisor Index advisor or null to stop collecting
+     */
+    public void setIndexAdvisor(IndexAdvisor advisor) {
+        _indexAdvisor = advisor;
+    }
+
+    /**
+     * Get advisor collecting access patterns of tables in statements created
+     * by this adapter.
+     *
+     * @return Index advisor or null if access patterns aren't collected
+     */
+    public IndexAdvisor getIndexAdvisor() {
+        return _indexAdvisor;
+    }
+
+    /**
+     * Get indexes recommended by index advisor which don't exist in database
+     * yet. Existing indexes are read while holding lock of statements, see
+     * getStatementLock().
+     *
+     * @return Recommended indexes, empty if there is no index advisor
+     * @throws SQLException
+     */
+    public List<IndexRecommendation> getIndexRecommendations() throws SQLException {
+        IndexAdvisor advisor = _indexAdvisor;
+        if (advisor == null) {
+            return Collections.emptyList();
+        }
+        ReentrantLock lock = getStatementLock();
+        lock.lock();
+        try {
+            return advisor.recommend(con);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Create indexes recommended by index advisor. Indexes are created while
+     * holding lock of statements, so they don't interleave with statements of
+     * other threads. With group commit, open group is committed before and
+     * created indexes are committed after, so they don't join group of other
+     * statements.
+     *
+     * @return Created indexes, empty if there is no index advisor
+     * @throws SQLException
+     */
+    public List<IndexRecommendation> createRecommendedIndexes() throws SQLException {
+        IndexAdvisor advisor = _indexAdvisor;
+        if (advisor == null) {
+            return Collections.emptyList();
+        }
+        GroupCommitter group = _groupCommitter;
+        ReentrantLock lock = (group != null) ? group.getLock() : _transactionLock;
+        lock.lock();
+        try {
+            if (group != null) {
+                group.flush();
+            }
+            List<IndexRecommendation> recommendations = advisor.recommend(con);
+            advisor.createIndexes(con, recommendations);
+            if (group != null) {
+                con.commit();
+            }
+            return recommendations;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get lock serializing statements on wrapped connection, i.e. lock of
+     * group committer with group commit and transaction lock otherwise.
+     *
+     * @return Lock of statements
+     */
+    private ReentrantLock getStatementLock() {
+        GroupCommitter group = _groupCommitter;
+        return (group != null) ? group.getLock() : _transactionLock;
+    }
+
+    /**
+     * Get group committer used in auto commit mode.
+     *
+     * @return Group committer or null if statements are committed separately
+     */
+    public GroupCommitter getGroupCommitter() {
+        return _groupCommitter;
+    }
+
+    /**
+     * Check if the driver reports update counts of batched statements.
+     *
+     * @return False if update counts of batched statements are not known
+     */
+    boolean isBatchUpdateCounted() {
+        return _batchUpdateCounted;
+    }
+
+    /**
+     * Set if the driver reports update counts of batched statements.
+     *
+     * @param batchUpdateCounted False if update counts of batched statements
+     * are not known
+     */
+    void setBatchUpdateCounted(boolean batchUpdateCounted) {
+        _batchUpdateCounted = batchUpdateCounted;
+    }
+
+    /**
+     * Get lock held by statements of this adapter for whole transaction of
+     * one TSQL2 statement.
+     *
+     * @return Transaction lock
+     */
+    ReentrantLock getTransactionLock() {
+        return _transactionLock;
     }
 
     @Override
@@ -84,6 +430,9 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public void close() throws SQLException {
+        setDurabilityMode(DurabilityMode.SYNC, 1, 0);
+        // release prepared catalog queries, pooled connection outlives the adapter
+        _metaData.close();
         if (closeUnderlyingConnection) {
             con.close();
         }
@@ -91,6 +440,12 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public void commit() throws SQLException {
+        GroupCommitter group = getGroupCommitter();
+        if (group != null) {
+            // commit open group instead of auto commit
+            group.flush();
+            return;
+        }
         con.commit();
     }
 
@@ -145,6 +500,10 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public boolean getAutoCommit() throws SQLException {
+        if (getGroupCommitter() != null) {
+            // underlying auto commit is disabled only for group commit
+            return true;
+        }
         return con.getAutoCommit();
     }
 
@@ -275,6 +634,9 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public void rollback() throws SQLException {
+        if (getGroupCommitter() != null) {
+            throw new TSQL2Exception("Cannot rollback in auto commit mode.");
+        }
         con.rollback();
     }
 
@@ -285,6 +647,13 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public void setAutoCommit(boolean autoCommit) throws SQLException {
+        if (getGroupCommitter() != null) {
+            if (autoCommit) {
+                return;
+            }
+            // explicit transaction ends group commit
+            setDurabilityMode(DurabilityMode.SYNC, 1, 0);
+        }
         con.setAutoCommit(autoCommit);
     }
 
@@ -364,12 +733,13 @@ public class TSQL2Adapter implements Connection {
 
     @Override
     public void setNetworkTimeout(Executor exctr, int i) throws SQLException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        // connection pools set timeouts of borrowed connections
+        con.setNetworkTimeout(exctr, i);
     }
 
     @Override
     public int getNetworkTimeout() throws SQLException {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        return con.getNetworkTimeout();
     }
 
 }
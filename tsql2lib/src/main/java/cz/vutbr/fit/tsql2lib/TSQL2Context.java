@@ -0,0 +1,64 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State shared by adapters of connections to one database, e.g. connections
+ * borrowed from one pool. Environment is initialized by the first adapter of
+ * each database only and all adapters share one cache of temporal table
+ * metadata.
+ */
+public class TSQL2Context {
+
+    /**
+     * Cache of temporal table metadata shared by adapters
+     */
+    private final Map<String, TableInfo> _metaDataCache = new ConcurrentHashMap<>();
+
+    /**
+     * Initialize environment using specified connection unless it was already
+     * initialized. Initialization is cached per JDBC URL and catalog by Init.
+     *
+     * @param con Connection for initialization. This can't be TSQL2Adapter
+     * instance.
+     * @throws TSQL2Exception
+     */
+    public void init(Connection con) throws TSQL2Exception {
+        Init.doInit(con);
+    }
+
+    /**
+     * Create temporal metadata accessor using shared cache.
+     *
+     * @param con Connection used to get metadata. This can't be TSQL2Adapter
+     * instance.
+     * @return New metadata accessor
+     */
+    public TSQL2DatabaseMetaData createMetaData(Connection con) {
+        return new TSQL2DatabaseMetaData(con, _metaDataCache);
+    }
+
+    /**
+     * Forget cached metadata and initialize environment again on next use.
+     * Call this after temporal schema was changed by other applications.
+     */
+    public void reset() {
+        Init.reset();
+        _metaDataCache.clear();
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Data source adding TSQL2 support to other data source, typically connection
+ * pool. Borrowed connections are wrapped into TSQL2Adapter sharing one
+ * TSQL2Context, so the environment is initialized by the first borrowed
+ * connection only and temporal table metadata are cached per data source.
+ * Closing adapter returns underlying connection to the pool unless
+ * TSQL2Adapter.closeUnderlyingConnection is false.
+ */
+public class TSQL2DataSource implements DataSource {
+
+    /**
+     * Wrapped data source
+     */
+    private final DataSource _dataSource;
+    /**
+     * Context shared by adapters of this data source
+     */
+    private final TSQL2Context _context = new TSQL2Context();
+
+    /**
+     * Create new TSQL2 data source wrapping specified data source.
+     *
+     * @param dataSource Data source to wrap, e.g. connection pool
+     */
+    public TSQL2DataSource(DataSource dataSource) {
+        _dataSource = dataSource;
+    }
+
+    /**
+     * Get context shared by adapters of this data source.
+     *
+     * @return Shared context
+     */
+    public TSQL2Context getContext() {
+        return _context;
+    }
+
+    /**
+     * Wrap borrowed connection into adapter.
+     *
+     * @param con Borrowed connection
+     * @return Adapter of borrowed connection
+     * @throws SQLException
+     */
+    private Connection wrap(Connection con) throws SQLException {
+        try {
+            return new TSQL2Adapter(con, _context);
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(_dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(_dataSource.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return _dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        _dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        _dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return _dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return _dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return _dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || _dataSource.isWrapperFor(iface);
+    }
+}
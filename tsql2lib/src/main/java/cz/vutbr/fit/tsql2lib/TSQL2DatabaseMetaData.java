@@ -14,10 +14,14 @@
 package cz.vutbr.fit.tsql2lib;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cz.vutbr.fit.tsql2lib.monitoring.FlightRecorderEvents;
+import cz.vutbr.fit.tsql2lib.monitoring.MetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.NoopMetricsRegistry;
 
 /**
  * Class providing access to temporal database metadata. This class is used to
@@ -33,9 +37,11 @@ public class TSQL2DatabaseMetaData implements Constants {
      */
     private static TSQL2DatabaseMetaData _instance = null;
     /**
-     * Connection object for DatabaseMetadata. This must be set before any call
-     * to DatabaseMetadata methods because these methods use this connection to
-     * get requested metadata.
+     * Connection object for singleton DatabaseMetadata returned by
+     * getInstance(). This must be set before any call to methods of the
+     * singleton because these methods use this connection to get requested
+     * metadata. Adapters don't set it, they use accessors bound to their own
+     * connections, see TSQL2Adapter.getTemporalMetaData().
      */
     public static Connection connection = null;
     /**
@@ -51,12 +57,55 @@ public class TSQL2DatabaseMetaData implements Constants {
      * Container to store once generate tables information fi caching is
      * allowed.
      */
-    protected HashMap<String, TableInfo> _cache = new HashMap<>();
+    protected Map<String, TableInfo> _cache;
+    /**
+     * Connection used by this instance or null to use static connection.
+     */
+    private final Connection _connection;
+    /**
+     * Catalog holding prepared catalog queries of current connection
+     */
+    private TemporalCatalog _catalog = null;
+    /**
+     * Registry of catalog lookups
+     */
+    private volatile MetricsRegistry _metrics = NoopMetricsRegistry.INSTANCE;
+    /**
+     * Lock of catalog of current connection
+     */
+    private final ReentrantLock _lock = new ReentrantLock();
 
     /**
      * Protected constructor to create singleton pattern.
      */
     protected TSQL2DatabaseMetaData() {
+        _connection = null;
+        _cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create metadata accessor bound to specified connection. Instances bound
+     * to different connections can share one cache.
+     *
+     * @param connection Connection used to get metadata. This can't be
+     * TSQL2Adapter instance.
+     * @param cache Cache of tables information used if caching is allowed
+     */
+    public TSQL2DatabaseMetaData(Connection connection, Map<String, TableInfo> cache) {
+        _connection = connection;
+        _cache = cache;
+    }
+
+    /**
+     * Create metadata accessor bound to specified connection and sharing cache
+     * with singleton instance.
+     *
+     * @param connection Connection used to get metadata. This can't be
+     * TSQL2Adapter instance.
+     * @return New metadata accessor
+     */
+    public static TSQL2DatabaseMetaData forConnection(Connection connection) {
+        return new TSQL2DatabaseMetaData(connection, getInstance()._cache);
     }
 
     /**
@@ -64,13 +113,49 @@ public class TSQL2DatabaseMetaData implements Constants {
      *
      * @return Always the same instance of DatabaseMetadata class,
      */
-    public static TSQL2DatabaseMetaData getInstance() {
+    public static synchronized TSQL2DatabaseMetaData getInstance() {
         if (null == _instance) {
             _instance = new TSQL2DatabaseMetaData();
         }
         return _instance;
     }
 
+    /**
+     * Set registry of catalog lookups, surrogate allocations and vacuum runs.
+     *
+     * @param metrics Metrics registry
+     */
+    public void setMetricsRegistry(MetricsRegistry metrics) {
+        _lock.lock();
+        try {
+            _metrics = metrics;
+            if (_catalog != null) {
+                _catalog.setMetricsRegistry(metrics);
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Get registry of catalog lookups, surrogate allocations and vacuum runs.
+     *
+     * @return Metrics registry
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return _metrics;
+    }
+
+    /**
+     * Check if metadata of specified table are cached.
+     *
+     * @param tableName Name of table
+     * @return True if next lookup of table will be answered from cache
+     */
+    public boolean isCached(String tableName) {
+        return allowCaching && _cache.containsKey(tableName.toUpperCase());
+    }
+
     /**
      * Get metadata of specified table.
      *
@@ -80,93 +165,138 @@ public class TSQL2DatabaseMetaData implements Constants {
      * error occured
      */
     public TableInfo getMetaData(String tableName) throws TSQL2Exception {
-        Statement stmt = null;
-        ResultSet res = null;
         TableInfo ti = null;
+        Connection connection = getConnection();
+        FlightRecorderEvents events = FlightRecorderEvents.get();
+        FlightRecorderEvents.Span span = events.beginCatalogLookup();
 
-        if ((allowCaching) && (_cache.containsKey(tableName.toUpperCase()))) {
-            return _cache.get(tableName.toUpperCase());
-        }
-
-        // get metadata of table
         try {
-            stmt = connection.createStatement();
-            res = stmt.executeQuery("SELECT * FROM " + Settings.TemporalSpecTableName
-                    + " WHERE table_name = '" + tableName.toUpperCase() + "'"); // table name is stored in uppercase
-            if (res.next()) {
-                ti = new TableInfo(connection);
-                ti.setTableName(res.getString("table_name"));
-                ti.setValidTimeSupport(res.getString("valid_time"));
-                ti.setTransactionTimeSupport(res.getString("transaction_time"));
-                ti.setValidTimeScale(DateTimeScale.valueOf(res.getString("valid_time_scale")));
-                ti.setVacuumCutOff(res.getLong("vacuum_cutoff"));
-                ti.setVacuumCutOffRelative(res.getBoolean("vacuum_cutoff_relative"));
-
-                res.close();
-                // get surrogate columns
-                res = stmt.executeQuery("SELECT * FROM " + Settings.SurrogateTableName
-                        + " WHERE table_name = '" + tableName.toUpperCase() + "'");
-                while (res.next()) {
-                    ti.addSurrogate(res.getString("column_name"), res.getLong("next_value"));
-                }
+            TemporalCatalog catalog = getCatalog(connection);
 
-                if (allowCaching) {
-                    _cache.put(ti.getTableName().toUpperCase(), ti);
+            if (allowCaching) {
+                ti = _cache.get(tableName.toUpperCase());
+                if (ti != null) {
+                    _metrics.recordCatalogLookup(tableName, true);
+                    if (span != null) {
+                        events.commitCatalogLookup(span, tableName, true);
+                    }
+                    // cached information is not bound to connection, so it is shared as is
+                    return ti;
                 }
-            } else {
-                throw new TSQL2Exception("Table '" + tableName + "' doesn't exist.");
             }
-        } catch (SQLException e) {
-            throw new TSQL2Exception(e.getMessage());
-        } finally {
-            if (null != res) {
-                try {
-                    res.close();
-                } catch (SQLException e) {
-                }
+
+            // get metadata of table together with its surrogate columns
+            ti = catalog.findTable(tableName);
+            _metrics.recordCatalogLookup(tableName, false);
+            if (span != null) {
+                events.commitCatalogLookup(span, tableName, false);
             }
-            if (null != stmt) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                }
+            if (ti == null) {
+                throw new TSQL2Exception("Table '" + tableName + "' doesn't exist.");
+            }
+            if (allowCaching) {
+                _cache.put(ti.getTableName().toUpperCase(), ti);
             }
-        }
 
-        // do vacuuming
-        if ((ti != null) && ti.getTransactionTimeSupport().equals(STATE)) {
-            try {
+            // do vacuuming
+            if (ti.getTransactionTimeSupport().equals(STATE)) {
+                FlightRecorderEvents.Span vacuumSpan = events.beginVacuum();
+                int deleted;
                 if (ti.isVacuumCutOffRelative()) {
                     // relative vacuuming, delete all records older than now-X
-
                     // count absolute time value for deletion - past relativity is negative so we can use addition
-                    long deleteTime = Utils.getCurrentTime() + ti.getVacuumCutOff();
-
-                    stmt = connection.createStatement();
-                    stmt.execute("DELETE FROM " + ti.getTableName() + " WHERE " + Settings.TransactionTimeEndColumnName + " <= " + deleteTime);
+                    deleted = catalog.vacuum(ti.getTableName(), Utils.getCurrentTime() + ti.getVacuumCutOff());
                 } else {
                     // absolute vacuuming, delete all records older tham X
-                    stmt = connection.createStatement();
-                    stmt.execute("DELETE FROM " + ti.getTableName() + " WHERE " + Settings.TransactionTimeEndColumnName + " <= " + ti.getVacuumCutOff());
-                }
-            } catch (SQLException e) {
-                throw new TSQL2Exception(e.getMessage());
-            } finally {
-                if (null != res) {
-                    try {
-                        res.close();
-                    } catch (SQLException e) {
-                    }
+                    deleted = catalog.vacuum(ti.getTableName(), ti.getVacuumCutOff());
                 }
-                if (null != stmt) {
-                    try {
-                        stmt.close();
-                    } catch (SQLException e) {
-                    }
+                if (vacuumSpan != null) {
+                    events.commitVacuum(vacuumSpan, ti.getTableName(), deleted);
                 }
             }
+        } catch (TSQL2Exception e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new TSQL2Exception(e.getMessage());
         }
 
         return ti;
     }
+
+    /**
+     * Allocate next value of surrogate column of table using connection of
+     * this accessor.
+     *
+     * @param ti Table information, e.g. shared by several connections
+     * @param columnName Name of surrogate column
+     * @return New value for surrogate column
+     * @throws TSQL2Exception
+     */
+    public long getNextSurrogateValue(TableInfo ti, String columnName) throws TSQL2Exception {
+        Connection connection = getConnection();
+        try {
+            return getCatalog(connection).nextSurrogateValue(ti.getTableName(), columnName);
+        } catch (TSQL2Exception e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new TSQL2Exception(e.getMessage());
+        }
+    }
+
+    /**
+     * Get connection of this accessor, static connection for singleton.
+     *
+     * @return Connection used to get metadata
+     * @throws TSQL2Exception If singleton is used without static connection
+     */
+    private Connection getConnection() throws TSQL2Exception {
+        if (_connection != null) {
+            return _connection;
+        }
+        Connection connection = TSQL2DatabaseMetaData.connection;
+        if (connection == null) {
+            throw new TSQL2Exception("Connection of temporal metadata is not set. Use TSQL2Adapter.getTemporalMetaData().");
+        }
+        return connection;
+    }
+
+    /**
+     * Get catalog of specified connection. Catalog of previous connection is
+     * closed when static connection changes.
+     *
+     * @param connection Connection used to get metadata
+     * @return Catalog of connection
+     * @throws TSQL2Exception
+     */
+    private TemporalCatalog getCatalog(Connection connection) throws TSQL2Exception {
+        _lock.lock();
+        try {
+            if (_catalog == null || _catalog.getConnection() != connection) {
+                if (_catalog != null) {
+                    _catalog.close();
+                }
+                _catalog = new TemporalCatalog(connection);
+                _catalog.setMetricsRegistry(_metrics);
+            }
+            return _catalog;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Release prepared catalog queries. Metadata accessor can be used again,
+     * queries are prepared again on demand.
+     */
+    public void close() {
+        _lock.lock();
+        try {
+            if (_catalog != null) {
+                _catalog.close();
+                _catalog = null;
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * JDBC driver adding TSQL2 support to other JDBC drivers. It accepts URLs in
+ * form jdbc:tsql2:&lt;underlying-url&gt;, opens connection of the underlying
+ * URL and wraps it into TSQL2Adapter. Adapters of one underlying URL share
+ * one TSQL2Context, so connection pools configured with the driver initialize
+ * the environment only once.
+ */
+public class TSQL2Driver implements Driver {
+
+    /**
+     * Prefix of URLs accepted by this driver
+     */
+    public static final String URL_PREFIX = "jdbc:tsql2:";
+    /**
+     * Shared contexts of underlying URLs
+     */
+    private static final ConcurrentHashMap<String, TSQL2Context> _contexts = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new TSQL2Driver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Get URL of underlying driver.
+     *
+     * @param url URL accepted by this driver
+     * @return Underlying URL
+     */
+    private static String getUnderlyingUrl(String url) {
+        return "jdbc:" + url.substring(URL_PREFIX.length());
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        String underlyingUrl = getUnderlyingUrl(url);
+        Connection con = DriverManager.getConnection(underlyingUrl, info);
+        try {
+            return new TSQL2Adapter(con, _contexts.computeIfAbsent(underlyingUrl, u -> new TSQL2Context()));
+        } catch (SQLException e) {
+            con.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return (url != null) && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return new DriverPropertyInfo[0];
+        }
+        String underlyingUrl = getUnderlyingUrl(url);
+        return DriverManager.getDriver(underlyingUrl).getPropertyInfo(underlyingUrl, info);
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 2;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(TSQL2Driver.class.getPackage().getName());
+    }
+}
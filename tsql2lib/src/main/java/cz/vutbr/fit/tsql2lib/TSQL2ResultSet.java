@@ -35,6 +35,10 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import cz.vutbr.fit.tsql2lib.monitoring.StatementContext;
 
 /**
  * Result set class for TSQL results
@@ -57,6 +61,10 @@ public class TSQL2ResultSet implements ResultSet, Constants {
      * Result set metadata for original result set.
      */
     private final TSQL2ResultSetMetaData _metadata;
+    /**
+     * Listener context of statement which created results or null
+     */
+    private StatementContext _context = null;
 
     /**
      * Create temporal result set from relational result set
@@ -65,8 +73,22 @@ public class TSQL2ResultSet implements ResultSet, Constants {
      * @throws java.sql.SQLException
      */
     public TSQL2ResultSet(ResultSet originalResults) throws SQLException {
+        this(originalResults, null);
+    }
+
+    /**
+     * Create temporal result set from relational result set of translated
+     * statement
+     *
+     * @param originalResults Relational result set
+     * @param descriptor Description of temporal columns provided by translator
+     * or null
+     * @throws java.sql.SQLException
+     */
+    public TSQL2ResultSet(ResultSet originalResults, ResultDescriptor descriptor)
+            throws SQLException {
         _originalResults = originalResults;
-        _metadata = new TSQL2ResultSetMetaData(_originalResults.getMetaData());
+        _metadata = new TSQL2ResultSetMetaData(_originalResults.getMetaData(), descriptor);
     }
 
     /**
@@ -123,6 +145,11 @@ public class TSQL2ResultSet implements ResultSet, Constants {
     @Override
     public void close() throws SQLException {
         _originalResults.close();
+        StatementContext context = _context;
+        if (context != null) {
+            _context = null;
+            context.getListener().resultSetClosed(context);
+        }
     }
 
     @Override
@@ -504,18 +531,18 @@ public class TSQL2ResultSet implements ResultSet, Constants {
         switch (_metadata.getColumnTSQLType(columnIndex)) {
             case PERIOD:
                 long b = _originalResults.getLong(originalColumnIndex); // beginning
-                long e = _originalResults.getLong(originalColumnIndex + 3); // end
+                long e = _originalResults.getLong(_metadata.getOriginalEndIndex(columnIndex)); // end
                 
                 // if beginning of period is greater than end, return NULL
                 if (b >= e) {
                     return "NULL";
                 }
                 
-                // current and following column contains beginning and end of period
-                String beginning = Utils.timeToString(b, _metadata.getColumnScale(columnIndex));
-                // there are two extra columns between beginning and end so +3 skips them
-                String end = Utils.timeToString(e, _metadata.getColumnScale(columnIndex));
-                return beginning + " - " + end;
+                // current column contains beginning of period, end is found by metadata
+                DateTimeScale scale = _metadata.getColumnScale(columnIndex);
+                StringBuilder sb = new StringBuilder(42);
+                Utils.appendTime(sb, b, scale).append(" - ");
+                return Utils.appendTime(sb, e, scale).toString();
             case EVENT:
                 return Utils.timeToString(_originalResults.getLong(originalColumnIndex), _metadata.getColumnScale(columnIndex));
             default:
@@ -528,18 +555,18 @@ public class TSQL2ResultSet implements ResultSet, Constants {
         int originalColumnIndex = _metadata.getOriginalIndex(columnLabel);
         if (_metadata.getColumnTSQLType(columnLabel) == TSQL2Types.PERIOD) {
             long b = _originalResults.getLong(originalColumnIndex); // beginning
-            long e = _originalResults.getLong(originalColumnIndex + 3); // end
+            long e = _originalResults.getLong(_metadata.getOriginalEndIndex(columnLabel)); // end
 
             // if beginning of period is greater than end, return NULL
             if (b >= e) {
                 return "NULL";
             }
 
-            // current and following column contains beginning and end of period
-            String beginning = Utils.timeToString(b, _metadata.getColumnScale(columnLabel));
-            // there are two extra columns between beginning and end so +3 skips them
-            String end = Utils.timeToString(e, _metadata.getColumnScale(columnLabel));
-            return beginning + " - " + end;
+            // current column contains beginning of period, end is found by metadata
+            DateTimeScale scale = _metadata.getColumnScale(columnLabel);
+            StringBuilder sb = new StringBuilder(42);
+            Utils.appendTime(sb, b, scale).append(" - ");
+            return Utils.appendTime(sb, e, scale).toString();
         } else if (_metadata.getColumnTSQLType(columnLabel) == TSQL2Types.EVENT) {
             return Utils.timeToString(_originalResults.getLong(originalColumnIndex), _metadata.getColumnScale(columnLabel));
         } else {
@@ -547,6 +574,128 @@ public class TSQL2ResultSet implements ResultSet, Constants {
         }
     }
 
+    /**
+     * Get beginning of period stored in PERIOD column or time of EVENT column
+     * without converting it to string.
+     *
+     * @param columnIndex Index of column
+     * @return Beginning of period as unix timestamp, 0 if value is NULL
+     * @throws SQLException If column is not PERIOD or EVENT
+     */
+    public long getPeriodStart(int columnIndex) throws SQLException {
+        if (_metadata.getColumnTSQLType(columnIndex) == TSQL2Types.SQLTYPE) {
+            throw new TSQL2Exception("Column " + columnIndex + " is not temporal column.");
+        }
+        return _originalResults.getLong(_metadata.getOriginalIndex(columnIndex));
+    }
+
+    /**
+     * Get beginning of period stored in PERIOD column or time of EVENT column
+     * without converting it to string.
+     *
+     * @param columnLabel Label of column
+     * @return Beginning of period as unix timestamp, 0 if value is NULL
+     * @throws SQLException If column is not PERIOD or EVENT
+     */
+    public long getPeriodStart(String columnLabel) throws SQLException {
+        return getPeriodStart(_metadata.getColumnIndex(columnLabel));
+    }
+
+    /**
+     * Get end of period stored in PERIOD column without converting it to
+     * string.
+     *
+     * @param columnIndex Index of column
+     * @return End of period as unix timestamp, 0 if value is NULL
+     * @throws SQLException If column is not PERIOD
+     */
+    public long getPeriodEnd(int columnIndex) throws SQLException {
+        if (_metadata.getColumnTSQLType(columnIndex) != TSQL2Types.PERIOD) {
+            throw new TSQL2Exception("Column " + columnIndex + " is not period.");
+        }
+        return _originalResults.getLong(_metadata.getOriginalEndIndex(columnIndex));
+    }
+
+    /**
+     * Get end of period stored in PERIOD column without converting it to
+     * string.
+     *
+     * @param columnLabel Label of column
+     * @return End of period as unix timestamp, 0 if value is NULL
+     * @throws SQLException If column is not PERIOD
+     */
+    public long getPeriodEnd(String columnLabel) throws SQLException {
+        return getPeriodEnd(_metadata.getColumnIndex(columnLabel));
+    }
+
+    /**
+     * Get period stored in PERIOD column.
+     *
+     * @param columnIndex Index of column
+     * @return Period or null if value is NULL
+     * @throws SQLException If column is not PERIOD
+     */
+    public TimePeriod getPeriod(int columnIndex) throws SQLException {
+        if (_metadata.getColumnTSQLType(columnIndex) != TSQL2Types.PERIOD) {
+            throw new TSQL2Exception("Column " + columnIndex + " is not period.");
+        }
+        long b = _originalResults.getLong(_metadata.getOriginalIndex(columnIndex));
+        if (_originalResults.wasNull()) {
+            return null;
+        }
+        long e = _originalResults.getLong(_metadata.getOriginalEndIndex(columnIndex));
+        return new TimePeriod(b, e, _metadata.getColumnScale(columnIndex));
+    }
+
+    /**
+     * Get period stored in PERIOD column.
+     *
+     * @param columnLabel Label of column
+     * @return Period or null if value is NULL
+     * @throws SQLException If column is not PERIOD
+     */
+    public TimePeriod getPeriod(String columnLabel) throws SQLException {
+        return getPeriod(_metadata.getColumnIndex(columnLabel));
+    }
+
+    /**
+     * Get relational result set wrapped by these results. Columns of it are
+     * addressed by original indexes from metadata of these results.
+     *
+     * @return Relational result set
+     */
+    ResultSet getOriginalResults() {
+        return _originalResults;
+    }
+
+    /**
+     * Set listener context of statement notified when results are closed.
+     *
+     * @param context Listener context or null
+     */
+    void setStatementContext(StatementContext context) {
+        _context = context;
+    }
+
+    /**
+     * Get stream of rows mapped to objects. Rows are read when the stream is
+     * consumed. Closing the stream closes these results.
+     *
+     * @param <T> Type of mapped objects
+     * @param mapper Mapper of rows
+     * @return Sequential stream, SQLException is rethrown as
+     * UncheckedSQLException
+     */
+    public <T> Stream<T> stream(RowMapper<T> mapper) {
+        return StreamSupport.stream(new ResultSetSpliterator<T>(this, mapper), false).onClose(() -> {
+            try {
+                close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
+
     @Override
     public Time getTime(int columnIndex) throws SQLException {
         columnIndex = _metadata.getOriginalIndex(columnIndex);
@@ -1280,11 +1429,18 @@ public class TSQL2ResultSet implements ResultSet, Constants {
 
     @Override
     public <T> T getObject(int i, Class<T> type) throws SQLException {
-        return _originalResults.getObject(i, type);
+        if (type == TimePeriod.class) {
+            return type.cast(getPeriod(i));
+        }
+        return _originalResults.getObject(_metadata.getOriginalIndex(i), type);
     }
 
     @Override
     public <T> T getObject(String string, Class<T> type) throws SQLException {
+        if (type == TimePeriod.class) {
+            return type.cast(getPeriod(string));
+        }
+        checkColumnLabel(string);
         return _originalResults.getObject(string, type);
     }
 
@@ -17,7 +17,6 @@ package cz.vutbr.fit.tsql2lib;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
-import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -33,9 +32,14 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      */
     private ResultSetMetaData _originalMetadata;
     /**
-     * Mapping array from old column indexes to new column indexes
+     * Mapping array from new column indexes (zero based) to old column indexes
      */
-    private ArrayList<Integer> _indexMap;
+    private final int[] _indexMap;
+    /**
+     * Mapping array from new column indexes (zero based) to old indexes of
+     * period ends, zero for columns which are not periods
+     */
+    private final int[] _endIndexMap;
     /**
      * Number of columns visible to user
      */
@@ -43,27 +47,27 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
     /**
      * Labels of columns visible to user
      */
-    private ArrayList<String> _columnLabels;
+    private final String[] _columnLabels;
     /**
      * Names of columns visible to user
      */
-    private ArrayList<String> _columnNames;
+    private final String[] _columnNames;
     /**
      * Types of columns visible to user
      */
-    private ArrayList<Integer> _columnTypes;
+    private final int[] _columnTypes;
     /**
      * Inner TSQL types of columns visible to user.
      */
-    private ArrayList<TSQL2Types> _columnTSQLTypes;
+    private final TSQL2Types[] _columnTSQLTypes;
     /**
      * Scales of columns visible to user.
      */
-    private ArrayList<DateTimeScale> _columnScales;
+    private final DateTimeScale[] _columnScales;
     /**
      * Map for translating label to column index
      */
-    private HashMap<String, Integer> _labelToIndexMap;
+    private final HashMap<String, Integer> _labelToIndexMap;
 
     /**
      * Create temporal result set metadata from relational result set metadata
@@ -73,20 +77,38 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      */
     public TSQL2ResultSetMetaData(ResultSetMetaData originalMetaData)
             throws SQLException {
+        this(originalMetaData, null);
+    }
+
+    /**
+     * Create temporal result set metadata from relational result set metadata
+     * and description of temporal columns provided by translator. Results
+     * with temporal columns can't be processed without description, because
+     * they contain bounds of these columns only.
+     *
+     * @param originalMetaData Relational result set metadata
+     * @param descriptor Description of temporal columns or null for results
+     * without temporal columns
+     * @throws java.sql.SQLException If results contain temporal column which
+     * is not described
+     */
+    public TSQL2ResultSetMetaData(ResultSetMetaData originalMetaData,
+            ResultDescriptor descriptor) throws SQLException {
         _originalMetadata = originalMetaData;
 
         // get number of columns of original results to process all of them
         int originalColumnCount = _originalMetadata.getColumnCount();
 
-        TSQL2DatabaseMetaData dbMetadata = TSQL2DatabaseMetaData.getInstance();
-
-        _indexMap = new ArrayList<>(originalColumnCount);
-        _columnLabels = new ArrayList<>(originalColumnCount);
-        _columnNames = new ArrayList<>(originalColumnCount);
-        _columnTypes = new ArrayList<>(originalColumnCount);
-        _columnTSQLTypes = new ArrayList<>(originalColumnCount);
-        _columnScales = new ArrayList<>(originalColumnCount);
-        _labelToIndexMap = new HashMap<>(originalColumnCount);
+        _indexMap = new int[originalColumnCount];
+        _endIndexMap = new int[originalColumnCount];
+        _columnLabels = new String[originalColumnCount];
+        _columnNames = new String[originalColumnCount];
+        _columnTypes = new int[originalColumnCount];
+        _columnTSQLTypes = new TSQL2Types[originalColumnCount];
+        _columnScales = new DateTimeScale[originalColumnCount];
+        _labelToIndexMap = new HashMap<>(originalColumnCount * 2);
+        // number of already processed temporal columns with the same generated label
+        HashMap<String, Integer> occurrences = new HashMap<>();
 
         // for all columns
         for (int i = 1; i <= originalColumnCount; i++) {
@@ -99,111 +121,48 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
             int resultColumnType = columnType;
             TSQL2Types resultTSQLType = TSQL2Types.SQLTYPE;
             DateTimeScale resultScale = DateTimeScale.SECOND;
-            int skip = 0;
 
             if (columnLabel.startsWith(IMPLICIT_VTS)) {
-                /*
-				 * If there is implicit VTS column, following column contains source table.
-                 */
-                String tableName = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 1));
-                String alias = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 2));
-                // cut alias from beginning of table name - it is here for uniqueness of column name
-                // fixed: columns without aliases have a special empty-alias name
-                if (!Settings.EmptyColumnAlias.equals(alias)) {
-                    tableName = tableName.substring(alias.length());
-                }
-
                 // implicit valid-time column
                 resultColumnLabel = "VALID";
                 resultColumnName = "VALID";
                 resultColumnType = Types.OTHER;
                 resultTSQLType = TSQL2Types.EVENT;
-                resultScale = dbMetadata.getMetaData(tableName).getValidTimeScale();
-
-                // skip next columns
-                skip = 2;
+                resultScale = describe(descriptor, columnLabel, occurrences).getScale();
             } else if (columnLabel.startsWith(IMPLICIT_VTE)) {
                 // change previous column type from EVENT to PERIOD because this is end time of that period
-                _columnTSQLTypes.set(_columnTSQLTypes.size() - 1, TSQL2Types.PERIOD);
+                _columnTSQLTypes[_columnCount - 1] = TSQL2Types.PERIOD;
+                _endIndexMap[_columnCount - 1] = i;
                 continue;
             } else if (columnLabel.startsWith(EXPLICIT_VTS)) {
-                /*
-				 * If there is explicit VTS column, following column contains source table and second
-				 * following column contains alias for this column.
-                 */
-                String tableName = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 1));
-                String alias = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 2));
-                // cut alias from beginning of table name - it is here for uniqueness of column name
-                // fixed: columns without aliases have a special empty-alias name
-                if (!Settings.EmptyColumnAlias.equals(alias)) {
-                    tableName = tableName.substring(alias.length());
-                } else {
-                    alias = "";
-                }
-
-                if (alias.length() != 0) {
-                    resultColumnLabel = alias;
-                } else {
-                    resultColumnLabel = "VALID(" + tableName + ")";
-                }
-
+                ResultDescriptor.Column column = describe(descriptor, columnLabel, occurrences);
+                resultColumnLabel = column.getLabel();
                 resultColumnName = resultColumnLabel;
                 resultColumnType = Types.OTHER;
                 resultTSQLType = TSQL2Types.EVENT;
-                resultScale = dbMetadata.getMetaData(tableName).getValidTimeScale();
-
-                // skip next two columns
-                skip = 2;
+                resultScale = column.getScale();
             } else if (columnLabel.startsWith(EXPLICIT_VTE)) {
                 // change previous column type from EVENT to PERIOD because this is end time of that period
-                _columnTSQLTypes.set(_columnTSQLTypes.size() - 1, TSQL2Types.PERIOD);
+                _columnTSQLTypes[_columnCount - 1] = TSQL2Types.PERIOD;
+                _endIndexMap[_columnCount - 1] = i;
                 continue;
             } else if (columnLabel.startsWith(EXPLICIT_TTS)) {
-                /*
-				 * If there is explicit VTS column, following column contains source table and second
-				 * following column contains alias for this column.
-                 */
-                String tableName = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 1));
-                String alias = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 2));
-                // cut alias from beginning of table name - it is here for uniqueness of column name
-                // fixed: columns without aliases have a special empty-alias name
-                if (!Settings.EmptyColumnAlias.equals(alias)) {
-                    tableName = tableName.substring(alias.length());
-                } else {
-                    alias = "";
-                }
-
-                if (alias.length() != 0) {
-                    resultColumnLabel = alias;
-                } else {
-                    resultColumnLabel = "TRANSACTION(" + tableName + ")";
-                }
-
+                resultColumnLabel = describe(descriptor, columnLabel, occurrences).getLabel();
                 resultColumnName = resultColumnLabel;
                 resultColumnType = Types.OTHER;
                 resultTSQLType = TSQL2Types.PERIOD;
-
-                // skip next two columns
-                skip = 2;
             } else if (columnLabel.startsWith(EXPLICIT_TTE)) {
                 // skip end column to make just one column from start and end
+                _endIndexMap[_columnCount - 1] = i;
                 continue;
             } else if (columnLabel.startsWith(INTERSECT_BEGINNING)) {
                 // intersection beginning
-                String alias = Utils.unquoteString(_originalMetadata.getColumnLabel(i + 2));
-                if ((alias != null) && (alias.length() != 0)) {
-                    resultColumnLabel = alias;
-                } else {
-                    resultColumnLabel = "INTERSECTION";
-                }
-
+                resultColumnLabel = describe(descriptor, columnLabel, occurrences).getLabel();
                 resultColumnName = resultColumnLabel;
                 resultColumnType = Types.OTHER;
                 resultTSQLType = TSQL2Types.PERIOD;
-
-                // skip next two columns
-                skip = 2;
             } else if (columnLabel.startsWith(INTERSECT_END)) {
+                _endIndexMap[_columnCount - 1] = i;
                 continue;
             } else if ((ucLabel.equals(Settings.ValidTimeStartColumnNameRaw.toUpperCase()))
                     || (ucLabel.equals(Settings.ValidTimeEndColumnNameRaw.toUpperCase()))
@@ -214,22 +173,57 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
             }
 
             // create mapping record to map new index to old index
-            _indexMap.add(i);
+            _indexMap[_columnCount] = i;
+            _columnNames[_columnCount] = resultColumnName;
+            _columnLabels[_columnCount] = resultColumnLabel;
+            _columnTypes[_columnCount] = resultColumnType;
+            _columnTSQLTypes[_columnCount] = resultTSQLType;
+            _columnScales[_columnCount] = resultScale;
 
             _columnCount++;
 
             // create mapping record to map label to new index
             _labelToIndexMap.put(resultColumnLabel.toUpperCase(), _columnCount);
+        }
+    }
 
-            _columnNames.add(resultColumnName);
-            _columnLabels.add(resultColumnLabel);
-            _columnTypes.add(resultColumnType);
-            _columnTSQLTypes.add(resultTSQLType);
-            _columnScales.add(resultScale);
+    /**
+     * Find description of temporal column with specified generated label.
+     * Results contain bounds of temporal columns only, so columns which are
+     * not described by translator can't be interpreted.
+     *
+     * @param descriptor Description of temporal columns or null
+     * @param columnLabel Generated label of column
+     * @param occurrences Numbers of already described columns by label
+     * @return Column description
+     * @throws TSQL2Exception If column is not described
+     */
+    private static ResultDescriptor.Column describe(ResultDescriptor descriptor, String columnLabel,
+            HashMap<String, Integer> occurrences) throws TSQL2Exception {
+        ResultDescriptor.Column column = null;
+        if (descriptor != null) {
+            Integer occurrence = occurrences.get(columnLabel);
+            occurrences.put(columnLabel, (occurrence == null) ? 1 : occurrence + 1);
+            column = descriptor.get(columnLabel, (occurrence == null) ? 0 : occurrence);
+        }
+        if (column == null) {
+            throw new TSQL2Exception("Temporal column '" + columnLabel + "' of results is not described by translator.");
+        }
+        return column;
+    }
 
-            // skip some columns if required
-            i += skip;
+    /**
+     * Check index of column visible to user.
+     *
+     * @param column One based index of column
+     * @return Zero based index into column arrays
+     * @throws SQLException If index is out of bounds
+     */
+    private int checkIndex(int column) throws SQLException {
+        if ((column < 1) || (column > _columnCount)) {
+            throw new SQLException("Column index is out of bounds.");
         }
+        return column - 1; // arrays are zero based, columns are one based
     }
 
     /**
@@ -241,11 +235,53 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      * @throws SQLException
      */
     public int getOriginalIndex(int newIndex) throws SQLException {
-        try {
-            return _indexMap.get(newIndex - 1); // column index is one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
+        return _indexMap[checkIndex(newIndex)];
+    }
+
+    /**
+     * Get index of column visible to user from column label
+     *
+     * @param columnLabel Label of column
+     * @return One based index of column
+     * @throws SQLException
+     */
+    public int getColumnIndex(String columnLabel) throws SQLException {
+        Integer index = _labelToIndexMap.get(columnLabel.toUpperCase());
+        if (index == null) {
+            throw new SQLException("Unknown column '" + columnLabel + "'.");
         }
+        return index;
+    }
+
+    /**
+     * Get original index of period end from new index value. Beginning of
+     * period is at original index of column.
+     *
+     * @param newIndex New index value. This is value after result
+     * pre-processing.
+     * @return Original index of period end to point into original result set
+     * @throws SQLException
+     */
+    public int getOriginalEndIndex(int newIndex) throws SQLException {
+        int index = checkIndex(newIndex);
+        // end directly follows beginning if it was not seen
+        return (_endIndexMap[index] != 0) ? _endIndexMap[index] : _indexMap[index] + 1;
+    }
+
+    /**
+     * Get original index of period end from column label. Beginning of period
+     * is at original index of column.
+     *
+     * @param columnLabel Label of column
+     * @return Original index of period end to point into original result set
+     * @throws SQLException
+     */
+    public int getOriginalEndIndex(String columnLabel) throws SQLException {
+        Integer index = _labelToIndexMap.get(columnLabel.toUpperCase());
+        if (index == null) {
+            throw new SQLException("Unknown column '" + columnLabel + "'.");
+        }
+        return getOriginalEndIndex(index);
     }
 
     /**
@@ -256,11 +292,11 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      * @throws SQLException
      */
     public int getOriginalIndex(String columnLabel) throws SQLException {
-        try {
-            return getOriginalIndex(_labelToIndexMap.get(columnLabel.toUpperCase()));
-        } catch (NullPointerException e) {
+        Integer index = _labelToIndexMap.get(columnLabel.toUpperCase());
+        if (index == null) {
             throw new SQLException("Unknown column '" + columnLabel + "'.");
         }
+        return getOriginalIndex(index);
     }
 
     /**
@@ -272,11 +308,7 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      * @throws SQLException
      */
     public TSQL2Types getColumnTSQLType(int column) throws SQLException {
-        try {
-            return _columnTSQLTypes.get(column - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return _columnTSQLTypes[checkIndex(column)];
     }
 
     /**
@@ -292,12 +324,7 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
         if (index == null) {
             throw new SQLException("Column label doesn't exist.");
         }
-
-        try {
-            return _columnTSQLTypes.get(index - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return getColumnTSQLType(index);
     }
 
     /**
@@ -308,11 +335,7 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
      * @throws SQLException
      */
     public DateTimeScale getColumnScale(int column) throws SQLException {
-        try {
-            return _columnScales.get(column - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return _columnScales[checkIndex(column)];
     }
 
     /**
@@ -327,12 +350,7 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
         if (index == null) {
             throw new SQLException("Column label doesn't exist.");
         }
-
-        try {
-            return _columnScales.get(index - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return getColumnScale(index);
     }
 
     @Override
@@ -357,29 +375,17 @@ public class TSQL2ResultSetMetaData implements ResultSetMetaData, Constants {
 
     @Override
     public String getColumnLabel(int column) throws SQLException {
-        try {
-            return _columnLabels.get(column - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return _columnLabels[checkIndex(column)];
     }
 
     @Override
     public String getColumnName(int column) throws SQLException {
-        try {
-            return _columnNames.get(column - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return _columnNames[checkIndex(column)];
     }
 
     @Override
     public int getColumnType(int column) throws SQLException {
-        try {
-            return _columnTypes.get(column - 1); // arrayList is zero based, columns are one based
-        } catch (IndexOutOfBoundsException e) {
-            throw new SQLException("Column index is out of bounds.");
-        }
+        return _columnTypes[checkIndex(column)];
     }
 
     @Override
@@ -15,15 +15,43 @@
 package cz.vutbr.fit.tsql2lib;
 
 import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import cz.vutbr.fit.tsql2lib.monitoring.ExecutedStatement;
+import cz.vutbr.fit.tsql2lib.monitoring.ExplainedStatement;
+import cz.vutbr.fit.tsql2lib.monitoring.Explanation;
+import cz.vutbr.fit.tsql2lib.monitoring.FlightRecorderEvents;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexAdvisor;
+import cz.vutbr.fit.tsql2lib.monitoring.MetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.Phase;
+import cz.vutbr.fit.tsql2lib.monitoring.SlowStatementEntry;
+import cz.vutbr.fit.tsql2lib.monitoring.SlowStatementLog;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementContext;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementFingerprint;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementListener;
+import cz.vutbr.fit.tsql2lib.monitoring.WorkloadStatistics;
+import cz.vutbr.fit.tsql2lib.parser.Node;
+import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
 import cz.vutbr.fit.tsql2lib.parser.TSQL2ParserAdapter;
 import cz.vutbr.fit.tsql2lib.translators.StatementTranslator;
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
 
 /**
  * Statement supporting TSQL2 queries
@@ -33,6 +61,16 @@ import cz.vutbr.fit.tsql2lib.translators.StatementTranslator;
  */
 public class TSQL2Statement implements Statement {
 
+    /**
+     * EXPLAIN [ANALYZE] form of statement, groups are ANALYZE keyword and
+     * explained statement
+     */
+    private static final Pattern EXPLAIN = Pattern.compile("(?is)\\s*EXPLAIN\\s+(ANALYZE\\s+)?(.*)");
+    /**
+     * Generated statements whose execution plan can be read
+     */
+    private static final Pattern EXPLAINABLE = Pattern.compile("(?i)\\s*(SELECT|INSERT|UPDATE|DELETE)\\b");
+
     /**
      * Wrapped statement instance. Methods of TSQL2Statement call methods of
      * this object, possibly after some necessary modification.
@@ -69,6 +107,47 @@ public class TSQL2Statement implements Statement {
      * Array to store batch of queries.
      */
     private final ArrayList<String> _batch = new ArrayList<>();
+    /**
+     * Future completed when last executed statement is committed.
+     */
+    private CompletableFuture<Void> _commitFuture = CompletableFuture.completedFuture(null);
+    /**
+     * Update count of last executed statement or -1 if it returned results.
+     */
+    private int _updateCount = -1;
+    /**
+     * Result of last asynchronous execution.
+     */
+    private CompletableFuture<?> _async = null;
+    /**
+     * Future of asynchronous execution currently running on executor thread
+     * or null. Work of cancelled execution is rolled back instead of
+     * committed.
+     */
+    private volatile CompletableFuture<?> _running = null;
+    /**
+     * Listener context of last executed statement or null
+     */
+    private StatementContext _context = null;
+    /**
+     * If this is set to true, results are read into memory right after
+     * statement execution.
+     */
+    protected boolean _materializeResults = false;
+    /**
+     * Number of rows read ahead by background task, 0 if results are not
+     * prefetched.
+     */
+    protected int _prefetchRows = 0;
+    /**
+     * Prefetching results of last executed query or null
+     */
+    private PrefetchingResultSet _prefetching = null;
+    /**
+     * Flag if executed statement runs in transaction which is finished right
+     * after it, i.e. in auto commit mode, in commit group or rolled back
+     */
+    private boolean _implicitTransaction = false;
 
     /**
      * Create new statement using specified one to add TSQL2 support to it.
@@ -86,8 +165,29 @@ public class TSQL2Statement implements Statement {
      * Clear temporal data used by translator.
      */
     public void clear() {
-        if (_translator != null) {
-            _translator.clear();
+        clear(_translator);
+    }
+
+    /**
+     * Clear temporal data used by specified translator.
+     *
+     * @param translator Translator of executed statement or null
+     */
+    private void clear(StatementTranslator translator) {
+        if (translator != null) {
+            MetricsRegistry metrics = con.getMetricsRegistry();
+            FlightRecorderEvents.Span span = FlightRecorderEvents.get().beginClear();
+            if (metrics.isEnabled()) {
+                long start = System.nanoTime();
+                translator.clear();
+                metrics.recordPhase(translator.getStatementType(), Phase.CLEAR, System.nanoTime() - start);
+            } else {
+                translator.clear();
+            }
+            if (span != null) {
+                FlightRecorderEvents.get().commitClear(span, translator.getStatementType(),
+                        translator.getTemporaryTables());
+            }
         }
     }
 
@@ -117,6 +217,173 @@ public class TSQL2Statement implements Statement {
         return _autoClear;
     }
 
+    /**
+     * Set materialization flag.
+     *
+     * If this is set to true, all rows of results are read into
+     * MaterializedResultSet right after statement execution. Scrolling and
+     * repeated reads of such results don't access database, which is useful
+     * with drivers emulating scrollable cursors. Memory used by results is
+     * limited by Settings.MaterializedResultMemoryLimit.
+     *
+     * Results of queries executed with group commit are materialized
+     * regardless of this flag. They are read after the group is committed,
+     * possibly by the timer of group committer, and cursors of underlying
+     * connection need not be held over commit.
+     *
+     * @param materializeResults
+     */
+    public void setMaterializeResults(boolean materializeResults) {
+        _materializeResults = materializeResults;
+    }
+
+    /**
+     * Get materialization flag.
+     *
+     * @return True if results are read into memory after execution
+     */
+    public boolean getMaterializeResults() {
+        return _materializeResults;
+    }
+
+    /**
+     * Set number of rows read ahead in background.
+     *
+     * If this is more than 0, rows of results are read by background task on
+     * executor of the connection into PrefetchingResultSet, so fetching from
+     * database overlaps with processing of rows. Such results are forward only
+     * and neither this statement nor other statements of the connection may
+     * be executed until they are read or closed, because background task uses
+     * the connection until then. Temporary tables of the query are cleared
+     * after that too. Materialization takes precedence over prefetching.
+     *
+     * Results are prefetched only inside explicit transaction. In auto commit
+     * mode or with group commit, transaction of the statement is committed
+     * and lock of the connection released right after execution, while
+     * background task would still read from the connection, so results are
+     * read directly then.
+     *
+     * @param prefetchRows Maximal number of rows read ahead, 0 to disable
+     */
+    public void setPrefetchRows(int prefetchRows) {
+        _prefetchRows = prefetchRows;
+    }
+
+    /**
+     * Get number of rows read ahead in background.
+     *
+     * @return Maximal number of rows read ahead, 0 if prefetching is disabled
+     */
+    public int getPrefetchRows() {
+        return _prefetchRows;
+    }
+
+    /**
+     * Create temporal result set from results of last executed translated
+     * statement.
+     *
+     * @return Temporal result set
+     * @throws SQLException
+     */
+    private TSQL2ResultSet createResultSet() throws SQLException {
+        ResultSet results = stmt.getResultSet();
+        _prefetching = null;
+        if (_materializeResults || (con.getGroupCommitter() != null)) {
+            results = new MaterializedResultSet(results);
+        } else if ((_prefetchRows > 0) && !_implicitTransaction) {
+            _prefetching = new PrefetchingResultSet(results, con.getExecutor(), _prefetchRows);
+            results = _prefetching;
+        }
+        TSQL2ResultSet temporalResults = new TSQL2ResultSet(results,
+                _translator.getResultDescriptor());
+        temporalResults.setStatementContext(_context);
+        return temporalResults;
+    }
+
+    /**
+     * Get future completed when last executed TSQL2 statement is durable.
+     *
+     * In SYNC durability mode or inside explicit transaction the future is
+     * already completed, because durability is then given by commit of the
+     * caller. In GROUP and ASYNC modes the future completes when group
+     * containing the statement is committed, or completes exceptionally when
+     * the group is rolled back.
+     *
+     * @return Commit future of last executed statement
+     */
+    public CompletableFuture<Void> getCommitFuture() {
+        return _commitFuture;
+    }
+
+    /**
+     * Execute TSQL2 query asynchronously on executor of the connection.
+     *
+     * Statement can run only one query at a time. Statements of one
+     * connection share its transaction, so they are executed one after
+     * another, use separate connections to run several queries concurrently.
+     * Cancelling returned future cancels running statement using cancel().
+     *
+     * @param query TSQL2 query
+     * @return Future of query results
+     */
+    public CompletableFuture<ResultSet> executeQueryAsync(String query) {
+        StatementContext context = createContext(query, null, -1, true);
+        return executeAsync(() -> executeQuery(query, context));
+    }
+
+    /**
+     * Execute TSQL2 statement which doesn't return results asynchronously on
+     * executor of the connection.
+     *
+     * Statement can run only one query at a time. Statements of one
+     * connection share its transaction, so they are executed one after
+     * another, use separate connections to run several statements
+     * concurrently. Cancelling returned future cancels running statement
+     * using cancel() and rolls back its work, unless it was already
+     * committed.
+     *
+     * @param update TSQL2 statement
+     * @return Future of update count
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(String update) {
+        StatementContext context = createContext(update, null, -1, true);
+        return executeAsync(() -> executeUpdate(update, context));
+    }
+
+    /**
+     * Run work asynchronously on executor of the connection.
+     *
+     * @param work Work to run
+     * @return Future of work result
+     */
+    private synchronized <T> CompletableFuture<T> executeAsync(TransactionWork<T> work) {
+        CancellableFuture<T> future = new CancellableFuture<>();
+        if (_async != null && !_async.isDone()) {
+            future.completeExceptionally(new TSQL2Exception("Statement is already executing asynchronous query."));
+            return future;
+        }
+        _async = future;
+        try {
+            con.getExecutor().execute(() -> {
+                if (future.isDone()) {
+                    // cancelled before start
+                    return;
+                }
+                _running = future;
+                try {
+                    future.complete(work.run());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    _running = null;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Get statement parse tree string representation. This method is ONLY for
      * debugging and development purposes.
@@ -127,6 +394,176 @@ public class TSQL2Statement implements Statement {
         return parser.getParseTreeDump();
     }
 
+    /**
+     * Explain TSQL2 statement without executing it. The explanation contains
+     * summary of parse tree, generated SQL statements and execution plan of
+     * each of them if the database can explain it. Changes made by
+     * translation, such as allocated surrogate values, are rolled back.
+     *
+     * @param query TSQL2 statement
+     * @return Explanation of statement
+     * @throws SQLException
+     */
+    public Explanation explain(String query) throws SQLException {
+        return explain(query, false);
+    }
+
+    /**
+     * Explain TSQL2 statement. If analyze is set, generated statements are
+     * also executed and actual duration, update count and number of returned
+     * rows of each of them are added to the explanation. The statement is
+     * executed in transaction as by execute() method, so its changes are
+     * committed if auto commit is set. Without analyze, changes made by
+     * translation are rolled back, see runRolledBack().
+     *
+     * @param query TSQL2 statement
+     * @param analyze Flag if generated statements are executed
+     * @return Explanation of statement
+     * @throws SQLException
+     */
+    public Explanation explain(String query, boolean analyze) throws SQLException {
+        if (!analyze) {
+            return runRolledBack(() -> explainStatement(query, false));
+        }
+        return runInTransaction(() -> explainStatement(query, true));
+    }
+
+    /**
+     * Parse and translate TSQL2 statement, get execution plans of generated
+     * statements and, if analyze is set, execute them one by one.
+     *
+     * Plans are read by separate statement before each generated statement is
+     * executed, so helper tables created by preceding statements already
+     * exist. Without analyze nothing is executed and plans of statements
+     * using such helper tables may not be available.
+     *
+     * @param query TSQL2 statement
+     * @param analyze Flag if generated statements are executed
+     * @return Explanation of statement
+     * @throws SQLException
+     */
+    private Explanation explainStatement(String query, boolean analyze) throws SQLException {
+        SimpleNode tree = parser.parse(query);
+        _translator = new StatementTranslator(con);
+        String[] statements = _translator.translate(tree);
+
+        ArrayList<ExplainedStatement> explained = new ArrayList<>(statements.length);
+        Statement planStatement = stmt.getConnection().createStatement();
+        try {
+            for (String sql : statements) {
+                List<String> plan = getPlan(planStatement, sql);
+                if (!analyze) {
+                    explained.add(new ExplainedStatement(sql, plan, null, -1));
+                    continue;
+                }
+                long start = System.nanoTime();
+                long rows = -1;
+                int updateCount;
+                if (stmt.execute(sql)) {
+                    updateCount = -1;
+                    rows = 0;
+                    try (ResultSet results = stmt.getResultSet()) {
+                        while (results.next()) {
+                            rows++;
+                        }
+                    }
+                } else {
+                    updateCount = stmt.getUpdateCount();
+                }
+                ExecutedStatement execution = new ExecutedStatement(sql, System.nanoTime() - start, updateCount);
+                explained.add(new ExplainedStatement(sql, plan, execution, rows));
+            }
+        } finally {
+            try {
+                planStatement.close();
+            } catch (SQLException e) {
+            } // ignore
+            clear();
+        }
+
+        int[] shape = new int[2];
+        measureTree(tree, 1, shape);
+        return new Explanation(query, _translator.getStatementType(), _translator.getTableNames(),
+                StatementFingerprint.of(tree), shape[0], shape[1], analyze, explained);
+    }
+
+    /**
+     * Count nodes and find depth of parse tree.
+     *
+     * @param node Root of subtree
+     * @param depth Depth of node, 1 for root of tree
+     * @param shape Number of nodes and depth of tree to update
+     */
+    private static void measureTree(Node node, int depth, int[] shape) {
+        shape[0]++;
+        shape[1] = Math.max(shape[1], depth);
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            measureTree(node.jjtGetChild(i), depth + 1, shape);
+        }
+    }
+
+    /**
+     * Get execution plan of generated SQL statement. Only queries and DML
+     * statements are explained, as supported by the database type.
+     *
+     * @param planStatement Statement used to read the plan
+     * @param sql Generated SQL statement
+     * @return Lines of plan, empty if the statement can't be explained
+     */
+    private static List<String> getPlan(Statement planStatement, String sql) {
+        ArrayList<String> plan = new ArrayList<>();
+        if (!EXPLAINABLE.matcher(sql).lookingAt()) {
+            return plan;
+        }
+        try {
+            switch (Settings.DatabaseType) {
+                case HSQL:
+                    readPlan(planStatement.executeQuery("EXPLAIN PLAN FOR " + sql), plan);
+                    break;
+                case MYSQL:
+                    readPlan(planStatement.executeQuery("EXPLAIN " + sql), plan);
+                    break;
+                case ORACLE:
+                    planStatement.execute("EXPLAIN PLAN SET STATEMENT_ID = 'TSQL2' FOR " + sql);
+                    readPlan(planStatement.executeQuery(
+                            "SELECT PLAN_TABLE_OUTPUT FROM TABLE(DBMS_XPLAN.DISPLAY(NULL, 'TSQL2', 'TYPICAL'))"),
+                            plan);
+                    break;
+                default:
+                    break;
+            }
+        } catch (SQLException e) {
+            plan.clear();
+            plan.add("plan not available: " + e.getMessage());
+        }
+        return plan;
+    }
+
+    /**
+     * Read rows of plan and close them. Values of each row are joined by " | ".
+     *
+     * @param results Rows of plan
+     * @param plan List to add lines of plan to
+     * @throws SQLException
+     */
+    private static void readPlan(ResultSet results, List<String> plan) throws SQLException {
+        try {
+            int columns = results.getMetaData().getColumnCount();
+            while (results.next()) {
+                StringBuilder line = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        line.append(" | ");
+                    }
+                    line.append(results.getString(i));
+                }
+                plan.add(line.toString());
+            }
+        } finally {
+            results.close();
+        }
+    }
+
     /*
 	 * (non-Javadoc)
 	 * 
@@ -184,58 +621,591 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public boolean execute(String arg0) throws SQLException {
-        /*
-		 * Check state of auto commit. It auto commit is set, disable it for
-		 * this statement, execute all possible sub statements, commit them and re-enable
-		 * auto commit. This is needed because one TSQL2 statement can be translated into
-		 * several SQL statements and all these statements must be executed in transaction.
-		 * 
-		 * If auto commit is disabled, this statement is already in transaction
-		 * and we don't need to do anything. 
-         */
+        return execute(arg0, createContext(arg0, null, -1, false));
+    }
+
+    /**
+     * Execute TSQL2 statement in transaction.
+     *
+     * @param query TSQL2 statement
+     * @param context Listener context of statement or null
+     * @return True if the statement returned results
+     * @throws SQLException
+     */
+    private boolean execute(String query, StatementContext context) throws SQLException {
+        return runStatement(query, () -> executeStatement(query, context));
+    }
+
+    /**
+     * Run work of TSQL2 statement in transaction. EXPLAIN without ANALYZE
+     * doesn't change anything as explain() method, so its work is run in
+     * rolled back transaction instead, see runRolledBack().
+     *
+     * @param query TSQL2 statement
+     * @param work Execution of statement
+     * @return Result of work
+     * @throws SQLException
+     */
+    private <T> T runStatement(String query, TransactionWork<T> work) throws SQLException {
+        Matcher explain = EXPLAIN.matcher(query);
+        if (explain.matches() && explain.group(1) == null) {
+            return runRolledBack(work);
+        }
+        return runInTransaction(work);
+    }
+
+    /**
+     * Create listener context of statement and pass it to listener on current
+     * thread. Nothing is created if the connection has no statement listener.
+     *
+     * @param query TSQL2 statement or null for context of batch
+     * @param parent Context of batch containing statement or null
+     * @param batchIndex Index of statement in batch or -1
+     * @param async Flag if statement is executed asynchronously
+     * @return Context or null if there is no listener
+     */
+    private StatementContext createContext(String query, StatementContext parent, int batchIndex, boolean async) {
+        StatementListener listener = (parent != null) ? parent.getListener() : con.getStatementListener();
+        if (listener == null) {
+            return null;
+        }
+        StatementContext context = new StatementContext(listener, query, parent, batchIndex, async);
+        listener.contextCreated(context);
+        return context;
+    }
+
+    /**
+     * Parse, translate and execute one TSQL2 statement and record duration of
+     * each phase in metrics registry of the connection.
+     *
+     * @param query TSQL2 statement
+     * @param context Listener context of statement or null
+     * @return True if the statement returned results
+     * @throws SQLException
+     */
+    private boolean executeStatement(String query, StatementContext context) throws SQLException {
+        Matcher explain = EXPLAIN.matcher(query);
+        if (explain.matches()) {
+            Explanation explanation = explainStatement(explain.group(2), explain.group(1) != null);
+            ArrayList<String[]> rows = new ArrayList<>();
+            for (String line : explanation.getLines()) {
+                rows.add(new String[]{line});
+            }
+            _results = new TSQL2ResultSet(new TextResultSet(this, new String[]{"PLAN"}, rows));
+            _updateCount = -1;
+            return true;
+        }
+
+        MetricsRegistry metrics = con.getMetricsRegistry();
+        SlowStatementLog slowLog = con.getSlowStatementLog();
+        // generated statements of sampled statement are executed and measured one by one
+        boolean sampled = (slowLog != null) && slowLog.sample();
+        ArrayList<ExecutedStatement> trace = (slowLog != null) ? new ArrayList<>() : null;
+        WorkloadStatistics statistics = con.getWorkloadStatistics();
+        IndexAdvisor advisor = con.getIndexAdvisor();
+        // statements are measured as a whole even if generated statements are sent in one batch
+        boolean timed = metrics.isEnabled() || (slowLog != null) || (statistics != null) || (advisor != null);
+        FlightRecorderEvents events = FlightRecorderEvents.get();
+        long start = timed ? System.nanoTime() : 0;
+
+        _context = context;
+        Phase phase = Phase.PARSE;
         try {
-            boolean autoCommit = con.getAutoCommit();
-            if (autoCommit) {
-                con.setAutoCommit(false);
+            if (context != null) {
+                context.getListener().beforeParse(context);
+            }
+            FlightRecorderEvents.Span parseSpan = events.beginParse();
+            SimpleNode tree = parser.parse(query);
+            if (parseSpan != null) {
+                events.end(parseSpan);
+            }
+            long parsed = timed ? System.nanoTime() : 0;
+            if (context != null) {
+                context.getListener().afterParse(context);
             }
 
+            phase = Phase.TRANSLATE;
+            if (context != null) {
+                context.getListener().beforeTranslate(context);
+            }
+            FlightRecorderEvents.Span translateSpan = events.beginTranslate();
             _translator = new StatementTranslator(con);
+            String[] statements = _translator.translate(tree);
+            long translated = timed ? System.nanoTime() : 0;
+            if (parseSpan != null) {
+                events.commitParse(parseSpan, _translator.getStatementType(), _translator.getTableNames(), query);
+            }
+            if (translateSpan != null) {
+                events.commitTranslate(translateSpan, _translator.getStatementType(), _translator.getTableNames(),
+                        statements.length);
+            }
+            if (context != null) {
+                context.getListener().afterTranslate(context, _translator.getStatementType(), statements);
+            }
 
-            boolean result = false;
-            /*
-			 * Get translated statements and execute them.
-			 * Last statement is modified original one so it's result should be returned.
-			 * Other statements are just helpers.
-             */
-            String[] statements = _translator.translate(parser.parse(arg0));
-            for (String statement : statements) {
-                result = stmt.execute(statement);
+            phase = Phase.EXECUTE;
+            boolean result;
+            if (sampled) {
+                result = executeTraced(statements, trace);
+            } else {
+                if (trace != null) {
+                    // text of generated statements is logged even without their durations
+                    for (String statement : statements) {
+                        trace.add(new ExecutedStatement(statement));
+                    }
+                }
+                result = executeTranslated(statements);
             }
             // get results now to allow clear() method to remove possible temporal tables
             if (result) {
-                _results = new TSQL2ResultSet(stmt.getResultSet());
+                _results = createResultSet();
+            }
+            StatementType type = _translator.getStatementType();
+            if (timed) {
+                metrics.recordPhase(type, Phase.PARSE, parsed - start);
+                metrics.recordPhase(type, Phase.TRANSLATE, translated - parsed);
+                metrics.recordPhase(type, Phase.EXECUTE, System.nanoTime() - translated);
+                metrics.recordGeneratedStatements(type, statements.length);
             }
 
             /*
-			 * Clear possible temporary items used by translator. 
-			 * They are no longer needed since statements were already executed.
+             * Clear possible temporary items used by translator. 
+             * They are no longer needed since statements were already executed.
              */
+            phase = Phase.CLEAR;
+            List<String> temporaryTables = (slowLog != null) ? _translator.getTemporaryTables() : null;
             if (_autoClear) {
-                clear();
+                if (result && (_prefetching != null)) {
+                    // results are still fetched through the connection, clear when they are read or closed
+                    final StatementTranslator translator = _translator;
+                    _prefetching.setFinishAction(() -> clear(translator));
+                } else {
+                    clear();
+                }
             }
 
-            // commit statements if required
-            if (autoCommit) {
-                con.commit();
-                con.setAutoCommit(true);
+            long nanos = timed ? System.nanoTime() - start : 0;
+            if (slowLog != null && slowLog.isSlow(nanos)) {
+                slowLog.log(new SlowStatementEntry(System.currentTimeMillis(), query, type, nanos, trace,
+                        temporaryTables));
+            }
+            if (statistics != null) {
+                statistics.record(StatementFingerprint.of(tree), type, nanos, _updateCount, statements.length,
+                        _translator.getCatalogCacheHits());
+            }
+            if (advisor != null) {
+                advisor.record(statements, _translator.getTableNames(), nanos);
             }
             return result;
         } catch (SQLException e) {
-            con.rollback();
+            if (slowLog != null) {
+                /*
+                 * Failed statements are logged regardless of their duration. Trace of sampled
+                 * statement holds statements executed before failure, trace of other statement
+                 * holds all generated statements once translated.
+                 */
+                boolean parsed = (phase != Phase.PARSE);
+                slowLog.log(new SlowStatementEntry(System.currentTimeMillis(), query,
+                        parsed ? _translator.getStatementType() : null, System.nanoTime() - start, trace,
+                        parsed ? _translator.getTemporaryTables() : Collections.<String>emptyList(), e));
+            }
+            if (context != null) {
+                context.getListener().failed(context, phase, e);
+            }
             throw e;
         }
     }
 
+    /**
+     * Execute statements translated from one TSQL2 statement one by one and
+     * record duration and update count of each of them.
+     *
+     * @param statements Translated statements
+     * @param trace List to add executed statements to
+     * @return True if the last statement returned results
+     * @throws SQLException
+     */
+    private boolean executeTraced(String[] statements, List<ExecutedStatement> trace) throws SQLException {
+        int[] counted = _translator.getCountedStatements();
+        if (counted == null) {
+            counted = new int[]{statements.length - 1};
+        }
+
+        boolean result = false;
+        int[] counts = new int[statements.length];
+        for (int i = 0; i < statements.length; i++) {
+            FlightRecorderEvents.Span span = beforeExecute(statements, i);
+            long start = System.nanoTime();
+            result = stmt.execute(statements[i]);
+            counts[i] = result ? -1 : stmt.getUpdateCount();
+            trace.add(new ExecutedStatement(statements[i], System.nanoTime() - start, counts[i]));
+            afterExecute(span, statements, i, counts[i]);
+        }
+        if (result) {
+            _updateCount = -1;
+            return true;
+        }
+        _updateCount = 0;
+        for (int i : counted) {
+            _updateCount += counts[i];
+        }
+        return false;
+    }
+
+    /**
+     * Execute statements translated from one TSQL2 statement and set update
+     * count of the TSQL2 statement.
+     *
+     * Last statement is modified original one so it's result should be
+     * returned. Other statements are just helpers and they never return
+     * results, so whole translation is sent to database in one round trip.
+     * Oracle executes batches of plain statements one by one, therefore DML
+     * translations are sent there as one anonymous PL/SQL block. Other
+     * translations are sent as statement batch. MySQL Connector/J also sends
+     * statement batch one statement per round trip unless the connection URL
+     * sets allowMultiQueries or rewriteBatchedStatements.
+     *
+     * Some drivers report SUCCESS_NO_INFO instead of update counts of batched
+     * statements. Once that happens on the connection, counted statements are
+     * executed separately and their counts are summed, only runs of helper
+     * statements between them are still batched. The statement which revealed
+     * missing counts returns SUCCESS_NO_INFO as its update count. On Oracle,
+     * counted statements of other translations than UPDATE and DELETE are
+     * executed separately from the start.
+     *
+     * @param statements Translated statements
+     * @return True if the last statement returned results
+     * @throws SQLException
+     */
+    private boolean executeTranslated(String[] statements) throws SQLException {
+        int[] counted = _translator.getCountedStatements();
+        if (counted == null) {
+            counted = new int[]{statements.length - 1};
+        }
+
+        if (statements.length == 1 || _translator.getStatementType() == StatementType.SELECT) {
+            boolean result = false;
+            for (int i = 0; i < statements.length; i++) {
+                FlightRecorderEvents.Span span = beforeExecute(statements, i);
+                result = stmt.execute(statements[i]);
+                _updateCount = result ? -1 : stmt.getUpdateCount();
+                afterExecute(span, statements, i, _updateCount);
+            }
+            return result;
+        }
+
+        FlightRecorderEvents.Span span = beforeExecute(statements, -1);
+        StatementType type = _translator.getStatementType();
+        if (Settings.DatabaseType == DatabaseType.ORACLE
+                && (type == StatementType.UPDATE || type == StatementType.DELETE)) {
+            _updateCount = executeBlock(statements, counted);
+            afterExecute(span, statements, -1, _updateCount);
+            return false;
+        }
+
+        if (!con.isBatchUpdateCounted()) {
+            _updateCount = executeCounted(statements, counted);
+            afterExecute(span, statements, -1, _updateCount);
+            return false;
+        }
+
+        int[] counts;
+        try {
+            for (String statement : statements) {
+                stmt.addBatch(statement);
+            }
+            counts = stmt.executeBatch();
+        } finally {
+            stmt.clearBatch();
+        }
+        _updateCount = 0;
+        for (int i : counted) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                // database doesn't report update counts of batched statements, execute counted ones separately next time
+                con.setBatchUpdateCounted(false);
+                _updateCount = Statement.SUCCESS_NO_INFO;
+                break;
+            }
+            _updateCount += counts[i];
+        }
+        afterExecute(span, statements, -1, _updateCount);
+        return false;
+    }
+
+    /**
+     * Execute translated statements so that update count of each counted
+     * statement is known. Counted statements are executed separately, runs of
+     * helper statements between them are sent as statement batch.
+     *
+     * @param statements Translated statements
+     * @param counted Indexes of counted statements
+     * @return Sum of update counts of counted statements
+     * @throws SQLException
+     */
+    private int executeCounted(String[] statements, int[] counted) throws SQLException {
+        boolean[] isCounted = new boolean[statements.length];
+        for (int i : counted) {
+            isCounted[i] = true;
+        }
+        int updateCount = 0;
+        int batched = 0;
+        try {
+            for (int i = 0; i < statements.length; i++) {
+                if (!isCounted[i]) {
+                    stmt.addBatch(statements[i]);
+                    batched++;
+                    continue;
+                }
+                if (batched > 0) {
+                    stmt.executeBatch();
+                    stmt.clearBatch();
+                    batched = 0;
+                }
+                stmt.execute(statements[i]);
+                updateCount += stmt.getUpdateCount();
+            }
+            if (batched > 0) {
+                stmt.executeBatch();
+            }
+        } finally {
+            stmt.clearBatch();
+        }
+        return updateCount;
+    }
+
+    /**
+     * Notify statement listener and begin JFR event before translated
+     * statements are sent to database.
+     *
+     * @param statements Translated statements
+     * @param index Index of executed statement or -1 if all statements are
+     * executed in one round trip
+     * @return JFR span or null if the event is disabled
+     */
+    private FlightRecorderEvents.Span beforeExecute(String[] statements, int index) {
+        if (_context != null) {
+            _context.getListener().beforeExecute(_context, getExecutedSql(statements, index));
+        }
+        return FlightRecorderEvents.get().beginExecute();
+    }
+
+    /**
+     * Commit JFR event and notify statement listener after translated
+     * statements are executed.
+     *
+     * @param span JFR span or null
+     * @param statements Translated statements
+     * @param index Index of executed statement or -1 if all statements were
+     * executed in one round trip
+     * @param updateCount Update count or -1 if statement returned results
+     */
+    private void afterExecute(FlightRecorderEvents.Span span, String[] statements, int index, int updateCount) {
+        if (span != null) {
+            FlightRecorderEvents.get().commitExecute(span, _translator.getStatementType(),
+                    _translator.getTableNames(), getExecutedSql(statements, index),
+                    (index < 0) ? statements.length : 1, updateCount);
+        }
+        if (_context != null) {
+            _context.getListener().afterExecute(_context, getExecutedSql(statements, index), updateCount);
+        }
+    }
+
+    /**
+     * Get SQL sent to database in one round trip.
+     *
+     * @param statements Translated statements
+     * @param index Index of executed statement or -1 if all statements are
+     * executed in one round trip
+     * @return Executed SQL statements separated by semicolons
+     */
+    private static String getExecutedSql(String[] statements, int index) {
+        return (index < 0) ? String.join(";\n", statements) : statements[index];
+    }
+
+    /**
+     * Execute statements as one anonymous PL/SQL block which sums update
+     * counts of counted statements.
+     *
+     * @param statements Translated statements
+     * @param counted Indexes of counted statements
+     * @return Update count of translated TSQL2 statement
+     * @throws SQLException
+     */
+    private int executeBlock(String[] statements, int[] counted) throws SQLException {
+        StringBuilder block = new StringBuilder("DECLARE tsql2_count NUMBER := 0; BEGIN ");
+        for (int i = 0; i < statements.length; i++) {
+            block.append(statements[i]).append("; ");
+            for (int c : counted) {
+                if (c == i) {
+                    block.append("tsql2_count := tsql2_count + SQL%ROWCOUNT; ");
+                }
+            }
+        }
+        block.append("? := tsql2_count; END;");
+
+        CallableStatement call = null;
+        try {
+            call = stmt.getConnection().prepareCall(block.toString());
+            call.setQueryTimeout(stmt.getQueryTimeout());
+            call.registerOutParameter(1, Types.INTEGER);
+            call.execute();
+            return call.getInt(1);
+        } finally {
+            if (call != null) {
+                try {
+                    call.close();
+                } catch (SQLException e) {
+                } // ignore
+            }
+        }
+    }
+
+    /**
+     * Execute work of one TSQL2 statement in transaction.
+     *
+     * Check state of auto commit. It auto commit is set, disable it for this
+     * statement, execute all possible sub statements, commit them and
+     * re-enable auto commit. This is needed because one TSQL2 statement can be
+     * translated into several SQL statements and all these statements must be
+     * executed in transaction. If group commit is used, auto commit of
+     * underlying connection is already disabled and the statement joins the
+     * open commit group instead.
+     *
+     * If auto commit is disabled, this statement is already in transaction and
+     * we don't need to do anything.
+     *
+     * Statements of all threads on the connection are serialized by its
+     * transaction lock, or by lock of group committer. Both are ReentrantLock,
+     * so asynchronous statements running on virtual threads don't pin their
+     * carrier threads while they wait for database. Work of cancelled asynchronous execution is rolled
+     * back, even if cancel arrived after the work was done.
+     *
+     * @param work Execution of translated statements
+     * @return Result of work
+     * @throws SQLException
+     */
+    private <T> T runInTransaction(TransactionWork<T> work) throws SQLException {
+        GroupCommitter group = con.getGroupCommitter();
+        if (group != null) {
+            T result;
+            CompletableFuture<Void> commit;
+            group.getLock().lock();
+            try {
+                try {
+                    checkCancelled();
+                    _implicitTransaction = true;
+                    result = work.run();
+                    checkCancelled();
+                } catch (SQLException e) {
+                    group.abort(e);
+                    throw e;
+                }
+                commit = group.join();
+            } finally {
+                group.getLock().unlock();
+            }
+            _commitFuture = commit;
+            if (group.getMode() == DurabilityMode.GROUP) {
+                GroupCommitter.await(commit);
+            }
+            return result;
+        }
+
+        ReentrantLock lock = con.getTransactionLock();
+        lock.lock();
+        try {
+            checkCancelled();
+            boolean autoCommit = con.getAutoCommit();
+            try {
+                if (autoCommit) {
+                    con.setAutoCommit(false);
+                }
+                _implicitTransaction = autoCommit;
+                T result = work.run();
+                checkCancelled();
+                // commit statements if required
+                if (autoCommit) {
+                    con.commit();
+                }
+                _commitFuture = CompletableFuture.completedFuture(null);
+                return result;
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    con.setAutoCommit(true);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run work in transaction and roll back its changes, e.g. surrogate
+     * values allocated by translation of explained statement. If the
+     * connection is already in transaction of user or of commit group, only
+     * changes made after savepoint set before the work are rolled back.
+     *
+     * Databases committing DDL statements implicitly, such as CREATE TABLE
+     * of helper tables for coalescing, commit changes made before them and
+     * lose the savepoint. Rollback of savepoint is then skipped, helper
+     * tables themselves are dropped by clear().
+     *
+     * @param work Work whose changes are rolled back
+     * @return Result of work
+     * @throws SQLException
+     */
+    private <T> T runRolledBack(TransactionWork<T> work) throws SQLException {
+        GroupCommitter group = con.getGroupCommitter();
+        ReentrantLock lock = (group != null) ? group.getLock() : con.getTransactionLock();
+        lock.lock();
+        try {
+            checkCancelled();
+            boolean autoCommit = (group == null) && con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            Savepoint savepoint = autoCommit ? null : con.setSavepoint();
+            _implicitTransaction = true;
+            try {
+                return work.run();
+            } finally {
+                try {
+                    if (autoCommit) {
+                        con.rollback();
+                    } else {
+                        try {
+                            con.rollback(savepoint);
+                            con.releaseSavepoint(savepoint);
+                        } catch (SQLException e) {
+                        } // savepoint lost by implicit commit
+                    }
+                } finally {
+                    if (autoCommit) {
+                        con.setAutoCommit(true);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check if asynchronous execution running on current thread was
+     * cancelled.
+     *
+     * @throws TSQL2Exception If the execution was cancelled
+     */
+    private void checkCancelled() throws TSQL2Exception {
+        CompletableFuture<?> running = _running;
+        if (running != null && running.isCancelled()) {
+            throw new TSQL2Exception("Statement was cancelled.");
+        }
+    }
+
     /*
 	 * (non-Javadoc)
 	 * 
@@ -277,18 +1247,46 @@ public class TSQL2Statement implements Statement {
     @Override
     public int[] executeBatch() throws SQLException {
         int[] results = new int[_batch.size()];
+        int i = 0;
+        StatementContext batch = createContext(null, null, -1, false);
 
         try {
-            for (int i = 0; i < _batch.size(); i++) {
-                results[i] = executeUpdate(_batch.get(i));
+            for (; i < _batch.size(); i++) {
+                String update = _batch.get(i);
+                results[i] = executeUpdate(update, (batch == null) ? null : createContext(update, batch, i, false));
             }
         } catch (SQLException e) {
-            throw new BatchUpdateException();
+            throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Arrays.copyOf(results, i), e);
         }
 
         return results;
     }
 
+    /**
+     * Execute TSQL2 query and get stream of its rows mapped to objects.
+     *
+     * Rows are read when the stream is consumed, so they can be processed in
+     * parallel by downstream operations. Closing the stream closes results
+     * and this statement, so use the stream in try-with-resources.
+     *
+     * @param query TSQL2 query
+     * @param <T> Type of mapped objects
+     * @param mapper Mapper of rows
+     * @return Sequential stream, SQLException is rethrown as
+     * UncheckedSQLException
+     * @throws SQLException If query can't be executed
+     */
+    public <T> Stream<T> stream(String query, RowMapper<T> mapper) throws SQLException {
+        executeQuery(query);
+        return _results.stream(mapper).onClose(() -> {
+            try {
+                close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
+
     /*
 	 * (non-Javadoc)
 	 * 
@@ -296,62 +1294,50 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public ResultSet executeQuery(String query) throws SQLException {
-        /*
-		 * Check state of auto commit. It auto commit is set, disable it for
-		 * this statement, execute all possible sub statements, commit them and re-enable
-		 * auto commit. This is needed because one TSQL2 statement can be translated into
-		 * several SQL statements and all these statements must be executed in transaction.
-		 * 
-		 * If auto commit is disabled, this statement is already in transaction
-		 * and we don't need to do anything. 
-         */
-        try {
-            boolean autoCommit = con.getAutoCommit();
-            if (autoCommit) {
-                con.setAutoCommit(false);
-            }
-
-            _translator = new StatementTranslator(con);
-
-            ResultSet result = null;
-            /*
-			 * Get translated statements and execute them.
-			 * Last statement is modified original one so it's result should be returned.
-			 * Other statements are just helpers.
-             */
-            String[] statements = _translator.translate(parser.parse(query));
-            for (String statement : statements) {
-                result = stmt.executeQuery(statement);
-            }
-            /*
-			 * Clear possible temporary items used by translator. 
-			 * They are no longer needed since statements were already executed.
-             */
-            if (_autoClear) {
-                clear();
-            }
+        return executeQuery(query, createContext(query, null, -1, false));
+    }
 
-            // commit statements if required
-            if (autoCommit) {
-                con.commit();
-                con.setAutoCommit(true);
+    /**
+     * Execute TSQL2 query in transaction.
+     *
+     * @param query TSQL2 query
+     * @param context Listener context of query or null
+     * @return Results of query
+     * @throws SQLException
+     */
+    private ResultSet executeQuery(String query, StatementContext context) throws SQLException {
+        return runStatement(query, () -> {
+            if (!executeStatement(query, context)) {
+                throw new TSQL2Exception("Statement did not return results.");
             }
-            _results = new TSQL2ResultSet(result);
             return _results;
-        } catch (SQLException e) {
-            con.rollback();
-            throw e;
-        }
+        });
     }
 
-    /*
-	 * (non-Javadoc)
-	 * 
-	 * @see java.sql.Statement#executeUpdate(java.lang.String)
+    /**
+     * Translate and execute TSQL2 statement which doesn't return results.
+     * Update count is sum of update counts of generated statements which make
+     * up the update count of the TSQL2 statement. It can be
+     * Statement.SUCCESS_NO_INFO once per connection if the driver doesn't
+     * report update counts of batched statements, see executeTranslated().
+     *
+     * @see java.sql.Statement#executeUpdate(java.lang.String)
      */
     @Override
     public int executeUpdate(String arg0) throws SQLException {
-        stmt.execute(arg0);
+        return executeUpdate(arg0, createContext(arg0, null, -1, false));
+    }
+
+    /**
+     * Execute TSQL2 statement which doesn't return results.
+     *
+     * @param update TSQL2 statement
+     * @param context Listener context of statement or null
+     * @return Update count
+     * @throws SQLException
+     */
+    private int executeUpdate(String update, StatementContext context) throws SQLException {
+        execute(update, context);
         return getUpdateCount();
     }
 
@@ -362,8 +1348,10 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public int executeUpdate(String arg0, int arg1) throws SQLException {
+        // do just ordinary execute
         stmt.execute(arg0);
-        return getUpdateCount();
+        _updateCount = stmt.getUpdateCount();
+        return _updateCount;
     }
 
     /*
@@ -373,8 +1361,10 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public int executeUpdate(String arg0, int[] arg1) throws SQLException {
+        // do just ordinary execute
         stmt.execute(arg0);
-        return getUpdateCount();
+        _updateCount = stmt.getUpdateCount();
+        return _updateCount;
     }
 
     /*
@@ -385,8 +1375,10 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public int executeUpdate(String arg0, String[] arg1) throws SQLException {
+        // do just ordinary execute
         stmt.execute(arg0);
-        return getUpdateCount();
+        _updateCount = stmt.getUpdateCount();
+        return _updateCount;
     }
 
     /*
@@ -456,6 +1448,7 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public boolean getMoreResults() throws SQLException {
+        _updateCount = -1;
         return stmt.getMoreResults();
     }
 
@@ -466,6 +1459,7 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public boolean getMoreResults(int arg0) throws SQLException {
+        _updateCount = -1;
         return stmt.getMoreResults(arg0);
     }
 
@@ -526,7 +1520,7 @@ public class TSQL2Statement implements Statement {
      */
     @Override
     public int getUpdateCount() throws SQLException {
-        return stmt.getUpdateCount();
+        return _updateCount;
     }
 
     /*
@@ -677,4 +1671,40 @@ public class TSQL2Statement implements Statement {
         return stmt.isCloseOnCompletion();
     }
 
+    /**
+     * Future of asynchronous execution which cancels running statement when
+     * cancelled.
+     *
+     * @param <T> Type of execution result
+     */
+    private class CancellableFuture<T> extends CompletableFuture<T> {
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                } // ignore, statement may be already finished
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * Work executed for one TSQL2 statement.
+     *
+     * @param <T> Type of work result
+     */
+    private interface TransactionWork<T> {
+
+        /**
+         * Execute work.
+         *
+         * @return Result of work
+         * @throws SQLException
+         */
+        T run() throws SQLException;
+    }
 }
@@ -14,10 +14,9 @@
 package cz.vutbr.fit.tsql2lib;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class providing access to temporal table information such as valid-time
@@ -33,6 +32,11 @@ public class TableInfo implements Constants {
      * Database connection to allow updating of surrogate values.
      */
     private Connection _con = null;
+    /**
+     * Catalog of connection used to update surrogate values, it is created on
+     * first surrogate value request and reused by next ones.
+     */
+    private TemporalCatalog _catalog = null;
     /**
      * Level of valid-time support for table
      */
@@ -62,6 +66,10 @@ public class TableInfo implements Constants {
      * Map of surrogate columns for this table
      */
     private final HashMap<String, Long> _surrogates = new HashMap<>();
+    /**
+     * Lock of catalog used to update surrogate values
+     */
+    private final ReentrantLock _lock = new ReentrantLock();
 
     /**
      * Create new empty instance of TableInfo class
@@ -73,6 +81,14 @@ public class TableInfo implements Constants {
         _con = con;
     }
 
+    /**
+     * Create new empty instance of TableInfo class not bound to connection.
+     * It can be shared by several connections, surrogate values are then
+     * allocated by TSQL2DatabaseMetaData.getNextSurrogateValue().
+     */
+    public TableInfo() {
+    }
+
     /**
      * Get table valid time support.
      *
@@ -191,48 +207,44 @@ public class TableInfo implements Constants {
      * @throws TSQL2Exception
      */
     public long getNextSurrogateValue(String columnName) throws TSQL2Exception {
-        if (_con instanceof TSQL2Adapter) {
-            throw new TSQL2Exception("Connection for initialization can't be TSQL2Adapter. Use base JDBC connection.");
-        }
-
-        long value = 0;
-
-        Statement stmt = null;
-        ResultSet res = null;
+        _lock.lock();
         try {
-            stmt = _con.createStatement();
-            // get next value
-            res = stmt.executeQuery("SELECT next_value"
-                    + " FROM " + Settings.SurrogateTableName
-                    + " WHERE table_name = '" + tableName.toUpperCase() + "'"
-                    + " AND column_name = '" + columnName.toUpperCase() + "'");
-
-            res.next();
-            value = res.getLong("next_value");
+            if (_con == null) {
+                throw new TSQL2Exception("Table information is not bound to connection. Use TSQL2DatabaseMetaData.getNextSurrogateValue().");
+            }
+            if (_con instanceof TSQL2Adapter) {
+                throw new TSQL2Exception("Connection for initialization can't be TSQL2Adapter. Use base JDBC connection.");
+            }
 
-            // update next value
-            stmt.execute("UPDATE " + Settings.SurrogateTableName
-                    + " SET next_value = next_value + 1"
-                    + " WHERE table_name = '" + tableName.toUpperCase() + "'"
-                    + " AND column_name = '" + columnName.toUpperCase() + "'");
-        } catch (SQLException e) {
-            throw new TSQL2Exception(e.getMessage());
-        } finally {
-            if (res != null) {
-                try {
-                    res.close();
-                } catch (SQLException sqlEx) {
-                } // ignore
+            if (_catalog == null) {
+                _catalog = new TemporalCatalog(_con);
             }
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException sqlEx) {
-                } // ignore
+            try {
+                return _catalog.nextSurrogateValue(tableName, columnName);
+            } catch (TSQL2Exception e) {
+                throw e;
+            } catch (SQLException e) {
+                throw new TSQL2Exception(e.getMessage());
             }
+        } finally {
+            _lock.unlock();
         }
+    }
 
-        return value;
+    /**
+     * Release prepared catalog queries used to update surrogate values.
+     * Queries are prepared again on next surrogate value request.
+     */
+    public void close() {
+        _lock.lock();
+        try {
+            if (_catalog != null) {
+                _catalog.close();
+                _catalog = null;
+            }
+        } finally {
+            _lock.unlock();
+        }
     }
 
     /**
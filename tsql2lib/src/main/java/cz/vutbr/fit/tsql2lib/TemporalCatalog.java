@@ -0,0 +1,294 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cz.vutbr.fit.tsql2lib.monitoring.FlightRecorderEvents;
+import cz.vutbr.fit.tsql2lib.monitoring.MetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.NoopMetricsRegistry;
+
+/**
+ * Access to temporal catalog tables _TEMPORAL_SPEC and _SURROGATE of one
+ * connection. Catalog queries are prepared on first use and reused until the
+ * catalog is closed, so the database parses each of them only once per
+ * connection. Methods hold lock of catalog, because one connection can be used
+ * by several statements concurrently. It is ReentrantLock rather than monitor,
+ * so virtual threads waiting for database don't pin their carrier threads.
+ */
+public class TemporalCatalog {
+
+    /**
+     * Connection to database. This can't be TSQL2Adapter instance.
+     */
+    private final Connection _con;
+    /**
+     * Query for table specification joined with its surrogate columns
+     */
+    private PreparedStatement _selectTable = null;
+    /**
+     * Statement incrementing surrogate counter
+     */
+    private PreparedStatement _incrementSurrogate = null;
+    /**
+     * Query for surrogate counter
+     */
+    private PreparedStatement _selectSurrogate = null;
+    /**
+     * Query checking existence of temporal specification table
+     */
+    private PreparedStatement _selectSpecTable = null;
+    /**
+     * Vacuuming statements by table name
+     */
+    private final HashMap<String, PreparedStatement> _vacuum = new HashMap<>();
+    /**
+     * Registry of surrogate allocations and vacuum runs
+     */
+    private volatile MetricsRegistry _metrics = NoopMetricsRegistry.INSTANCE;
+    /**
+     * Lock of prepared statements
+     */
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    /**
+     * Create catalog accessor for specified connection.
+     *
+     * @param con Connection to database. This can't be TSQL2Adapter instance.
+     * @throws TSQL2Exception
+     */
+    public TemporalCatalog(Connection con) throws TSQL2Exception {
+        if (con instanceof TSQL2Adapter) {
+            throw new TSQL2Exception("Connection for catalog access can't be TSQL2Adapter. Use base JDBC connection.");
+        }
+        _con = con;
+    }
+
+    /**
+     * Get connection of this catalog.
+     *
+     * @return Connection to database
+     */
+    public Connection getConnection() {
+        return _con;
+    }
+
+    /**
+     * Set registry of surrogate allocations and vacuum runs.
+     *
+     * @param metrics Metrics registry
+     */
+    public void setMetricsRegistry(MetricsRegistry metrics) {
+        _metrics = metrics;
+    }
+
+    /**
+     * Get temporal specification of table together with its surrogate
+     * columns using one query.
+     *
+     * @param tableName Name of table, it is stored in uppercase
+     * @return Table information or null if table is not temporal table
+     * @throws SQLException
+     */
+    public TableInfo findTable(String tableName) throws SQLException {
+        _lock.lock();
+        try {
+            if (_selectTable == null) {
+                _selectTable = _con.prepareStatement("SELECT s.table_name, s.valid_time, s.valid_time_scale,"
+                        + " s.transaction_time, s.vacuum_cutoff, s.vacuum_cutoff_relative, g.column_name, g.next_value"
+                        + " FROM " + Settings.TemporalSpecTableName + " s"
+                        + " LEFT JOIN " + Settings.SurrogateTableName + " g ON g.table_name = s.table_name"
+                        + " WHERE s.table_name = ?");
+            }
+            _selectTable.setString(1, tableName.toUpperCase());
+
+            TableInfo ti = null;
+            try (ResultSet res = _selectTable.executeQuery()) {
+                while (res.next()) {
+                    if (ti == null) {
+                        ti = new TableInfo();
+                        ti.setTableName(res.getString(1));
+                        ti.setValidTimeSupport(res.getString(2));
+                        ti.setValidTimeScale(DateTimeScale.valueOf(res.getString(3)));
+                        ti.setTransactionTimeSupport(res.getString(4));
+                        ti.setVacuumCutOff(res.getLong(5));
+                        ti.setVacuumCutOffRelative(res.getBoolean(6));
+                    }
+                    String columnName = res.getString(7);
+                    if (columnName != null) {
+                        ti.addSurrogate(columnName, res.getLong(8));
+                    }
+                }
+            }
+            return ti;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Allocate next value of surrogate column. Counter is incremented first,
+     * so the row stays locked until the transaction ends and concurrent
+     * transactions can't get the same value.
+     *
+     * @param tableName Name of table
+     * @param columnName Name of surrogate column
+     * @return New value for surrogate column
+     * @throws SQLException
+     */
+    public long nextSurrogateValue(String tableName, String columnName) throws SQLException {
+        _lock.lock();
+        try {
+            FlightRecorderEvents events = FlightRecorderEvents.get();
+            FlightRecorderEvents.Span span = events.beginSurrogateAllocation();
+            if (_incrementSurrogate == null) {
+                _incrementSurrogate = _con.prepareStatement("UPDATE " + Settings.SurrogateTableName
+                        + " SET next_value = next_value + 1"
+                        + " WHERE table_name = ? AND column_name = ?");
+                _selectSurrogate = _con.prepareStatement("SELECT next_value"
+                        + " FROM " + Settings.SurrogateTableName
+                        + " WHERE table_name = ? AND column_name = ?");
+            }
+            _incrementSurrogate.setString(1, tableName.toUpperCase());
+            _incrementSurrogate.setString(2, columnName.toUpperCase());
+            if (_incrementSurrogate.executeUpdate() == 0) {
+                throw new TSQL2Exception("Column '" + columnName + "' is not surrogate column of table '" + tableName + "'.");
+            }
+            _selectSurrogate.setString(1, tableName.toUpperCase());
+            _selectSurrogate.setString(2, columnName.toUpperCase());
+            long value;
+            try (ResultSet res = _selectSurrogate.executeQuery()) {
+                res.next();
+                value = res.getLong(1) - 1;
+            }
+            _metrics.recordSurrogateAllocation(tableName);
+            if (span != null) {
+                events.commitSurrogateAllocation(span, tableName, columnName, value);
+            }
+            return value;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Delete rows of transaction-time table whose transaction time ended
+     * before specified time.
+     *
+     * @param tableName Name of table
+     * @param cutOff Vacuum cut-off point as unix timestamp
+     * @return Number of deleted rows
+     * @throws SQLException
+     */
+    public int vacuum(String tableName, long cutOff) throws SQLException {
+        _lock.lock();
+        try {
+            PreparedStatement stmt = _vacuum.get(tableName);
+            if (stmt == null) {
+                stmt = _con.prepareStatement("DELETE FROM " + tableName
+                        + " WHERE " + Settings.TransactionTimeEndColumnName + " <= ?");
+                _vacuum.put(tableName, stmt);
+            }
+            stmt.setLong(1, cutOff);
+            int deleted = stmt.executeUpdate();
+            _metrics.recordVacuum(tableName, deleted);
+            return deleted;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Check if temporal specification table exists.
+     *
+     * @return True if table exists
+     * @throws SQLException
+     */
+    public boolean temporalSchemaExists() throws SQLException {
+        _lock.lock();
+        try {
+            // use different queries for different databases
+            switch (Settings.DatabaseType) {
+                case ORACLE:
+                    if (_selectSpecTable == null) {
+                        _selectSpecTable = _con.prepareStatement("SELECT table_name FROM user_tables WHERE table_name = ?");
+                    }
+                    _selectSpecTable.setString(1, Settings.TemporalSpecTableNameRaw);
+                    break;
+                case MYSQL:
+                    if (_selectSpecTable == null) {
+                        _selectSpecTable = _con.prepareStatement("SELECT table_name FROM information_schema.tables"
+                                + " WHERE table_schema = ? AND table_name = ?");
+                    }
+                    _selectSpecTable.setString(1, _con.getCatalog());
+                    _selectSpecTable.setString(2, Settings.TemporalSpecTableNameRaw);
+                    break;
+                case HSQL:
+                    try (ResultSet res = _con.getMetaData().getTables(null, null, Settings.TemporalSpecTableNameRaw, null)) {
+                        return res.next();
+                    }
+                default:
+                    return false;
+            }
+            try (ResultSet res = _selectSpecTable.executeQuery()) {
+                return res.next();
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Close all prepared statements. Catalog can be used again after close,
+     * statements are prepared again on demand.
+     */
+    public void close() {
+        _lock.lock();
+        try {
+            close(_selectTable);
+            close(_incrementSurrogate);
+            close(_selectSurrogate);
+            close(_selectSpecTable);
+            for (PreparedStatement stmt : _vacuum.values()) {
+                close(stmt);
+            }
+            _selectTable = null;
+            _incrementSurrogate = null;
+            _selectSurrogate = null;
+            _selectSpecTable = null;
+            _vacuum.clear();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Close statement ignoring errors.
+     *
+     * @param stmt Statement to close, may be null
+     */
+    private static void close(PreparedStatement stmt) {
+        if (stmt != null) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+            } // ignore
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scrollable result set of text rows created by the library itself, e.g.
+ * output of EXPLAIN statement.
+ */
+final class TextResultSet extends AbstractRowResultSet {
+
+    /**
+     * Rows of result set
+     */
+    private final List<String[]> _rows;
+    /**
+     * Current row, 0 before first row and size of rows after last row
+     */
+    private int _row = 0;
+
+    /**
+     * Create result set of text rows.
+     *
+     * @param statement Statement which produced results or null
+     * @param labels Labels of VARCHAR columns
+     * @param rows Rows of result set, each with value of every column
+     * @throws SQLException
+     */
+    TextResultSet(Statement statement, String[] labels, List<String[]> rows) throws SQLException {
+        super(new CachedResultSetMetaData(labels), statement);
+        _rows = new ArrayList<>(rows);
+    }
+
+    /**
+     * Move to row.
+     *
+     * @param row Row number, 0 before first row and size of rows + 1 after
+     * last row
+     * @return True if result set is on row
+     * @throws SQLException
+     */
+    private boolean moveTo(int row) throws SQLException {
+        checkOpen();
+        _row = Math.max(0, Math.min(row, _rows.size() + 1));
+        return (_row >= 1) && (_row <= _rows.size());
+    }
+
+    /**
+     * Get current row.
+     *
+     * @return Values of current row
+     * @throws SQLException Result set is not on row
+     */
+    private String[] current() throws SQLException {
+        if ((_row < 1) || (_row > _rows.size())) {
+            throw new TSQL2Exception("Result set is not positioned on a row.");
+        }
+        return _rows.get(_row - 1);
+    }
+
+    @Override
+    protected boolean isNullValue(int column) throws SQLException {
+        return current()[column] == null;
+    }
+
+    @Override
+    protected long longValue(int column) throws SQLException {
+        throw new TSQL2Exception("Column " + (column + 1) + " is not numeric.");
+    }
+
+    @Override
+    protected double doubleValue(int column) throws SQLException {
+        throw new TSQL2Exception("Column " + (column + 1) + " is not numeric.");
+    }
+
+    @Override
+    protected Object objectValue(int column) throws SQLException {
+        return current()[column];
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        return moveTo(_row + 1);
+    }
+
+    @Override
+    public boolean previous() throws SQLException {
+        return moveTo(_row - 1);
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        return moveTo(1);
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        return moveTo(_rows.size());
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        moveTo(0);
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        moveTo(_rows.size() + 1);
+    }
+
+    @Override
+    public boolean absolute(int row) throws SQLException {
+        if (row >= 0) {
+            return moveTo(row);
+        }
+        // negative rows are counted from the end, -1 is the last row
+        return moveTo(Math.max(0, _rows.size() + 1 + row));
+    }
+
+    @Override
+    public boolean relative(int rows) throws SQLException {
+        return moveTo((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) _row + rows)));
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        checkOpen();
+        return ((_row >= 1) && (_row <= _rows.size())) ? _row : 0;
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        checkOpen();
+        return (_row == 0) && !_rows.isEmpty();
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        checkOpen();
+        return (_row > _rows.size()) && !_rows.isEmpty();
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        checkOpen();
+        return (_row == 1) && !_rows.isEmpty();
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        checkOpen();
+        return (_row == _rows.size()) && !_rows.isEmpty();
+    }
+
+    @Override
+    public int getType() throws SQLException {
+        return TYPE_SCROLL_INSENSITIVE;
+    }
+}
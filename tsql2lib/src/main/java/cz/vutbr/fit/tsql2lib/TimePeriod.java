@@ -0,0 +1,168 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib;
+
+import java.time.Instant;
+
+/**
+ * Immutable period of time returned from PERIOD columns of TSQL2ResultSet.
+ * Beginning and end are unix timestamps, end is not part of period. End of
+ * period valid until changed is Constants.FOREVER.
+ */
+public final class TimePeriod implements Constants {
+
+    /**
+     * Beginning of period as unix timestamp
+     */
+    private final long _start;
+    /**
+     * End of period as unix timestamp
+     */
+    private final long _end;
+    /**
+     * Scale of period
+     */
+    private final DateTimeScale _scale;
+
+    /**
+     * Create new period.
+     *
+     * @param start Beginning of period as unix timestamp
+     * @param end End of period as unix timestamp
+     * @param scale Scale of period
+     */
+    public TimePeriod(long start, long end, DateTimeScale scale) {
+        _start = start;
+        _end = end;
+        _scale = scale;
+    }
+
+    /**
+     * Get beginning of period.
+     *
+     * @return Beginning of period as unix timestamp
+     */
+    public long getStart() {
+        return _start;
+    }
+
+    /**
+     * Get end of period.
+     *
+     * @return End of period as unix timestamp
+     */
+    public long getEnd() {
+        return _end;
+    }
+
+    /**
+     * Get scale of period.
+     *
+     * @return Date and time scale
+     */
+    public DateTimeScale getScale() {
+        return _scale;
+    }
+
+    /**
+     * Get beginning of period.
+     *
+     * @return Beginning of period as instant
+     */
+    public Instant getStartInstant() {
+        return Instant.ofEpochSecond(_start);
+    }
+
+    /**
+     * Get end of period.
+     *
+     * @return End of period as instant
+     */
+    public Instant getEndInstant() {
+        return Instant.ofEpochSecond(_end);
+    }
+
+    /**
+     * Check if period is empty. Empty periods are displayed as NULL.
+     *
+     * @return True if beginning is not before end
+     */
+    public boolean isEmpty() {
+        return _start >= _end;
+    }
+
+    /**
+     * Check if period is valid until changed.
+     *
+     * @return True if end of period is FOREVER
+     */
+    public boolean isForever() {
+        return _end == FOREVER;
+    }
+
+    /**
+     * Check if period contains specified time.
+     *
+     * @param time Unix timestamp
+     * @return True if time is in period
+     */
+    public boolean contains(long time) {
+        return (_start <= time) && (time < _end);
+    }
+
+    /**
+     * Check if period has common time with other period.
+     *
+     * @param other Other period
+     * @return True if periods overlap
+     */
+    public boolean overlaps(TimePeriod other) {
+        return (_start < other._end) && (other._start < _end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TimePeriod)) {
+            return false;
+        }
+        TimePeriod other = (TimePeriod) obj;
+        return (_start == other._start) && (_end == other._end) && (_scale == other._scale);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(_start);
+        hash = 31 * hash + Long.hashCode(_end);
+        return 31 * hash + ((_scale == null) ? 0 : _scale.hashCode());
+    }
+
+    /**
+     * Get string representation of period in the same format as
+     * TSQL2ResultSet.getString().
+     *
+     * @return Period as string
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "NULL";
+        }
+        StringBuilder sb = new StringBuilder(42);
+        Utils.appendTime(sb, _start, _scale).append(" - ");
+        return Utils.appendTime(sb, _end, _scale).toString();
+    }
+}
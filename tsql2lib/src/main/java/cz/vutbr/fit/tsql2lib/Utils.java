@@ -13,7 +13,11 @@
  */
 package cz.vutbr.fit.tsql2lib;
 
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 
 /**
  * Utility methods for TSQL2 library.
@@ -107,106 +111,291 @@ public class Utils implements Constants {
         if (seconds == FOREVER) {
             return "NOW";
         }
+        return appendTime(new StringBuilder(19), seconds, scale).toString();
+    }
 
-        Calendar c = Calendar.getInstance();
-        c.setTimeInMillis(seconds * 1000);
-
-        String result = "";
-        switch (scale) {
-            case YEAR:
-                result = String.format("%04d",
-                        c.get(Calendar.YEAR));
-                break;
-            case MONTH:
-                result = String.format("%04d-%02d",
-                        c.get(Calendar.YEAR),
-                        c.get(Calendar.MONTH) + 1);
-                break;
-            case DAY:
-                result = String.format("%04d-%02d-%02d",
-                        c.get(Calendar.YEAR),
-                        c.get(Calendar.MONTH) + 1,
-                        c.get(Calendar.DAY_OF_MONTH));
-                break;
-            case HOUR:
-                result = String.format("%04d-%02d-%02d %02d:%02d",
-                        c.get(Calendar.YEAR),
-                        c.get(Calendar.MONTH) + 1,
-                        c.get(Calendar.DAY_OF_MONTH),
-                        c.get(Calendar.HOUR_OF_DAY),
-                        0);
-                break;
-            case MINUTE:
-                result = String.format("%04d-%02d-%02d %02d:%02d",
-                        c.get(Calendar.YEAR),
-                        c.get(Calendar.MONTH) + 1,
-                        c.get(Calendar.DAY_OF_MONTH),
-                        c.get(Calendar.HOUR_OF_DAY),
-                        c.get(Calendar.MINUTE));
-                break;
-            case SECOND:
-                result = String.format("%04d-%02d-%02d %02d:%02d:%02d",
-                        c.get(Calendar.YEAR),
-                        c.get(Calendar.MONTH) + 1,
-                        c.get(Calendar.DAY_OF_MONTH),
-                        c.get(Calendar.HOUR_OF_DAY),
-                        c.get(Calendar.MINUTE),
-                        c.get(Calendar.SECOND));
-                break;
-        }
-
-        return result;
-    }
-
-    /**
-     * Convert date string to unix timestamp
+    /**
+     * Append string representation of time with specified scale to builder.
+     * Time is converted in time zone Settings.TimeZone using proleptic
+     * Gregorian calendar. Format is the same as of timeToString().
+     *
+     * @param sb Builder to append time to
+     * @param seconds Time in seconds in Unix timestamp
+     * @param scale Scale of resulting time
+     * @return The builder
+     */
+    public static StringBuilder appendTime(StringBuilder sb, long seconds, DateTimeScale scale) {
+        if (seconds == FOREVER) {
+            return sb.append("NOW");
+        }
+        if (scale == DateTimeScale.UNDEFINED) {
+            return sb;
+        }
+
+        long local = seconds + offsetOf(seconds);
+        long days = Math.floorDiv(local, 86400L);
+        int secondOfDay = (int) Math.floorMod(local, 86400L);
+
+        // civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468L;
+        long era = Math.floorDiv(z, 146097L);
+        int dayOfEra = (int) (z - era * 146097L);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = (mp < 10) ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400L + ((month <= 2) ? 1 : 0);
+
+        appendNumber(sb, year, 4);
+        if (scale == DateTimeScale.YEAR) {
+            return sb;
+        }
+        appendNumber(sb.append('-'), month, 2);
+        if (scale == DateTimeScale.MONTH) {
+            return sb;
+        }
+        appendNumber(sb.append('-'), day, 2);
+        if (scale == DateTimeScale.DAY) {
+            return sb;
+        }
+        appendNumber(sb.append(' '), secondOfDay / 3600, 2);
+        if (scale == DateTimeScale.HOUR) {
+            // minutes are always zero in hour scale
+            return sb.append(":00");
+        }
+        appendNumber(sb.append(':'), secondOfDay / 60 % 60, 2);
+        if (scale == DateTimeScale.MINUTE) {
+            return sb;
+        }
+        return appendNumber(sb.append(':'), secondOfDay % 60, 2);
+    }
+
+    /**
+     * Append number padded with zeros to specified width like %0Nd format.
+     *
+     * @param sb Builder to append number to
+     * @param value Number to append
+     * @param width Minimal width including sign
+     * @return The builder
+     */
+    private static StringBuilder appendNumber(StringBuilder sb, long value, int width) {
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+            width--;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
+
+    /**
+     * Get offset of time zone Settings.TimeZone from UTC at specified time.
+     *
+     * @param seconds Time in seconds in Unix timestamp
+     * @return Offset in seconds
+     */
+    private static int offsetOf(long seconds) {
+        ZoneRules rules = Settings.TimeZone.getRules();
+        if (rules.isFixedOffset()) {
+            return rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+        return rules.getOffset(Instant.ofEpochSecond(seconds)).getTotalSeconds();
+    }
+
+    /**
+     * Convert date string to unix timestamp. Missing month defaults to
+     * February and missing day to the first day of month, values out of range
+     * overflow to following units. Local time in a gap of time zone
+     * transition is shifted by length of the gap, ambiguous local time in
+     * overlap uses the later offset.
      *
      * @param date String representing date in format YYYY[-MM[-DD[
      * HH[:MM[:SS]]]]]
      * @return Number of seconds in unix timestamp format
+     * @throws NumberFormatException If date is not valid
      */
     public static long dateToTimestamp(String date) {
+        int begin = 0;
+        int end = date.length();
         if (date.startsWith("'")) {
-            date = date.substring(1);
+            begin++;
         }
-        if (date.endsWith("'")) {
-            date = date.substring(0, date.length() - 1);
+        if ((end > begin) && (date.charAt(end - 1) == '\'')) {
+            end--;
         }
 
-        Calendar cal = Calendar.getInstance();
-        // init to UTC beginning
-        cal.set(1970, 1, 1, 0, 0, 0);
-
-        String[] dtFields = date.split(" ");
-        String[] dateFields = dtFields[0].split("-");
+        // date part ends at the first space
+        int dateEnd = date.indexOf(' ', begin);
+        if ((dateEnd < 0) || (dateEnd > end)) {
+            dateEnd = end;
+        }
 
-        if (dateFields.length >= 1) {
-            if (dateFields[0].equalsIgnoreCase("FOREVER")) {
-                return FOREVER;
-            }
-            cal.set(Calendar.YEAR, Integer.parseInt(dateFields[0]));
+        // fields default to 1970-02-01 00:00:00
+        int[] fields = {1970, 2, 1, 0, 0, 0};
+        int fieldEnd = indexOf(date, '-', begin, dateEnd);
+        if (date.regionMatches(true, begin, "FOREVER", 0, 7) && (fieldEnd - begin == 7)) {
+            return FOREVER;
         }
-        if (dateFields.length >= 2) {
-            cal.set(Calendar.MONTH, Integer.parseInt(dateFields[1]) - 1);
+        parseFields(date, begin, dateEnd, '-', fields, 0);
+
+        /*
+         * Time part is used only if it is the only word after date part,
+         * trailing spaces are ignored.
+         */
+        int timeEnd = end;
+        while ((timeEnd > dateEnd) && (date.charAt(timeEnd - 1) == ' ')) {
+            timeEnd--;
         }
-        if (dateFields.length >= 3) {
-            cal.set(Calendar.DAY_OF_MONTH, Integer.parseInt(dateFields[2]));
+        if ((timeEnd > dateEnd + 1) && (indexOf(date, ' ', dateEnd + 1, timeEnd) == timeEnd)) {
+            parseFields(date, dateEnd + 1, timeEnd, ':', fields, 3);
         }
 
-        if (dtFields.length == 2) {
-            String[] timeFields = dtFields[1].split(":");
+        // normalize month, days and time overflow into days since epoch
+        long month = fields[1] - 1L;
+        long year = fields[0] + Math.floorDiv(month, 12L);
+        month = Math.floorMod(month, 12L) + 1;
+        long local = (daysFromCivil(year, (int) month) + fields[2] - 1) * 86400L
+                + fields[3] * 3600L + fields[4] * 60L + fields[5];
+
+        return local - offsetOfLocal(local);
+    }
+
+    /**
+     * Parse up to three numeric fields separated by specified character. Empty
+     * trailing fields are ignored, fields after the third one are not parsed.
+     *
+     * @param str String to parse
+     * @param begin Index of first character
+     * @param end Index after last character
+     * @param separator Fields separator
+     * @param fields Array to store parsed values to
+     * @param offset Index of first field in array
+     * @throws NumberFormatException If field is not number
+     */
+    private static void parseFields(String str, int begin, int end, char separator, int[] fields, int offset) {
+        int position = begin;
+        for (int i = 0; i < 3; i++) {
+            int fieldEnd = indexOf(str, separator, position, end);
+            if (fieldEnd == position) {
+                // empty field is allowed only if all following fields are empty
+                for (int j = position; j < end; j++) {
+                    if (str.charAt(j) != separator) {
+                        throw new NumberFormatException("For input string: \"\"");
+                    }
+                }
+                if (i == 0) {
+                    throw new NumberFormatException("For input string: \"\"");
+                }
+                return;
+            }
+            fields[offset + i] = parseInt(str, position, fieldEnd);
+            if (fieldEnd >= end) {
+                return;
+            }
+            position = fieldEnd + 1;
+        }
+    }
 
-            if (timeFields.length >= 1) {
-                cal.set(Calendar.HOUR_OF_DAY, Integer.parseInt(timeFields[0]));
+    /**
+     * Parse decimal integer with optional sign.
+     *
+     * @param str String to parse
+     * @param begin Index of first character
+     * @param end Index after last character
+     * @return Parsed number
+     * @throws NumberFormatException If substring is not integer
+     */
+    private static int parseInt(String str, int begin, int end) {
+        int i = begin;
+        boolean negative = false;
+        if ((str.charAt(i) == '-') || (str.charAt(i) == '+')) {
+            negative = (str.charAt(i) == '-');
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + str.substring(begin, end) + "\"");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = str.charAt(i) - '0';
+            if ((digit < 0) || (digit > 9)) {
+                throw new NumberFormatException("For input string: \"" + str.substring(begin, end) + "\"");
             }
-            if (timeFields.length >= 2) {
-                cal.set(Calendar.MINUTE, Integer.parseInt(timeFields[1]));
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("For input string: \"" + str.substring(begin, end) + "\"");
             }
-            if (timeFields.length >= 3) {
-                cal.set(Calendar.SECOND, Integer.parseInt(timeFields[2]));
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + str.substring(begin, end) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Find character in part of string.
+     *
+     * @param str String to search
+     * @param ch Character to find
+     * @param begin Index of first character
+     * @param end Index after last character
+     * @return Index of character or end if it was not found
+     */
+    private static int indexOf(String str, char ch, int begin, int end) {
+        for (int i = begin; i < end; i++) {
+            if (str.charAt(i) == ch) {
+                return i;
             }
         }
-        return cal.getTimeInMillis() / 1000;
+        return end;
+    }
+
+    /**
+     * Get number of days since epoch of the first day of month in proleptic
+     * Gregorian calendar.
+     *
+     * @param year Year
+     * @param month Month 1-12
+     * @return Days since 1970-01-01
+     */
+    private static long daysFromCivil(long year, int month) {
+        year -= (month <= 2) ? 1 : 0;
+        long era = Math.floorDiv(year, 400L);
+        int yearOfEra = (int) (year - era * 400L);
+        int dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    /**
+     * Get offset of time zone Settings.TimeZone from UTC for specified local
+     * time.
+     *
+     * @param local Local time in seconds since local epoch
+     * @return Offset in seconds
+     */
+    private static int offsetOfLocal(long local) {
+        ZoneRules rules = Settings.TimeZone.getRules();
+        if (rules.isFixedOffset()) {
+            return rules.getOffset(Instant.EPOCH).getTotalSeconds();
+        }
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+        ZoneOffsetTransition transition = rules.getTransition(dateTime);
+        if (transition == null) {
+            return rules.getOffset(dateTime).getTotalSeconds();
+        }
+        // gap is skipped forward, overlap uses the later offset
+        return transition.isGap()
+                ? transition.getOffsetBefore().getTotalSeconds()
+                : transition.getOffsetAfter().getTotalSeconds();
     }
 
     /**
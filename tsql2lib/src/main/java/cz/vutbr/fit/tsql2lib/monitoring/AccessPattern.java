@@ -0,0 +1,130 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics of one way a table is accessed by generated SQL statements:
+ * columns compared by equality and by range in conditions of statements.
+ */
+public class AccessPattern {
+
+    /**
+     * Table as written in generated statements
+     */
+    private final String _table;
+    /**
+     * Columns compared by equality
+     */
+    private final List<String> _equalityColumns;
+    /**
+     * Columns compared by range
+     */
+    private final List<String> _rangeColumns;
+    /**
+     * Number of TSQL2 statements using the pattern
+     */
+    private final long _calls;
+    /**
+     * Total duration of TSQL2 statements in nanoseconds
+     */
+    private final long _totalNanos;
+    /**
+     * Maximal duration of TSQL2 statement in nanoseconds
+     */
+    private final long _maxNanos;
+
+    /**
+     * Create statistics of access pattern.
+     *
+     * @param table Table as written in generated statements
+     * @param equalityColumns Columns compared by equality
+     * @param rangeColumns Columns compared by range
+     * @param calls Number of TSQL2 statements using the pattern
+     * @param totalNanos Total duration of the statements in nanoseconds
+     * @param maxNanos Maximal duration of the statements in nanoseconds
+     */
+    public AccessPattern(String table, List<String> equalityColumns, List<String> rangeColumns, long calls,
+            long totalNanos, long maxNanos) {
+        _table = table;
+        _equalityColumns = Collections.unmodifiableList(equalityColumns);
+        _rangeColumns = Collections.unmodifiableList(rangeColumns);
+        _calls = calls;
+        _totalNanos = totalNanos;
+        _maxNanos = maxNanos;
+    }
+
+    /**
+     * Get accessed table.
+     *
+     * @return Table as written in generated statements
+     */
+    public String getTable() {
+        return _table;
+    }
+
+    /**
+     * Get columns compared by equality, e.g. user keys and transaction time
+     * end compared with FOREVER.
+     *
+     * @return Columns as written in generated statements
+     */
+    public List<String> getEqualityColumns() {
+        return _equalityColumns;
+    }
+
+    /**
+     * Get columns compared by range, e.g. valid time bounds of timeslice.
+     *
+     * @return Columns as written in generated statements
+     */
+    public List<String> getRangeColumns() {
+        return _rangeColumns;
+    }
+
+    /**
+     * Get number of TSQL2 statements using the pattern.
+     *
+     * @return Number of statements
+     */
+    public long getCalls() {
+        return _calls;
+    }
+
+    /**
+     * Get total duration of TSQL2 statements using the pattern.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return _totalNanos;
+    }
+
+    /**
+     * Get maximal duration of TSQL2 statement using the pattern.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getMaxNanos() {
+        return _maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s equality %s range %s: %d calls, %.3f ms total, %.3f ms max", _table,
+                _equalityColumns, _rangeColumns, _calls, _totalNanos / 1e6, _maxNanos / 1e6);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+/**
+ * SQL statement generated for TSQL2 statement together with results of its
+ * execution.
+ */
+public class ExecutedStatement {
+
+    /**
+     * Duration and update count of statement which was not measured
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * Generated SQL statement
+     */
+    private final String _sql;
+    /**
+     * Duration of execution in nanoseconds or UNKNOWN
+     */
+    private final long _nanos;
+    /**
+     * Update count, -1 if statement returned results or UNKNOWN
+     */
+    private final int _updateCount;
+
+    /**
+     * Create record of executed statement.
+     *
+     * @param sql Generated SQL statement
+     * @param nanos Duration of execution in nanoseconds
+     * @param updateCount Update count or -1 if statement returned results
+     */
+    public ExecutedStatement(String sql, long nanos, int updateCount) {
+        _sql = sql;
+        _nanos = nanos;
+        _updateCount = updateCount;
+    }
+
+    /**
+     * Create record of statement executed without measurement, e.g. in batch
+     * with other generated statements of not sampled TSQL2 statement.
+     *
+     * @param sql Generated SQL statement
+     */
+    public ExecutedStatement(String sql) {
+        this(sql, UNKNOWN, UNKNOWN);
+    }
+
+    /**
+     * Check if duration and update count of statement were measured.
+     *
+     * @return True if statement was executed and measured alone
+     */
+    public boolean isMeasured() {
+        return _nanos != UNKNOWN;
+    }
+
+    /**
+     * Get generated SQL statement.
+     *
+     * @return SQL statement
+     */
+    public String getSql() {
+        return _sql;
+    }
+
+    /**
+     * Get duration of execution.
+     *
+     * @return Duration in nanoseconds or UNKNOWN
+     */
+    public long getNanos() {
+        return _nanos;
+    }
+
+    /**
+     * Get update count of statement.
+     *
+     * @return Update count, -1 if statement returned results or UNKNOWN
+     */
+    public int getUpdateCount() {
+        return _updateCount;
+    }
+
+    @Override
+    public String toString() {
+        if (!isMeasured()) {
+            return "not measured: " + _sql;
+        }
+        return String.format("%.3f ms, %s: %s", _nanos / 1e6,
+                (_updateCount < 0) ? "results" : (_updateCount + " rows"), _sql);
+    }
+}
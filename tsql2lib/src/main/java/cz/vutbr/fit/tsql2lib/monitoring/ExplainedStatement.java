@@ -0,0 +1,95 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL statement generated for TSQL2 statement together with its execution
+ * plan and, if the statement was analyzed, results of its execution.
+ */
+public class ExplainedStatement {
+
+    /**
+     * Generated SQL statement
+     */
+    private final String _sql;
+    /**
+     * Lines of execution plan reported by database
+     */
+    private final List<String> _plan;
+    /**
+     * Execution of statement or null if it was not analyzed
+     */
+    private final ExecutedStatement _execution;
+    /**
+     * Number of rows returned by statement or -1
+     */
+    private final long _rows;
+
+    /**
+     * Create explained statement.
+     *
+     * @param sql Generated SQL statement
+     * @param plan Lines of execution plan, empty if database can't explain
+     * statement
+     * @param execution Execution of statement or null if it was not analyzed
+     * @param rows Number of rows returned by statement or -1 if it was not
+     * analyzed or returned update count
+     */
+    public ExplainedStatement(String sql, List<String> plan, ExecutedStatement execution, long rows) {
+        _sql = sql;
+        _plan = Collections.unmodifiableList(plan);
+        _execution = execution;
+        _rows = rows;
+    }
+
+    /**
+     * Get generated SQL statement.
+     *
+     * @return SQL statement
+     */
+    public String getSql() {
+        return _sql;
+    }
+
+    /**
+     * Get execution plan reported by database.
+     *
+     * @return Lines of plan, empty if database can't explain statement
+     */
+    public List<String> getPlan() {
+        return _plan;
+    }
+
+    /**
+     * Get execution of statement.
+     *
+     * @return Duration and update count or null if statement was not analyzed
+     */
+    public ExecutedStatement getExecution() {
+        return _execution;
+    }
+
+    /**
+     * Get number of rows returned by statement.
+     *
+     * @return Number of rows or -1 if statement was not analyzed or returned
+     * update count
+     */
+    public long getRows() {
+        return _rows;
+    }
+}
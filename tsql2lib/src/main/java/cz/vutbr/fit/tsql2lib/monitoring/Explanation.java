@@ -0,0 +1,189 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Result of EXPLAIN of TSQL2 statement: summary of parse tree, generated SQL
+ * statements and their execution plans and, with ANALYZE, actual duration,
+ * update count and rows of each generated statement.
+ */
+public class Explanation {
+
+    /**
+     * Original TSQL2 statement
+     */
+    private final String _tsql2;
+    /**
+     * Type of statement
+     */
+    private final StatementType _type;
+    /**
+     * Names of tables accessed by statement
+     */
+    private final List<String> _tables;
+    /**
+     * Fingerprint of statement
+     */
+    private final StatementFingerprint _fingerprint;
+    /**
+     * Number of nodes of parse tree
+     */
+    private final int _nodeCount;
+    /**
+     * Depth of parse tree
+     */
+    private final int _treeDepth;
+    /**
+     * Flag if generated statements were executed
+     */
+    private final boolean _analyzed;
+    /**
+     * Generated statements in order of execution
+     */
+    private final List<ExplainedStatement> _statements;
+
+    /**
+     * Create explanation.
+     *
+     * @param tsql2 Original TSQL2 statement
+     * @param type Type of statement
+     * @param tables Names of tables accessed by statement
+     * @param fingerprint Fingerprint of statement
+     * @param nodeCount Number of nodes of parse tree
+     * @param treeDepth Depth of parse tree
+     * @param analyzed Flag if generated statements were executed
+     * @param statements Generated statements in order of execution
+     */
+    public Explanation(String tsql2, StatementType type, List<String> tables, StatementFingerprint fingerprint,
+            int nodeCount, int treeDepth, boolean analyzed, List<ExplainedStatement> statements) {
+        _tsql2 = tsql2;
+        _type = type;
+        _tables = Collections.unmodifiableList(tables);
+        _fingerprint = fingerprint;
+        _nodeCount = nodeCount;
+        _treeDepth = treeDepth;
+        _analyzed = analyzed;
+        _statements = Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Get original TSQL2 statement.
+     *
+     * @return TSQL2 statement
+     */
+    public String getTsql2() {
+        return _tsql2;
+    }
+
+    /**
+     * Get type of statement.
+     *
+     * @return Statement type
+     */
+    public StatementType getType() {
+        return _type;
+    }
+
+    /**
+     * Get names of tables accessed by statement.
+     *
+     * @return Table names
+     */
+    public List<String> getTables() {
+        return _tables;
+    }
+
+    /**
+     * Get fingerprint of statement.
+     *
+     * @return Statement fingerprint
+     */
+    public StatementFingerprint getFingerprint() {
+        return _fingerprint;
+    }
+
+    /**
+     * Get number of nodes of parse tree.
+     *
+     * @return Number of nodes
+     */
+    public int getNodeCount() {
+        return _nodeCount;
+    }
+
+    /**
+     * Get depth of parse tree.
+     *
+     * @return Depth, 1 for tree with root only
+     */
+    public int getTreeDepth() {
+        return _treeDepth;
+    }
+
+    /**
+     * Check if generated statements were executed.
+     *
+     * @return True for EXPLAIN ANALYZE
+     */
+    public boolean isAnalyzed() {
+        return _analyzed;
+    }
+
+    /**
+     * Get generated statements.
+     *
+     * @return Generated statements in order of execution
+     */
+    public List<ExplainedStatement> getStatements() {
+        return _statements;
+    }
+
+    /**
+     * Get explanation as text lines, as returned by EXPLAIN statement.
+     *
+     * @return Lines of explanation
+     */
+    public List<String> getLines() {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("TSQL2: " + _tsql2);
+        lines.add("type: " + _type + ", tables: " + _tables);
+        lines.add("parse tree: " + _nodeCount + " nodes, depth " + _treeDepth);
+        lines.add("shape: " + _fingerprint.getShape() + " [" + _fingerprint.getId() + "]");
+        for (int i = 0; i < _statements.size(); i++) {
+            ExplainedStatement statement = _statements.get(i);
+            lines.add("#" + (i + 1) + " " + statement.getSql());
+            for (String line : statement.getPlan()) {
+                lines.add("    " + line);
+            }
+            ExecutedStatement execution = statement.getExecution();
+            if (execution != null) {
+                lines.add(String.format("    actual: %.3f ms, %s", execution.getNanos() / 1e6,
+                        (execution.getUpdateCount() < 0) ? (statement.getRows() + " rows returned")
+                        : (execution.getUpdateCount() + " rows updated")));
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), getLines());
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Emitter of JDK Flight Recorder events of statement phases, catalog lookups,
+ * vacuum runs and surrogate allocations.
+ *
+ * Events are emitted only if JFR is available in the running JVM, otherwise
+ * this class discards everything. Callers begin a span before measured
+ * operation and commit it with event fields afterwards. Span is null if the
+ * event is disabled in current recording, so fields are computed only for
+ * recorded events.
+ */
+public class FlightRecorderEvents {
+
+    /**
+     * Opaque span of measured operation.
+     */
+    public interface Span {
+    }
+
+    /**
+     * Name of implementation emitting JFR events
+     */
+    private static final String JFR_EVENTS = "cz.vutbr.fit.tsql2lib.monitoring.JfrEvents";
+    /**
+     * Shared instance
+     */
+    private static final FlightRecorderEvents INSTANCE = create();
+
+    /**
+     * Create emitter discarding all events.
+     */
+    protected FlightRecorderEvents() {
+    }
+
+    /**
+     * Get emitter of events.
+     *
+     * @return Shared instance
+     */
+    public static FlightRecorderEvents get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Create JFR emitter if JFR is available, discarding emitter otherwise.
+     * JFR classes are loaded only by the JFR emitter.
+     *
+     * @return New emitter
+     */
+    private static FlightRecorderEvents create() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (FlightRecorderEvents) Class.forName(JFR_EVENTS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new FlightRecorderEvents();
+        }
+    }
+
+    /**
+     * Check if events are emitted to JFR.
+     *
+     * @return True if JFR is available
+     */
+    public boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * Begin parsing of TSQL2 statement.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginParse() {
+        return null;
+    }
+
+    /**
+     * Begin translation of parsed statement.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginTranslate() {
+        return null;
+    }
+
+    /**
+     * Begin execution of generated statements in one round trip.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginExecute() {
+        return null;
+    }
+
+    /**
+     * Begin removal of temporary items of statement.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginClear() {
+        return null;
+    }
+
+    /**
+     * Begin lookup of table in catalog.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginCatalogLookup() {
+        return null;
+    }
+
+    /**
+     * Begin vacuuming of table.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginVacuum() {
+        return null;
+    }
+
+    /**
+     * Begin allocation of surrogate value.
+     *
+     * @return Span or null if the event is disabled
+     */
+    public Span beginSurrogateAllocation() {
+        return null;
+    }
+
+    /**
+     * End measured operation whose span is committed later.
+     *
+     * @param span Span of operation
+     */
+    public void end(Span span) {
+    }
+
+    /**
+     * Commit parsing of TSQL2 statement. Span must be ended by end() when
+     * parsing finishes.
+     *
+     * @param span Span of parsing
+     * @param type Type of statement
+     * @param tables Names of tables accessed by statement
+     * @param tsql2 TSQL2 statement
+     */
+    public void commitParse(Span span, StatementType type, List<String> tables, String tsql2) {
+    }
+
+    /**
+     * Commit translation of statement.
+     *
+     * @param span Span of translation
+     * @param type Type of statement
+     * @param tables Names of tables accessed by statement
+     * @param generatedStatements Number of generated SQL statements
+     */
+    public void commitTranslate(Span span, StatementType type, List<String> tables, int generatedStatements) {
+    }
+
+    /**
+     * Commit execution of generated statements.
+     *
+     * @param span Span of execution
+     * @param type Type of statement
+     * @param tables Names of tables accessed by statement
+     * @param sql Executed SQL statements
+     * @param statements Number of executed SQL statements
+     * @param rows Update count or -1 if statement returned results
+     */
+    public void commitExecute(Span span, StatementType type, List<String> tables, String sql, int statements,
+            long rows) {
+    }
+
+    /**
+     * Commit removal of temporary items of statement.
+     *
+     * @param span Span of removal
+     * @param type Type of statement
+     * @param tables Names of dropped temporary tables
+     */
+    public void commitClear(Span span, StatementType type, List<String> tables) {
+    }
+
+    /**
+     * Commit lookup of table in catalog.
+     *
+     * @param span Span of lookup
+     * @param table Name of table
+     * @param cacheHit True if table was found in cache
+     */
+    public void commitCatalogLookup(Span span, String table, boolean cacheHit) {
+    }
+
+    /**
+     * Commit vacuuming of table.
+     *
+     * @param span Span of vacuuming
+     * @param table Name of table
+     * @param deletedRows Number of deleted rows
+     */
+    public void commitVacuum(Span span, String table, int deletedRows) {
+    }
+
+    /**
+     * Commit allocation of surrogate value.
+     *
+     * @param span Span of allocation
+     * @param table Name of table
+     * @param column Name of surrogate column
+     * @param value Allocated value
+     */
+    public void commitSurrogateAllocation(Span span, String table, String column, long value) {
+    }
+}
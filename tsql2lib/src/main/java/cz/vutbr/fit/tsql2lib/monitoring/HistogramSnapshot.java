@@ -0,0 +1,127 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable summary of LatencyHistogram. All durations are in nanoseconds.
+ */
+public class HistogramSnapshot {
+
+    /**
+     * Number of durations
+     */
+    private final long _count;
+    /**
+     * Sum of durations
+     */
+    private final long _totalNanos;
+    /**
+     * Maximal duration
+     */
+    private final long _maxNanos;
+    /**
+     * Median
+     */
+    private final long _p50Nanos;
+    /**
+     * 90th percentile
+     */
+    private final long _p90Nanos;
+    /**
+     * 99th percentile
+     */
+    private final long _p99Nanos;
+
+    /**
+     * Create snapshot.
+     *
+     * @param count Number of durations
+     * @param totalNanos Sum of durations
+     * @param maxNanos Maximal duration
+     * @param p50Nanos Median
+     * @param p90Nanos 90th percentile
+     * @param p99Nanos 99th percentile
+     */
+    @ConstructorProperties({"count", "totalNanos", "maxNanos", "p50Nanos", "p90Nanos", "p99Nanos"})
+    public HistogramSnapshot(long count, long totalNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos) {
+        _count = count;
+        _totalNanos = totalNanos;
+        _maxNanos = maxNanos;
+        _p50Nanos = p50Nanos;
+        _p90Nanos = p90Nanos;
+        _p99Nanos = p99Nanos;
+    }
+
+    /**
+     * Get number of durations.
+     *
+     * @return Number of durations
+     */
+    public long getCount() {
+        return _count;
+    }
+
+    /**
+     * Get sum of durations.
+     *
+     * @return Sum of durations
+     */
+    public long getTotalNanos() {
+        return _totalNanos;
+    }
+
+    /**
+     * Get maximal duration.
+     *
+     * @return Maximal duration
+     */
+    public long getMaxNanos() {
+        return _maxNanos;
+    }
+
+    /**
+     * Get median.
+     *
+     * @return Median
+     */
+    public long getP50Nanos() {
+        return _p50Nanos;
+    }
+
+    /**
+     * Get 90th percentile.
+     *
+     * @return 90th percentile
+     */
+    public long getP90Nanos() {
+        return _p90Nanos;
+    }
+
+    /**
+     * Get 99th percentile.
+     *
+     * @return 99th percentile
+     */
+    public long getP99Nanos() {
+        return _p99Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + _count + " total=" + _totalNanos + "ns max=" + _maxNanos + "ns p50=" + _p50Nanos
+                + "ns p90=" + _p90Nanos + "ns p99=" + _p99Nanos + "ns";
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Metrics registry keeping latency histograms and counters in memory.
+ * Recording is lock-free, so one registry can be shared by all connections.
+ */
+public class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    /**
+     * Latencies by statement type and phase
+     */
+    private final LatencyHistogram[][] _latencies;
+    /**
+     * Numbers of generated statements by statement type
+     */
+    private final LongAdder[] _generatedStatements;
+    /**
+     * Number of catalog lookups
+     */
+    private final LongAdder _catalogLookups = new LongAdder();
+    /**
+     * Number of catalog lookups answered from cache
+     */
+    private final LongAdder _catalogCacheHits = new LongAdder();
+    /**
+     * Number of allocated surrogate values
+     */
+    private final LongAdder _surrogateAllocations = new LongAdder();
+    /**
+     * Number of vacuum runs
+     */
+    private final LongAdder _vacuumRuns = new LongAdder();
+    /**
+     * Number of rows deleted by vacuuming
+     */
+    private final LongAdder _vacuumDeletedRows = new LongAdder();
+
+    /**
+     * Create empty registry.
+     */
+    public InMemoryMetricsRegistry() {
+        StatementType[] types = StatementType.values();
+        _latencies = new LatencyHistogram[types.length][Phase.values().length];
+        _generatedStatements = new LongAdder[types.length];
+        for (int t = 0; t < types.length; t++) {
+            for (int p = 0; p < _latencies[t].length; p++) {
+                _latencies[t][p] = new LatencyHistogram();
+            }
+            _generatedStatements[t] = new LongAdder();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordPhase(StatementType type, Phase phase, long nanos) {
+        if (type != null) {
+            _latencies[type.ordinal()][phase.ordinal()].record(nanos);
+        }
+    }
+
+    @Override
+    public void recordGeneratedStatements(StatementType type, int count) {
+        if (type != null) {
+            _generatedStatements[type.ordinal()].add(count);
+        }
+    }
+
+    @Override
+    public void recordCatalogLookup(String tableName, boolean cacheHit) {
+        _catalogLookups.increment();
+        if (cacheHit) {
+            _catalogCacheHits.increment();
+        }
+    }
+
+    @Override
+    public void recordSurrogateAllocation(String tableName) {
+        _surrogateAllocations.increment();
+    }
+
+    @Override
+    public void recordVacuum(String tableName, int deletedRows) {
+        _vacuumRuns.increment();
+        _vacuumDeletedRows.add(deletedRows);
+    }
+
+    /**
+     * Get latencies of phase of statements.
+     *
+     * @param type Type of statements
+     * @param phase Phase of statement processing
+     * @return Summary of latencies
+     */
+    public HistogramSnapshot getLatency(StatementType type, Phase phase) {
+        return _latencies[type.ordinal()][phase.ordinal()].snapshot();
+    }
+
+    /**
+     * Get number of SQL statements generated for TSQL2 statements of type.
+     *
+     * @param type Type of statements
+     * @return Number of generated statements
+     */
+    public long getGeneratedStatements(StatementType type) {
+        return _generatedStatements[type.ordinal()].sum();
+    }
+
+    /**
+     * Get number of catalog lookups.
+     *
+     * @return Number of lookups
+     */
+    public long getCatalogLookups() {
+        return _catalogLookups.sum();
+    }
+
+    /**
+     * Get number of catalog lookups answered from cache.
+     *
+     * @return Number of cache hits
+     */
+    public long getCatalogCacheHits() {
+        return _catalogCacheHits.sum();
+    }
+
+    /**
+     * Get number of allocated surrogate values.
+     *
+     * @return Number of allocations
+     */
+    public long getSurrogateAllocations() {
+        return _surrogateAllocations.sum();
+    }
+
+    /**
+     * Get number of vacuum runs.
+     *
+     * @return Number of runs
+     */
+    public long getVacuumRuns() {
+        return _vacuumRuns.sum();
+    }
+
+    /**
+     * Get number of rows deleted by vacuuming.
+     *
+     * @return Number of deleted rows
+     */
+    public long getVacuumDeletedRows() {
+        return _vacuumDeletedRows.sum();
+    }
+
+    /**
+     * Remove all recorded metrics.
+     */
+    public void reset() {
+        for (int t = 0; t < _latencies.length; t++) {
+            for (LatencyHistogram histogram : _latencies[t]) {
+                histogram.reset();
+            }
+            _generatedStatements[t].reset();
+        }
+        _catalogLookups.reset();
+        _catalogCacheHits.reset();
+        _surrogateAllocations.reset();
+        _vacuumRuns.reset();
+        _vacuumDeletedRows.reset();
+    }
+}
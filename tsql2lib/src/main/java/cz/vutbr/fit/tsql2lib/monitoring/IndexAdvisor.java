@@ -0,0 +1,467 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cz.vutbr.fit.tsql2lib.Settings;
+
+/**
+ * Advisor recommending indexes of temporal tables, registered on
+ * TSQL2Adapter.
+ *
+ * Conditions of generated SQL statements are scanned for columns compared
+ * with constants or other columns, e.g. transaction time end compared with
+ * FOREVER, valid time bounds of timeslices and user keys. Columns compared in
+ * one generated statement form access pattern of the table, and number and
+ * duration of TSQL2 statements using each pattern are collected. Recommended
+ * index of pattern starts with columns compared by equality, user columns
+ * before temporal ones, followed by columns compared by range. Indexes which
+ * are prefix of other recommended or existing index are not recommended.
+ */
+public class IndexAdvisor {
+
+    /**
+     * Default maximal number of tracked access patterns
+     */
+    public static final int DEFAULT_MAX_PATTERNS = 1000;
+    /**
+     * Maximal number of columns of recommended index
+     */
+    public static final int MAX_INDEX_COLUMNS = 4;
+
+    /**
+     * Mutable statistics of one access pattern guarded by lock of advisor.
+     */
+    private static final class Entry {
+
+        /**
+         * Table as written in generated statements
+         */
+        private final String _table;
+        /**
+         * Columns compared by equality
+         */
+        private final List<String> _equality;
+        /**
+         * Columns compared by range
+         */
+        private final List<String> _range;
+        /**
+         * Number of TSQL2 statements
+         */
+        private long _calls = 0;
+        /**
+         * Total duration in nanoseconds
+         */
+        private long _totalNanos = 0;
+        /**
+         * Maximal duration in nanoseconds
+         */
+        private long _maxNanos = 0;
+
+        /**
+         * Create empty statistics.
+         *
+         * @param table Table as written in generated statements
+         * @param equality Columns compared by equality
+         * @param range Columns compared by range
+         */
+        private Entry(String table, List<String> equality, List<String> range) {
+            _table = table;
+            _equality = equality;
+            _range = range;
+        }
+
+        /**
+         * Create snapshot of statistics.
+         *
+         * @return Immutable statistics
+         */
+        private AccessPattern snapshot() {
+            return new AccessPattern(_table, _equality, _range, _calls, _totalNanos, _maxNanos);
+        }
+    }
+
+    /**
+     * Index considered for recommendation together with statistics of
+     * patterns it serves.
+     */
+    private static final class Candidate {
+
+        /**
+         * Table as written in generated statements
+         */
+        private final String _table;
+        /**
+         * Indexed columns in order
+         */
+        private final List<String> _columns;
+        /**
+         * Number of TSQL2 statements
+         */
+        private long _calls = 0;
+        /**
+         * Total duration in nanoseconds
+         */
+        private long _totalNanos = 0;
+
+        /**
+         * Create candidate index.
+         *
+         * @param table Table as written in generated statements
+         * @param columns Indexed columns in order
+         */
+        private Candidate(String table, List<String> columns) {
+            _table = table;
+            _columns = columns;
+        }
+
+        /**
+         * Check if other candidate indexes the same table.
+         *
+         * @param other Other candidate
+         * @return True if both candidates index the same table
+         */
+        private boolean isSameTable(Candidate other) {
+            return unquote(_table).equalsIgnoreCase(unquote(other._table));
+        }
+    }
+
+    /**
+     * Order of columns in index, user columns before temporal ones
+     */
+    private static final Comparator<String> COLUMN_ORDER = Comparator
+            .comparing(IndexAdvisor::isTemporalColumn)
+            .thenComparing(IndexAdvisor::unquote, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Statistics by keys of access patterns
+     */
+    private final HashMap<String, Entry> _patterns = new HashMap<>();
+    /**
+     * Maximal number of tracked access patterns
+     */
+    private final int _maxPatterns;
+    /**
+     * Number of recorded patterns which were not tracked because the table of
+     * patterns was full
+     */
+    private long _dropped = 0;
+
+    /**
+     * Create advisor tracking default number of access patterns.
+     */
+    public IndexAdvisor() {
+        this(DEFAULT_MAX_PATTERNS);
+    }
+
+    /**
+     * Create advisor.
+     *
+     * @param maxPatterns Maximal number of tracked access patterns
+     */
+    public IndexAdvisor(int maxPatterns) {
+        _maxPatterns = maxPatterns;
+    }
+
+    /**
+     * Remove quotes from identifier.
+     *
+     * @param name Identifier as written in statement
+     * @return Identifier without quotes
+     */
+    private static String unquote(String name) {
+        char c = name.charAt(0);
+        return (c == '"' || c == '`') ? name.substring(1, name.length() - 1) : name;
+    }
+
+    /**
+     * Check if column is temporal column added by translators.
+     *
+     * @param column Column as written in statement
+     * @return True for valid and transaction time columns
+     */
+    private static boolean isTemporalColumn(String column) {
+        String name = unquote(column);
+        return name.equalsIgnoreCase(Settings.ValidTimeStartColumnNameRaw)
+                || name.equalsIgnoreCase(Settings.ValidTimeEndColumnNameRaw)
+                || name.equalsIgnoreCase(Settings.TransactionTimeStartColumnNameRaw)
+                || name.equalsIgnoreCase(Settings.TransactionTimeEndColumnNameRaw);
+    }
+
+    /**
+     * Record access patterns of statements generated for one TSQL2 statement.
+     * Only patterns of tables accessed by the TSQL2 statement are recorded,
+     * helper tables created by translators are ignored.
+     *
+     * @param statements Generated SQL statements
+     * @param tables Names of tables accessed by TSQL2 statement
+     * @param nanos Duration of TSQL2 statement in nanoseconds
+     */
+    public void record(String[] statements, List<String> tables, long nanos) {
+        LinkedHashMap<String, Entry> found = new LinkedHashMap<>();
+        for (String sql : statements) {
+            // columns of each table compared in the statement, equality wins over range
+            TreeMap<String, LinkedHashMap<String, Boolean>> columns = new TreeMap<>();
+            TreeMap<String, String> names = new TreeMap<>();
+            for (PredicateScanner.Predicate predicate : PredicateScanner.scan(sql)) {
+                String table = unquote(predicate.table);
+                if (!containsIgnoreCase(tables, table)) {
+                    continue;
+                }
+                String tableKey = table.toUpperCase(Locale.ROOT);
+                names.putIfAbsent(tableKey, predicate.table);
+                columns.computeIfAbsent(tableKey, k -> new LinkedHashMap<>())
+                        .merge(predicate.column, predicate.range, Boolean::logicalAnd);
+            }
+            for (String tableKey : columns.keySet()) {
+                ArrayList<String> equality = new ArrayList<>();
+                ArrayList<String> range = new ArrayList<>();
+                for (Map.Entry<String, Boolean> column : columns.get(tableKey).entrySet()) {
+                    (column.getValue() ? range : equality).add(column.getKey());
+                }
+                equality.sort(COLUMN_ORDER);
+                range.sort(COLUMN_ORDER);
+                String key = tableKey + "|" + equality + "|" + range;
+                found.putIfAbsent(key, new Entry(names.get(tableKey), equality, range));
+            }
+        }
+        if (found.isEmpty()) {
+            return;
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, Entry> pattern : found.entrySet()) {
+                Entry entry = _patterns.get(pattern.getKey());
+                if (entry == null) {
+                    if (_patterns.size() >= _maxPatterns) {
+                        _dropped++;
+                        continue;
+                    }
+                    entry = pattern.getValue();
+                    _patterns.put(pattern.getKey(), entry);
+                }
+                entry._calls++;
+                entry._totalNanos += nanos;
+                entry._maxNanos = Math.max(entry._maxNanos, nanos);
+            }
+        }
+    }
+
+    /**
+     * Check if list contains string ignoring case.
+     *
+     * @param list List of strings
+     * @param value String to find
+     * @return True if list contains the string
+     */
+    private static boolean containsIgnoreCase(List<String> list, String value) {
+        for (String item : list) {
+            if (item.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get statistics of all tracked access patterns.
+     *
+     * @return Access patterns sorted by total duration, longest first
+     */
+    public synchronized List<AccessPattern> getAccessPatterns() {
+        ArrayList<AccessPattern> patterns = new ArrayList<>(_patterns.size());
+        for (Entry entry : _patterns.values()) {
+            patterns.add(entry.snapshot());
+        }
+        patterns.sort(Comparator.comparingLong(AccessPattern::getTotalNanos).reversed());
+        return patterns;
+    }
+
+    /**
+     * Get number of access patterns which were not tracked because the table
+     * of patterns was full.
+     *
+     * @return Number of dropped patterns
+     */
+    public synchronized long getDroppedCount() {
+        return _dropped;
+    }
+
+    /**
+     * Remove all collected access patterns.
+     */
+    public synchronized void reset() {
+        _patterns.clear();
+        _dropped = 0;
+    }
+
+    /**
+     * Recommend indexes for collected access patterns. Indexes whose columns
+     * are prefix of index already existing in database are not recommended.
+     *
+     * @param connection Connection to database with accessed tables
+     * @return Recommended indexes sorted by total duration of statements which
+     * would use them, longest first
+     * @throws SQLException
+     */
+    public List<IndexRecommendation> recommend(Connection connection) throws SQLException {
+        // merge patterns with the same index columns
+        LinkedHashMap<String, Candidate> candidates = new LinkedHashMap<>();
+        for (AccessPattern pattern : getAccessPatterns()) {
+            LinkedHashSet<String> index = new LinkedHashSet<>(pattern.getEqualityColumns());
+            index.addAll(pattern.getRangeColumns());
+            List<String> columns = new ArrayList<>(index).subList(0, Math.min(index.size(), MAX_INDEX_COLUMNS));
+            StringBuilder key = new StringBuilder(unquote(pattern.getTable()).toUpperCase(Locale.ROOT));
+            for (String column : columns) {
+                key.append('|').append(unquote(column).toUpperCase(Locale.ROOT));
+            }
+            Candidate candidate = candidates.computeIfAbsent(key.toString(), k -> new Candidate(pattern.getTable(), columns));
+            candidate._calls += pattern.getCalls();
+            candidate._totalNanos += pattern.getTotalNanos();
+        }
+
+        HashMap<String, List<List<String>>> existing = new HashMap<>();
+        ArrayList<IndexRecommendation> recommendations = new ArrayList<>();
+        for (Map.Entry<String, Candidate> entry : candidates.entrySet()) {
+            Candidate candidate = entry.getValue();
+            // statements served by index are served by longer index with the same prefix too
+            boolean covered = false;
+            long calls = 0;
+            long nanos = 0;
+            for (Candidate other : candidates.values()) {
+                if (other == candidate || !other.isSameTable(candidate)) {
+                    continue;
+                }
+                if (isPrefix(candidate._columns, other._columns)) {
+                    covered = true;
+                    break;
+                }
+                if (isPrefix(other._columns, candidate._columns)) {
+                    calls += other._calls;
+                    nanos += other._totalNanos;
+                }
+            }
+            if (covered) {
+                continue;
+            }
+            List<List<String>> tableIndexes = existing.get(unquote(candidate._table));
+            if (tableIndexes == null) {
+                tableIndexes = getIndexes(connection.getMetaData(), unquote(candidate._table));
+                existing.put(unquote(candidate._table), tableIndexes);
+            }
+            for (List<String> index : tableIndexes) {
+                covered |= isPrefix(candidate._columns, index);
+            }
+            if (!covered) {
+                String name = String.format("TSQL2_IX_%08X", entry.getKey().hashCode());
+                recommendations.add(new IndexRecommendation(name, candidate._table, candidate._columns,
+                        candidate._calls + calls, candidate._totalNanos + nanos));
+            }
+        }
+        recommendations.sort(Comparator.comparingLong(IndexRecommendation::getTotalNanos).reversed());
+        return recommendations;
+    }
+
+    /**
+     * Check if columns are prefix of index columns, ignoring quotes and case.
+     *
+     * @param columns Columns
+     * @param index Columns of index
+     * @return True if index starts with the columns
+     */
+    private static boolean isPrefix(List<String> columns, List<String> index) {
+        if (columns.size() > index.size()) {
+            return false;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (!unquote(columns.get(i)).equalsIgnoreCase(unquote(index.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get columns of existing indexes of table. Table name is looked up as
+     * written and in upper and lower case, as databases store unquoted names
+     * differently.
+     *
+     * @param metaData Metadata of database
+     * @param table Table name without quotes
+     * @return Columns of each index in order
+     * @throws SQLException
+     */
+    private static List<List<String>> getIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        names.add(table);
+        names.add(table.toUpperCase(Locale.ROOT));
+        names.add(table.toLowerCase(Locale.ROOT));
+
+        ArrayList<List<String>> indexes = new ArrayList<>();
+        for (String name : names) {
+            TreeMap<String, TreeMap<Short, String>> found = new TreeMap<>();
+            ResultSet results = metaData.getIndexInfo(null, null, name, false, true);
+            try {
+                while (results.next()) {
+                    String index = results.getString("INDEX_NAME");
+                    String column = results.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        found.computeIfAbsent(index, k -> new TreeMap<>())
+                                .put(results.getShort("ORDINAL_POSITION"), column);
+                    }
+                }
+            } finally {
+                results.close();
+            }
+            for (TreeMap<Short, String> index : found.values()) {
+                indexes.add(new ArrayList<>(index.values()));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Create recommended indexes.
+     *
+     * @param connection Connection to database with accessed tables
+     * @param recommendations Indexes to create
+     * @throws SQLException
+     */
+    public void createIndexes(Connection connection, List<IndexRecommendation> recommendations)
+            throws SQLException {
+        Statement stmt = connection.createStatement();
+        try {
+            for (IndexRecommendation recommendation : recommendations) {
+                stmt.execute(recommendation.getCreateStatement());
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index recommended by IndexAdvisor for access patterns of one table.
+ */
+public class IndexRecommendation {
+
+    /**
+     * Name of index
+     */
+    private final String _name;
+    /**
+     * Table as written in generated statements
+     */
+    private final String _table;
+    /**
+     * Indexed columns in order
+     */
+    private final List<String> _columns;
+    /**
+     * Number of TSQL2 statements using the index
+     */
+    private final long _calls;
+    /**
+     * Total duration of TSQL2 statements in nanoseconds
+     */
+    private final long _totalNanos;
+
+    /**
+     * Create recommendation.
+     *
+     * @param name Name of index
+     * @param table Table as written in generated statements
+     * @param columns Indexed columns in order
+     * @param calls Number of TSQL2 statements which would use the index
+     * @param totalNanos Total duration of the statements in nanoseconds
+     */
+    public IndexRecommendation(String name, String table, List<String> columns, long calls, long totalNanos) {
+        _name = name;
+        _table = table;
+        _columns = Collections.unmodifiableList(columns);
+        _calls = calls;
+        _totalNanos = totalNanos;
+    }
+
+    /**
+     * Get name of index.
+     *
+     * @return Index name
+     */
+    public String getName() {
+        return _name;
+    }
+
+    /**
+     * Get indexed table.
+     *
+     * @return Table as written in generated statements
+     */
+    public String getTable() {
+        return _table;
+    }
+
+    /**
+     * Get indexed columns.
+     *
+     * @return Columns in order of index
+     */
+    public List<String> getColumns() {
+        return _columns;
+    }
+
+    /**
+     * Get number of TSQL2 statements which would use the index.
+     *
+     * @return Number of statements
+     */
+    public long getCalls() {
+        return _calls;
+    }
+
+    /**
+     * Get total duration of TSQL2 statements which would use the index.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return _totalNanos;
+    }
+
+    /**
+     * Get statement creating the index.
+     *
+     * @return CREATE INDEX statement
+     */
+    public String getCreateStatement() {
+        return "CREATE INDEX " + _name + " ON " + _table + " (" + String.join(", ", _columns) + ")";
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s -- %d calls, %.3f ms total", getCreateStatement(), _calls, _totalNanos / 1e6);
+    }
+}
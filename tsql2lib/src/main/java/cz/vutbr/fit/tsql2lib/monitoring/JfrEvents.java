@@ -0,0 +1,294 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Emitter of JDK Flight Recorder events. This class is loaded only if JFR is
+ * available, see FlightRecorderEvents.
+ */
+final class JfrEvents extends FlightRecorderEvents {
+
+    /**
+     * Event of one phase of TSQL2 statement.
+     */
+    @Category({"TSQL2", "Statement"})
+    @StackTrace(false)
+    abstract static class StatementEvent extends Event implements Span {
+
+        @Label("Statement Type")
+        String statementType;
+
+        @Label("Tables")
+        @Description("Tables accessed by statement")
+        String tables;
+
+        /**
+         * Set fields common for all phases and commit event.
+         *
+         * @param type Type of statement
+         * @param tables Names of tables
+         */
+        void commit(StatementType type, List<String> tables) {
+            this.statementType = (type == null) ? null : type.toString();
+            this.tables = String.join(",", tables);
+            commit();
+        }
+    }
+
+    /**
+     * Parsing of TSQL2 statement
+     */
+    @Name("cz.vutbr.fit.tsql2lib.Parse")
+    @Label("TSQL2 Parse")
+    static final class ParseEvent extends StatementEvent {
+
+        @Label("TSQL2 Statement")
+        String tsql2;
+    }
+
+    /**
+     * Translation of TSQL2 statement
+     */
+    @Name("cz.vutbr.fit.tsql2lib.Translate")
+    @Label("TSQL2 Translate")
+    static final class TranslateEvent extends StatementEvent {
+
+        @Label("Generated Statements")
+        int generatedStatements;
+    }
+
+    /**
+     * Execution of generated statements in one round trip
+     */
+    @Name("cz.vutbr.fit.tsql2lib.Execute")
+    @Label("TSQL2 Execute")
+    static final class ExecuteEvent extends StatementEvent {
+
+        @Label("SQL")
+        String sql;
+
+        @Label("Statements")
+        @Description("Number of SQL statements executed in one round trip")
+        int statements;
+
+        @Label("Rows")
+        @Description("Update count or -1 if statement returned results")
+        long rows;
+    }
+
+    /**
+     * Removal of temporary tables of TSQL2 statement
+     */
+    @Name("cz.vutbr.fit.tsql2lib.Clear")
+    @Label("TSQL2 Clear")
+    static final class ClearEvent extends StatementEvent {
+    }
+
+    /**
+     * Lookup of table in temporal catalog
+     */
+    @Name("cz.vutbr.fit.tsql2lib.CatalogLookup")
+    @Label("TSQL2 Catalog Lookup")
+    @Category({"TSQL2", "Catalog"})
+    @StackTrace(false)
+    static final class CatalogLookupEvent extends Event implements Span {
+
+        @Label("Table")
+        String table;
+
+        @Label("Cache Hit")
+        boolean cacheHit;
+    }
+
+    /**
+     * Vacuuming of table
+     */
+    @Name("cz.vutbr.fit.tsql2lib.Vacuum")
+    @Label("TSQL2 Vacuum")
+    @Category({"TSQL2", "Catalog"})
+    @StackTrace(false)
+    static final class VacuumEvent extends Event implements Span {
+
+        @Label("Table")
+        String table;
+
+        @Label("Deleted Rows")
+        int deletedRows;
+    }
+
+    /**
+     * Allocation of surrogate value
+     */
+    @Name("cz.vutbr.fit.tsql2lib.SurrogateAllocation")
+    @Label("TSQL2 Surrogate Allocation")
+    @Category({"TSQL2", "Catalog"})
+    @StackTrace(false)
+    static final class SurrogateAllocationEvent extends Event implements Span {
+
+        @Label("Table")
+        String table;
+
+        @Label("Column")
+        String column;
+
+        @Label("Value")
+        long value;
+    }
+
+    /**
+     * Begin event if it is enabled.
+     *
+     * @param event New event
+     * @return Event or null if it is disabled
+     */
+    private static <T extends Event> T begin(T event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public Span beginParse() {
+        return begin(new ParseEvent());
+    }
+
+    @Override
+    public Span beginTranslate() {
+        return begin(new TranslateEvent());
+    }
+
+    @Override
+    public Span beginExecute() {
+        return begin(new ExecuteEvent());
+    }
+
+    @Override
+    public Span beginClear() {
+        return begin(new ClearEvent());
+    }
+
+    @Override
+    public Span beginCatalogLookup() {
+        return begin(new CatalogLookupEvent());
+    }
+
+    @Override
+    public Span beginVacuum() {
+        return begin(new VacuumEvent());
+    }
+
+    @Override
+    public Span beginSurrogateAllocation() {
+        return begin(new SurrogateAllocationEvent());
+    }
+
+    @Override
+    public void end(Span span) {
+        ((Event) span).end();
+    }
+
+    @Override
+    public void commitParse(Span span, StatementType type, List<String> tables, String tsql2) {
+        // parsing was ended by end() before statement type was known
+        ParseEvent event = (ParseEvent) span;
+        if (event.shouldCommit()) {
+            event.tsql2 = tsql2;
+            event.commit(type, tables);
+        }
+    }
+
+    @Override
+    public void commitTranslate(Span span, StatementType type, List<String> tables, int generatedStatements) {
+        TranslateEvent event = (TranslateEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.generatedStatements = generatedStatements;
+            event.commit(type, tables);
+        }
+    }
+
+    @Override
+    public void commitExecute(Span span, StatementType type, List<String> tables, String sql, int statements,
+            long rows) {
+        ExecuteEvent event = (ExecuteEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.statements = statements;
+            event.rows = rows;
+            event.commit(type, tables);
+        }
+    }
+
+    @Override
+    public void commitClear(Span span, StatementType type, List<String> tables) {
+        ClearEvent event = (ClearEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.commit(type, tables);
+        }
+    }
+
+    @Override
+    public void commitCatalogLookup(Span span, String table, boolean cacheHit) {
+        CatalogLookupEvent event = (CatalogLookupEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commitVacuum(Span span, String table, int deletedRows) {
+        VacuumEvent event = (VacuumEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.deletedRows = deletedRows;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commitSurrogateAllocation(Span span, String table, String column, long value) {
+        SurrogateAllocationEvent event = (SurrogateAllocationEvent) span;
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.column = column;
+            event.value = value;
+            event.commit();
+        }
+    }
+}
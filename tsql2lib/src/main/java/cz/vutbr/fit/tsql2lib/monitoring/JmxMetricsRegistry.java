@@ -0,0 +1,104 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * In-memory metrics registry published as MXBean in platform MBean server
+ * under name cz.vutbr.fit.tsql2lib:type=Metrics,name=&lt;name&gt;.
+ */
+public class JmxMetricsRegistry extends InMemoryMetricsRegistry implements MetricsMXBean {
+
+    /**
+     * Domain of MBean names
+     */
+    public static final String DOMAIN = "cz.vutbr.fit.tsql2lib";
+
+    /**
+     * Name of registered MBean
+     */
+    private final ObjectName _objectName;
+
+    /**
+     * Create registry and register it in platform MBean server.
+     *
+     * @param name Name distinguishing registries, e.g. name of data source
+     * @throws TSQL2Exception Registry can't be registered
+     */
+    public JmxMetricsRegistry(String name) throws TSQL2Exception {
+        try {
+            _objectName = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, _objectName);
+        } catch (JMException e) {
+            TSQL2Exception ex = new TSQL2Exception("Metrics can't be registered in JMX: " + e.getMessage());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    /**
+     * Get name of registered MBean.
+     *
+     * @return Object name
+     */
+    public ObjectName getObjectName() {
+        return _objectName;
+    }
+
+    /**
+     * Remove registry from platform MBean server. Metrics are still recorded.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(_objectName)) {
+                server.unregisterMBean(_objectName);
+            }
+        } catch (JMException e) {
+        } // ignore, already unregistered
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getPhaseLatencies() {
+        Map<String, HistogramSnapshot> latencies = new TreeMap<>();
+        for (StatementType type : StatementType.values()) {
+            for (Phase phase : Phase.values()) {
+                HistogramSnapshot snapshot = getLatency(type, phase);
+                if (snapshot.getCount() > 0) {
+                    latencies.put(type + "." + phase, snapshot);
+                }
+            }
+        }
+        return latencies;
+    }
+
+    @Override
+    public Map<String, Long> getGeneratedStatementCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (StatementType type : StatementType.values()) {
+            counts.put(type.toString(), getGeneratedStatements(type));
+        }
+        return counts;
+    }
+}
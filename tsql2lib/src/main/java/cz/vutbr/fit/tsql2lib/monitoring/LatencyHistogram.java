@@ -0,0 +1,168 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations. Every power of two range of nanoseconds
+ * is split into SUB_BUCKETS buckets, so percentiles are reported with
+ * relative error below 1/SUB_BUCKETS.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of buckets in every power of two range, must be power of two
+     */
+    private static final int SUB_BUCKETS = 8;
+    /**
+     * Binary logarithm of SUB_BUCKETS
+     */
+    private static final int SUB_BITS = 3;
+    /**
+     * Number of buckets covering all non-negative long values
+     */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    /**
+     * Number of durations in buckets
+     */
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+    /**
+     * Number of recorded durations
+     */
+    private final LongAdder _count = new LongAdder();
+    /**
+     * Sum of recorded durations
+     */
+    private final LongAdder _total = new LongAdder();
+    /**
+     * Maximal recorded duration
+     */
+    private final AtomicLong _max = new AtomicLong();
+
+    /**
+     * Get bucket of duration.
+     *
+     * @param nanos Non-negative duration
+     * @return Index of bucket
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get highest duration of bucket.
+     *
+     * @param bucket Index of bucket
+     * @return Duration in nanoseconds
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Record duration.
+     *
+     * @param nanos Duration in nanoseconds, negative is recorded as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        _buckets.incrementAndGet(bucket(nanos));
+        _count.increment();
+        _total.add(nanos);
+        long max = _max.get();
+        while ((nanos > max) && !_max.compareAndSet(max, nanos)) {
+            max = _max.get();
+        }
+    }
+
+    /**
+     * Get number of recorded durations.
+     *
+     * @return Number of durations
+     */
+    public long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Get current state of histogram. Durations recorded concurrently may be
+     * missing in some values of snapshot.
+     *
+     * @return Snapshot of histogram
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = _buckets.get(i);
+            count += counts[i];
+        }
+        long max = _max.get();
+        return new HistogramSnapshot(count, _total.sum(), max,
+                percentile(counts, count, 0.5, max), percentile(counts, count, 0.9, max),
+                percentile(counts, count, 0.99, max));
+    }
+
+    /**
+     * Compute percentile from bucket counts.
+     *
+     * @param counts Counts of buckets
+     * @param count Sum of counts
+     * @param fraction Percentile as fraction
+     * @param max Maximal duration
+     * @return Upper bound of bucket containing percentile, at most max
+     */
+    private static long percentile(long[] counts, long count, double fraction, long max) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Remove all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            _buckets.set(i, 0);
+        }
+        _count.reset();
+        _total.reset();
+        _max.set(0);
+    }
+}
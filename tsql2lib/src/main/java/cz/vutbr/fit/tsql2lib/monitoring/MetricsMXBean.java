@@ -0,0 +1,76 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface of JmxMetricsRegistry.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Get latencies of phases of statements.
+     *
+     * @return Summaries of latencies by "TYPE.PHASE" keys, e.g. "SELECT.PARSE"
+     */
+    Map<String, HistogramSnapshot> getPhaseLatencies();
+
+    /**
+     * Get numbers of SQL statements generated for TSQL2 statements.
+     *
+     * @return Numbers of generated statements by statement type
+     */
+    Map<String, Long> getGeneratedStatementCounts();
+
+    /**
+     * Get number of catalog lookups.
+     *
+     * @return Number of lookups
+     */
+    long getCatalogLookups();
+
+    /**
+     * Get number of catalog lookups answered from cache.
+     *
+     * @return Number of cache hits
+     */
+    long getCatalogCacheHits();
+
+    /**
+     * Get number of allocated surrogate values.
+     *
+     * @return Number of allocations
+     */
+    long getSurrogateAllocations();
+
+    /**
+     * Get number of vacuum runs.
+     *
+     * @return Number of runs
+     */
+    long getVacuumRuns();
+
+    /**
+     * Get number of rows deleted by vacuuming.
+     *
+     * @return Number of deleted rows
+     */
+    long getVacuumDeletedRows();
+
+    /**
+     * Remove all recorded metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,72 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Receiver of metrics of TSQL2 statements registered on TSQL2Adapter.
+ * Methods are called by threads executing statements, so implementations
+ * must be thread safe and fast. When isEnabled() returns false, statements
+ * don't measure time at all.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Check if metrics are recorded.
+     *
+     * @return False if statements may skip measuring
+     */
+    boolean isEnabled();
+
+    /**
+     * Record duration of phase of statement.
+     *
+     * @param type Type of statement
+     * @param phase Phase of statement processing
+     * @param nanos Duration in nanoseconds
+     */
+    void recordPhase(StatementType type, Phase phase, long nanos);
+
+    /**
+     * Record number of SQL statements generated for one TSQL2 statement.
+     *
+     * @param type Type of statement
+     * @param count Number of generated statements
+     */
+    void recordGeneratedStatements(StatementType type, int count);
+
+    /**
+     * Record lookup of table in temporal catalog.
+     *
+     * @param tableName Name of table
+     * @param cacheHit True if table information was cached
+     */
+    void recordCatalogLookup(String tableName, boolean cacheHit);
+
+    /**
+     * Record allocation of surrogate value.
+     *
+     * @param tableName Name of table
+     */
+    void recordSurrogateAllocation(String tableName);
+
+    /**
+     * Record vacuuming of table.
+     *
+     * @param tableName Name of table
+     * @param deletedRows Number of deleted rows
+     */
+    void recordVacuum(String tableName, int deletedRows);
+}
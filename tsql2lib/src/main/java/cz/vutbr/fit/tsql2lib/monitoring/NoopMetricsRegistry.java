@@ -0,0 +1,59 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Metrics registry discarding all metrics. This is the default registry of
+ * connections.
+ */
+public final class NoopMetricsRegistry implements MetricsRegistry {
+
+    /**
+     * Shared instance
+     */
+    public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+
+    /**
+     * Use shared instance.
+     */
+    private NoopMetricsRegistry() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordPhase(StatementType type, Phase phase, long nanos) {
+    }
+
+    @Override
+    public void recordGeneratedStatements(StatementType type, int count) {
+    }
+
+    @Override
+    public void recordCatalogLookup(String tableName, boolean cacheHit) {
+    }
+
+    @Override
+    public void recordSurrogateAllocation(String tableName) {
+    }
+
+    @Override
+    public void recordVacuum(String tableName, int deletedRows) {
+    }
+}
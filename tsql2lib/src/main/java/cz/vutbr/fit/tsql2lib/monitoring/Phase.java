@@ -0,0 +1,36 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+/**
+ * Phase of processing of one TSQL2 statement
+ */
+public enum Phase {
+    /**
+     * Parsing of TSQL2 text into syntax tree
+     */
+    PARSE,
+    /**
+     * Translation of syntax tree into SQL statements
+     */
+    TRANSLATE,
+    /**
+     * Execution of translated SQL statements including creation of results
+     */
+    EXECUTE,
+    /**
+     * Removal of temporary tables created for statement
+     */
+    CLEAR
+}
@@ -0,0 +1,379 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Scanner of predicates in generated SQL statements.
+ *
+ * The scanner doesn't parse SQL, it only splits statement into tokens, maps
+ * aliases of FROM, JOIN and UPDATE clauses to tables and finds comparisons
+ * of columns in WHERE and ON conditions. This is sufficient for statements
+ * generated by translators, which always qualify columns of joined tables.
+ */
+final class PredicateScanner {
+
+    /**
+     * Column compared in condition of statement.
+     */
+    static final class Predicate {
+
+        /**
+         * Table as written in statement, including quotes
+         */
+        final String table;
+        /**
+         * Column as written in statement, including quotes
+         */
+        final String column;
+        /**
+         * Flag if column is compared by range instead of equality
+         */
+        final boolean range;
+
+        /**
+         * Create predicate.
+         *
+         * @param table Table as written in statement
+         * @param column Column as written in statement
+         * @param range Flag if column is compared by range
+         */
+        Predicate(String table, String column, boolean range) {
+            this.table = table;
+            this.column = column;
+            this.range = range;
+        }
+    }
+
+    /**
+     * Kinds of tokens
+     */
+    private static final int IDENTIFIER = 0, QUOTED = 1, VALUE = 2, OPERATOR = 3, SYMBOL = 4;
+
+    /**
+     * Keywords ending table list or condition and never used as alias
+     */
+    private static final HashSet<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "FROM", "WHERE", "GROUP", "ORDER", "HAVING", "UNION", "EXCEPT", "MINUS", "INTERSECT",
+            "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", "NATURAL", "ON", "USING", "SET",
+            "VALUES", "LIMIT", "FOR", "AND", "OR", "NOT", "IN", "IS", "NULL", "BETWEEN", "LIKE", "EXISTS",
+            "AS", "CASE", "WHEN", "THEN", "ELSE", "END", "DISTINCT", "ALL", "ANY", "SOME"));
+
+    /**
+     * Kinds of tokens of scanned statement
+     */
+    private final ArrayList<Integer> _kinds = new ArrayList<>();
+    /**
+     * Text of tokens of scanned statement
+     */
+    private final ArrayList<String> _tokens = new ArrayList<>();
+    /**
+     * Tables by uppercase aliases and names of tables
+     */
+    private final HashMap<String, String> _aliases = new HashMap<>();
+    /**
+     * Tables in order of appearance in statement
+     */
+    private final ArrayList<String> _tables = new ArrayList<>();
+
+    /**
+     * Create scanner of statement.
+     *
+     * @param sql SQL statement
+     */
+    private PredicateScanner(String sql) {
+        tokenize(sql);
+    }
+
+    /**
+     * Find columns compared in conditions of SQL statement. Columns without
+     * table reference are assigned to the table if statement reads only one
+     * table, otherwise they are skipped.
+     *
+     * @param sql SQL statement
+     * @return Compared columns
+     */
+    static List<Predicate> scan(String sql) {
+        PredicateScanner scanner = new PredicateScanner(sql);
+        scanner.findTables();
+        return scanner.findPredicates();
+    }
+
+    /**
+     * Split statement into tokens. Comments are not expected in generated
+     * statements.
+     *
+     * @param sql SQL statement
+     */
+    private void tokenize(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '"' || c == '`' || c == '\'') {
+                // quoted identifier or string, doubled quote is escaped one
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == c) {
+                        if (i + 1 < length && sql.charAt(i + 1) == c) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i = Math.min(i + 1, length);
+                add((c == '\'') ? VALUE : QUOTED, sql.substring(start, i));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || "_$#".indexOf(sql.charAt(i)) >= 0)) {
+                    i++;
+                }
+                add(IDENTIFIER, sql.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                add(VALUE, sql.substring(start, i));
+            } else if (c == '?') {
+                i++;
+                add(VALUE, "?");
+            } else if ("<>=!".indexOf(c) >= 0) {
+                while (i < length && "<>=!".indexOf(sql.charAt(i)) >= 0) {
+                    i++;
+                }
+                add(OPERATOR, sql.substring(start, i));
+            } else {
+                i++;
+                add(SYMBOL, sql.substring(start, i));
+            }
+        }
+    }
+
+    /**
+     * Add token.
+     *
+     * @param kind Kind of token
+     * @param text Text of token
+     */
+    private void add(int kind, String text) {
+        _kinds.add(kind);
+        _tokens.add(text);
+    }
+
+    /**
+     * Check if token is keyword.
+     *
+     * @param i Index of token
+     * @param keyword Uppercase keyword
+     * @return True if token is the keyword
+     */
+    private boolean isKeyword(int i, String keyword) {
+        return i < _tokens.size() && _kinds.get(i) == IDENTIFIER && _tokens.get(i).equalsIgnoreCase(keyword);
+    }
+
+    /**
+     * Check if token is identifier which is not keyword.
+     *
+     * @param i Index of token
+     * @return True if token can be name of table, alias or column
+     */
+    private boolean isName(int i) {
+        if (i < 0 || i >= _tokens.size()) {
+            return false;
+        }
+        int kind = _kinds.get(i);
+        return kind == QUOTED
+                || (kind == IDENTIFIER && !KEYWORDS.contains(_tokens.get(i).toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Check if token is symbol.
+     *
+     * @param i Index of token
+     * @param symbol Symbol
+     * @return True if token is the symbol
+     */
+    private boolean isSymbol(int i, String symbol) {
+        return i >= 0 && i < _tokens.size() && _kinds.get(i) == SYMBOL && _tokens.get(i).equals(symbol);
+    }
+
+    /**
+     * Get key of alias or table name, quoted names are case sensitive.
+     *
+     * @param name Name as written in statement
+     * @return Key of name
+     */
+    private static String key(String name) {
+        char c = name.charAt(0);
+        return (c == '"' || c == '`') ? name.substring(1, name.length() - 1) : name.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Map aliases to tables of FROM, JOIN and UPDATE clauses. Aliases of all
+     * subqueries share one namespace.
+     */
+    private void findTables() {
+        for (int i = 0; i < _tokens.size(); i++) {
+            if (isKeyword(i, "FROM")) {
+                i = readTableList(i + 1, false);
+            } else if (isKeyword(i, "UPDATE") || isKeyword(i, "JOIN")) {
+                i = readTableList(i + 1, true);
+            }
+        }
+    }
+
+    /**
+     * Read list of tables with optional aliases.
+     *
+     * @param i Index of first token of list
+     * @param single Flag if only one table may follow
+     * @return Index of last token of list
+     */
+    private int readTableList(int i, boolean single) {
+        while (isName(i)) {
+            // schema qualified name, only table name is kept
+            while (isSymbol(i + 1, ".") && isName(i + 2)) {
+                i += 2;
+            }
+            String table = _tokens.get(i);
+            _tables.add(table);
+            _aliases.put(key(table), table);
+            i++;
+            if (isKeyword(i, "AS")) {
+                i++;
+            }
+            if (isName(i)) {
+                _aliases.put(key(_tokens.get(i)), table);
+                i++;
+            }
+            if (single || !isSymbol(i, ",")) {
+                break;
+            }
+            i++;
+        }
+        return i - 1;
+    }
+
+    /**
+     * Find column compared in WHERE and ON conditions.
+     *
+     * @return Compared columns
+     */
+    private List<Predicate> findPredicates() {
+        ArrayList<Predicate> predicates = new ArrayList<>();
+        boolean condition = false;
+        int depth = 0;
+        int conditionDepth = 0;
+        for (int i = 0; i < _tokens.size(); i++) {
+            if (isSymbol(i, "(")) {
+                depth++;
+            } else if (isSymbol(i, ")")) {
+                depth--;
+                if (depth < conditionDepth) {
+                    condition = false;
+                }
+            } else if (isKeyword(i, "WHERE") || isKeyword(i, "ON")) {
+                condition = true;
+                conditionDepth = depth;
+            } else if (isKeyword(i, "GROUP") || isKeyword(i, "ORDER") || isKeyword(i, "HAVING")
+                    || isKeyword(i, "UNION") || isKeyword(i, "SET")) {
+                condition = false;
+            } else if (condition && _kinds.get(i) == OPERATOR) {
+                String operator = _tokens.get(i);
+                if (operator.equals("<>") || operator.equals("!=")) {
+                    continue;
+                }
+                boolean range = !operator.equals("=");
+                int left = columnEndingAt(i - 1);
+                int right = columnStartingAt(i + 1);
+                if (left >= 0) {
+                    addPredicate(predicates, left, i - 1, range);
+                }
+                if (right >= 0) {
+                    addPredicate(predicates, i + 1, right, range);
+                }
+            } else if (condition && (isKeyword(i, "BETWEEN") || isKeyword(i, "IN"))) {
+                int left = columnEndingAt(i - 1);
+                if (left >= 0) {
+                    addPredicate(predicates, left, i - 1, isKeyword(i, "BETWEEN"));
+                }
+            }
+        }
+        return predicates;
+    }
+
+    /**
+     * Find column reference ending at token.
+     *
+     * @param end Index of last token of reference
+     * @return Index of first token of reference or -1 if there is no column
+     */
+    private int columnEndingAt(int end) {
+        if (!isName(end) || isSymbol(end - 1, ".") && !isName(end - 2)) {
+            return -1;
+        }
+        return isSymbol(end - 1, ".") ? end - 2 : end;
+    }
+
+    /**
+     * Find column reference starting at token.
+     *
+     * @param start Index of first token of reference
+     * @return Index of last token of reference or -1 if there is no column
+     */
+    private int columnStartingAt(int start) {
+        if (!isName(start)) {
+            return -1;
+        }
+        int end = (isSymbol(start + 1, ".") && isName(start + 2)) ? start + 2 : start;
+        // function call is not column
+        return isSymbol(end + 1, "(") ? -1 : end;
+    }
+
+    /**
+     * Add predicate of column reference if its table is known.
+     *
+     * @param predicates List to add predicate to
+     * @param start Index of first token of reference
+     * @param end Index of last token of reference
+     * @param range Flag if column is compared by range
+     */
+    private void addPredicate(List<Predicate> predicates, int start, int end, boolean range) {
+        String table;
+        if (start == end) {
+            if (_tables.size() != 1) {
+                return;
+            }
+            table = _tables.get(0);
+        } else {
+            table = _aliases.get(key(_tokens.get(start)));
+            if (table == null) {
+                return;
+            }
+        }
+        predicates.add(new Predicate(table, _tokens.get(end), range));
+    }
+}
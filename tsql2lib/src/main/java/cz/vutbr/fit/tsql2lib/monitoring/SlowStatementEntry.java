@@ -0,0 +1,196 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Entry of slow statement log describing one TSQL2 statement and SQL
+ * statements it was expanded to.
+ */
+public class SlowStatementEntry {
+
+    /**
+     * Time when statement finished, milliseconds since epoch
+     */
+    private final long _timestamp;
+    /**
+     * Original TSQL2 statement
+     */
+    private final String _tsql2;
+    /**
+     * Type of statement
+     */
+    private final StatementType _type;
+    /**
+     * Total duration in nanoseconds
+     */
+    private final long _nanos;
+    /**
+     * Generated statements in order of execution
+     */
+    private final List<ExecutedStatement> _statements;
+    /**
+     * Temporary tables with coalesced rows created for statement
+     */
+    private final List<String> _temporaryTables;
+    /**
+     * Failure of statement or null
+     */
+    private final SQLException _error;
+
+    /**
+     * Create log entry.
+     *
+     * @param timestamp Time when statement finished, milliseconds since epoch
+     * @param tsql2 Original TSQL2 statement
+     * @param type Type of statement
+     * @param nanos Total duration in nanoseconds
+     * @param statements Generated statements in order of execution
+     * @param temporaryTables Temporary tables created for statement
+     */
+    public SlowStatementEntry(long timestamp, String tsql2, StatementType type, long nanos,
+            List<ExecutedStatement> statements, List<String> temporaryTables) {
+        this(timestamp, tsql2, type, nanos, statements, temporaryTables, null);
+    }
+
+    /**
+     * Create log entry of failed statement.
+     *
+     * @param timestamp Time when statement failed, milliseconds since epoch
+     * @param tsql2 Original TSQL2 statement
+     * @param type Type of statement or null if it was not parsed
+     * @param nanos Duration until failure in nanoseconds
+     * @param statements Generated statements executed before failure
+     * @param temporaryTables Temporary tables created for statement
+     * @param error Failure of statement or null if it succeeded
+     */
+    public SlowStatementEntry(long timestamp, String tsql2, StatementType type, long nanos,
+            List<ExecutedStatement> statements, List<String> temporaryTables, SQLException error) {
+        _timestamp = timestamp;
+        _tsql2 = tsql2;
+        _type = type;
+        _nanos = nanos;
+        _statements = Collections.unmodifiableList(statements);
+        _temporaryTables = Collections.unmodifiableList(new ArrayList<>(temporaryTables));
+        _error = error;
+    }
+
+    /**
+     * Get time when statement finished.
+     *
+     * @return Milliseconds since epoch
+     */
+    public long getTimestamp() {
+        return _timestamp;
+    }
+
+    /**
+     * Get original TSQL2 statement.
+     *
+     * @return TSQL2 statement
+     */
+    public String getTsql2() {
+        return _tsql2;
+    }
+
+    /**
+     * Get type of statement.
+     *
+     * @return Statement type or null if statement was not parsed
+     */
+    public StatementType getType() {
+        return _type;
+    }
+
+    /**
+     * Get total duration of parsing, translation, execution and cleanup.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getNanos() {
+        return _nanos;
+    }
+
+    /**
+     * Get generated statements. Generated statements are measured one by one
+     * only for sampled statements, statements of other ones have unknown
+     * duration and update count, see ExecutedStatement.isMeasured().
+     *
+     * @return Generated statements in order of execution, empty if statement
+     * failed before it was translated
+     */
+    public List<ExecutedStatement> getStatements() {
+        return _statements;
+    }
+
+    /**
+     * Get temporary tables with coalesced rows created for statement.
+     *
+     * @return Names of temporary tables, empty if no coalescing was done
+     */
+    public List<String> getTemporaryTables() {
+        return _temporaryTables;
+    }
+
+    /**
+     * Check if temporary tables with coalesced rows were created.
+     *
+     * @return True if statement used coalescing tables
+     */
+    public boolean isCoalesced() {
+        return !_temporaryTables.isEmpty();
+    }
+
+    /**
+     * Get failure of statement.
+     *
+     * @return Exception or null if statement succeeded
+     */
+    public SQLException getError() {
+        return _error;
+    }
+
+    /**
+     * Check if statement failed.
+     *
+     * @return True if statement failed
+     */
+    public boolean isFailed() {
+        return _error != null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Instant.ofEpochMilli(_timestamp)).append(' ').append((_type != null) ? _type.toString() : "UNPARSED")
+                .append(String.format(" %.3f ms: ", _nanos / 1e6)).append(_tsql2);
+        if (isFailed()) {
+            sb.append(System.lineSeparator()).append("  failed: ").append(_error.getMessage());
+        }
+        if (isCoalesced()) {
+            sb.append(System.lineSeparator()).append("  coalescing tables: ").append(_temporaryTables);
+        }
+        for (int i = 0; i < _statements.size(); i++) {
+            sb.append(System.lineSeparator()).append("  #").append(i + 1).append(' ').append(_statements.get(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Log of TSQL2 statements whose execution took longer than threshold,
+ * registered on TSQL2Adapter.
+ *
+ * Duration of every statement is measured as a whole, generated SQL
+ * statements are sent to database in one batch as usual. Generated
+ * statements of sampled TSQL2 statements are executed one by one instead, so
+ * duration and update count of each of them is known too. Failed statements
+ * are logged together with their exception regardless of duration. Entries
+ * are passed to appender by background thread through bounded queue, entries
+ * which don't fit into full queue are dropped, so logging never blocks
+ * execution of statements.
+ */
+public class SlowStatementLog implements AutoCloseable {
+
+    /**
+     * Default capacity of queue of entries
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * Default fraction of statements whose generated statements are measured
+     * one by one
+     */
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+    /**
+     * Marker of end of queue
+     */
+    private static final SlowStatementEntry END = new SlowStatementEntry(0, "", null, 0,
+            Collections.<ExecutedStatement>emptyList(), Collections.<String>emptyList());
+
+    /**
+     * Appender writing entries as text.
+     */
+    private static final class WriterAppender implements Consumer<SlowStatementEntry>, AutoCloseable {
+
+        /**
+         * Writer of entries
+         */
+        private final Writer _writer;
+
+        /**
+         * Create appender.
+         *
+         * @param writer Writer of entries
+         */
+        private WriterAppender(Writer writer) {
+            _writer = writer;
+        }
+
+        @Override
+        public void accept(SlowStatementEntry entry) {
+            try {
+                _writer.write(entry.toString());
+                _writer.write(System.lineSeparator());
+                _writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            _writer.close();
+        }
+    }
+
+    /**
+     * Receiver of entries, called by background thread
+     */
+    private final Consumer<? super SlowStatementEntry> _appender;
+    /**
+     * Queue of entries waiting for appender
+     */
+    private final BlockingQueue<SlowStatementEntry> _queue;
+    /**
+     * Background thread passing entries to appender
+     */
+    private final Thread _thread;
+    /**
+     * Minimal duration of logged statement in nanoseconds
+     */
+    private volatile long _thresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Fraction of statements whose generated statements are measured
+     */
+    private volatile double _sampleRate = DEFAULT_SAMPLE_RATE;
+    /**
+     * Flag if log is closed
+     */
+    private volatile boolean _closed = false;
+    /**
+     * Number of entries dropped because of full queue
+     */
+    private final LongAdder _dropped = new LongAdder();
+    /**
+     * Number of entries appender failed on
+     */
+    private final LongAdder _failed = new LongAdder();
+
+    /**
+     * Create log with default queue capacity.
+     *
+     * @param appender Receiver of entries, called by background thread. If
+     * it is AutoCloseable, it is closed when the log is closed.
+     */
+    public SlowStatementLog(Consumer<? super SlowStatementEntry> appender) {
+        this(appender, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create log.
+     *
+     * @param appender Receiver of entries, called by background thread. If
+     * it is AutoCloseable, it is closed when the log is closed.
+     * @param capacity Maximal number of entries waiting for appender
+     */
+    public SlowStatementLog(Consumer<? super SlowStatementEntry> appender, int capacity) {
+        _appender = appender;
+        _queue = new ArrayBlockingQueue<>(capacity);
+        _thread = new Thread(this::append, "tsql2-slow-log");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * Create log writing entries as text. Writer is flushed after every entry
+     * and closed when the log is closed.
+     *
+     * @param writer Writer of entries
+     * @return Slow statement log
+     */
+    public static SlowStatementLog toWriter(Writer writer) {
+        return new SlowStatementLog(new WriterAppender(writer));
+    }
+
+    /**
+     * Pass queued entries to appender until the log is closed. This is run by
+     * background thread.
+     */
+    private void append() {
+        while (true) {
+            SlowStatementEntry entry;
+            try {
+                entry = _queue.take();
+            } catch (InterruptedException e) {
+                // only close() may stop the thread
+                continue;
+            }
+            if (entry == END) {
+                if (_appender instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) _appender).close();
+                    } catch (Exception e) {
+                    } // ignore
+                }
+                return;
+            }
+            try {
+                _appender.accept(entry);
+            } catch (RuntimeException e) {
+                _failed.increment();
+            }
+        }
+    }
+
+    /**
+     * Set minimal duration of logged statement.
+     *
+     * @param threshold Minimal duration
+     * @param unit Unit of duration
+     */
+    public void setThreshold(long threshold, TimeUnit unit) {
+        _thresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * Get minimal duration of logged statement.
+     *
+     * @param unit Unit of duration
+     * @return Minimal duration
+     */
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(_thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set fraction of statements whose generated statements are executed and
+     * measured one by one instead of in one batch.
+     *
+     * @param sampleRate Fraction between 0 and 1
+     */
+    public void setSampleRate(double sampleRate) {
+        _sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    /**
+     * Get fraction of statements whose generated statements are measured.
+     *
+     * @return Fraction between 0 and 1
+     */
+    public double getSampleRate() {
+        return _sampleRate;
+    }
+
+    /**
+     * Decide if generated statements of next statement are measured.
+     *
+     * @return True if generated statements should be measured one by one
+     */
+    public boolean sample() {
+        if (_closed) {
+            return false;
+        }
+        double rate = _sampleRate;
+        return (rate >= 1) || ((rate > 0) && (ThreadLocalRandom.current().nextDouble() < rate));
+    }
+
+    /**
+     * Check if statement is slow enough to be logged.
+     *
+     * @param nanos Duration of statement in nanoseconds
+     * @return True if statement should be logged
+     */
+    public boolean isSlow(long nanos) {
+        return nanos >= _thresholdNanos;
+    }
+
+    /**
+     * Queue entry for appender without waiting. Entry is dropped if the queue
+     * is full or the log is closed.
+     *
+     * @param entry Log entry
+     * @return True if entry was queued
+     */
+    public boolean log(SlowStatementEntry entry) {
+        boolean queued;
+        // entry can't be queued after end of queue marker put by close()
+        synchronized (this) {
+            queued = !_closed && _queue.offer(entry);
+        }
+        if (!queued) {
+            _dropped.increment();
+        }
+        return queued;
+    }
+
+    /**
+     * Get number of entries dropped because the queue was full.
+     *
+     * @return Number of dropped entries
+     */
+    public long getDroppedCount() {
+        return _dropped.sum();
+    }
+
+    /**
+     * Get number of entries appender failed on.
+     *
+     * @return Number of failed entries
+     */
+    public long getFailedCount() {
+        return _failed.sum();
+    }
+
+    /**
+     * Close log after all queued entries are passed to appender.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (_closed) {
+                return;
+            }
+            _closed = true;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                _queue.put(END);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (_thread.isAlive()) {
+            try {
+                _thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
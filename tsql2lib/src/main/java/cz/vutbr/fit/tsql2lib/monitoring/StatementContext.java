@@ -0,0 +1,142 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Context of one TSQL2 statement or batch passed to statement listener.
+ * Listener can store its own data, e.g. tracing spans, in context attributes.
+ */
+public class StatementContext {
+
+    /**
+     * Listener receiving callbacks of statement
+     */
+    private final StatementListener _listener;
+    /**
+     * TSQL2 statement or null for context of batch
+     */
+    private final String _tsql2;
+    /**
+     * Context of batch containing statement or null
+     */
+    private final StatementContext _parent;
+    /**
+     * Index of statement in batch or -1
+     */
+    private final int _batchIndex;
+    /**
+     * Flag if statement is executed asynchronously
+     */
+    private final boolean _async;
+    /**
+     * Attributes of listener, created on demand
+     */
+    private Map<String, Object> _attributes = null;
+
+    /**
+     * Create context of statement.
+     *
+     * @param listener Listener receiving callbacks of statement
+     * @param tsql2 TSQL2 statement or null for context of batch
+     * @param parent Context of batch containing statement or null
+     * @param batchIndex Index of statement in batch or -1
+     * @param async Flag if statement is executed asynchronously
+     */
+    public StatementContext(StatementListener listener, String tsql2, StatementContext parent, int batchIndex,
+            boolean async) {
+        _listener = listener;
+        _tsql2 = tsql2;
+        _parent = parent;
+        _batchIndex = batchIndex;
+        _async = async;
+    }
+
+    /**
+     * Get listener receiving callbacks of statement.
+     *
+     * @return Statement listener
+     */
+    public StatementListener getListener() {
+        return _listener;
+    }
+
+    /**
+     * Get TSQL2 statement.
+     *
+     * @return TSQL2 statement or null for context of batch
+     */
+    public String getTsql2() {
+        return _tsql2;
+    }
+
+    /**
+     * Get context of batch containing statement.
+     *
+     * @return Context of batch or null if statement is not in batch
+     */
+    public StatementContext getParent() {
+        return _parent;
+    }
+
+    /**
+     * Get index of statement in batch.
+     *
+     * @return Index of statement or -1 if statement is not in batch
+     */
+    public int getBatchIndex() {
+        return _batchIndex;
+    }
+
+    /**
+     * Check if statement is executed asynchronously on executor of
+     * connection.
+     *
+     * @return True if statement is asynchronous
+     */
+    public boolean isAsync() {
+        return _async;
+    }
+
+    /**
+     * Get attribute of listener.
+     *
+     * @param name Name of attribute
+     * @return Value of attribute or null if it isn't set
+     */
+    public synchronized Object getAttribute(String name) {
+        return (_attributes == null) ? null : _attributes.get(name);
+    }
+
+    /**
+     * Set attribute of listener.
+     *
+     * @param name Name of attribute
+     * @param value Value of attribute or null to remove it
+     */
+    public synchronized void setAttribute(String name, Object value) {
+        if (value == null) {
+            if (_attributes != null) {
+                _attributes.remove(name);
+            }
+            return;
+        }
+        if (_attributes == null) {
+            _attributes = new HashMap<>();
+        }
+        _attributes.put(name, value);
+    }
+}
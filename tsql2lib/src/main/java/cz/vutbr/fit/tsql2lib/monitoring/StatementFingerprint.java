@@ -0,0 +1,188 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.util.ArrayList;
+
+import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
+import cz.vutbr.fit.tsql2lib.parser.TSQL2ParserConstants;
+import cz.vutbr.fit.tsql2lib.parser.Token;
+
+/**
+ * Shape of TSQL2 statement with literals removed, identifying statements
+ * which differ only in constants.
+ *
+ * Numbers, strings, bind variables, date and time literals of DATE and
+ * PERIOD expressions including FOREVER are replaced by "?", offsets of
+ * NOW-relative times are removed and lists of literals are collapsed to one
+ * "?". Keywords and unquoted identifiers are uppercased and comments are
+ * dropped, so the shape doesn't depend on formatting either.
+ */
+public final class StatementFingerprint {
+
+    /**
+     * FNV-1a offset basis
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    /**
+     * FNV-1a prime
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Statement with literals removed
+     */
+    private final String _shape;
+    /**
+     * Hash of shape as hexadecimal string
+     */
+    private final String _id;
+
+    /**
+     * Create fingerprint of shape.
+     *
+     * @param shape Statement with literals removed
+     */
+    private StatementFingerprint(String shape) {
+        _shape = shape;
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < shape.length(); i++) {
+            hash = (hash ^ shape.charAt(i)) * FNV_PRIME;
+        }
+        _id = String.format("%016x", hash);
+    }
+
+    /**
+     * Compute fingerprint of parsed statement.
+     *
+     * @param tree Root of parse tree
+     * @return Statement fingerprint
+     */
+    public static StatementFingerprint of(SimpleNode tree) {
+        ArrayList<String> tokens = new ArrayList<>();
+        Token last = tree.jjtGetLastToken();
+        for (Token t = tree.jjtGetFirstToken(); t != null; t = t.next) {
+            switch (t.kind) {
+                case TSQL2ParserConstants.S_UNSIGNED_INTEGER:
+                case TSQL2ParserConstants.S_NUMBER:
+                case TSQL2ParserConstants.S_CHAR_LITERAL:
+                case TSQL2ParserConstants.S_DATETIME:
+                case TSQL2ParserConstants.S_DATETIME_LITERAL:
+                case TSQL2ParserConstants.S_BIND:
+                case TSQL2ParserConstants.K_FOREVER:
+                    addLiteral(tokens);
+                    break;
+                case TSQL2ParserConstants.K_NOW:
+                    tokens.add("NOW");
+                    // skip offset, e.g. NOW - 1 DAY
+                    if (t != last && isSign(t.next) && t.next != last
+                            && t.next.next.kind == TSQL2ParserConstants.S_UNSIGNED_INTEGER) {
+                        t = t.next.next;
+                        if (t != last && isScale(t.next)) {
+                            t = t.next;
+                        }
+                    }
+                    break;
+                case TSQL2ParserConstants.S_QUOTED_IDENTIFIER:
+                    tokens.add(t.image);
+                    break;
+                default:
+                    tokens.add(t.image.trim().toUpperCase());
+            }
+            if (t == last) {
+                break;
+            }
+        }
+        return new StatementFingerprint(String.join(" ", tokens));
+    }
+
+    /**
+     * Add placeholder of literal to tokens. Placeholder following another
+     * placeholder and comma is dropped together with the comma, so lists of
+     * literals of any length have the same shape.
+     *
+     * @param tokens Tokens of shape
+     */
+    private static void addLiteral(ArrayList<String> tokens) {
+        int size = tokens.size();
+        if (size >= 2 && tokens.get(size - 1).equals(",") && tokens.get(size - 2).equals("?")) {
+            tokens.remove(size - 1);
+        } else {
+            tokens.add("?");
+        }
+    }
+
+    /**
+     * Check if token is sign of NOW-relative offset.
+     *
+     * @param t Token
+     * @return True for plus or minus
+     */
+    private static boolean isSign(Token t) {
+        return t.image.equals("-") || t.image.equals("+");
+    }
+
+    /**
+     * Check if token is scale of NOW-relative offset.
+     *
+     * @param t Token
+     * @return True for date and time scale keyword
+     */
+    private static boolean isScale(Token t) {
+        switch (t.kind) {
+            case TSQL2ParserConstants.K_SECOND:
+            case TSQL2ParserConstants.K_MINUTE:
+            case TSQL2ParserConstants.K_HOUR:
+            case TSQL2ParserConstants.K_DAY:
+            case TSQL2ParserConstants.K_MONTH:
+            case TSQL2ParserConstants.K_YEAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get identifier of statement shape.
+     *
+     * @return 64-bit hash of shape as hexadecimal string
+     */
+    public String getId() {
+        return _id;
+    }
+
+    /**
+     * Get statement with literals removed.
+     *
+     * @return Shape of statement
+     */
+    public String getShape() {
+        return _shape;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return (obj instanceof StatementFingerprint) && _shape.equals(((StatementFingerprint) obj)._shape);
+    }
+
+    @Override
+    public int hashCode() {
+        return _shape.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return _id + ": " + _shape;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.sql.SQLException;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Listener of lifecycle of TSQL2 statements registered on TSQL2Adapter, e.g.
+ * to integrate tracing or sampling profilers.
+ *
+ * Every executed TSQL2 statement gets its own context passed to all
+ * callbacks. Context is created on thread which started the statement, so
+ * asynchronous statements can propagate thread-local state of the caller to
+ * executor thread in context attributes. Statements of batch get contexts
+ * with common parent context of the batch. All methods do nothing by default.
+ * Exceptions thrown by callbacks are passed to caller of the statement.
+ */
+public interface StatementListener {
+
+    /**
+     * Called on thread which started statement or batch when its context is
+     * created.
+     *
+     * @param context Context of statement or batch
+     */
+    public default void contextCreated(StatementContext context) {
+    }
+
+    /**
+     * Called before TSQL2 statement is parsed.
+     *
+     * @param context Context of statement
+     */
+    public default void beforeParse(StatementContext context) {
+    }
+
+    /**
+     * Called after TSQL2 statement is parsed.
+     *
+     * @param context Context of statement
+     */
+    public default void afterParse(StatementContext context) {
+    }
+
+    /**
+     * Called before parsed statement is translated.
+     *
+     * @param context Context of statement
+     */
+    public default void beforeTranslate(StatementContext context) {
+    }
+
+    /**
+     * Called after parsed statement is translated.
+     *
+     * @param context Context of statement
+     * @param type Type of statement
+     * @param statements Generated SQL statements
+     */
+    public default void afterTranslate(StatementContext context, StatementType type, String[] statements) {
+    }
+
+    /**
+     * Called before generated statements are sent to database in one round
+     * trip.
+     *
+     * @param context Context of statement
+     * @param sql Executed SQL statements separated by semicolons
+     */
+    public default void beforeExecute(StatementContext context, String sql) {
+    }
+
+    /**
+     * Called after generated statements are executed in one round trip.
+     *
+     * @param context Context of statement
+     * @param sql Executed SQL statements separated by semicolons
+     * @param updateCount Update count or -1 if statement returned results
+     */
+    public default void afterExecute(StatementContext context, String sql, int updateCount) {
+    }
+
+    /**
+     * Called when results of statement are closed.
+     *
+     * @param context Context of statement
+     */
+    public default void resultSetClosed(StatementContext context) {
+    }
+
+    /**
+     * Called when parsing, translation or execution of statement fails.
+     *
+     * @param context Context of statement
+     * @param phase Phase which failed
+     * @param error Error of statement
+     */
+    public default void failed(StatementContext context, Phase phase, SQLException error) {
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Aggregated statistics of TSQL2 statements with the same fingerprint.
+ */
+public class StatementStatistics {
+
+    /**
+     * Identifier of statement shape
+     */
+    private final String _id;
+    /**
+     * Statement with literals removed
+     */
+    private final String _shape;
+    /**
+     * Type of statement
+     */
+    private final StatementType _type;
+    /**
+     * Number of executions
+     */
+    private final long _calls;
+    /**
+     * Total duration of executions in nanoseconds
+     */
+    private final long _totalNanos;
+    /**
+     * Maximal duration of execution in nanoseconds
+     */
+    private final long _maxNanos;
+    /**
+     * Number of rows affected by executions
+     */
+    private final long _rows;
+    /**
+     * Number of generated SQL statements
+     */
+    private final long _generatedStatements;
+    /**
+     * Number of catalog lookups answered from cache
+     */
+    private final long _cacheHits;
+
+    /**
+     * Create statistics.
+     *
+     * @param id Identifier of statement shape
+     * @param shape Statement with literals removed
+     * @param type Type of statement
+     * @param calls Number of executions
+     * @param totalNanos Total duration of executions in nanoseconds
+     * @param maxNanos Maximal duration of execution in nanoseconds
+     * @param rows Number of rows affected by executions
+     * @param generatedStatements Number of generated SQL statements
+     * @param cacheHits Number of catalog lookups answered from cache
+     */
+    public StatementStatistics(String id, String shape, StatementType type, long calls, long totalNanos,
+            long maxNanos, long rows, long generatedStatements, long cacheHits) {
+        _id = id;
+        _shape = shape;
+        _type = type;
+        _calls = calls;
+        _totalNanos = totalNanos;
+        _maxNanos = maxNanos;
+        _rows = rows;
+        _generatedStatements = generatedStatements;
+        _cacheHits = cacheHits;
+    }
+
+    /**
+     * Get identifier of statement shape.
+     *
+     * @return Fingerprint identifier
+     */
+    public String getId() {
+        return _id;
+    }
+
+    /**
+     * Get statement with literals removed.
+     *
+     * @return Shape of statement
+     */
+    public String getShape() {
+        return _shape;
+    }
+
+    /**
+     * Get type of statement.
+     *
+     * @return Statement type
+     */
+    public StatementType getType() {
+        return _type;
+    }
+
+    /**
+     * Get number of executions.
+     *
+     * @return Number of calls
+     */
+    public long getCalls() {
+        return _calls;
+    }
+
+    /**
+     * Get total duration of parsing, translation, execution and cleanup.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getTotalNanos() {
+        return _totalNanos;
+    }
+
+    /**
+     * Get maximal duration of one execution.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getMaxNanos() {
+        return _maxNanos;
+    }
+
+    /**
+     * Get mean duration of one execution.
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getMeanNanos() {
+        return (_calls == 0) ? 0 : _totalNanos / _calls;
+    }
+
+    /**
+     * Get number of rows affected by data modification statements.
+     *
+     * @return Number of rows
+     */
+    public long getRows() {
+        return _rows;
+    }
+
+    /**
+     * Get number of generated SQL statements.
+     *
+     * @return Number of statements
+     */
+    public long getGeneratedStatements() {
+        return _generatedStatements;
+    }
+
+    /**
+     * Get number of catalog lookups answered from cache.
+     *
+     * @return Number of cache hits
+     */
+    public long getCacheHits() {
+        return _cacheHits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s calls=%d total=%.3f ms max=%.3f ms: %s", _id, _type, _calls,
+                _totalNanos / 1e6, _maxNanos / 1e6, _shape);
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * In-memory table of statistics of executed TSQL2 statements aggregated by
+ * statement fingerprint, registered on TSQL2Adapter.
+ *
+ * Table is split into stripes with their own locks, so concurrent statements
+ * of different shapes rarely contend. Number of tracked shapes is bounded,
+ * statements of new shapes are not tracked when the table is full.
+ */
+public class WorkloadStatistics {
+
+    /**
+     * Default maximal number of tracked statement shapes
+     */
+    public static final int DEFAULT_MAX_STATEMENTS = 5000;
+    /**
+     * Number of stripes
+     */
+    private static final int STRIPES = 16;
+
+    /**
+     * Mutable statistics of one shape guarded by lock of its stripe.
+     */
+    private static final class Entry {
+
+        /**
+         * Statement with literals removed
+         */
+        private final String _shape;
+        /**
+         * Type of statement
+         */
+        private final StatementType _type;
+        /**
+         * Number of executions
+         */
+        private long _calls = 0;
+        /**
+         * Total duration in nanoseconds
+         */
+        private long _totalNanos = 0;
+        /**
+         * Maximal duration in nanoseconds
+         */
+        private long _maxNanos = 0;
+        /**
+         * Number of affected rows
+         */
+        private long _rows = 0;
+        /**
+         * Number of generated statements
+         */
+        private long _generatedStatements = 0;
+        /**
+         * Number of catalog cache hits
+         */
+        private long _cacheHits = 0;
+
+        /**
+         * Create empty statistics.
+         *
+         * @param shape Statement with literals removed
+         * @param type Type of statement
+         */
+        private Entry(String shape, StatementType type) {
+            _shape = shape;
+            _type = type;
+        }
+
+        /**
+         * Create snapshot of statistics.
+         *
+         * @param id Identifier of shape
+         * @return Immutable statistics
+         */
+        private StatementStatistics snapshot(String id) {
+            return new StatementStatistics(id, _shape, _type, _calls, _totalNanos, _maxNanos, _rows,
+                    _generatedStatements, _cacheHits);
+        }
+    }
+
+    /**
+     * Stripes mapping fingerprint identifiers to statistics, each locked by
+     * itself
+     */
+    private final List<HashMap<String, Entry>> _stripes = new ArrayList<>(STRIPES);
+    /**
+     * Maximal number of tracked shapes
+     */
+    private final int _maxStatements;
+    /**
+     * Number of tracked shapes
+     */
+    private final AtomicInteger _size = new AtomicInteger();
+    /**
+     * Number of executions not tracked because the table was full
+     */
+    private final LongAdder _dropped = new LongAdder();
+
+    /**
+     * Create table with default capacity.
+     */
+    public WorkloadStatistics() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * Create table.
+     *
+     * @param maxStatements Maximal number of tracked statement shapes
+     */
+    public WorkloadStatistics(int maxStatements) {
+        _maxStatements = maxStatements;
+        for (int i = 0; i < STRIPES; i++) {
+            _stripes.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Get stripe of fingerprint.
+     *
+     * @param id Fingerprint identifier
+     * @return Stripe map, also used as its lock
+     */
+    private HashMap<String, Entry> stripe(String id) {
+        return _stripes.get((id.hashCode() & Integer.MAX_VALUE) % STRIPES);
+    }
+
+    /**
+     * Record one execution of statement.
+     *
+     * @param fingerprint Fingerprint of statement
+     * @param type Type of statement
+     * @param nanos Duration of parsing, translation, execution and cleanup
+     * @param rows Number of affected rows
+     * @param generatedStatements Number of generated SQL statements
+     * @param cacheHits Number of catalog lookups answered from cache
+     */
+    public void record(StatementFingerprint fingerprint, StatementType type, long nanos, long rows,
+            int generatedStatements, int cacheHits) {
+        String id = fingerprint.getId();
+        HashMap<String, Entry> stripe = stripe(id);
+        synchronized (stripe) {
+            Entry entry = stripe.get(id);
+            if (entry == null) {
+                if (_size.incrementAndGet() > _maxStatements) {
+                    _size.decrementAndGet();
+                    _dropped.increment();
+                    return;
+                }
+                entry = new Entry(fingerprint.getShape(), type);
+                stripe.put(id, entry);
+            }
+            entry._calls++;
+            entry._totalNanos += nanos;
+            entry._maxNanos = Math.max(entry._maxNanos, nanos);
+            entry._rows += Math.max(rows, 0);
+            entry._generatedStatements += generatedStatements;
+            entry._cacheHits += cacheHits;
+        }
+    }
+
+    /**
+     * Get statistics of one statement shape.
+     *
+     * @param id Fingerprint identifier
+     * @return Statistics or null if the shape isn't tracked
+     */
+    public StatementStatistics get(String id) {
+        HashMap<String, Entry> stripe = stripe(id);
+        synchronized (stripe) {
+            Entry entry = stripe.get(id);
+            return (entry == null) ? null : entry.snapshot(id);
+        }
+    }
+
+    /**
+     * Get statistics of all tracked statement shapes.
+     *
+     * @return Statistics ordered by total duration, the longest first
+     */
+    public List<StatementStatistics> getAll() {
+        ArrayList<StatementStatistics> all = new ArrayList<>();
+        for (HashMap<String, Entry> stripe : _stripes) {
+            synchronized (stripe) {
+                stripe.forEach((id, entry) -> all.add(entry.snapshot(id)));
+            }
+        }
+        all.sort(Comparator.comparingLong(StatementStatistics::getTotalNanos).reversed());
+        return all;
+    }
+
+    /**
+     * Get number of executions which weren't tracked because the table was
+     * full.
+     *
+     * @return Number of dropped executions
+     */
+    public long getDroppedCount() {
+        return _dropped.sum();
+    }
+
+    /**
+     * Remove statistics of all statement shapes.
+     */
+    public void reset() {
+        for (HashMap<String, Entry> stripe : _stripes) {
+            synchronized (stripe) {
+                _size.addAndGet(-stripe.size());
+                stripe.clear();
+            }
+        }
+        _dropped.reset();
+    }
+
+    /**
+     * Write statistics of all tracked statement shapes as CSV with header
+     * line, ordered by total duration.
+     *
+     * @param writer Output writer, it isn't closed
+     * @throws IOException
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("id,type,calls,total_ms,mean_ms,max_ms,rows,generated_statements,cache_hits,shape\n");
+        for (StatementStatistics s : getAll()) {
+            writer.write(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%d,%d,%d,\"%s\"\n",
+                    s.getId(), s.getType(), s.getCalls(), s.getTotalNanos() / 1e6, s.getMeanNanos() / 1e6,
+                    s.getMaxNanos() / 1e6, s.getRows(), s.getGeneratedStatements(), s.getCacheHits(),
+                    s.getShape().replace("\"", "\"\"")));
+        }
+        writer.flush();
+    }
+}
@@ -52,6 +52,7 @@ public class CreateTableStatementTranslator extends TranslatorBase {
      */
     public CreateTableStatementTranslator(TSQL2Adapter con) {
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
     }
 
     /**
@@ -107,6 +108,8 @@ public class CreateTableStatementTranslator extends TranslatorBase {
         statement += ")";
 
         statements.add(statement);
+        // records in temporal specification are not counted
+        _countedStatements = new int[]{0};
 
         // create table descriptor in temporal specification
         statements.add("INSERT INTO " + Settings.TemporalSpecTableName + " (\n"
@@ -21,7 +21,6 @@ import java.util.ArrayList;
 
 import cz.vutbr.fit.tsql2lib.Settings;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
-import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
 import cz.vutbr.fit.tsql2lib.TSQL2Exception;
 import cz.vutbr.fit.tsql2lib.TableInfo;
 import cz.vutbr.fit.tsql2lib.Utils;
@@ -79,6 +78,7 @@ public class DeleteStatementTranslator extends TranslatorBase {
      */
     public DeleteStatementTranslator(TSQL2Adapter con) {
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
     }
 
     /**
@@ -148,8 +148,12 @@ public class DeleteStatementTranslator extends TranslatorBase {
              */
             if (_validSupport.equalsIgnoreCase(STATE) && _transSupport.equalsIgnoreCase(STATE)) {
                 statements.addAll(processBitemporal());
+                // remaining parts of deleted rows are not counted
+                _countedStatements = new int[]{2, 4, 5};
             } else if (_validSupport.equalsIgnoreCase(STATE)) {
                 statements.addAll(processState());
+                // remaining parts of deleted rows are not counted
+                _countedStatements = new int[]{0, 2, 3};
             } else if (_transSupport.equalsIgnoreCase(STATE)) {
                 statements.addAll(processTransaction());
             } else {
@@ -191,7 +195,7 @@ public class DeleteStatementTranslator extends TranslatorBase {
 
         // get temporal support of table
         try {
-            TableInfo ti = TSQL2DatabaseMetaData.getInstance().getMetaData(_tableName);
+            TableInfo ti = getTableInfo(_tableName);
             _validSupport = ti.getValidTimeSupport();
             _transSupport = ti.getTransactionTimeSupport();
         }
@@ -36,6 +36,7 @@ public class DropStatementTranslator extends TranslatorBase {
      */
     public DropStatementTranslator(TSQL2Adapter con) {
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
     }
 
     /**
@@ -13,6 +13,9 @@
  */
 package cz.vutbr.fit.tsql2lib.translators;
 
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.ResultDescriptor;
 import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
 
 /**
@@ -32,6 +35,48 @@ public interface IStatementTranslator {
      */
     public String[] translate(SimpleNode treeRoot) throws TSQL2TranslateException;
 
+    /**
+     * Get indexes of translated statements whose update counts make up update
+     * count of translated TSQL2 statement. Other statements are just helpers,
+     * e.g. backups of updated rows.
+     *
+     * @return Indexes of counted statements or null if update count is given
+     * by the last statement
+     */
+    public int[] getCountedStatements();
+
+    /**
+     * Get description of temporal columns of results returned by translated
+     * statement.
+     *
+     * @return Result descriptor or null if statement returns no temporal
+     * results
+     */
+    public ResultDescriptor getResultDescriptor();
+
+    /**
+     * Get names of temporary tables created during translation, e.g. tables
+     * with coalesced rows. They are dropped by clear().
+     *
+     * @return Names of temporary tables
+     */
+    public List<String> getTemporaryTables();
+
+    /**
+     * Get names of tables accessed by translated statement, including tables
+     * of subqueries.
+     *
+     * @return Names of tables
+     */
+    public List<String> getTableNames();
+
+    /**
+     * Get number of table metadata lookups of translation answered from cache.
+     *
+     * @return Number of catalog cache hits
+     */
+    public int getCatalogCacheHits();
+
     /**
      * Clear possible temporal items in database required for statement
      * translation and execution.
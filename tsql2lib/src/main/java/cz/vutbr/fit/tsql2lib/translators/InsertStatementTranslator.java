@@ -20,12 +20,12 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.List;
 
 import cz.vutbr.fit.tsql2lib.DateTimeWithScale;
 import cz.vutbr.fit.tsql2lib.PeriodWithScale;
 import cz.vutbr.fit.tsql2lib.Settings;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
-import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
 import cz.vutbr.fit.tsql2lib.TSQL2Exception;
 import cz.vutbr.fit.tsql2lib.TableInfo;
 import cz.vutbr.fit.tsql2lib.Utils;
@@ -101,9 +101,52 @@ public class InsertStatementTranslator extends TranslatorBase {
      */
     public InsertStatementTranslator(TSQL2Adapter con) {
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
         this._tCon = con;
     }
 
+    /**
+     * Get names of temporary tables created during translation of inserted
+     * subquery.
+     *
+     * @return Names of temporary tables
+     */
+    @Override
+    public List<String> getTemporaryTables() {
+        return (_selectTranslator == null) ? super.getTemporaryTables() : _selectTranslator.getTemporaryTables();
+    }
+
+    /**
+     * Get names of tables accessed by translated statement, including tables
+     * of inserted query.
+     *
+     * @return Names of tables
+     */
+    @Override
+    public List<String> getTableNames() {
+        if (_selectTranslator == null) {
+            return super.getTableNames();
+        }
+        ArrayList<String> tables = new ArrayList<>(_tableNames);
+        for (String table : _selectTranslator.getTableNames()) {
+            if (!tables.contains(table)) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Get number of table metadata lookups of translation answered from
+     * cache, including lookups of inserted query.
+     *
+     * @return Number of catalog cache hits
+     */
+    @Override
+    public int getCatalogCacheHits() {
+        return _catalogCacheHits + ((_selectTranslator == null) ? 0 : _selectTranslator.getCatalogCacheHits());
+    }
+
     /**
      * Clear possible temporal items in database required for statement
      * translation and execution.
@@ -260,7 +303,7 @@ public class InsertStatementTranslator extends TranslatorBase {
 
                     // set correct new value
                     try {
-                        statement += _tableInfo.getNextSurrogateValue(_insertColumns.get(i));
+                        statement += _metaData.getNextSurrogateValue(_tableInfo, _insertColumns.get(i));
                     }
                     catch (TSQL2Exception e) {
                         throw new TSQL2TranslateException(e.getMessage());
@@ -391,7 +434,7 @@ public class InsertStatementTranslator extends TranslatorBase {
     private void processTableReference(SimpleNode node) throws TSQL2TranslateException {
         // get temporal support of table
         try {
-            _tableInfo = TSQL2DatabaseMetaData.getInstance().getMetaData(SimpleNodeCompatibility.getSourceString(node));
+            _tableInfo = getTableInfo(SimpleNodeCompatibility.getSourceString(node));
         }
         catch (TSQL2Exception e) {
             throw new TSQL2TranslateException(e.getMessage());
@@ -20,14 +20,18 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import cz.vutbr.fit.tsql2lib.DateTimeScale;
 import cz.vutbr.fit.tsql2lib.IntersectionValue;
 import cz.vutbr.fit.tsql2lib.ItemWithAlias;
 import cz.vutbr.fit.tsql2lib.PeriodWithScale;
+import cz.vutbr.fit.tsql2lib.ResultDescriptor;
 import cz.vutbr.fit.tsql2lib.Settings;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
-import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
 import cz.vutbr.fit.tsql2lib.TSQL2Exception;
 import cz.vutbr.fit.tsql2lib.TableInfo;
 import cz.vutbr.fit.tsql2lib.Utils;
@@ -99,6 +103,11 @@ public class SelectStatementTranslator extends TranslatorBase {
      * Transaction time support for used tables
      */
     private final HashMap<String, String> _transactionTimeSupport = new HashMap<>();
+    /**
+     * Explicit valid-time columns whose table reference has not been found in
+     * FROM clause yet, with their table reference and alias.
+     */
+    private final LinkedHashMap<ResultDescriptor.Column, ItemWithAlias> _unresolvedValidColumns = new LinkedHashMap<>();
     /**
      * Collection of created temporal tables for this statement. If there is
      * some coalescing of table tuples, it leads to temporal table creation. All
@@ -175,6 +184,57 @@ public class SelectStatementTranslator extends TranslatorBase {
     public SelectStatementTranslator(TSQL2Adapter con) {
         this._tCon = con;
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
+        this._resultDescriptor = new ResultDescriptor();
+    }
+
+    /**
+     * Get names of temporary tables with coalesced rows created for this query
+     * and its subqueries.
+     *
+     * @return Names of temporary tables
+     */
+    @Override
+    public List<String> getTemporaryTables() {
+        ArrayList<String> tables = new ArrayList<>(_temporalTables);
+        for (SelectStatementTranslator subquery : _subqueryTranslators) {
+            tables.addAll(subquery.getTemporaryTables());
+        }
+        return tables;
+    }
+
+    /**
+     * Get names of tables accessed by translated statement, including tables
+     * of subqueries.
+     *
+     * @return Names of tables
+     */
+    @Override
+    public List<String> getTableNames() {
+        ArrayList<String> tables = new ArrayList<>(_tableNames);
+        for (SelectStatementTranslator subquery : _subqueryTranslators) {
+            for (String table : subquery.getTableNames()) {
+                if (!tables.contains(table)) {
+                    tables.add(table);
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Get number of table metadata lookups of translation answered from
+     * cache, including lookups of subqueries.
+     *
+     * @return Number of catalog cache hits
+     */
+    @Override
+    public int getCatalogCacheHits() {
+        int hits = _catalogCacheHits;
+        for (SelectStatementTranslator subquery : _subqueryTranslators) {
+            hits += subquery.getCatalogCacheHits();
+        }
+        return hits;
     }
 
     /**
@@ -596,13 +656,11 @@ public class SelectStatementTranslator extends TranslatorBase {
                     item.setItem(tableReference + "." + Settings.ValidTimeStartColumnName);
                     item.setAlias(Utils.quote(EXPLICIT_VTS + tableReference));
                     _selectList.add(item);
-                    /*
-                        * Add source table as next column and alias as another column.
-                        * These columns are used when preprocessing results and are hidden from user.
-                        * Concatenate table reference with alias to make it unique. Alias is stripped when retrieving results.
-                     */
-                    _selectList.add(new ItemWithAlias(Utils.quoteString(Utils.unquote(alias + tableReference))));
-                    _selectList.add(new ItemWithAlias(Utils.quoteString(alias)));
+                    // source table is resolved when processing FROM clause
+                    ResultDescriptor.Column column = _resultDescriptor.add(Utils.unquote(item.getAlias()),
+                            new ResultDescriptor.Column(alias.isEmpty() ? "VALID(" + Utils.unquote(tableReference) + ")" : alias,
+                                    tableReference, DateTimeScale.SECOND));
+                    _unresolvedValidColumns.put(column, new ItemWithAlias(tableReference, alias));
                     item = new ItemWithAlias();
                     item.setItem(tableReference + "." + Settings.ValidTimeEndColumnName);
                     item.setAlias(Utils.quote(EXPLICIT_VTE + tableReference));
@@ -616,13 +674,9 @@ public class SelectStatementTranslator extends TranslatorBase {
                     item.setItem(tableReference + "." + Settings.TransactionTimeStartColumnName);
                     item.setAlias(Utils.quote(EXPLICIT_TTS + tableReference));
                     _selectList.add(item);
-                    /*
-                        * Add source table as next column and alias as another column.
-                        * These columns are used when preprocessing results and are hidden from user.
-                        * Concatenate table reference with alias to make it unique. Alias is stripped when retrieving results.
-                     */
-                    _selectList.add(new ItemWithAlias(Utils.quoteString(alias + tableReference)));
-                    _selectList.add(new ItemWithAlias(Utils.quoteString(alias)));
+                    _resultDescriptor.add(Utils.unquote(item.getAlias()),
+                            new ResultDescriptor.Column(alias.isEmpty() ? "TRANSACTION(" + tableReference + ")" : alias,
+                                    tableReference, DateTimeScale.SECOND));
                     item = new ItemWithAlias();
                     item.setItem(tableReference + "." + Settings.TransactionTimeEndColumnName);
                     item.setAlias(Utils.quote(EXPLICIT_TTE + tableReference));
@@ -644,11 +698,11 @@ public class SelectStatementTranslator extends TranslatorBase {
                 case "TSQLIntersectExpression":
                     IntersectionValue intersection = processTSQLIntersectExpression(node);
                     /*
-                    * Add intersection begin, empty string (for compatibility), alias and intersection end
+                    * Add intersection begin and intersection end
                      */
                     _selectList.add(new ItemWithAlias(intersection.getBeginning(), Utils.quote(INTERSECT_BEGINNING + alias)));
-                    _selectList.add(new ItemWithAlias(Utils.quoteString("")));
-                    _selectList.add(new ItemWithAlias(Utils.quoteString(alias)));
+                    _resultDescriptor.add(INTERSECT_BEGINNING + alias,
+                            new ResultDescriptor.Column(alias.isEmpty() ? "INTERSECTION" : alias, "", DateTimeScale.SECOND));
                     _selectList.add(new ItemWithAlias(intersection.getEnd(), Utils.quote(INTERSECT_END + alias)));
                     break;
                 case "FunctionCall":
@@ -701,7 +755,7 @@ public class SelectStatementTranslator extends TranslatorBase {
                     // use default transaction time constraint by default
                     _userDefinedTransaction.put(item.getAlias(), false);
                     _validTimeSupport.put(item.getAlias(), ti.getValidTimeSupport());
-                    _validTimeScale.put(item.getAlias(), DateTimeScale.SECOND);
+                    _validTimeScale.put(item.getAlias(), ti.getValidTimeScale());
                     _transactionTimeSupport.put(item.getAlias(), NONE);
                 }
                 break;
@@ -713,6 +767,8 @@ public class SelectStatementTranslator extends TranslatorBase {
                         item.setItem("(" + statements[0] + ")");
                     }
                     _subqueryTranslators.add(translator);
+                    // temporal columns of subquery may be selected by this query
+                    _resultDescriptor.addAll(translator.getResultDescriptor());
                     // use default transaction time constraint by default
                     _userDefinedTransaction.put(item.getAlias(), false);
                     _validTimeSupport.put(item.getAlias(), NONE);
@@ -729,7 +785,7 @@ public class SelectStatementTranslator extends TranslatorBase {
                     _transactionTimeSupport.put(item.getAlias(), NONE);
                     // get temporal support of table
                     try {
-                        TableInfo ti = TSQL2DatabaseMetaData.getInstance().getMetaData(item.getItem());
+                        TableInfo ti = getTableInfo(item.getItem());
                         _validTimeSupport.put(item.getAlias(), ti.getValidTimeSupport());
                         _validTimeScale.put(item.getAlias(), ti.getValidTimeScale());
                         _transactionTimeSupport.put(item.getAlias(), ti.getTransactionTimeSupport());
@@ -752,13 +808,8 @@ public class SelectStatementTranslator extends TranslatorBase {
                 item2.setItem(item.getAlias() + "." + Settings.ValidTimeStartColumnName);
                 item2.setAlias(Utils.quote(IMPLICIT_VTS + item.getAlias()));
                 _selectList.add(item2);
-                /*
-				 * Add source table as next column and alias as another column.
-				 * These columns are used when preprocessing results and are hidden from user.
-				 * Concatenate table reference with alias to make it unique. Alias is stripped when retrieving results.
-                 */
-                _selectList.add(new ItemWithAlias(Utils.quoteString(Utils.unquote(item.getAlias()) + Utils.unquote(item.getItem()))));
-                _selectList.add(new ItemWithAlias(Utils.quoteString(item.getAlias())));
+                _resultDescriptor.add(Utils.unquote(item2.getAlias()), new ResultDescriptor.Column("VALID",
+                        Utils.unquote(item.getItem()), _validTimeScale.get(item.getAlias())));
 
                 // add valid-time end for state tables
                 if (_validTimeSupport.get(item.getAlias()).equals(STATE)) {
@@ -770,8 +821,8 @@ public class SelectStatementTranslator extends TranslatorBase {
             }
 
             /*
-			 * Walk select list and check if there is explicit valid time column for current item.
-			 * If it is, change source table from alias to current table name.
+			 * Check if there is explicit valid time column for current item.
+			 * If it is, change its source table from alias to current table name.
 			 * Example: 
 			 * 		SELECT VALID(a) FROM table a
 			 * This query is processed in way that source for VALID(a) is table with name 'a'.
@@ -779,16 +830,20 @@ public class SelectStatementTranslator extends TranslatorBase {
 			 * we have no way to get real table name.
 			 * At this point, we already know correct table name for alias so we can change it.
              */
-            for (int j = 0; j < _selectList.size(); j++) {
-                if (Utils.unquote(_selectList.get(j).getAlias()).startsWith(EXPLICIT_VTS)) {
-                    /*
-					 * This item is explicit valid time start column. Next column contains
-					 * source table. If next column is same as this item's alias, change it 
-					 * to this item's real name.
-                     */
-                    if (Utils.unquoteString(_selectList.get(j + 1).getItem()).endsWith(item.getAlias())) {
-                        _selectList.get(j + 1).setItem(Utils.quoteString(Utils.unquoteString(_selectList.get(j + 2).getItem()) + Utils.unquote(item.getItem())));
+            Iterator<Map.Entry<ResultDescriptor.Column, ItemWithAlias>> unresolved = _unresolvedValidColumns.entrySet().iterator();
+            while (unresolved.hasNext()) {
+                Map.Entry<ResultDescriptor.Column, ItemWithAlias> entry = unresolved.next();
+                if (entry.getValue().getItem().equalsIgnoreCase(item.getAlias())) {
+                    ResultDescriptor.Column column = entry.getKey();
+                    if (!item.getItem().startsWith("(")) {
+                        // subqueries keep their alias as source name
+                        column.setTableName(Utils.unquote(item.getItem()));
+                    }
+                    if (!entry.getValue().hasAlias()) {
+                        column.setLabel("VALID(" + Utils.unquote(column.getTableName()) + ")");
                     }
+                    column.setScale(_validTimeScale.get(item.getAlias()));
+                    unresolved.remove();
                 }
             }
         }
@@ -826,7 +881,7 @@ public class SelectStatementTranslator extends TranslatorBase {
 
         // get temporal support of table
         try {
-            result = TSQL2DatabaseMetaData.getInstance().getMetaData(tableName);
+            result = getTableInfo(tableName);
         }
         catch (TSQL2Exception e) {
             throw new TSQL2TranslateException(e.getMessage());
@@ -13,6 +13,10 @@
  */
 package cz.vutbr.fit.tsql2lib.translators;
 
+import java.util.Collections;
+import java.util.List;
+
+import cz.vutbr.fit.tsql2lib.ResultDescriptor;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
 import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
 
@@ -32,6 +36,10 @@ public class StatementTranslator implements IStatementTranslator {
      * Translator used for statement translation.
      */
     private IStatementTranslator _translator = null;
+    /**
+     * Type of translated statement.
+     */
+    private StatementType _type = null;
 
     /**
      * Create new statement translator using specified database connection
@@ -62,21 +70,27 @@ public class StatementTranslator implements IStatementTranslator {
             nodeType = node.toString();
 
             if ("CreateTableStatement".equals(nodeType)) {
+                _type = StatementType.CREATE_TABLE;
                 _translator = new CreateTableStatementTranslator(_con);
                 return _translator.translate(node);
             } else if ("InsertStatement".equals(nodeType)) {
+                _type = StatementType.INSERT;
                 _translator = new InsertStatementTranslator(_con);
                 return _translator.translate(node);
             } else if ("UpdateStatement".equals(nodeType)) {
+                _type = StatementType.UPDATE;
                 _translator = new UpdateStatementTranslator(_con);
                 return _translator.translate(node);
             } else if ("DeleteStatement".equals(nodeType)) {
+                _type = StatementType.DELETE;
                 _translator = new DeleteStatementTranslator(_con);
                 return _translator.translate(node);
             } else if ("SelectStatement".equals(nodeType)) {
+                _type = StatementType.SELECT;
                 _translator = new SelectStatementTranslator(_con);
                 return _translator.translate(node);
             } else if ("DropStatement".equals(nodeType)) {
+                _type = StatementType.DROP;
                 _translator = new DropStatementTranslator(_con);
                 return _translator.translate(node);
             } else {
@@ -90,6 +104,70 @@ public class StatementTranslator implements IStatementTranslator {
         return null;
     }
 
+    /**
+     * Get type of translated statement.
+     *
+     * @return Statement type or null if no statement was translated
+     */
+    public StatementType getStatementType() {
+        return _type;
+    }
+
+    /**
+     * Get indexes of translated statements whose update counts make up update
+     * count of translated TSQL2 statement.
+     *
+     * @return Indexes of counted statements or null if update count is given
+     * by the last statement
+     */
+    @Override
+    public int[] getCountedStatements() {
+        return (_translator == null) ? null : _translator.getCountedStatements();
+    }
+
+    /**
+     * Get description of temporal columns of results returned by translated
+     * statement.
+     *
+     * @return Result descriptor or null if statement returns no temporal
+     * results
+     */
+    @Override
+    public ResultDescriptor getResultDescriptor() {
+        return (_translator == null) ? null : _translator.getResultDescriptor();
+    }
+
+    /**
+     * Get names of temporary tables created during translation, e.g. tables
+     * with coalesced rows. They are dropped by clear().
+     *
+     * @return Names of temporary tables
+     */
+    @Override
+    public List<String> getTemporaryTables() {
+        return (_translator == null) ? Collections.<String>emptyList() : _translator.getTemporaryTables();
+    }
+
+    /**
+     * Get names of tables accessed by translated statement.
+     *
+     * @return Names of tables
+     */
+    @Override
+    public List<String> getTableNames() {
+        return (_translator == null) ? Collections.<String>emptyList() : _translator.getTableNames();
+    }
+
+    /**
+     * Get number of table metadata lookups of translation answered from cache.
+     *
+     * @return Number of catalog cache hits
+     */
+    @Override
+    public int getCatalogCacheHits() {
+        return (_translator == null) ? 0 : _translator.getCatalogCacheHits();
+    }
+
     /**
      * Clear possible temporal items in database required for statement
      * translation and execution.
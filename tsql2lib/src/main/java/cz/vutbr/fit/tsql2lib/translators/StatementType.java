@@ -0,0 +1,44 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.translators;
+
+/**
+ * Enumeration with types of translated TSQL2 statements
+ */
+public enum StatementType {
+    /**
+     * CREATE TABLE statement
+     */
+    CREATE_TABLE,
+    /**
+     * INSERT statement
+     */
+    INSERT,
+    /**
+     * UPDATE statement
+     */
+    UPDATE,
+    /**
+     * DELETE statement
+     */
+    DELETE,
+    /**
+     * SELECT statement
+     */
+    SELECT,
+    /**
+     * DROP statement
+     */
+    DROP
+}
@@ -14,11 +14,18 @@
 package cz.vutbr.fit.tsql2lib.translators;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import cz.vutbr.fit.tsql2lib.Constants;
 import cz.vutbr.fit.tsql2lib.DateTimeScale;
 import cz.vutbr.fit.tsql2lib.DateTimeWithScale;
 import cz.vutbr.fit.tsql2lib.PeriodWithScale;
+import cz.vutbr.fit.tsql2lib.ResultDescriptor;
+import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.TableInfo;
 import cz.vutbr.fit.tsql2lib.Utils;
 import cz.vutbr.fit.tsql2lib.parser.SimpleNode;
 import cz.vutbr.fit.tsql2lib.parser.SimpleNodeCompatibility;
@@ -36,6 +43,101 @@ public abstract class TranslatorBase implements IStatementTranslator, Constants
      * Database connection to access required metadata
      */
     protected Connection _con;
+    /**
+     * Temporal metadata accessor bound to database connection
+     */
+    protected TSQL2DatabaseMetaData _metaData;
+    /**
+     * Indexes of translated statements whose update counts make up update
+     * count of translated TSQL2 statement or null for the last statement
+     */
+    protected int[] _countedStatements = null;
+    /**
+     * Description of temporal columns of results or null if there are none
+     */
+    protected ResultDescriptor _resultDescriptor = null;
+    /**
+     * Names of tables whose metadata were used by translation
+     */
+    protected final List<String> _tableNames = new ArrayList<>();
+    /**
+     * Number of table metadata lookups answered from cache
+     */
+    protected int _catalogCacheHits = 0;
+
+    /**
+     * Get indexes of translated statements whose update counts make up update
+     * count of translated TSQL2 statement.
+     *
+     * @return Indexes of counted statements or null if update count is given
+     * by the last statement
+     */
+    @Override
+    public int[] getCountedStatements() {
+        return _countedStatements;
+    }
+
+    /**
+     * Get description of temporal columns of results returned by translated
+     * statement.
+     *
+     * @return Result descriptor or null if statement returns no temporal
+     * results
+     */
+    @Override
+    public ResultDescriptor getResultDescriptor() {
+        return _resultDescriptor;
+    }
+
+    /**
+     * Get names of temporary tables created during translation, e.g. tables
+     * with coalesced rows. They are dropped by clear().
+     *
+     * @return Names of temporary tables
+     */
+    @Override
+    public List<String> getTemporaryTables() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get names of tables accessed by translated statement.
+     *
+     * @return Names of tables
+     */
+    @Override
+    public List<String> getTableNames() {
+        return _tableNames;
+    }
+
+    /**
+     * Get number of table metadata lookups of translation answered from cache.
+     *
+     * @return Number of catalog cache hits
+     */
+    @Override
+    public int getCatalogCacheHits() {
+        return _catalogCacheHits;
+    }
+
+    /**
+     * Get metadata of table accessed by translated statement and remember its
+     * name.
+     *
+     * @param tableName Name of table
+     * @return Metadata of table
+     * @throws TSQL2Exception When table doesn't exist or database error occured
+     */
+    protected TableInfo getTableInfo(String tableName) throws TSQL2Exception {
+        if (_metaData.isCached(tableName)) {
+            _catalogCacheHits++;
+        }
+        TableInfo ti = _metaData.getMetaData(tableName);
+        if (!_tableNames.contains(ti.getTableName())) {
+            _tableNames.add(ti.getTableName());
+        }
+        return ti;
+    }
 
     /**
      * Clear possible temporal items in database required for statement
@@ -22,7 +22,6 @@ import java.util.HashMap;
 
 import cz.vutbr.fit.tsql2lib.Settings;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
-import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
 import cz.vutbr.fit.tsql2lib.TSQL2Exception;
 import cz.vutbr.fit.tsql2lib.TableInfo;
 import cz.vutbr.fit.tsql2lib.Utils;
@@ -76,6 +75,7 @@ public class UpdateStatementTranslator extends TranslatorBase {
      */
     public UpdateStatementTranslator(TSQL2Adapter con) {
         this._con = con.getUnderlyingConnection();
+        this._metaData = con.getTemporalMetaData();
     }
 
     /**
@@ -148,10 +148,16 @@ public class UpdateStatementTranslator extends TranslatorBase {
              */
             if (_tableInfo.getValidTimeSupport().equalsIgnoreCase(STATE) && _tableInfo.getTransactionTimeSupport().equalsIgnoreCase(STATE)) {
                 statements.addAll(processBitemporal());
+                // backup of original rows is inserted once for each updated row
+                _countedStatements = new int[]{0};
             } else if (_tableInfo.getValidTimeSupport().equalsIgnoreCase(STATE)) {
                 statements.addAll(processState());
+                // splitted parts of original rows are not counted
+                _countedStatements = new int[]{0, 3, 4, 5};
             } else if (_tableInfo.getTransactionTimeSupport().equalsIgnoreCase(STATE)) {
                 statements.addAll(processTransaction());
+                // count new versions of rows
+                _countedStatements = new int[]{1};
             } else {
                 statements.addAll(processSnapshot());
             }
@@ -189,7 +195,7 @@ public class UpdateStatementTranslator extends TranslatorBase {
     private void processTableReference(SimpleNode node) throws TSQL2TranslateException {
         // get temporal support of table
         try {
-            _tableInfo = TSQL2DatabaseMetaData.getInstance().getMetaData(SimpleNodeCompatibility.getSourceString(node));
+            _tableInfo = getTableInfo(SimpleNodeCompatibility.getSourceString(node));
         }
         catch (TSQL2Exception e) {
             throw new TSQL2TranslateException(e.getMessage());
@@ -221,7 +227,7 @@ public class UpdateStatementTranslator extends TranslatorBase {
                 }
                 // assign new value
                 try {
-                    columnValue = String.valueOf(_tableInfo.getNextSurrogateValue(columnName));
+                    columnValue = String.valueOf(_metaData.getNextSurrogateValue(_tableInfo, columnName));
                 }
                 catch (TSQL2Exception e) {
                     throw new TSQL2TranslateException(e.getMessage());
@@ -617,6 +623,7 @@ public class UpdateStatementTranslator extends TranslatorBase {
 		 * UPDATE table SET new_values, _vts = UPDATE_START WHERE ...
 		 * AND _vts <= UPDATE_START
 		 * AND _vte > UPDATE_START
+		 * AND _vte < UPDATE_END
 		 * 
 		 * Terminate valid time of old records that were valid before this update.
 		 * 
@@ -637,11 +644,42 @@ public class UpdateStatementTranslator extends TranslatorBase {
         statement += ", " + Settings.ValidTimeStartColumnName + "=" + _updateTimeStart
                 + " WHERE (" + _whereClause + ")"
                 + " AND " + Settings.ValidTimeStartColumnName + " <= " + _updateTimeStart
-                + " AND " + Settings.ValidTimeEndColumnName + " > " + _updateTimeStart;
+                + " AND " + Settings.ValidTimeEndColumnName + " > " + _updateTimeStart
+                + " AND " + Settings.ValidTimeEndColumnName + " < " + _updateTimeEnd;
+        statements.add(statement);
+
+        /*
+		 * UPDATE table SET new_values, _vts = UPDATE_START, _vte = UPDATE_END WHERE ...
+		 * AND _vts <= UPDATE_START
+		 * AND _vte >= UPDATE_END
+		 * 
+		 * Cut both ends of records containing whole update interval. Each record is
+		 * updated by one statement only, so update counts can be summed.
+		 * 
+		 * UPDATE:               UPDATE_START ---- UPDATE_END
+		 * ORIG. ROW: BEGIN -------------------------------------- END
+		 * RESULT:               UPDATE_START ---- UPDATE_END
+		 *                       ============================
+         */
+        statement = "UPDATE " + _tableInfo.getTableName() + " SET ";
+        first = true;
+        for (String key : _columnValues.keySet()) {
+            if (!first) {
+                statement += ", ";
+            }
+            statement += Utils.quote(key) + "=" + _columnValues.get(key);
+            first = false;
+        }
+        statement += ", " + Settings.ValidTimeStartColumnName + "=" + _updateTimeStart
+                + ", " + Settings.ValidTimeEndColumnName + "=" + _updateTimeEnd
+                + " WHERE (" + _whereClause + ")"
+                + " AND " + Settings.ValidTimeStartColumnName + " <= " + _updateTimeStart
+                + " AND " + Settings.ValidTimeEndColumnName + " >= " + _updateTimeEnd;
         statements.add(statement);
 
         /*
 		 * UPDATE table SET new_values, _vte = UPDATE_END WHERE ...
+		 * AND _vts > UPDATE_START
 		 * AND _vts < UPDATE_END
 		 * AND _vte >= UPDATE_END
 		 * 
@@ -663,6 +701,7 @@ public class UpdateStatementTranslator extends TranslatorBase {
         }
         statement += ", " + Settings.ValidTimeEndColumnName + "=" + _updateTimeEnd
                 + " WHERE (" + _whereClause + ")"
+                + " AND " + Settings.ValidTimeStartColumnName + " > " + _updateTimeStart
                 + " AND " + Settings.ValidTimeStartColumnName + " < " + _updateTimeEnd
                 + " AND " + Settings.ValidTimeEndColumnName + " >= " + _updateTimeEnd;
         statements.add(statement);
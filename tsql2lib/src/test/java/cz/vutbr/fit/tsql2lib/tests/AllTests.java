@@ -30,12 +30,15 @@ public class AllTests {
 
     public static Test suite() {
         TestSuite suite = new TestSuite("Tests for tsql2lib");
+        // tests without database connection
+        suite.addTest(UtilsTest.suite());
 
         try {
             // load driver
             //Class.forName("com.mysql.jdbc.Driver");
             String url = "###"; // specify correct connection string
             TestsSettings.baseConnection = DriverManager.getConnection(url, "root", "root");
+            //TestsSettings.scratchUrl = "###"; // disposable database of the same type for tests dropping temporal schema
             TSQL2Adapter.closeUnderlyingConnection = false;
 
             //$JUnit-BEGIN$
@@ -46,7 +49,13 @@ public class AllTests {
             suite.addTest(DeleteTest.suite());
             suite.addTest(SelectTest.suite());
             suite.addTest(ExtendedSelectTest.suite());
+            suite.addTest(ExportTest.suite());
+            suite.addTest(RowMapperTest.suite());
+            suite.addTest(MonitoringTest.suite());
+            suite.addTest(ConnectionTest.suite());
+            suite.addTest(GroupCommitTest.suite());
             //$JUnit-END$
+            addFlightRecorderTests(suite);
         }
         catch (Exception e) {
             e.printStackTrace();
@@ -55,4 +64,21 @@ public class AllTests {
         return suite;
     }
 
+    /**
+     * Add tests of JFR events if JFR is present. Test class is compiled only
+     * by "jfr" profile, so it is loaded by name.
+     *
+     * @param suite Suite to add tests to
+     */
+    private static void addFlightRecorderTests(TestSuite suite) {
+        try {
+            Class.forName("jdk.jfr.Recording");
+            Class<?> test = Class.forName("cz.vutbr.fit.tsql2lib.tests.FlightRecorderTest");
+            suite.addTest((Test) test.getMethod("suite").invoke(null));
+        }
+        catch (ReflectiveOperationException e) {
+            // JFR or compiled test is not present
+        }
+    }
+
 }
@@ -0,0 +1,485 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.Init;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2DataSource;
+import cz.vutbr.fit.tsql2lib.TSQL2DatabaseMetaData;
+import cz.vutbr.fit.tsql2lib.TSQL2Driver;
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.TSQL2Statement;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TableInfo;
+import cz.vutbr.fit.tsql2lib.TemporalCatalog;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Tests of connections to TSQL2 database, i.e. driver, data source and
+ * temporal catalog shared by connections.
+ */
+public class ConnectionTest extends TestCase implements Constants {
+
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(ConnectionTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        DriverManager.registerDriver(ForwardingDriver.INSTANCE);
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE connection_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE connection_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " sid SURROGATE,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL)"
+                + " AS VALID STATE AND TRANSACTION");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        DriverManager.deregisterDriver(ForwardingDriver.INSTANCE);
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE connection_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Test URLs accepted by driver and URL of underlying connection
+     *
+     * @throws Exception
+     */
+    public void testDriverUrl() throws Exception {
+        TSQL2Driver driver = new TSQL2Driver();
+        assertTrue(driver.acceptsURL("jdbc:tsql2:forward:test"));
+        assertFalse(driver.acceptsURL("jdbc:forward:test"));
+        assertFalse(driver.acceptsURL(null));
+        assertNull(driver.connect("jdbc:forward:test", new Properties()));
+
+        Connection driverCon = driver.connect("jdbc:tsql2:forward:test", new Properties());
+        try {
+            assertEquals("jdbc:forward:test", ForwardingDriver.INSTANCE.url);
+            assertTrue(driverCon instanceof TSQL2Adapter);
+            assertSame(TestsSettings.baseConnection, ((TSQL2Adapter) driverCon).getUnderlyingConnection());
+        }
+        finally {
+            driverCon.close();
+        }
+    }
+
+    /**
+     * Test adapters of pooled connections sharing context of data source,
+     * each adapter has its own metadata accessor using shared cache
+     *
+     * @throws Exception
+     */
+    public void testDataSourceContext() throws Exception {
+        DataSource pool = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return TestsSettings.baseConnection;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        TSQL2DataSource dataSource = new TSQL2DataSource(pool);
+
+        boolean allowCaching = TSQL2DatabaseMetaData.allowCaching;
+        TSQL2DatabaseMetaData.allowCaching = true;
+        try (TSQL2Adapter first = (TSQL2Adapter) dataSource.getConnection();
+                TSQL2Adapter second = (TSQL2Adapter) dataSource.getConnection()) {
+            TSQL2DatabaseMetaData firstMetaData = first.getTemporalMetaData();
+            TSQL2DatabaseMetaData secondMetaData = second.getTemporalMetaData();
+            assertNotSame(firstMetaData, secondMetaData);
+            assertNotSame(con.getTemporalMetaData(), firstMetaData);
+
+            TableInfo ti = firstMetaData.getMetaData("connection_test_table");
+            assertTrue(secondMetaData.isCached("connection_test_table"));
+            assertSame(ti, secondMetaData.getMetaData("connection_test_table"));
+            assertTrue(ti.isSurrogate("sid"));
+
+            // shared table information allocates surrogates by connection of the accessor
+            long value = firstMetaData.getNextSurrogateValue(ti, "sid");
+            assertEquals(value + 1, secondMetaData.getNextSurrogateValue(ti, "sid"));
+        }
+        finally {
+            TSQL2DatabaseMetaData.allowCaching = allowCaching;
+        }
+    }
+
+    /**
+     * Test adapters not setting static connection of singleton metadata
+     * accessor, each of them uses accessor bound to its own connection
+     *
+     * @throws Exception
+     */
+    public void testStaticMetaDataConnection() throws Exception {
+        Connection connection = TSQL2DatabaseMetaData.connection;
+        TSQL2DatabaseMetaData.connection = null;
+        try (TSQL2Adapter adapter = new TSQL2Adapter(TestsSettings.baseConnection)) {
+            assertNull(TSQL2DatabaseMetaData.connection);
+            assertTrue(adapter.getTemporalMetaData().getMetaData("connection_test_table").isSurrogate("sid"));
+            try {
+                TSQL2DatabaseMetaData.getInstance().getMetaData("connection_test_table");
+                fail("Singleton accessor has no connection.");
+            }
+            catch (TSQL2Exception e) {
+            }
+        }
+        finally {
+            TSQL2DatabaseMetaData.connection = connection;
+        }
+    }
+
+    /**
+     * Test prepared catalog queries, i.e. table lookup, surrogate allocation
+     * and vacuuming, reused after catalog is closed
+     *
+     * @throws Exception
+     */
+    public void testTemporalCatalog() throws Exception {
+        TemporalCatalog catalog = new TemporalCatalog(TestsSettings.baseConnection);
+        try {
+            assertTrue(catalog.temporalSchemaExists());
+            assertNull(catalog.findTable("connection_missing_table"));
+
+            TableInfo ti = catalog.findTable("connection_test_table");
+            assertEquals("CONNECTION_TEST_TABLE", ti.getTableName());
+            assertEquals(STATE, ti.getValidTimeSupport());
+            assertEquals(STATE, ti.getTransactionTimeSupport());
+            assertTrue(ti.isSurrogate("sid"));
+            assertFalse(ti.isSurrogate("name"));
+
+            long value = catalog.nextSurrogateValue("connection_test_table", "sid");
+            assertEquals(value + 1, catalog.nextSurrogateValue("connection_test_table", "sid"));
+            try {
+                catalog.nextSurrogateValue("connection_test_table", "name");
+                fail("Column is not surrogate column.");
+            }
+            catch (TSQL2Exception e) {
+            }
+
+            stmt.execute("INSERT INTO connection_test_table VALUES (1, NEW, 'Bob')");
+            stmt.execute("INSERT INTO connection_test_table VALUES (2, NEW, 'James')");
+            stmt.execute("DELETE FROM connection_test_table WHERE id = 1");
+            int closed = countClosedRows();
+            assertTrue(closed > 0);
+            assertEquals(closed, catalog.vacuum("connection_test_table", Utils.getCurrentTime() + 1));
+            assertEquals(0, countClosedRows());
+            assertEquals(0, catalog.vacuum("connection_test_table", Utils.getCurrentTime() + 1));
+
+            // queries are prepared again after close
+            catalog.close();
+            assertEquals(value + 2, catalog.nextSurrogateValue("connection_test_table", "sid"));
+            assertTrue(catalog.findTable("connection_test_table").isSurrogate("sid"));
+        }
+        finally {
+            catalog.close();
+        }
+    }
+
+    /**
+     * Test surrogate values allocated by table information bound to
+     * connection, its catalog is reused by next allocations
+     *
+     * @throws Exception
+     */
+    public void testTableInfoSurrogates() throws Exception {
+        TableInfo ti = new TableInfo(TestsSettings.baseConnection);
+        ti.setTableName("connection_test_table");
+        try {
+            long value = ti.getNextSurrogateValue("sid");
+            assertEquals(value + 1, ti.getNextSurrogateValue("sid"));
+            ti.close();
+            assertEquals(value + 2, ti.getNextSurrogateValue("sid"));
+        }
+        finally {
+            ti.close();
+        }
+
+        try {
+            new TableInfo().getNextSurrogateValue("sid");
+            fail("Table information is not bound to connection.");
+        }
+        catch (TSQL2Exception e) {
+        }
+    }
+
+    /**
+     * Test explanation without analyze rolling back surrogate values
+     * allocated by translation, explained statement is not executed by
+     * explain(), execute() nor executeQuery()
+     *
+     * @throws Exception
+     */
+    public void testExplainRollback() throws Exception {
+        TableInfo ti = new TableInfo(TestsSettings.baseConnection);
+        ti.setTableName("connection_test_table");
+        try {
+            long value = ti.getNextSurrogateValue("sid");
+            String insert = "INSERT INTO connection_test_table VALUES (1, NEW, 'Bob') VALID PERIOD [2000-01-01 - FOREVER]";
+            ((TSQL2Statement) stmt).explain(insert);
+            stmt.execute("EXPLAIN " + insert);
+            ResultSet plan = stmt.executeQuery("EXPLAIN " + insert);
+            assertTrue(plan.next());
+            plan.close();
+            assertEquals(value + 1, ti.getNextSurrogateValue("sid"));
+            assertTrue(con.getAutoCommit());
+        }
+        finally {
+            ti.close();
+        }
+
+        try (Statement base = TestsSettings.baseConnection.createStatement();
+                ResultSet res = base.executeQuery("SELECT COUNT(*) FROM connection_test_table")) {
+            res.next();
+            assertEquals(0, res.getInt(1));
+        }
+    }
+
+    /**
+     * Count rows of test table whose transaction time ended
+     *
+     * @return Number of rows
+     * @throws SQLException
+     */
+    private int countClosedRows() throws SQLException {
+        try (Statement base = TestsSettings.baseConnection.createStatement();
+                ResultSet res = base.executeQuery("SELECT COUNT(*) FROM connection_test_table"
+                        + " WHERE " + Settings.TransactionTimeEndColumnName + " <> " + FOREVER)) {
+            res.next();
+            return res.getInt(1);
+        }
+    }
+
+    /**
+     * Test initialization cached per database, adapters of new connection
+     * objects of the same database, as returned by pools on every borrow,
+     * don't detect database again
+     *
+     * @throws Exception
+     */
+    public void testInitCache() throws Exception {
+        int[] detections = {0};
+        Init.reset();
+        Connection first = forward(TestsSettings.baseConnection, detections);
+        assertFalse(Init.isInitialized(first));
+
+        new TSQL2Adapter(first).close();
+        assertTrue(Init.isInitialized(first));
+        assertEquals(1, detections[0]);
+
+        Connection second = forward(TestsSettings.baseConnection, detections);
+        assertNotSame(first, second);
+        assertTrue(Init.isInitialized(second));
+        new TSQL2Adapter(second).close();
+        assertEquals(1, detections[0]);
+    }
+
+    /**
+     * Test initialization of database whose temporal schema was dropped,
+     * schema is created again after cached initialization is reset. Runs only
+     * with disposable database.
+     *
+     * @throws Exception
+     */
+    public void testInitRecreatedDatabase() throws Exception {
+        Connection scratch = TestsSettings.openScratchConnection();
+        if (scratch == null) {
+            return;
+        }
+        try {
+            new TSQL2Adapter(scratch).close();
+            Statement base = scratch.createStatement();
+            base.execute("DROP TABLE " + Settings.SurrogateTableName);
+            base.execute("DROP TABLE " + Settings.TemporalSpecTableName);
+            base.close();
+
+            // dropped schema is not noticed until cached initialization is reset
+            assertTrue(Init.isInitialized(scratch));
+            Init.reset(scratch);
+            assertFalse(Init.isInitialized(scratch));
+            assertTrue(Init.isInitialized(TestsSettings.baseConnection));
+
+            try (TSQL2Adapter adapter = new TSQL2Adapter(scratch);
+                    Statement adapterStmt = adapter.createStatement()) {
+                assertTrue(Init.isInitialized(scratch));
+                adapterStmt.execute("CREATE TABLE connection_scratch_table ("
+                        + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                        + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL)"
+                        + " AS VALID STATE");
+                assertEquals(STATE, adapter.getTemporalMetaData().getMetaData("connection_scratch_table").getValidTimeSupport());
+                adapterStmt.execute("DROP TABLE connection_scratch_table");
+            }
+        }
+        finally {
+            scratch.close();
+        }
+    }
+
+    /**
+     * Create new connection object forwarding calls to other connection, as
+     * e.g. connection of pool.
+     *
+     * @param target Connection to forward calls to
+     * @param detections Counter of database product detections
+     * @return Forwarding connection
+     */
+    private static Connection forward(Connection target, int[] detections) {
+        return (Connection) Proxy.newProxyInstance(ConnectionTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (method.getName().equals("getMetaData")) {
+                        DatabaseMetaData meta = (DatabaseMetaData) result;
+                        return Proxy.newProxyInstance(ConnectionTest.class.getClassLoader(),
+                                new Class<?>[]{DatabaseMetaData.class}, (m, metaMethod, metaArgs) -> {
+                                    if (metaMethod.getName().equals("getDatabaseProductName")) {
+                                        detections[0]++;
+                                    }
+                                    return invoke(meta, metaMethod, metaArgs);
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Invoke method on target object and unwrap its exception.
+     *
+     * @param target Object to invoke method on
+     * @param method Invoked method
+     * @param args Arguments of method
+     * @return Result of method
+     * @throws Throwable
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Driver of jdbc:forward: URLs returning base connection of tests
+     */
+    private static class ForwardingDriver implements Driver {
+
+        /**
+         * Registered instance
+         */
+        static final ForwardingDriver INSTANCE = new ForwardingDriver();
+
+        /**
+         * URL of last connection
+         */
+        String url = null;
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            this.url = url;
+            return TestsSettings.baseConnection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) throws SQLException {
+            return url.startsWith("jdbc:forward:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
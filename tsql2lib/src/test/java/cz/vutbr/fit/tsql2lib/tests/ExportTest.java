@@ -0,0 +1,246 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.ExportFormat;
+import cz.vutbr.fit.tsql2lib.ResultExporter;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2ResultSet;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Tests of export of temporal results by ResultExporter
+ */
+public class ExportTest extends TestCase implements Constants {
+
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+    /**
+     * Results object used in tests
+     */
+    ResultSet results = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(ExportTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE export_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE export_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL,"
+                + " address " + TypeMapper.get(TSQL2Types.VARCHAR) + "(255) NOT NULL)"
+                + " AS VALID STATE AND TRANSACTION");
+
+        stmt.execute("INSERT INTO export_test_table VALUES (1, 'Bob', 'Straight Boulevard 3') VALID PERIOD [1985-02-16 - 2000-01-01 15:06:32]");
+        stmt.execute("INSERT INTO export_test_table VALUES (2, 'James', 'Low Street 5') VALID PERIOD [2003-02-16 01:32:15 - 2006-01-01]");
+        stmt.execute("INSERT INTO export_test_table VALUES (3, 'Marry', 'High Street 12') VALID PERIOD [2002-12-01 - FOREVER]");
+        stmt.execute("INSERT INTO export_test_table VALUES (4, 'Peter', 'Wall Street 1') VALID PERIOD [1996-02-15 - 2006-09-08]");
+        stmt.execute("INSERT INTO export_test_table VALUES (5, 'Lucy', 'Brown Road 123') VALID PERIOD [2003-06-01 - FOREVER]");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE export_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        if (results != null) {
+            try {
+                results.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            results = null;
+        }
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Test export of results to CSV and JSON Lines
+     */
+    public void testExport() throws Exception {
+        String period = Utils.dateToTimestamp("1985-02-16") + "," + Utils.dateToTimestamp("2000-01-01 15:06:32");
+
+        stmt = con.createStatement();
+        results = stmt.executeQuery("SELECT * FROM export_test_table WHERE id = 1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, new ResultExporter(ExportFormat.CSV).export((TSQL2ResultSet) results, out));
+        String[] lines = out.toString("UTF-8").split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].toUpperCase().contains("VALID_START,VALID_END"));
+        assertTrue(lines[1].startsWith("1,Bob,Straight Boulevard 3," + period));
+
+        results = stmt.executeQuery("SELECT * FROM export_test_table WHERE id = 1");
+        out.reset();
+        ResultExporter exporter = new ResultExporter(ExportFormat.JSON_LINES);
+        exporter.setFetchSize(10);
+        assertEquals(1, exporter.export((TSQL2ResultSet) results, out));
+        String line = out.toString("UTF-8");
+        assertTrue(line.endsWith("}\n"));
+        assertTrue(line.contains("\"Bob\""));
+        assertTrue(line.contains("[" + period + "]"));
+    }
+
+    /**
+     * Test binary export decoded by documented layout, with null values and
+     * rows split into several blocks
+     */
+    public void testExportBinary() throws Exception {
+        stmt = con.createStatement();
+        stmt.execute("CREATE TABLE export_test_binary ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32),"
+                + " score " + TypeMapper.get(TSQL2Types.BIGINT) + ")"
+                + " AS VALID STATE");
+        try {
+            for (int i = 1; i <= 11; i++) {
+                stmt.execute("INSERT INTO export_test_binary VALUES (" + i + ", "
+                        + ((i % 3 == 0) ? "NULL" : "'N\u00e1me " + i + "'") + ", "
+                        + ((i % 4 == 0) ? "NULL" : String.valueOf(i * 1000000000000L)) + ")"
+                        + " VALID PERIOD [2000-01-" + (10 + i) + " - " + ((i % 2 == 0) ? "FOREVER" : "2010-01-01") + "]");
+            }
+
+            List<String> expected = new ArrayList<>();
+            results = stmt.executeQuery("SELECT * FROM export_test_binary ORDER BY id");
+            TSQL2ResultSet temporalResults = (TSQL2ResultSet) results;
+            while (results.next()) {
+                long score = results.getLong(3);
+                String scoreValue = results.wasNull() ? "null" : String.valueOf(score);
+                expected.add(results.getLong(1) + "|" + results.getString(2) + "|" + scoreValue
+                        + "|" + temporalResults.getPeriodStart(4) + "," + temporalResults.getPeriodEnd(4));
+            }
+            results.close();
+
+            results = stmt.executeQuery("SELECT * FROM export_test_binary ORDER BY id");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ResultExporter exporter = new ResultExporter(ExportFormat.BINARY);
+            exporter.setBlockRows(4);
+            assertEquals(11, exporter.export((TSQL2ResultSet) results, out));
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(ResultExporter.BINARY_MAGIC, in.readInt());
+            assertEquals(ResultExporter.BINARY_VERSION, in.readByte());
+            int columnCount = in.readInt();
+            assertEquals(4, columnCount);
+            byte[] kinds = new byte[columnCount];
+            String[] labels = new String[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                kinds[c] = in.readByte();
+                byte[] label = new byte[in.readShort()];
+                in.readFully(label);
+                labels[c] = new String(label, StandardCharsets.UTF_8);
+            }
+            assertEquals("ID", labels[0].toUpperCase());
+            assertEquals("VALID", labels[3].toUpperCase());
+            assertEquals(ResultExporter.LONG_COLUMN, kinds[0]);
+            assertEquals(ResultExporter.TEXT_COLUMN, kinds[1]);
+            assertEquals(ResultExporter.LONG_COLUMN, kinds[2]);
+            assertEquals(ResultExporter.PERIOD_COLUMN, kinds[3]);
+
+            List<String> decoded = new ArrayList<>();
+            List<Integer> blocks = new ArrayList<>();
+            int blockRows;
+            while ((blockRows = in.readInt()) > 0) {
+                blocks.add(blockRows);
+                String[][] values = new String[blockRows][columnCount];
+                for (int c = 0; c < columnCount; c++) {
+                    byte[] nulls = new byte[(blockRows + 7) / 8];
+                    in.readFully(nulls);
+                    for (int row = 0; row < blockRows; row++) {
+                        if ((nulls[row / 8] & (1 << (row % 8))) != 0) {
+                            values[row][c] = "null";
+                            continue;
+                        }
+                        switch (kinds[c]) {
+                            case ResultExporter.TEXT_COLUMN:
+                                byte[] text = new byte[in.readInt()];
+                                in.readFully(text);
+                                values[row][c] = new String(text, StandardCharsets.UTF_8);
+                                break;
+                            case ResultExporter.PERIOD_COLUMN:
+                                values[row][c] = in.readLong() + "," + in.readLong();
+                                break;
+                            default:
+                                values[row][c] = String.valueOf(in.readLong());
+                                break;
+                        }
+                    }
+                }
+                for (String[] row : values) {
+                    decoded.add(String.join("|", row));
+                }
+            }
+            assertEquals(-1, in.read());
+            assertEquals(Arrays.asList(4, 4, 3), blocks);
+            assertEquals(expected, decoded);
+            assertTrue(decoded.get(2).startsWith("3|null|3000000000000|"));
+            assertTrue(decoded.get(3).startsWith("4|N\u00e1me 4|null|"));
+        }
+        finally {
+            stmt = con.createStatement();
+            stmt.execute("DROP TABLE export_test_binary");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+import cz.vutbr.fit.tsql2lib.monitoring.FlightRecorderEvents;
+
+/**
+ * Tests of JFR events. This class uses jdk.jfr API directly, so it is compiled
+ * only by "jfr" profile and added to AllTests only if JFR is present.
+ */
+public class FlightRecorderTest extends TestCase {
+
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+    /**
+     * Results object used in tests
+     */
+    ResultSet results = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(FlightRecorderTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE flight_recorder_test");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE flight_recorder_test ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL)"
+                + " AS VALID STATE");
+
+        stmt.execute("INSERT INTO flight_recorder_test VALUES (1, 'Bob') VALID PERIOD [1985-02-16 - FOREVER]");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE flight_recorder_test");
+        }
+        catch (SQLException e) {
+        }
+
+        if (results != null) {
+            try {
+                results.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            results = null;
+        }
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Test JFR events of statement phases
+     *
+     * @throws Exception
+     */
+    public void testStatementEvents() throws Exception {
+        if (!FlightRecorderEvents.get().isAvailable()) {
+            return;
+        }
+        Path file = Files.createTempFile("tsql2", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("cz.vutbr.fit.tsql2lib.Parse");
+            recording.enable("cz.vutbr.fit.tsql2lib.Execute");
+            recording.start();
+            stmt = con.createStatement();
+            results = stmt.executeQuery("SELECT * FROM flight_recorder_test ORDER BY id");
+            recording.stop();
+            recording.dump(file);
+
+            List<String> names = RecordingFile.readAllEvents(file).stream()
+                    .map(event -> event.getEventType().getName())
+                    .collect(Collectors.toList());
+            assertTrue(names.contains("cz.vutbr.fit.tsql2lib.Parse"));
+            assertTrue(names.contains("cz.vutbr.fit.tsql2lib.Execute"));
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
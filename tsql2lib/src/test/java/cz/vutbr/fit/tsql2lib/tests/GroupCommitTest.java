@@ -0,0 +1,271 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DurabilityMode;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.TSQL2Statement;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+
+/**
+ * Tests of group commit of TSQL2 statements executed in auto commit mode.
+ */
+public class GroupCommitTest extends TestCase implements Constants {
+
+    /**
+     * Delay long enough for group not to be flushed by timer during test
+     */
+    private static final long LONG_DELAY = 60000;
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(GroupCommitTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE group_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE group_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL)"
+                + " AS VALID STATE");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        // commits open group and restores auto commit of underlying connection
+        con.setDurabilityMode(DurabilityMode.SYNC, 1, 0);
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE group_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Test group committed when it holds configured number of statements
+     *
+     * @throws Exception
+     */
+    public void testFlushByCount() throws Exception {
+        con.setDurabilityMode(DurabilityMode.ASYNC, 3, LONG_DELAY);
+        CompletableFuture<Void> first = insert(1, "Bob");
+        CompletableFuture<Void> second = insert(2, "Alice");
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        CompletableFuture<Void> third = insert(3, "Carol");
+        assertSame(first, third);
+        assertTrue(first.isDone());
+        assertFalse(first.isCompletedExceptionally());
+
+        // next statement opens new group
+        CompletableFuture<Void> fourth = insert(4, "Dave");
+        assertNotSame(first, fourth);
+        assertFalse(fourth.isDone());
+    }
+
+    /**
+     * Test group committed by timer after configured delay
+     *
+     * @throws Exception
+     */
+    public void testFlushByDelay() throws Exception {
+        con.setDurabilityMode(DurabilityMode.ASYNC, 100, 500);
+        CompletableFuture<Void> commit = insert(1, "Bob");
+        assertFalse(commit.isDone());
+
+        commit.get(10, TimeUnit.SECONDS);
+        assertFalse(commit.isCompletedExceptionally());
+        assertEquals(1, countRows());
+    }
+
+    /**
+     * Test execution in GROUP mode returning after group is committed and
+     * commit of connection flushing open group in ASYNC mode
+     *
+     * @throws Exception
+     */
+    public void testCommitFuture() throws Exception {
+        con.setDurabilityMode(DurabilityMode.GROUP, 100, 100);
+        CompletableFuture<Void> commit = insert(1, "Bob");
+        assertTrue(commit.isDone());
+        assertFalse(commit.isCompletedExceptionally());
+
+        con.setDurabilityMode(DurabilityMode.ASYNC, 100, LONG_DELAY);
+        commit = insert(2, "Alice");
+        assertFalse(commit.isDone());
+        con.commit();
+        assertTrue(commit.isDone());
+        assertFalse(commit.isCompletedExceptionally());
+        assertTrue(con.getAutoCommit());
+    }
+
+    /**
+     * Test rollback of whole group when one of its statements fails,
+     * statements of other callers which already returned in ASYNC mode are
+     * rolled back too and their commit futures complete exceptionally
+     *
+     * @throws Exception
+     */
+    public void testGroupRollback() throws Exception {
+        con.setDurabilityMode(DurabilityMode.ASYNC, 100, LONG_DELAY);
+        Statement other = con.createStatement();
+        assertEquals(1, other.executeUpdate("INSERT INTO group_test_table VALUES (1, 'Bob')"
+                + " VALID PERIOD [2000-01-01 - FOREVER]"));
+        CompletableFuture<Void> otherCommit = ((TSQL2Statement) other).getCommitFuture();
+        insert(2, "Alice");
+        assertEquals(2, countRows());
+
+        try {
+            stmt.executeUpdate("INSERT INTO group_test_table VALUES (2, 'Carol')"
+                    + " VALID PERIOD [2000-01-01 - FOREVER]");
+            fail("Duplicate key must fail.");
+        }
+        catch (SQLException e) {
+        }
+
+        assertTrue(otherCommit.isCompletedExceptionally());
+        assertEquals(0, countRows());
+        other.close();
+
+        // next group is not affected
+        CompletableFuture<Void> commit = insert(3, "Dave");
+        con.commit();
+        assertFalse(commit.isCompletedExceptionally());
+        assertEquals(1, countRows());
+    }
+
+    /**
+     * Test that connection can't be rolled back in group commit modes, its
+     * statements are in auto commit mode
+     *
+     * @throws Exception
+     */
+    public void testRollback() throws Exception {
+        con.setDurabilityMode(DurabilityMode.GROUP, 100, 100);
+        try {
+            con.rollback();
+            fail("Rollback must fail in auto commit mode.");
+        }
+        catch (TSQL2Exception e) {
+        }
+
+        con.setDurabilityMode(DurabilityMode.ASYNC, 100, LONG_DELAY);
+        CompletableFuture<Void> commit = insert(1, "Bob");
+        try {
+            con.rollback();
+            fail("Rollback must fail in auto commit mode.");
+        }
+        catch (TSQL2Exception e) {
+        }
+        con.commit();
+        assertFalse(commit.isCompletedExceptionally());
+        assertEquals(1, countRows());
+    }
+
+    /**
+     * Test results of query in GROUP mode readable after their group was
+     * committed, because they are read into memory before
+     *
+     * @throws Exception
+     */
+    public void testQuery() throws Exception {
+        con.setDurabilityMode(DurabilityMode.GROUP, 100, 100);
+        insert(1, "Bob");
+        insert(2, "Alice");
+
+        ResultSet results = stmt.executeQuery("SELECT id, name FROM group_test_table ORDER BY id");
+        assertTrue(((TSQL2Statement) stmt).getCommitFuture().isDone());
+        assertTrue(results.next());
+        assertEquals("Bob", results.getString("name"));
+        assertTrue(results.next());
+        assertEquals("Alice", results.getString("name"));
+        assertFalse(results.next());
+        results.close();
+    }
+
+    /**
+     * Insert row into test table by test statement
+     *
+     * @param id Id of row
+     * @param name Name of row
+     * @return Commit future of insert
+     * @throws SQLException
+     */
+    private CompletableFuture<Void> insert(int id, String name) throws SQLException {
+        assertEquals(1, stmt.executeUpdate("INSERT INTO group_test_table VALUES (" + id + ", '" + name + "')"
+                + " VALID PERIOD [2000-01-01 - FOREVER]"));
+        return ((TSQL2Statement) stmt).getCommitFuture();
+    }
+
+    /**
+     * Count rows of test table through underlying connection, which sees
+     * rows of open group too
+     *
+     * @return Number of rows
+     * @throws SQLException
+     */
+    private static int countRows() throws SQLException {
+        try (Statement base = TestsSettings.baseConnection.createStatement();
+                ResultSet res = base.executeQuery("SELECT COUNT(*) FROM group_test_table")) {
+            res.next();
+            return res.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.io.StringWriter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DatabaseType;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Statement;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+import cz.vutbr.fit.tsql2lib.monitoring.AccessPattern;
+import cz.vutbr.fit.tsql2lib.monitoring.ExecutedStatement;
+import cz.vutbr.fit.tsql2lib.monitoring.ExplainedStatement;
+import cz.vutbr.fit.tsql2lib.monitoring.Explanation;
+import cz.vutbr.fit.tsql2lib.monitoring.InMemoryMetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexAdvisor;
+import cz.vutbr.fit.tsql2lib.monitoring.IndexRecommendation;
+import cz.vutbr.fit.tsql2lib.monitoring.NoopMetricsRegistry;
+import cz.vutbr.fit.tsql2lib.monitoring.Phase;
+import cz.vutbr.fit.tsql2lib.monitoring.SlowStatementEntry;
+import cz.vutbr.fit.tsql2lib.monitoring.SlowStatementLog;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementContext;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementListener;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementStatistics;
+import cz.vutbr.fit.tsql2lib.monitoring.WorkloadStatistics;
+import cz.vutbr.fit.tsql2lib.translators.StatementType;
+
+/**
+ * Tests of monitoring of statements, i.e. metrics, slow statement log,
+ * statement listener, workload statistics, explanation and index advisor
+ */
+public class MonitoringTest extends TestCase implements Constants {
+
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+    /**
+     * Results object used in tests
+     */
+    ResultSet results = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(MonitoringTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE monitoring_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE monitoring_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL,"
+                + " address " + TypeMapper.get(TSQL2Types.VARCHAR) + "(255) NOT NULL)"
+                + " AS VALID STATE AND TRANSACTION");
+
+        stmt.execute("INSERT INTO monitoring_test_table VALUES (1, 'Bob', 'Straight Boulevard 3') VALID PERIOD [1985-02-16 - 2000-01-01 15:06:32]");
+        stmt.execute("INSERT INTO monitoring_test_table VALUES (2, 'James', 'Low Street 5') VALID PERIOD [2003-02-16 01:32:15 - 2006-01-01]");
+        stmt.execute("INSERT INTO monitoring_test_table VALUES (3, 'Marry', 'High Street 12') VALID PERIOD [2002-12-01 - FOREVER]");
+        stmt.execute("INSERT INTO monitoring_test_table VALUES (4, 'Peter', 'Wall Street 1') VALID PERIOD [1996-02-15 - 2006-09-08]");
+        stmt.execute("INSERT INTO monitoring_test_table VALUES (5, 'Lucy', 'Brown Road 123') VALID PERIOD [2003-06-01 - FOREVER]");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE monitoring_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        if (results != null) {
+            try {
+                results.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            results = null;
+        }
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Test recording of statement metrics
+     */
+    public void testMetrics() throws Exception {
+        InMemoryMetricsRegistry metrics = new InMemoryMetricsRegistry();
+        con.setMetricsRegistry(metrics);
+        try {
+            stmt = con.createStatement();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table ORDER BY id");
+            results.close();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table ORDER BY id");
+
+            for (Phase phase : Phase.values()) {
+                assertEquals(2, metrics.getLatency(StatementType.SELECT, phase).getCount());
+            }
+            assertTrue(metrics.getGeneratedStatements(StatementType.SELECT) >= 2);
+            assertTrue(metrics.getCatalogLookups() >= 2);
+            assertEquals(0, metrics.getLatency(StatementType.INSERT, Phase.PARSE).getCount());
+        }
+        finally {
+            con.setMetricsRegistry(NoopMetricsRegistry.INSTANCE);
+        }
+    }
+
+    /**
+     * Test logging of slow statements
+     *
+     * @throws Exception
+     */
+    public void testSlowStatementLog() throws Exception {
+        List<SlowStatementEntry> entries = new ArrayList<>();
+        SlowStatementLog log = new SlowStatementLog(entries::add);
+        log.setThreshold(0, TimeUnit.NANOSECONDS);
+        log.setSampleRate(1.0);
+        con.setSlowStatementLog(log);
+        try {
+            stmt = con.createStatement();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table ORDER BY id");
+            assertTrue(results.next());
+            results.close();
+
+            // unsampled statement is logged with generated statements which are not measured
+            log.setSampleRate(0);
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table ORDER BY id");
+            assertTrue(results.next());
+
+            try {
+                stmt.executeQuery("SELECT * FROM select_test_missing");
+                fail("Query of missing table should fail.");
+            }
+            catch (SQLException e) {
+                // expected
+            }
+        }
+        finally {
+            con.setSlowStatementLog(null);
+            log.close();
+        }
+
+        assertEquals(3, entries.size());
+        SlowStatementEntry entry = entries.get(0);
+        assertEquals("SELECT * FROM monitoring_test_table ORDER BY id", entry.getTsql2());
+        assertEquals(StatementType.SELECT, entry.getType());
+        assertFalse(entry.isFailed());
+        assertFalse(entry.getStatements().isEmpty());
+        assertTrue(entry.getStatements().get(0).isMeasured());
+        assertEquals(-1, entry.getStatements().get(entry.getStatements().size() - 1).getUpdateCount());
+        List<ExecutedStatement> sampled = entry.getStatements();
+
+        entry = entries.get(1);
+        assertFalse(entry.isFailed());
+        assertEquals(sampled.size(), entry.getStatements().size());
+        for (int i = 0; i < sampled.size(); i++) {
+            ExecutedStatement statement = entry.getStatements().get(i);
+            assertEquals(sampled.get(i).getSql(), statement.getSql());
+            assertFalse(statement.isMeasured());
+            assertEquals(ExecutedStatement.UNKNOWN, statement.getNanos());
+            assertEquals(ExecutedStatement.UNKNOWN, statement.getUpdateCount());
+        }
+        assertTrue(entry.getNanos() > 0);
+
+        entry = entries.get(2);
+        assertEquals("SELECT * FROM select_test_missing", entry.getTsql2());
+        assertTrue(entry.isFailed());
+        assertNotNull(entry.getError());
+        assertEquals(0, log.getDroppedCount());
+    }
+
+    /**
+     * Test callbacks of statement listener
+     *
+     * @throws Exception
+     */
+    public void testStatementListener() throws Exception {
+        List<String> calls = new ArrayList<>();
+        con.setStatementListener(new StatementListener() {
+            @Override
+            public void contextCreated(StatementContext context) {
+                context.setAttribute("thread", Thread.currentThread());
+                calls.add("contextCreated");
+            }
+
+            @Override
+            public void beforeParse(StatementContext context) {
+                calls.add("beforeParse");
+            }
+
+            @Override
+            public void afterTranslate(StatementContext context, StatementType type, String[] statements) {
+                calls.add("afterTranslate " + type);
+            }
+
+            @Override
+            public void afterExecute(StatementContext context, String sql, int updateCount) {
+                calls.add("afterExecute");
+            }
+
+            @Override
+            public void resultSetClosed(StatementContext context) {
+                calls.add("resultSetClosed " + context.isAsync() + " " + (context.getAttribute("thread") != null));
+            }
+        });
+        try {
+            stmt = con.createStatement();
+            results = ((TSQL2Statement) stmt).executeQueryAsync("SELECT * FROM monitoring_test_table ORDER BY id").get();
+            results.close();
+        }
+        finally {
+            con.setStatementListener(null);
+        }
+
+        assertEquals("contextCreated", calls.get(0));
+        assertEquals("beforeParse", calls.get(1));
+        assertTrue(calls.contains("afterTranslate SELECT"));
+        assertTrue(calls.contains("afterExecute"));
+        assertEquals("resultSetClosed true true", calls.get(calls.size() - 1));
+    }
+
+    /**
+     * Test statistics aggregated by statement fingerprint
+     *
+     * @throws Exception
+     */
+    public void testWorkloadStatistics() throws Exception {
+        WorkloadStatistics statistics = new WorkloadStatistics();
+        con.setWorkloadStatistics(statistics);
+        try {
+            stmt = con.createStatement();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table WHERE id = 1");
+            results.close();
+            results = stmt.executeQuery("select * from monitoring_test_table  where id = 2");
+        }
+        finally {
+            con.setWorkloadStatistics(null);
+        }
+
+        List<StatementStatistics> all = statistics.getAll();
+        assertEquals(1, all.size());
+        assertEquals(2, all.get(0).getCalls());
+        assertEquals(StatementType.SELECT, all.get(0).getType());
+        assertEquals("SELECT * FROM MONITORING_TEST_TABLE WHERE ID = ?", all.get(0).getShape());
+        assertNotNull(statistics.get(all.get(0).getId()));
+
+        StringWriter csv = new StringWriter();
+        statistics.writeCsv(csv);
+        assertEquals(2, csv.toString().split("\n").length);
+    }
+
+    /**
+     * Test explanation of statement with and without analyze and by EXPLAIN
+     * statement
+     *
+     * @throws Exception
+     */
+    public void testExplain() throws Exception {
+        stmt = con.createStatement();
+        Explanation explanation = ((TSQL2Statement) stmt).explain("SELECT * FROM monitoring_test_table WHERE id = 1");
+        assertFalse(explanation.isAnalyzed());
+        assertEquals(StatementType.SELECT, explanation.getType());
+        assertFalse(explanation.getStatements().isEmpty());
+        assertTrue(explanation.getNodeCount() >= explanation.getTreeDepth());
+        for (ExplainedStatement statement : explanation.getStatements()) {
+            assertNull(statement.getExecution());
+        }
+
+        explanation = ((TSQL2Statement) stmt).explain("SELECT * FROM monitoring_test_table WHERE id = 1", true);
+        List<ExplainedStatement> statements = explanation.getStatements();
+        ExplainedStatement last = statements.get(statements.size() - 1);
+        assertNotNull(last.getExecution());
+        assertEquals(1, last.getRows());
+
+        results = stmt.executeQuery("EXPLAIN ANALYZE SELECT * FROM monitoring_test_table WHERE id = 1");
+        int rows = 0;
+        while (results.next()) {
+            assertNotNull(results.getString("PLAN"));
+            rows++;
+        }
+        assertTrue(rows > explanation.getStatements().size());
+    }
+
+    /**
+     * Test access patterns recorded by index advisor and indexes created from
+     * its recommendations, created indexes are dropped at the end
+     *
+     * @throws Exception
+     */
+    public void testIndexAdvisor() throws Exception {
+        IndexAdvisor advisor = new IndexAdvisor();
+        con.setIndexAdvisor(advisor);
+        try {
+            stmt = con.createStatement();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table WHERE name = 'Bob'");
+            results.close();
+            results = stmt.executeQuery("SELECT * FROM monitoring_test_table WHERE name = 'Lucy'");
+        }
+        finally {
+            con.setIndexAdvisor(null);
+        }
+
+        AccessPattern byName = null;
+        for (AccessPattern pattern : advisor.getAccessPatterns()) {
+            if (pattern.getEqualityColumns().contains("name")) {
+                byName = pattern;
+            }
+        }
+        assertNotNull(byName);
+        assertEquals(2, byName.getCalls());
+
+        con.setIndexAdvisor(advisor);
+        List<IndexRecommendation> created = new ArrayList<>();
+        try {
+            IndexRecommendation recommendation = null;
+            for (IndexRecommendation r : con.getIndexRecommendations()) {
+                if (r.getColumns().get(0).equals("name")) {
+                    recommendation = r;
+                }
+            }
+            assertNotNull(recommendation);
+            assertTrue(recommendation.getCalls() >= 2);
+            created.addAll(con.createRecommendedIndexes());
+            // created indexes are not recommended again
+            assertTrue(con.getIndexRecommendations().isEmpty());
+        }
+        finally {
+            con.setIndexAdvisor(null);
+            Statement base = con.getUnderlyingConnection().createStatement();
+            try {
+                for (IndexRecommendation index : created) {
+                    if (Settings.DatabaseType.equals(DatabaseType.MYSQL)) {
+                        base.execute("DROP INDEX " + index.getName() + " ON " + index.getTable());
+                    } else {
+                        base.execute("DROP INDEX " + index.getName());
+                    }
+                }
+            }
+            finally {
+                base.close();
+            }
+        }
+    }
+}
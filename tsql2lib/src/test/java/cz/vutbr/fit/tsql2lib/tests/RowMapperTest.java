@@ -0,0 +1,155 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.BeanRowMapper;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Statement;
+import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TimePeriod;
+import cz.vutbr.fit.tsql2lib.TypeMapper;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Tests of mapping of temporal result rows to objects
+ */
+public class RowMapperTest extends TestCase implements Constants {
+
+    /**
+     * Connection adapter for TSQL2.
+     */
+    private TSQL2Adapter con;
+    /**
+     * Statement object used in tests
+     */
+    Statement stmt = null;
+    /**
+     * Results object used in tests
+     */
+    ResultSet results = null;
+
+    public static Test suite() {
+        TestsSettings.init();
+        return new TestSuite(RowMapperTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        con = new TSQL2Adapter(TestsSettings.baseConnection);
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE mapper_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        stmt.execute("CREATE TABLE mapper_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL,"
+                + " address " + TypeMapper.get(TSQL2Types.VARCHAR) + "(255) NOT NULL)"
+                + " AS VALID STATE AND TRANSACTION");
+
+        stmt.execute("INSERT INTO mapper_test_table VALUES (1, 'Bob', 'Straight Boulevard 3') VALID PERIOD [1985-02-16 - 2000-01-01 15:06:32]");
+        stmt.execute("INSERT INTO mapper_test_table VALUES (2, 'James', 'Low Street 5') VALID PERIOD [2003-02-16 01:32:15 - 2006-01-01]");
+        stmt.execute("INSERT INTO mapper_test_table VALUES (3, 'Marry', 'High Street 12') VALID PERIOD [2002-12-01 - FOREVER]");
+        stmt.execute("INSERT INTO mapper_test_table VALUES (4, 'Peter', 'Wall Street 1') VALID PERIOD [1996-02-15 - 2006-09-08]");
+        stmt.execute("INSERT INTO mapper_test_table VALUES (5, 'Lucy', 'Brown Road 123') VALID PERIOD [2003-06-01 - FOREVER]");
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+
+        stmt = con.createStatement();
+
+        try {
+            stmt.execute("DROP TABLE mapper_test_table");
+        }
+        catch (SQLException e) {
+        }
+
+        if (results != null) {
+            try {
+                results.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            results = null;
+        }
+        if (stmt != null) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException sqlEx) {
+            } // ignore
+            stmt = null;
+        }
+        if (null != con) {
+            con.close();
+        }
+    }
+
+    /**
+     * Row of mapper_test_table mapped by BeanRowMapper
+     */
+    public static class Person {
+
+        private int id;
+        private String name;
+        private TimePeriod valid;
+        private long validEnd;
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Test mapping of rows to objects
+     */
+    public void testBeanRowMapper() throws Exception {
+        TSQL2Statement streamStmt = (TSQL2Statement) con.createStatement();
+
+        List<Person> persons;
+        try (Stream<Person> stream = streamStmt.stream("SELECT * FROM mapper_test_table WHERE id = 1 OR id = 3 ORDER BY id",
+                new BeanRowMapper<>(Person.class))) {
+            persons = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(2, persons.size());
+        assertEquals(1, persons.get(0).id);
+        assertEquals("Bob", persons.get(0).name);
+        assertEquals(Utils.dateToTimestamp("1985-02-16"), persons.get(0).valid.getStart());
+        assertEquals(Utils.dateToTimestamp("2000-01-01 15:06:32"), persons.get(0).validEnd);
+        assertEquals("Marry", persons.get(1).name);
+        assertTrue(persons.get(1).valid.isForever());
+    }
+}
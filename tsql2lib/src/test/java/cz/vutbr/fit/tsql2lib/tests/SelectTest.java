@@ -13,19 +13,36 @@
  */
 package cz.vutbr.fit.tsql2lib.tests;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.MaterializedResultSet;
 import cz.vutbr.fit.tsql2lib.Settings;
 import cz.vutbr.fit.tsql2lib.TSQL2Adapter;
+import cz.vutbr.fit.tsql2lib.TSQL2Exception;
+import cz.vutbr.fit.tsql2lib.TSQL2ResultSet;
+import cz.vutbr.fit.tsql2lib.TSQL2Statement;
 import cz.vutbr.fit.tsql2lib.TSQL2Types;
+import cz.vutbr.fit.tsql2lib.TimePeriod;
 import cz.vutbr.fit.tsql2lib.TypeMapper;
 import cz.vutbr.fit.tsql2lib.Utils;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementContext;
+import cz.vutbr.fit.tsql2lib.monitoring.StatementListener;
 
 /**
  * Set of basic tests for SELECT statement
@@ -307,6 +324,378 @@ public class SelectTest extends TestCase implements Constants {
         }
     }
 
+    /**
+     * Test typed access to period values
+     */
+    public void testPeriodAccessors() throws Exception {
+        stmt = con.createStatement();
+
+        results = stmt.executeQuery("SELECT * FROM select_test_table_1 WHERE id = 1 OR id = 3 ORDER BY id");
+        TSQL2ResultSet temporalResults = (TSQL2ResultSet) results;
+
+        assertTrue(results.next());
+        assertEquals(Utils.dateToTimestamp("1985-02-16"), temporalResults.getPeriodStart(4));
+        assertEquals(Utils.dateToTimestamp("2000-01-01 15:06:32"), temporalResults.getPeriodEnd("VALID"));
+        TimePeriod period = temporalResults.getPeriod(4);
+        assertEquals(results.getString(4), period.toString());
+        assertEquals(period, results.getObject("VALID", TimePeriod.class));
+        assertFalse(period.isForever());
+
+        assertTrue(results.next());
+        period = results.getObject(4, TimePeriod.class);
+        assertEquals(Utils.dateToTimestamp("2002-12-01"), period.getStart());
+        assertTrue(period.isForever());
+        assertEquals(results.getString("VALID"), period.toString());
+
+        try {
+            temporalResults.getPeriod("name");
+            assertFalse("Period returned for non-temporal column", true);
+        }
+        catch (SQLException e) {
+        }
+
+        assertFalse(results.next());
+    }
+
+    /**
+     * Test scrolling in materialized results, with rows kept in memory and
+     * with rows spilled to disk, both on heap and off heap
+     */
+    public void testMaterializedResults() throws Exception {
+        long memoryLimit = Settings.MaterializedResultMemoryLimit;
+        boolean offHeap = Settings.MaterializedResultOffHeap;
+        try {
+            for (long limit : new long[]{0, 1}) {
+                for (boolean off : new boolean[]{false, true}) {
+                    Settings.MaterializedResultMemoryLimit = limit;
+                    Settings.MaterializedResultOffHeap = off;
+                    stmt = con.createStatement();
+                    ((TSQL2Statement) stmt).setMaterializeResults(true);
+
+                    results = stmt.executeQuery("SELECT * FROM select_test_table_1 ORDER BY id");
+                    assertTrue(results.last());
+                    int count = results.getRow();
+                    String lastPeriod = results.getString(4);
+
+                    assertTrue(results.first());
+                    assertEquals(1, results.getInt("id"));
+                    assertEquals("Bob", results.getString("name"));
+                    assertEquals("1985-02-16 00:00:00 - 2000-01-01 15:06:32", results.getString(4));
+
+                    assertTrue(results.absolute(-1));
+                    assertEquals(count, results.getRow());
+                    assertEquals(lastPeriod, results.getString("VALID"));
+                    assertTrue(results.previous());
+                    assertEquals(count - 1, results.getRow());
+
+                    results.afterLast();
+                    assertFalse(results.next());
+                    results.close();
+                }
+            }
+        }
+        finally {
+            Settings.MaterializedResultMemoryLimit = memoryLimit;
+            Settings.MaterializedResultOffHeap = offHeap;
+        }
+    }
+
+    /**
+     * Test materialized exact numbers wider than long
+     */
+    public void testMaterializedWideNumbers() throws Exception {
+        Statement base = TestsSettings.baseConnection.createStatement();
+        base.execute("CREATE TABLE select_test_numbers (n DECIMAL(20, 0), m DECIMAL(18, 0))");
+        try {
+            base.execute("INSERT INTO select_test_numbers VALUES (99999999999999999999, 999999999999999999)");
+            base.execute("INSERT INTO select_test_numbers VALUES (NULL, NULL)");
+
+            stmt = con.createStatement();
+            ((TSQL2Statement) stmt).setMaterializeResults(true);
+            results = stmt.executeQuery("SELECT n, m FROM select_test_numbers ORDER BY n");
+            assertTrue(results.next());
+            assertNull(results.getBigDecimal(1));
+            assertTrue(results.wasNull());
+            assertEquals(0, results.getLong(2));
+            assertTrue(results.wasNull());
+            assertTrue(results.next());
+            assertEquals(new BigDecimal("99999999999999999999"), results.getBigDecimal(1));
+            assertEquals("99999999999999999999", results.getString(1));
+            assertEquals(999999999999999999L, results.getLong(2));
+            assertFalse(results.next());
+            results.close();
+        }
+        finally {
+            base.execute("DROP TABLE select_test_numbers");
+            base.close();
+        }
+    }
+
+    /**
+     * Test materialization of values of driver specific classes which are not
+     * serializable, such values are rejected regardless of memory limit
+     */
+    public void testMaterializedDriverTypes() throws Exception {
+        for (long limit : new long[]{0, 1}) {
+            Statement base = TestsSettings.baseConnection.createStatement();
+            ResultSet original = base.executeQuery("SELECT id, name FROM select_test_table_1 ORDER BY id");
+            try {
+                new MaterializedResultSet(withDriverObjects(original), limit, false);
+                fail("Value which is not serializable must be rejected.");
+            }
+            catch (TSQL2Exception e) {
+                assertTrue(e.getMessage().contains("column 2"));
+            }
+            assertTrue(original.isClosed());
+            base.close();
+        }
+    }
+
+    /**
+     * Wrap relational result set to return values of second column as objects
+     * of driver specific class which is not serializable.
+     *
+     * @param target Relational result set
+     * @return Wrapped result set
+     */
+    private static ResultSet withDriverObjects(ResultSet target) {
+        return (ResultSet) Proxy.newProxyInstance(SelectTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if ("getObject".equals(method.getName()) && (args.length == 1)
+                            && Integer.valueOf(2).equals(args[0])) {
+                        return new Object();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    }
+                    catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Test reading of results prefetched in background
+     */
+    public void testPrefetchedResults() throws Exception {
+        // results are prefetched inside explicit transaction only
+        con.setAutoCommit(false);
+        try {
+            stmt = con.createStatement();
+            ResultSet expected = stmt.executeQuery("SELECT * FROM select_test_table_1 ORDER BY id");
+
+            Statement prefetchStmt = con.createStatement();
+            ((TSQL2Statement) prefetchStmt).setPrefetchRows(1);
+            results = prefetchStmt.executeQuery("SELECT * FROM select_test_table_1 ORDER BY id");
+
+            while (expected.next()) {
+                assertTrue(results.next());
+                assertEquals(expected.getInt("id"), results.getInt("id"));
+                assertEquals(expected.getString("name"), results.getString("name"));
+                assertEquals(expected.getString(4), results.getString(4));
+                assertEquals(expected.getString("VALID"), results.getString("VALID"));
+            }
+            assertFalse(results.next());
+            results.close();
+            prefetchStmt.close();
+            con.commit();
+        }
+        finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Test prefetched results of coalescing query, temporary tables of query
+     * are dropped only after results are read or closed
+     */
+    public void testPrefetchedCoalescedResults() throws Exception {
+        int tables = countTables();
+        List<String> rows = readCoalescedRows();
+        assertEquals(tables, countTables());
+
+        con.setAutoCommit(false);
+        try {
+            Statement prefetchStmt = con.createStatement();
+            ((TSQL2Statement) prefetchStmt).setPrefetchRows(1);
+            results = prefetchStmt.executeQuery("SELECT * FROM select_test_table_1(name) a ORDER BY name");
+            for (String row : rows) {
+                assertTrue(results.next());
+                assertEquals(row, results.getString("name") + " " + results.getString("VALID"));
+            }
+            assertFalse(results.next());
+            assertEquals(tables, countTables());
+            results.close();
+
+            // closed before all rows are read
+            results = prefetchStmt.executeQuery("SELECT * FROM select_test_table_1(name) a ORDER BY name");
+            assertTrue(results.next());
+            results.close();
+            assertEquals(tables, countTables());
+            prefetchStmt.close();
+            con.commit();
+        }
+        finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Test that results are not prefetched in auto commit mode, because
+     * transaction of query is committed right after its execution. Results
+     * are read directly, so temporary tables of query are dropped before they
+     * are read and other statements can be executed meanwhile.
+     */
+    public void testPrefetchRowsWithAutoCommit() throws Exception {
+        int tables = countTables();
+        List<String> rows = readCoalescedRows();
+        assertTrue(con.getAutoCommit());
+
+        Statement prefetchStmt = con.createStatement();
+        ((TSQL2Statement) prefetchStmt).setPrefetchRows(1);
+        results = prefetchStmt.executeQuery("SELECT * FROM select_test_table_1(name) a ORDER BY name");
+        assertEquals(tables, countTables());
+        stmt = con.createStatement();
+        ResultSet other = stmt.executeQuery("SELECT * FROM select_test_table_1 ORDER BY id");
+        assertTrue(other.next());
+        other.close();
+        for (String row : rows) {
+            assertTrue(results.next());
+            assertEquals(row, results.getString("name") + " " + results.getString("VALID"));
+        }
+        assertFalse(results.next());
+        results.close();
+        prefetchStmt.close();
+    }
+
+    /**
+     * Read rows of coalescing query without prefetching
+     *
+     * @return Name and valid time of each row
+     * @throws SQLException
+     */
+    private List<String> readCoalescedRows() throws SQLException {
+        stmt = con.createStatement();
+        ResultSet expected = stmt.executeQuery("SELECT * FROM select_test_table_1(name) a ORDER BY name");
+        List<String> rows = new ArrayList<>();
+        while (expected.next()) {
+            rows.add(expected.getString("name") + " " + expected.getString("VALID"));
+        }
+        expected.close();
+        return rows;
+    }
+
+    /**
+     * Count tables of underlying database
+     *
+     * @return Number of tables
+     * @throws SQLException
+     */
+    private static int countTables() throws SQLException {
+        int count = 0;
+        try (ResultSet tables = TestsSettings.baseConnection.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (tables.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test stream of mapped rows
+     */
+    public void testStream() throws Exception {
+        TSQL2Statement streamStmt = (TSQL2Statement) con.createStatement();
+
+        List<TimePeriod> periods;
+        try (Stream<TimePeriod> stream = streamStmt.stream("SELECT * FROM select_test_table_1 WHERE id = 1 OR id = 3 ORDER BY id",
+                r -> new TimePeriod(r.getPeriodStart(4), r.getPeriodEnd(4), DateTimeScale.SECOND))) {
+            periods = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(2, periods.size());
+        assertEquals(Utils.dateToTimestamp("1985-02-16"), periods.get(0).getStart());
+        assertEquals(Utils.dateToTimestamp("2000-01-01 15:06:32"), periods.get(0).getEnd());
+        assertTrue(periods.get(1).isForever());
+        assertTrue(streamStmt.isClosed());
+    }
+
+    /**
+     * Test asynchronous updates of several statements on one connection,
+     * failed statement must not roll back work of the others
+     *
+     * @throws Exception
+     */
+    public void testAsyncUpdates() throws Exception {
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        for (int id = 6; id < 16; id++) {
+            TSQL2Statement asyncStmt = (TSQL2Statement) con.createStatement();
+            updates.add(asyncStmt.executeUpdateAsync("INSERT INTO select_test_table_1 VALUES (" + id
+                    + ", 'Async', 'Parallel Street 1') VALID PERIOD [2010-01-01 - FOREVER]"));
+        }
+        // duplicate key fails while other statements are running
+        CompletableFuture<Integer> duplicate = ((TSQL2Statement) con.createStatement()).executeUpdateAsync(
+                "INSERT INTO select_test_table_1 VALUES (1, 'Async', 'Parallel Street 1') VALID PERIOD [2010-01-01 - FOREVER]");
+
+        for (CompletableFuture<Integer> update : updates) {
+            update.get();
+        }
+        try {
+            duplicate.get();
+            fail("Duplicate key was inserted.");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+
+        stmt = con.createStatement();
+        results = stmt.executeQuery("SELECT SNAPSHOT id FROM select_test_table_1 WHERE name = 'Async'");
+        int count = 0;
+        while (results.next()) {
+            count++;
+        }
+        assertEquals(10, count);
+    }
+
+    /**
+     * Test cancelling of asynchronous update before it starts and after it
+     * started, work of both must be rolled back
+     *
+     * @throws Exception
+     */
+    public void testAsyncCancel() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        con.setExecutor(tasks::add);
+        try {
+            TSQL2Statement asyncStmt = (TSQL2Statement) con.createStatement();
+            CompletableFuture<Integer> update = asyncStmt.executeUpdateAsync("INSERT INTO select_test_table_1"
+                    + " VALUES (6, 'Cancelled', 'Parallel Street 1') VALID PERIOD [2010-01-01 - FOREVER]");
+            assertTrue(update.cancel(true));
+            tasks.remove(0).run();
+
+            List<CompletableFuture<Integer>> running = new ArrayList<>();
+            con.setStatementListener(new StatementListener() {
+                @Override
+                public void beforeParse(StatementContext context) {
+                    // cancel arrives when the execution already started
+                    running.get(0).cancel(true);
+                }
+            });
+            running.add(asyncStmt.executeUpdateAsync("INSERT INTO select_test_table_1"
+                    + " VALUES (7, 'Cancelled', 'Parallel Street 1') VALID PERIOD [2010-01-01 - FOREVER]"));
+            tasks.remove(0).run();
+            assertTrue(running.get(0).isCancelled());
+        }
+        finally {
+            con.setStatementListener(null);
+            con.setExecutor(null);
+        }
+
+        stmt = con.createStatement();
+        results = stmt.executeQuery("SELECT * FROM select_test_table_1 WHERE name = 'Cancelled'");
+        assertFalse(results.next());
+    }
+
     /**
      * Test select for current time
      */
@@ -31,6 +31,11 @@ public class TestsSettings {
      * Base connection
      */
     public static Connection baseConnection = null;
+    /**
+     * URL of disposable database of the same type as base connection, used by
+     * tests dropping temporal schema, or null to skip such tests
+     */
+    public static String scratchUrl = null;
 
     /**
      * Init tests settings for single test. Call this method from single test
@@ -52,4 +57,21 @@ public class TestsSettings {
             }
         }
     }
+
+    /**
+     * Open connection to disposable database.
+     *
+     * @return Connection or null if disposable database is not available
+     */
+    public static Connection openScratchConnection() {
+        if (scratchUrl == null) {
+            return null;
+        }
+        try {
+            return DriverManager.getConnection(scratchUrl, "root", "root");
+        }
+        catch (SQLException e) {
+            return null;
+        }
+    }
 }
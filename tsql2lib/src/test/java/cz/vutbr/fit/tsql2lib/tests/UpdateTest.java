@@ -13,9 +13,14 @@
  */
 package cz.vutbr.fit.tsql2lib.tests;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -694,4 +699,106 @@ public class UpdateTest extends TestCase implements Constants {
             assertFalse("Less results returned", true);
         }
     }
+
+    /**
+     * Test update count of update translated into several statements
+     */
+    public void testBitemporalUpdateCount() throws Exception {
+        stmt = con.createStatement();
+
+        stmt.execute("CREATE TABLE update_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL,"
+                + " address " + TypeMapper.get(TSQL2Types.VARCHAR) + "(255) NOT NULL,"
+                + " salary " + TypeMapper.get(TSQL2Types.INT) + ")"
+                + " AS VALID STATE AND TRANSACTION");
+
+        stmt.execute("INSERT INTO update_test_table VALUES (1, 'Bob', 'Straight Boulevard 3', 10000) VALID PERIOD [1985-02-16 - 2000-01-01]");
+        stmt.execute("INSERT INTO update_test_table VALUES (2, 'James', 'Low Street 5', 20000) VALID PERIOD [2000-01-01 - FOREVER]");
+        stmt.execute("INSERT INTO update_test_table VALUES (3, 'Marry', 'High Street 12', 30000) VALID PERIOD [2020-01-01 - FOREVER]");
+
+        // only row of James is valid in updated period
+        assertEquals(1, stmt.executeUpdate("UPDATE update_test_table SET salary = 22000 VALID PERIOD [2001-01-01 - 2002-01-01]"));
+        assertEquals(1, stmt.getUpdateCount());
+        // only current version of James is updated, splitted parts are not counted
+        assertEquals(1, stmt.executeUpdate("UPDATE update_test_table SET salary = 23000 WHERE id = 2"));
+    }
+
+    /**
+     * Test update count of update translated into several statements on
+     * connection whose driver doesn't report update counts of batched
+     * statements
+     */
+    public void testUpdateCountWithoutBatchCounts() throws Exception {
+        stmt = con.createStatement();
+
+        stmt.execute("CREATE TABLE update_test_table ("
+                + " id " + TypeMapper.get(TSQL2Types.INT) + " PRIMARY KEY,"
+                + " name " + TypeMapper.get(TSQL2Types.VARCHAR) + "(32) NOT NULL,"
+                + " salary " + TypeMapper.get(TSQL2Types.INT) + ")"
+                + " AS VALID STATE AND TRANSACTION");
+
+        stmt.execute("INSERT INTO update_test_table VALUES (1, 'Bob', 10000) VALID PERIOD [1985-02-16 - 2000-01-01]");
+        stmt.execute("INSERT INTO update_test_table VALUES (2, 'James', 20000) VALID PERIOD [2000-01-01 - FOREVER]");
+
+        TSQL2Adapter noInfo = new TSQL2Adapter(withoutBatchCounts(TestsSettings.baseConnection));
+        try {
+            Statement noInfoStmt = noInfo.createStatement();
+            // first batch reveals missing counts
+            assertEquals(Statement.SUCCESS_NO_INFO,
+                    noInfoStmt.executeUpdate("UPDATE update_test_table SET salary = 21000 VALID PERIOD [2001-01-01 - 2002-01-01]"));
+            // counted statements are then executed separately
+            assertEquals(1, noInfoStmt.executeUpdate("UPDATE update_test_table SET salary = 22000 VALID PERIOD [2003-01-01 - 2004-01-01]"));
+            assertEquals(1, noInfoStmt.getUpdateCount());
+            noInfoStmt.close();
+        }
+        finally {
+            noInfo.close();
+        }
+    }
+
+    /**
+     * Create connection forwarding calls to other connection whose statements
+     * report SUCCESS_NO_INFO for every batched statement.
+     *
+     * @param target Connection to forward calls to
+     * @return Forwarding connection
+     */
+    private static Connection withoutBatchCounts(Connection target) {
+        return (Connection) Proxy.newProxyInstance(UpdateTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = forward(target, method, args);
+                    if (method.getName().equals("createStatement")) {
+                        Statement statement = (Statement) result;
+                        return Proxy.newProxyInstance(UpdateTest.class.getClassLoader(),
+                                new Class<?>[]{Statement.class}, (s, m, a) -> {
+                                    Object r = forward(statement, m, a);
+                                    if (m.getName().equals("executeBatch")) {
+                                        int[] counts = (int[]) r;
+                                        Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                                    }
+                                    return r;
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Invoke method on target object and unwrap its exception.
+     *
+     * @param target Object to invoke method on
+     * @param method Invoked method
+     * @param args Arguments of method
+     * @return Result of method
+     * @throws Throwable
+     */
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
 }
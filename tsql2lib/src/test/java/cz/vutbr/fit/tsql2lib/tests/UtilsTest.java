@@ -0,0 +1,324 @@
+/**
+ * Processor of TSQL2 on a Relational Database System
+ *
+ * LICENSE
+ *
+ * This source file is subject to the new BSD license that is bundled
+ * with this package in the file LICENSE.
+ * It is also available through the world-wide-web at this URL:
+ * http://www.opensource.org/licenses/bsd-license.php
+ *
+ * @copyright Copyright (c) 2016- Marek Rychly <marek.rychly@gmail.com>
+ * @license http://www.opensource.org/licenses/bsd-license.php New BSD License
+ */
+package cz.vutbr.fit.tsql2lib.tests;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import cz.vutbr.fit.tsql2lib.Constants;
+import cz.vutbr.fit.tsql2lib.DateTimeScale;
+import cz.vutbr.fit.tsql2lib.Settings;
+import cz.vutbr.fit.tsql2lib.Utils;
+
+/**
+ * Tests of date and time conversions. Results are compared with the former
+ * Calendar based implementation. Database connection is not required.
+ */
+public class UtilsTest extends TestCase implements Constants {
+
+    /**
+     * Time zones used in tests, including zones with half-hour DST and
+     * southern hemisphere DST.
+     */
+    private static final String[] ZONES = {"UTC", "Europe/Prague", "America/New_York",
+        "Australia/Lord_Howe", "Asia/Kolkata", "America/Sao_Paulo", "Pacific/Apia"};
+    /**
+     * Beginning of tested range, 1901-01-01. Before that time zone database of
+     * Calendar and java.time differ in local mean time.
+     */
+    private static final long FROM = -2177452800L;
+    /**
+     * End of tested range, 2100-01-01
+     */
+    private static final long TO = 4102444800L;
+
+    /**
+     * Time zone to restore after test
+     */
+    private ZoneId _timeZone;
+    /**
+     * Time zone of reference implementation
+     */
+    private TimeZone _referenceZone;
+
+    public static Test suite() {
+        return new TestSuite(UtilsTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        _timeZone = Settings.TimeZone;
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        Settings.TimeZone = _timeZone;
+    }
+
+    /**
+     * Test formatting and parsing against reference implementation in all
+     * scales for times sampled across the tested range and densely around
+     * every time zone transition.
+     */
+    public void testRoundTrip() throws Exception {
+        for (String zone : ZONES) {
+            useZone(zone);
+            for (long time : samples(zone)) {
+                for (DateTimeScale scale : DateTimeScale.values()) {
+                    String expected = referenceTimeToString(time, scale);
+                    assertEquals(zone + " " + time + " " + scale, expected, Utils.timeToString(time, scale));
+                    if (scale != DateTimeScale.UNDEFINED) {
+                        assertEquals(zone + " " + expected, referenceDateToTimestamp(expected), Utils.dateToTimestamp(expected));
+                    }
+                }
+                // parsing formatted time gives the same time except ambiguous times in overlaps
+                long parsed = Utils.dateToTimestamp(Utils.timeToString(time));
+                if (parsed != time) {
+                    assertEquals(zone + " " + time, Utils.timeToString(time), Utils.timeToString(parsed));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test partial, lenient and malformed literals against reference
+     * implementation.
+     */
+    public void testLiterals() throws Exception {
+        String[] literals = {"2000", "2000-13", "2000-02-30", "2000-00-00", "2000-01-01 24:00:00",
+            "2000-01-01 10:75", "2000-01-01 10:-5", "'2001-05-06 07:08:09'", "2000-1-1 1:2:3",
+            "2000-", "2000-01-01 10:", "2000-01-01-05 10:00:00:99", "2000-01-01  10:00",
+            "2000-01-01 10:00 ", "2000-01-01 10:00:00 x", "1969-12-31 23:59:59", "1901-06-15 12:00",
+            "2099-12-31 23:59:59", "", "'", "x", "2000--01", "2000-01-01 1x", "-2000", "99999999999"};
+        for (String zone : ZONES) {
+            useZone(zone);
+            for (String literal : literals) {
+                assertEquals(zone + " " + literal, referenceResult(literal), result(literal));
+            }
+        }
+    }
+
+    /**
+     * Test special values.
+     */
+    public void testForever() throws Exception {
+        assertEquals(FOREVER, Utils.dateToTimestamp("FOREVER"));
+        assertEquals(FOREVER, Utils.dateToTimestamp("'forever'"));
+        assertEquals("NOW", Utils.timeToString(FOREVER));
+        assertEquals("NOW", Utils.timeToString(FOREVER, DateTimeScale.DAY));
+        assertEquals("", Utils.timeToString(0, DateTimeScale.UNDEFINED));
+    }
+
+    /**
+     * Test appending to reused builder.
+     */
+    public void testAppendTime() throws Exception {
+        useZone("UTC");
+        StringBuilder sb = new StringBuilder();
+        Utils.appendTime(sb, 0, DateTimeScale.SECOND).append(" - ");
+        Utils.appendTime(sb, FOREVER, DateTimeScale.SECOND);
+        assertEquals("1970-01-01 00:00:00 - NOW", sb.toString());
+        sb.setLength(0);
+        Utils.appendTime(sb, 1234567890, DateTimeScale.HOUR);
+        assertEquals("2009-02-13 23:00", sb.toString());
+    }
+
+    /**
+     * Set time zone of tested and reference implementation.
+     *
+     * @param zone Time zone identifier
+     */
+    private void useZone(String zone) {
+        Settings.TimeZone = ZoneId.of(zone);
+        _referenceZone = TimeZone.getTimeZone(zone);
+    }
+
+    /**
+     * Get tested times for time zone.
+     *
+     * @param zone Time zone identifier
+     * @return Sampled times
+     */
+    private static ArrayList<Long> samples(String zone) {
+        ArrayList<Long> samples = new ArrayList<>();
+        // every 3 days and about one hour
+        for (long time = FROM; time < TO; time += 3 * 86400L + 3607L) {
+            samples.add(time);
+        }
+        // every 10 minutes two hours around transitions
+        ZoneRules rules = ZoneId.of(zone).getRules();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FROM));
+        while ((transition != null) && (transition.toEpochSecond() < TO)) {
+            long instant = transition.toEpochSecond();
+            for (long time = instant - 7200; time <= instant + 7200; time += 600) {
+                samples.add(time);
+            }
+            samples.add(instant - 1);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        return samples;
+    }
+
+    /**
+     * Parse literal by tested implementation.
+     *
+     * @param literal Date literal
+     * @return Timestamp or name of thrown exception
+     */
+    private static String result(String literal) {
+        try {
+            return String.valueOf(Utils.dateToTimestamp(literal));
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Parse literal by reference implementation.
+     *
+     * @param literal Date literal
+     * @return Timestamp or name of thrown exception
+     */
+    private String referenceResult(String literal) {
+        try {
+            return String.valueOf(referenceDateToTimestamp(literal));
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Former implementation of Utils.timeToString().
+     *
+     * @param seconds Time in seconds in Unix timestamp
+     * @param scale Scale of resulting time
+     * @return Depending on scale
+     */
+    private String referenceTimeToString(long seconds, DateTimeScale scale) {
+        if (seconds == FOREVER) {
+            return "NOW";
+        }
+
+        Calendar c = Calendar.getInstance(_referenceZone);
+        c.setTimeInMillis(seconds * 1000);
+
+        String result = "";
+        switch (scale) {
+            case YEAR:
+                result = String.format("%04d",
+                        c.get(Calendar.YEAR));
+                break;
+            case MONTH:
+                result = String.format("%04d-%02d",
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH) + 1);
+                break;
+            case DAY:
+                result = String.format("%04d-%02d-%02d",
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH) + 1,
+                        c.get(Calendar.DAY_OF_MONTH));
+                break;
+            case HOUR:
+                result = String.format("%04d-%02d-%02d %02d:%02d",
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH) + 1,
+                        c.get(Calendar.DAY_OF_MONTH),
+                        c.get(Calendar.HOUR_OF_DAY),
+                        0);
+                break;
+            case MINUTE:
+                result = String.format("%04d-%02d-%02d %02d:%02d",
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH) + 1,
+                        c.get(Calendar.DAY_OF_MONTH),
+                        c.get(Calendar.HOUR_OF_DAY),
+                        c.get(Calendar.MINUTE));
+                break;
+            case SECOND:
+                result = String.format("%04d-%02d-%02d %02d:%02d:%02d",
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH) + 1,
+                        c.get(Calendar.DAY_OF_MONTH),
+                        c.get(Calendar.HOUR_OF_DAY),
+                        c.get(Calendar.MINUTE),
+                        c.get(Calendar.SECOND));
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Former implementation of Utils.dateToTimestamp(). Milliseconds are
+     * cleared, former implementation kept milliseconds of current time which
+     * made times before 1970 one second later most of the time.
+     *
+     * @param date String representing date in format YYYY[-MM[-DD[
+     * HH[:MM[:SS]]]]]
+     * @return Number of seconds in unix timestamp format
+     */
+    private long referenceDateToTimestamp(String date) {
+        if (date.startsWith("'")) {
+            date = date.substring(1);
+        }
+        if (date.endsWith("'")) {
+            date = date.substring(0, date.length() - 1);
+        }
+
+        Calendar cal = Calendar.getInstance(_referenceZone);
+        // init to UTC beginning
+        cal.set(1970, 1, 1, 0, 0, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+
+        String[] dtFields = date.split(" ");
+        String[] dateFields = dtFields[0].split("-");
+
+        if (dateFields.length >= 1) {
+            if (dateFields[0].equalsIgnoreCase("FOREVER")) {
+                return FOREVER;
+            }
+            cal.set(Calendar.YEAR, Integer.parseInt(dateFields[0]));
+        }
+        if (dateFields.length >= 2) {
+            cal.set(Calendar.MONTH, Integer.parseInt(dateFields[1]) - 1);
+        }
+        if (dateFields.length >= 3) {
+            cal.set(Calendar.DAY_OF_MONTH, Integer.parseInt(dateFields[2]));
+        }
+
+        if (dtFields.length == 2) {
+            String[] timeFields = dtFields[1].split(":");
+
+            if (timeFields.length >= 1) {
+                cal.set(Calendar.HOUR_OF_DAY, Integer.parseInt(timeFields[0]));
+            }
+            if (timeFields.length >= 2) {
+                cal.set(Calendar.MINUTE, Integer.parseInt(timeFields[1]));
+            }
+            if (timeFields.length >= 3) {
+                cal.set(Calendar.SECOND, Integer.parseInt(timeFields[2]));
+            }
+        }
+        return Math.floorDiv(cal.getTimeInMillis(), 1000L);
+    }
+}